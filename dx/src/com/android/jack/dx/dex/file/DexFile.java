@@ -30,12 +30,19 @@ import com.android.jack.dx.util.ByteArrayAnnotatedOutput;
 import com.android.jack.dx.util.ExceptionWithContext;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.Writer;
 import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.zip.Adler32;
 
 /**
@@ -43,6 +50,12 @@ import java.util.zip.Adler32;
  * file, which itself consists of a set of Dalvik classes.
  */
 public final class DexFile {
+  /**
+   * size in bytes above which the items of a {@link MixedItemSection} are
+   * written in several parts by {@link #writeTo(OutputStream, ExecutorService)}
+   */
+  private static final int PART_SIZE = 256 * 1024;
+
   /** options controlling the creation of the file */
   private DexOptions dexOptions;
 
@@ -198,6 +211,12 @@ public final class DexFile {
    */
   public void writeTo(OutputStream out, Writer humanOut, boolean verbose) throws IOException {
     boolean annotate = (humanOut != null);
+
+    if (!annotate && out != null) {
+      writeTo(out, null);
+      return;
+    }
+
     ByteArrayAnnotatedOutput result = toDex0(annotate, verbose);
 
     if (out != null) {
@@ -209,6 +228,77 @@ public final class DexFile {
     }
   }
 
+  /**
+   * Writes the contents of this instance in binary form. The file is
+   * split into parts that are each written into their own buffer,
+   * concurrently if an executor is given. The signature is computed on
+   * the buffers in file order while the following parts are still being
+   * written, then the checksum, and the buffers are finally written to
+   * {@code out}. The signature and the checksum are in the header, thus
+   * all the buffers are kept until they are computed: this uses as much
+   * memory as {@link #toDex}, but never an array of the size of the
+   * whole file. Each buffer is released once it is written.
+   *
+   * @param out {@code non-null;} where to write to
+   * @param executor {@code null-ok;} executor writing the parts, or
+   * {@code null} to write them from the current thread
+   */
+  public void writeTo(OutputStream out, ExecutorService executor) throws IOException {
+    throwIfNotPrepared();
+
+    List<Part> parts = splitIntoParts();
+    List<byte[]> buffers = new ArrayList<byte[]>(parts.size());
+    MessageDigest md = newSignatureDigest();
+
+    if (executor == null) {
+      for (Part part : parts) {
+        byte[] buffer = part.call();
+        updateSignature(md, buffers.size(), buffer);
+        buffers.add(buffer);
+      }
+    } else {
+      List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>(parts.size());
+      try {
+        for (Part part : parts) {
+          futures.add(executor.submit(part));
+        }
+        for (Future<byte[]> future : futures) {
+          byte[] buffer = future.get();
+          updateSignature(md, buffers.size(), buffer);
+          buffers.add(buffer);
+        }
+        // Only the list references the buffers now, so that each one can be
+        // released once it is written
+        futures.clear();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      } catch (ExecutionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new ExceptionWithContext(cause);
+      } finally {
+        for (Future<byte[]> future : futures) {
+          future.cancel(true);
+        }
+      }
+    }
+
+    // Perform final bookkeeping.
+
+    writeSignature(md, buffers.get(0));
+    calcChecksum(buffers);
+
+    for (int i = 0; i < buffers.size(); i++) {
+      out.write(buffers.get(i));
+      buffers.set(i, null);
+    }
+  }
+
   /**
    * Returns the contents of this instance as a {@code .dex} file,
    * in {@code byte[]} form.
@@ -578,18 +668,7 @@ public final class DexFile {
    * @return {@code non-null;} a {@code .dex} file for this instance
    */
   private ByteArrayAnnotatedOutput toDex0(boolean annotate, boolean verbose) {
-    classDefs.throwIfNotPrepared();
-    classData.throwIfNotPrepared();
-    wordData.throwIfNotPrepared();
-    byteData.throwIfNotPrepared();
-    methodIds.throwIfNotPrepared();
-    fieldIds.throwIfNotPrepared();
-    protoIds.throwIfNotPrepared();
-    typeLists.throwIfNotPrepared();
-    typeIds.throwIfNotPrepared();
-    stringIds.throwIfNotPrepared();
-    stringData.throwIfNotPrepared();
-    header.throwIfNotPrepared();
+    throwIfNotPrepared();
 
     // Write out all the sections.
     int count = sections.length;
@@ -639,6 +718,141 @@ public final class DexFile {
     return out;
   }
 
+  /**
+   * Throws an exception if {@link #prepare} has not been called on this
+   * instance.
+   */
+  private void throwIfNotPrepared() {
+    classDefs.throwIfNotPrepared();
+    classData.throwIfNotPrepared();
+    wordData.throwIfNotPrepared();
+    byteData.throwIfNotPrepared();
+    methodIds.throwIfNotPrepared();
+    fieldIds.throwIfNotPrepared();
+    protoIds.throwIfNotPrepared();
+    typeLists.throwIfNotPrepared();
+    typeIds.throwIfNotPrepared();
+    stringIds.throwIfNotPrepared();
+    stringData.throwIfNotPrepared();
+    header.throwIfNotPrepared();
+  }
+
+  /**
+   * Splits the file into contiguous parts, that may be written
+   * independently of each other. Each section is a part, except for the
+   * large {@link MixedItemSection}s whose items are split into several
+   * parts of about {@link #PART_SIZE} bytes. Each part ends where the
+   * next one starts, so that it includes the alignment padding.
+   *
+   * @return {@code non-null;} the parts, in file order
+   */
+  private List<Part> splitIntoParts() {
+    List<Part> parts = new ArrayList<Part>();
+    int count = sections.length;
+
+    for (int i = 0; i < count; i++) {
+      Section one = sections[i];
+      int end = (i + 1 < count) ? sections[i + 1].getFileOffset() : fileSize;
+
+      if (one instanceof MixedItemSection && one.writeSize() > PART_SIZE) {
+        List<OffsettedItem> items = new ArrayList<OffsettedItem>(one.items().size());
+        for (Item item : one.items()) {
+          items.add((OffsettedItem) item);
+        }
+        int first = 0;
+        int itemCount = items.size();
+        for (int j = 1; j < itemCount; j++) {
+          int start = items.get(j).getAbsoluteOffset();
+          if (start - items.get(first).getAbsoluteOffset() >= PART_SIZE) {
+            parts.add(new Part(i, one, items.subList(first, j),
+                (first == 0) ? one.getFileOffset() : items.get(first).getAbsoluteOffset(), start));
+            first = j;
+          }
+        }
+        parts.add(new Part(i, one, items.subList(first, itemCount),
+            (first == 0) ? one.getFileOffset() : items.get(first).getAbsoluteOffset(), end));
+      } else {
+        parts.add(new Part(i, one, null, one.getFileOffset(), end));
+      }
+    }
+
+    if (parts.get(0).start != 0 || parts.get(0).end < 32) {
+      throw new RuntimeException("bogus placement for header");
+    }
+
+    return parts;
+  }
+
+  /**
+   * Contiguous part of the file, made of a whole section or of some
+   * items of a {@link MixedItemSection}.
+   */
+  private class Part implements Callable<byte[]> {
+    /** {@code >= 0;} index of the section of this part */
+    private final int sectionIndex;
+
+    /** {@code non-null;} section of this part */
+    private final Section section;
+
+    /**
+     * {@code null-ok;} items of {@link #section} in this part, or
+     * {@code null} if the part is the whole section
+     */
+    private final List<OffsettedItem> items;
+
+    /** {@code >= 0;} file offset of the start of this part */
+    private final int start;
+
+    /** {@code >= start;} file offset of the end of this part */
+    private final int end;
+
+    public Part(int sectionIndex, Section section, List<OffsettedItem> items, int start,
+        int end) {
+      this.sectionIndex = sectionIndex;
+      this.section = section;
+      this.items = items;
+      this.start = start;
+      this.end = end;
+    }
+
+    /**
+     * Writes this part.
+     *
+     * @return {@code non-null;} the bytes of the file from {@link #start}
+     * to {@link #end}
+     */
+    @Override
+    public byte[] call() {
+      byte[] barr = new byte[end - start];
+      ByteArrayAnnotatedOutput out = new ByteArrayAnnotatedOutput(barr, start);
+
+      try {
+        if (items == null) {
+          section.writeTo(out);
+        } else {
+          for (OffsettedItem one : items) {
+            one.writeTo(DexFile.this, out);
+          }
+        }
+      } catch (RuntimeException ex) {
+        ExceptionWithContext ec;
+        if (ex instanceof ExceptionWithContext) {
+          ec = (ExceptionWithContext) ex;
+        } else {
+          ec = new ExceptionWithContext(ex);
+        }
+        ec.addContext("...while writing section " + sectionIndex);
+        throw ec;
+      }
+
+      if (end == fileSize && out.getCursor() != fileSize) {
+        throw new RuntimeException("foreshortened write");
+      }
+
+      return barr;
+    }
+  }
+
   /**
    * Generates and returns statistics for all the items in the file.
    *
@@ -661,18 +875,50 @@ public final class DexFile {
    * @param bytes {@code non-null;} the bytes of the file
    */
   private static void calcSignature(byte[] bytes) {
-    MessageDigest md;
+    MessageDigest md = newSignatureDigest();
+    md.update(bytes, 32, bytes.length - 32);
+    writeSignature(md, bytes);
+  }
 
+  /**
+   * Returns a new digest for the signature of a {@code .dex} file.
+   *
+   * @return {@code non-null;} the digest
+   */
+  private static MessageDigest newSignatureDigest() {
     try {
-      md = MessageDigest.getInstance("SHA-1");
+      return MessageDigest.getInstance("SHA-1");
     } catch (NoSuchAlgorithmException ex) {
       throw new RuntimeException(ex);
     }
+  }
 
-    md.update(bytes, 32, bytes.length - 32);
+  /**
+   * Adds a part of a {@code .dex} file to its signature.
+   *
+   * @param md {@code non-null;} the signature digest
+   * @param index {@code >= 0;} index of the part in the file
+   * @param part {@code non-null;} the bytes of the part
+   */
+  private static void updateSignature(MessageDigest md, int index, byte[] part) {
+    if (index == 0) {
+      md.update(part, 32, part.length - 32);
+    } else {
+      md.update(part);
+    }
+  }
 
+  /**
+   * Completes the signature of a {@code .dex} file and writes it in the
+   * header.
+   *
+   * @param md {@code non-null;} the signature digest, updated with the
+   * whole file after the signature
+   * @param header {@code non-null;} the bytes of the start of the file
+   */
+  private static void writeSignature(MessageDigest md, byte[] header) {
     try {
-      int amt = md.digest(bytes, 12, 20);
+      int amt = md.digest(header, 12, 20);
       if (amt != 20) {
         throw new RuntimeException("unexpected digest write: " + amt + " bytes");
       }
@@ -688,15 +934,29 @@ public final class DexFile {
    * @param bytes {@code non-null;} the bytes of the file
    */
   private static void calcChecksum(byte[] bytes) {
+    calcChecksum(Collections.singletonList(bytes));
+  }
+
+  /**
+   * Calculates the checksum for the {@code .dex} file made of the
+   * given parts, and modify the first part to contain it.
+   *
+   * @param parts {@code non-null;} the bytes of the file, in order
+   */
+  private static void calcChecksum(List<byte[]> parts) {
     Adler32 a32 = new Adler32();
+    byte[] header = parts.get(0);
 
-    a32.update(bytes, 12, bytes.length - 12);
+    a32.update(header, 12, header.length - 12);
+    for (int i = 1; i < parts.size(); i++) {
+      a32.update(parts.get(i));
+    }
 
     int sum = (int) a32.getValue();
 
-    bytes[8] = (byte) sum;
-    bytes[9] = (byte) (sum >> 8);
-    bytes[10] = (byte) (sum >> 16);
-    bytes[11] = (byte) (sum >> 24);
+    header[8] = (byte) sum;
+    header[9] = (byte) (sum >> 8);
+    header[10] = (byte) (sum >> 16);
+    header[11] = (byte) (sum >> 24);
   }
 }
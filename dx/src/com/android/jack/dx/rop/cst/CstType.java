@@ -17,15 +17,15 @@
 package com.android.jack.dx.rop.cst;
 
 import com.android.jack.dx.rop.type.Type;
-
-import java.util.HashMap;
+import com.android.jack.dx.util.WeakInternTable;
 
 /**
  * Constants that represent an arbitrary type (reference or primitive).
  */
 public final class CstType extends TypedConstant {
-  /** {@code non-null;} map of interned types */
-  private static final HashMap<Type, CstType> interns = new HashMap<Type, CstType>(100);
+  /** {@code non-null;} map of interned types, which are held weakly */
+  private static final WeakInternTable<Type, CstType> interns =
+      new WeakInternTable<Type, CstType>(100);
 
   /** {@code non-null;} instance corresponding to the class {@code Object} */
   public static final CstType OBJECT = intern(Type.OBJECT);
@@ -131,16 +131,13 @@ public final class CstType extends TypedConstant {
    * @return {@code non-null;} an appropriately-constructed instance
    */
   public static CstType intern(Type type) {
-    synchronized (interns) {
-      CstType cst = interns.get(type);
-
-      if (cst == null) {
-        cst = new CstType(type);
-        interns.put(type, cst);
-      }
+    CstType cst = interns.get(type);
 
-      return cst;
+    if (cst == null) {
+      cst = interns.putIfAbsent(type, new CstType(type));
     }
+
+    return cst;
   }
 
   /**
@@ -17,8 +17,7 @@
 package com.android.jack.dx.rop.type;
 
 import com.android.jack.dx.util.Hex;
-
-import java.util.HashMap;
+import com.android.jack.dx.util.WeakInternTable;
 
 /**
  * Representation of a value type, such as may appear in a field, in a
@@ -29,9 +28,10 @@ import java.util.HashMap;
 public final class Type implements TypeBearer, Comparable<Type> {
   /**
    * {@code non-null;} intern table mapping string descriptors to
-   * instances
+   * instances, which are held weakly
    */
-  private static final HashMap<String, Type> internTable = new HashMap<String, Type>(500);
+  private static final WeakInternTable<String, Type> internTable =
+      new WeakInternTable<String, Type>(500);
 
   /** basic type constant for {@code void} */
   public static final int BT_VOID = 0;
@@ -290,10 +290,11 @@ public final class Type implements TypeBearer, Comparable<Type> {
    * invalid syntax
    */
   public static Type intern(String descriptor) {
-    Type result;
-    synchronized (internTable) {
-      result = internTable.get(descriptor);
+    if (descriptor == null) {
+      throw new NullPointerException("descriptor == null");
     }
+
+    Type result = internTable.get(descriptor);
     if (result != null) {
       return result;
     }
@@ -304,9 +305,6 @@ public final class Type implements TypeBearer, Comparable<Type> {
     } catch (IndexOutOfBoundsException ex) {
       // Translate the exception.
       throw new IllegalArgumentException("descriptor is empty");
-    } catch (NullPointerException ex) {
-      // Elucidate the exception.
-      throw new NullPointerException("descriptor == null");
     }
 
     if (firstChar == '[') {
@@ -857,14 +855,6 @@ int limit = (length - 1); // Skip the final ';'.
    * @return {@code non-null;} the actual interned object
    */
   private static Type putIntern(Type type) {
-    synchronized (internTable) {
-      String descriptor = type.getDescriptor();
-      Type already = internTable.get(descriptor);
-      if (already != null) {
-        return already;
-      }
-      internTable.put(descriptor, type);
-      return type;
-    }
+    return internTable.putIfAbsent(type.getDescriptor(), type);
   }
 }
@@ -80,7 +80,7 @@ public class LiteralOpUpgrader {
    * Run the literal op upgrader
    */
   private void run() {
-    final TranslationAdvice advice = Optimizer.getAdvice();
+    final TranslationAdvice advice = ssaMeth.getOptimizerContext().getAdvice();
 
     ssaMeth.forEachInsn(new SsaInsn.Visitor() {
       @Override
@@ -227,7 +227,9 @@ public final class NormalSsaInsn extends SsaInsn implements Cloneable {
       return true;
     }
 
-    boolean hasLocalSideEffect = Optimizer.getPreserveLocals() && getLocalAssignment() != null;
+    boolean hasLocalSideEffect =
+        getBlock().getParent().getOptimizerContext().getPreserveLocals()
+        && getLocalAssignment() != null;
 
     switch (opcode.getOpcode()) {
       case RegOps.MOVE_RESULT:
@@ -26,32 +26,16 @@ import java.util.EnumSet;
 /**
  * Runs a method through the SSA form conversion, any optimization algorithms,
  * and returns it to rop form.
+ *
+ * The settings of a run are kept in an {@link OptimizerContext} owned by the
+ * method being optimized, so that methods can be optimized concurrently.
  */
 public class Optimizer {
-  private static boolean preserveLocals = true;
-
-  private static TranslationAdvice advice;
-
   /** optional optimizer steps */
   public enum OptionalStep {
     SCCP, LITERAL_UPGRADE, CONST_COLLECTOR
   }
 
-  /**
-   * @return true if local variable information should be preserved, even
-   * at code size/register size cost
-   */
-  public static boolean getPreserveLocals() {
-    return preserveLocals;
-  }
-
-  /**
-   * @return {@code non-null;} translation advice
-   */
-  public static TranslationAdvice getAdvice() {
-    return advice;
-  }
-
   /**
    * Runs optimization algorthims over this method, and returns a new
    * instance of RopMethod with the changes.
@@ -97,18 +81,16 @@ public class Optimizer {
       TranslationAdvice inAdvice,
       EnumSet<OptionalStep> steps) {
     SsaMethod ssaMeth = null;
+    OptimizerContext context = new OptimizerContext(inPreserveLocals, inAdvice);
 
-    preserveLocals = inPreserveLocals;
-    advice = inAdvice;
-
-    ssaMeth = SsaConverter.convertToSsaMethod(rmeth, paramWidth, isStatic);
+    ssaMeth = SsaConverter.convertToSsaMethod(rmeth, paramWidth, isStatic, context);
     runSsaFormSteps(ssaMeth, steps);
 
     RopMethod resultMeth = SsaToRop.convertToRopMethod(ssaMeth, false);
 
-    if (resultMeth.getBlocks().getRegCount() > advice.getMaxOptimalRegisterCount()) {
+    if (resultMeth.getBlocks().getRegCount() > inAdvice.getMaxOptimalRegisterCount()) {
       // Try to see if we can squeeze it under the register count bar
-      resultMeth = optimizeMinimizeRegisters(rmeth, paramWidth, isStatic, steps);
+      resultMeth = optimizeMinimizeRegisters(rmeth, paramWidth, isStatic, context, steps);
     }
     return resultMeth;
   }
@@ -125,15 +107,16 @@ public class Optimizer {
    * @param paramWidth the total width, in register-units, of this method's
    * parameters
    * @param isStatic true if this method has no 'this' pointer argument.
+   * @param context {@code non-null;} settings of this optimizer run
    * @param steps set of optional optimization steps to run
    * @return optimized method
    */
   private static RopMethod optimizeMinimizeRegisters(RopMethod rmeth, int paramWidth,
-      boolean isStatic, EnumSet<OptionalStep> steps) {
+      boolean isStatic, OptimizerContext context, EnumSet<OptionalStep> steps) {
     SsaMethod ssaMeth;
     RopMethod resultMeth;
 
-    ssaMeth = SsaConverter.convertToSsaMethod(rmeth, paramWidth, isStatic);
+    ssaMeth = SsaConverter.convertToSsaMethod(rmeth, paramWidth, isStatic, context);
 
     EnumSet<OptionalStep> newSteps = steps.clone();
 
@@ -181,28 +164,25 @@ public class Optimizer {
   public static SsaMethod debugEdgeSplit(RopMethod rmeth, int paramWidth, boolean isStatic,
       boolean inPreserveLocals, TranslationAdvice inAdvice) {
 
-    preserveLocals = inPreserveLocals;
-    advice = inAdvice;
+    OptimizerContext context = new OptimizerContext(inPreserveLocals, inAdvice);
 
-    return SsaConverter.testEdgeSplit(rmeth, paramWidth, isStatic);
+    return SsaConverter.testEdgeSplit(rmeth, paramWidth, isStatic, context);
   }
 
   public static SsaMethod debugPhiPlacement(RopMethod rmeth, int paramWidth, boolean isStatic,
       boolean inPreserveLocals, TranslationAdvice inAdvice) {
 
-    preserveLocals = inPreserveLocals;
-    advice = inAdvice;
+    OptimizerContext context = new OptimizerContext(inPreserveLocals, inAdvice);
 
-    return SsaConverter.testPhiPlacement(rmeth, paramWidth, isStatic);
+    return SsaConverter.testPhiPlacement(rmeth, paramWidth, isStatic, context);
   }
 
   public static SsaMethod debugRenaming(RopMethod rmeth, int paramWidth, boolean isStatic,
       boolean inPreserveLocals, TranslationAdvice inAdvice) {
 
-    preserveLocals = inPreserveLocals;
-    advice = inAdvice;
+    OptimizerContext context = new OptimizerContext(inPreserveLocals, inAdvice);
 
-    return SsaConverter.convertToSsaMethod(rmeth, paramWidth, isStatic);
+    return SsaConverter.convertToSsaMethod(rmeth, paramWidth, isStatic, context);
   }
 
   public static SsaMethod debugDeadCodeRemover(RopMethod rmeth, int paramWidth, boolean isStatic,
@@ -210,10 +190,9 @@ public class Optimizer {
 
     SsaMethod ssaMeth;
 
-    preserveLocals = inPreserveLocals;
-    advice = inAdvice;
+    OptimizerContext context = new OptimizerContext(inPreserveLocals, inAdvice);
 
-    ssaMeth = SsaConverter.convertToSsaMethod(rmeth, paramWidth, isStatic);
+    ssaMeth = SsaConverter.convertToSsaMethod(rmeth, paramWidth, isStatic, context);
     DeadCodeRemover.process(ssaMeth);
 
     return ssaMeth;
@@ -228,10 +207,9 @@ public class Optimizer {
 
     SsaMethod ssaMeth;
 
-    preserveLocals = inPreserveLocals;
-    advice = inAdvice;
+    OptimizerContext context = new OptimizerContext(inPreserveLocals, inAdvice);
 
-    ssaMeth = SsaConverter.convertToSsaMethod(rmeth, paramWidth, isStatic);
+    ssaMeth = SsaConverter.convertToSsaMethod(rmeth, paramWidth, isStatic, context);
 
     runSsaFormSteps(ssaMeth, steps);
 
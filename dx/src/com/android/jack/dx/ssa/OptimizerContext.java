@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.dx.ssa;
+
+import com.android.jack.dx.rop.code.TranslationAdvice;
+
+/**
+ * Settings of one run of the {@link Optimizer}, reachable from the
+ * {@link SsaMethod} being optimized by each SSA pass. Each method gets
+ * its own context, so that several methods can be optimized at the
+ * same time.
+ */
+public final class OptimizerContext {
+  /**
+   * true if local variable information should be preserved, even
+   * at code size/register size cost
+   */
+  private final boolean preserveLocals;
+
+  /** {@code non-null;} translation advice */
+  private final TranslationAdvice advice;
+
+  /**
+   * Constructs an instance.
+   *
+   * @param preserveLocals true if local variable info should be
+   * preserved, at the cost of some registers and insns
+   * @param advice {@code non-null;} translation advice
+   */
+  public OptimizerContext(boolean preserveLocals, TranslationAdvice advice) {
+    if (advice == null) {
+      throw new NullPointerException("advice == null");
+    }
+
+    this.preserveLocals = preserveLocals;
+    this.advice = advice;
+  }
+
+  /**
+   * @return true if local variable information should be preserved, even
+   * at code size/register size cost
+   */
+  public boolean getPreserveLocals() {
+    return preserveLocals;
+  }
+
+  /**
+   * @return {@code non-null;} translation advice
+   */
+  public TranslationAdvice getAdvice() {
+    return advice;
+  }
+}
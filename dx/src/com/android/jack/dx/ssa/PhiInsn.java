@@ -313,7 +313,8 @@ for (Operand o : operands) {
   /** {@inheritDoc} */
   @Override
   public boolean hasSideEffect() {
-    return Optimizer.getPreserveLocals() && getLocalAssignment() != null;
+    return getBlock().getParent().getOptimizerContext().getPreserveLocals()
+        && getLocalAssignment() != null;
   }
 
   /** {@inheritDoc} */
@@ -38,10 +38,13 @@ public class SsaConverter {
    * parameters
    * @param isStatic {@code true} if this method has no {@code this}
    * pointer argument
+   * @param context {@code non-null;} settings of the optimizer run on
+   * this method
    * @return output in SSA form
    */
-  public static SsaMethod convertToSsaMethod(RopMethod rmeth, int paramWidth, boolean isStatic) {
-    SsaMethod result = SsaMethod.newFromRopMethod(rmeth, paramWidth, isStatic);
+  public static SsaMethod convertToSsaMethod(RopMethod rmeth, int paramWidth, boolean isStatic,
+      OptimizerContext context) {
+    SsaMethod result = SsaMethod.newFromRopMethod(rmeth, paramWidth, isStatic, context);
 
     edgeSplit(result);
 
@@ -79,12 +82,15 @@ public class SsaConverter {
    * @param paramWidth width of all arguments in the method
    * @param isStatic {@code true} if this method has no {@code this}
    * pointer argument
+   * @param context {@code non-null;} settings of the optimizer run on
+   * this method
    * @return an SSA represention with only the edge-splitter run
    */
-  public static SsaMethod testEdgeSplit(RopMethod rmeth, int paramWidth, boolean isStatic) {
+  public static SsaMethod testEdgeSplit(RopMethod rmeth, int paramWidth, boolean isStatic,
+      OptimizerContext context) {
     SsaMethod result;
 
-    result = SsaMethod.newFromRopMethod(rmeth, paramWidth, isStatic);
+    result = SsaMethod.newFromRopMethod(rmeth, paramWidth, isStatic, context);
 
     edgeSplit(result);
     return result;
@@ -98,12 +104,15 @@ public class SsaConverter {
    * @param paramWidth width of all arguments in the method
    * @param isStatic {@code true} if this method has no {@code this}
    * pointer argument
+   * @param context {@code non-null;} settings of the optimizer run on
+   * this method
    * @return an SSA represention with only the edge-splitter run
    */
-  public static SsaMethod testPhiPlacement(RopMethod rmeth, int paramWidth, boolean isStatic) {
+  public static SsaMethod testPhiPlacement(RopMethod rmeth, int paramWidth, boolean isStatic,
+      OptimizerContext context) {
     SsaMethod result;
 
-    result = SsaMethod.newFromRopMethod(rmeth, paramWidth, isStatic);
+    result = SsaMethod.newFromRopMethod(rmeth, paramWidth, isStatic, context);
 
     edgeSplit(result);
 
@@ -69,6 +69,9 @@ public final class SsaMethod {
   /** true if this method has no {@code this} pointer argument */
   private final boolean isStatic;
 
+  /** {@code non-null;} settings of the optimizer run on this method */
+  private final OptimizerContext context;
+
   /**
    * indexed by register: the insn where said register is defined or null
    * if undefined. null until (lazily) created.
@@ -96,9 +99,12 @@ public final class SsaMethod {
    * method's parameters
    * @param isStatic {@code true} if this method has no {@code this}
    * pointer argument
+   * @param context {@code non-null;} settings of the optimizer run on
+   * this method
    */
-  public static SsaMethod newFromRopMethod(RopMethod ropMethod, int paramWidth, boolean isStatic) {
-    SsaMethod result = new SsaMethod(ropMethod, paramWidth, isStatic);
+  public static SsaMethod newFromRopMethod(RopMethod ropMethod, int paramWidth, boolean isStatic,
+      OptimizerContext context) {
+    SsaMethod result = new SsaMethod(ropMethod, paramWidth, isStatic, context);
 
     result.convertRopToSsaBlocks(ropMethod);
 
@@ -114,10 +120,18 @@ public final class SsaMethod {
    * method's parameters
    * @param isStatic {@code true} if this method has no {@code this}
    * pointer argument
+   * @param context {@code non-null;} settings of the optimizer run on
+   * this method
    */
-  private SsaMethod(RopMethod ropMethod, int paramWidth, boolean isStatic) {
+  private SsaMethod(RopMethod ropMethod, int paramWidth, boolean isStatic,
+      OptimizerContext context) {
+    if (context == null) {
+      throw new NullPointerException("context == null");
+    }
+
     this.paramWidth = paramWidth;
     this.isStatic = isStatic;
+    this.context = context;
     this.backMode = false;
     this.maxLabel = ropMethod.getBlocks().getMaxLabel();
     this.registerCount = ropMethod.getBlocks().getRegCount();
@@ -302,6 +316,13 @@ public final class SsaMethod {
     return isStatic;
   }
 
+  /**
+   * @return {@code non-null;} settings of the optimizer run on this method
+   */
+  public OptimizerContext getOptimizerContext() {
+    return context;
+  }
+
   /**
    * Borrows a register to use as a temp. Used in the phi removal process.
    * Call returnSpareRegisters() when done.
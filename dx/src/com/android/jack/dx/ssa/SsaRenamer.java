@@ -530,7 +530,7 @@ LocalItem newLocal = (resultLocal == null) ? sourceLocal : resultLocal;
       RegisterSpec ssaReg =
           RegisterSpec.makeLocalOptional(ssaSourceReg, ropResult.getType(), newLocal);
 
-      if (!Optimizer.getPreserveLocals()
+      if (!ssaMeth.getOptimizerContext().getPreserveLocals()
           || (onlyOneAssociatedLocal && equalsHandlesNulls(newLocal, sourceLocal))
           && threshold == 0) {
         /*
@@ -26,7 +26,6 @@ import com.android.jack.dx.rop.code.Rop;
 import com.android.jack.dx.rop.cst.CstInteger;
 import com.android.jack.dx.ssa.InterferenceRegisterMapper;
 import com.android.jack.dx.ssa.NormalSsaInsn;
-import com.android.jack.dx.ssa.Optimizer;
 import com.android.jack.dx.ssa.PhiInsn;
 import com.android.jack.dx.ssa.RegisterMapper;
 import com.android.jack.dx.ssa.SsaBasicBlock;
@@ -738,7 +737,7 @@ public class FirstFitLocalCombiningAllocator extends RegisterAllocator {
         if (insn instanceof NormalSsaInsn) {
           if (insn.getOpcode().getOpcode() == RegOps.MOVE_RESULT_PSEUDO) {
             moveResultPseudoInsns.add((NormalSsaInsn) insn);
-          } else if (Optimizer.getAdvice().requiresSourcesInOrder(
+          } else if (ssaMeth.getOptimizerContext().getAdvice().requiresSourcesInOrder(
               insn.getOriginalRopInsn().getOpcode(), insn.getSources())) {
             invokeRangeInsns.add((NormalSsaInsn) insn);
           }
@@ -40,9 +40,12 @@ public final class ByteArrayAnnotatedOutput implements AnnotatedOutput, ByteOutp
   /** {@code non-null;} the data itself */
   private byte[] data;
 
-  /** {@code >= 0;} current output cursor */
+  /** {@code >= 0;} current output cursor, relative to {@link #origin} */
   private int cursor;
 
+  /** {@code >= 0;} offset in the output file of the first byte of {@link #data} */
+  private final int origin;
+
   /** whether annotations are to be verbose */
   private boolean verbose;
 
@@ -71,7 +74,22 @@ public final class ByteArrayAnnotatedOutput implements AnnotatedOutput, ByteOutp
    * @param data {@code non-null;} data array to use for output
    */
   public ByteArrayAnnotatedOutput(byte[] data) {
-    this(data, false);
+    this(data, 0, false);
+  }
+
+  /**
+   * Constructs an instance with a fixed maximum size, that writes the
+   * part of a file starting at {@code origin}. Cursors and alignments
+   * are then relative to the start of the file, so that several parts of
+   * a file may be written separately. The constructed instance does not
+   * keep annotations by default.
+   *
+   * @param data {@code non-null;} data array to use for output
+   * @param origin {@code >= 0;} offset in the file of the first byte of
+   * {@code data}
+   */
+  public ByteArrayAnnotatedOutput(byte[] data, int origin) {
+    this(data, origin, false);
   }
 
   /**
@@ -89,23 +107,30 @@ public final class ByteArrayAnnotatedOutput implements AnnotatedOutput, ByteOutp
    * keep annotations by default.
    */
   public ByteArrayAnnotatedOutput(int size) {
-    this(new byte[size], true);
+    this(new byte[size], 0, true);
   }
 
   /**
    * Internal constructor.
    *
    * @param data {@code non-null;} data array to use for output
+   * @param origin {@code >= 0;} offset in the file of the first byte of
+   * {@code data}
    * @param stretchy whether the instance is to be stretchy
    */
-  private ByteArrayAnnotatedOutput(byte[] data, boolean stretchy) {
+  private ByteArrayAnnotatedOutput(byte[] data, int origin, boolean stretchy) {
     if (data == null) {
       throw new NullPointerException("data == null");
     }
 
+    if (origin < 0) {
+      throw new IllegalArgumentException("origin < 0");
+    }
+
     this.stretchy = stretchy;
     this.data = data;
     this.cursor = 0;
+    this.origin = origin;
     this.verbose = false;
     this.annotations = null;
     this.annotationWidth = 0;
@@ -142,15 +167,15 @@ public final class ByteArrayAnnotatedOutput implements AnnotatedOutput, ByteOutp
   /** {@inheritDoc} */
   @Override
   public int getCursor() {
-    return cursor;
+    return origin + cursor;
   }
 
   /** {@inheritDoc} */
   @Override
   public void assertCursor(int expectedCursor) {
-    if (cursor != expectedCursor) {
+    if (getCursor() != expectedCursor) {
       throw new ExceptionWithContext(
-          "expected cursor " + expectedCursor + "; actual value: " + cursor);
+          "expected cursor " + expectedCursor + "; actual value: " + getCursor());
     }
   }
 
@@ -340,7 +365,7 @@ cursor = end;
       throw new IllegalArgumentException("bogus alignment");
     }
 
-    int end = (cursor + mask) & ~mask;
+    int end = ((origin + cursor + mask) & ~mask) - origin;
 
     if (stretchy) {
       ensureCapacity(end);
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.dx.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Intern table which holds its instances weakly. An interned instance
+ * stays the canonical one for its key as long as it is reachable, for
+ * example from a static field, so instances can still be compared with
+ * {@code ==}. Instances which are not reachable anymore are removed
+ * from the table, so a long-lived process does not keep the instances
+ * of previous compilations. Reads do not lock.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the interned instances
+ */
+public final class WeakInternTable<K, V> {
+  /** {@code non-null;} map of keys to the references to their instance */
+  private final ConcurrentHashMap<K, Entry<K, V>> map;
+
+  /** {@code non-null;} queue of the references whose instance was collected */
+  private final ReferenceQueue<V> queue = new ReferenceQueue<V>();
+
+  /**
+   * Weak reference to an interned instance, which remembers its key so
+   * that it can be removed from the map once the instance is collected.
+   */
+  private static final class Entry<K, V> extends WeakReference<V> {
+    /** {@code non-null;} key of the instance */
+    private final K key;
+
+    public Entry(K key, V value, ReferenceQueue<V> queue) {
+      super(value, queue);
+      this.key = key;
+    }
+  }
+
+  /**
+   * Constructs an instance.
+   *
+   * @param initialCapacity {@code >= 0;} initial capacity of the table
+   */
+  public WeakInternTable(int initialCapacity) {
+    map = new ConcurrentHashMap<K, Entry<K, V>>(initialCapacity);
+  }
+
+  /**
+   * Gets the instance interned for the given key.
+   *
+   * @param key {@code non-null;} the key
+   * @return {@code null-ok;} the interned instance, or {@code null} if
+   * there is none
+   */
+  public V get(K key) {
+    Entry<K, V> entry = map.get(key);
+    return entry == null ? null : entry.get();
+  }
+
+  /**
+   * Interns the given instance for the given key if there is no instance
+   * interned for it yet.
+   *
+   * @param key {@code non-null;} the key
+   * @param value {@code non-null;} instance to make interned
+   * @return {@code non-null;} the actual interned instance
+   */
+  public V putIfAbsent(K key, V value) {
+    expungeStaleEntries();
+
+    Entry<K, V> entry = new Entry<K, V>(key, value, queue);
+    while (true) {
+      Entry<K, V> already = map.putIfAbsent(key, entry);
+      if (already == null) {
+        return value;
+      }
+
+      V alreadyValue = already.get();
+      if (alreadyValue != null) {
+        return alreadyValue;
+      }
+
+      // The instance interned before was collected, take its place
+      if (map.replace(key, already, entry)) {
+        return value;
+      }
+    }
+  }
+
+  /**
+   * Gets the number of entries in the table, including the ones whose
+   * instance was collected but not removed yet.
+   *
+   * @return {@code >= 0;} the number of entries
+   */
+  public int size() {
+    return map.size();
+  }
+
+  /**
+   * Removes the entries whose instance was collected.
+   */
+  public void expungeStaleEntries() {
+    Reference<? extends V> reference;
+    while ((reference = queue.poll()) != null) {
+      Entry<?, ?> entry = (Entry<?, ?>) reference;
+      map.remove(entry.key, entry);
+    }
+  }
+}
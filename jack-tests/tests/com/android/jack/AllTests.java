@@ -56,6 +56,7 @@ import com.android.jack.synchronize.SynchronizeTests;
 import com.android.jack.threeaddress.ThreeaddressTests;
 import com.android.jack.throwstatement.ThrowstatementTests;
 import com.android.jack.tools.merger.MergerAllTests;
+import com.android.jack.transformations.request.TransformationRequestTests;
 import com.android.jack.trycatch.TrycatchTests;
 import com.android.jack.tryfinally.TryfinallyTests;
 import com.android.jack.type.TypeTests;
@@ -123,6 +124,7 @@ import org.junit.runners.Suite.SuiteClasses;
     SynchronizeTests.class,
     ThreeaddressTests.class,
     ThrowstatementTests.class,
+    TransformationRequestTests.class,
     TrycatchTests.class,
     TryfinallyTests.class,
     TypeTests.class,
@@ -119,8 +119,8 @@ public class DependenciesTest008 {
         ite.incrementalBuildFromFolder();
         Assert.fail();
       } catch (FrontendCompilationException e)  {
-        // Error is ok
-        Assert.assertEquals(0, ite.getJackFiles().size());
+        // Error is ok, A is compiled before the types depending on its modified API
+        Assert.assertEquals(1, ite.getJackFiles().size());
       }
   }
 }
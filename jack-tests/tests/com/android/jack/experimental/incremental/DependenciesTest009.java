@@ -18,6 +18,7 @@ package com.android.jack.experimental.incremental;
 
 import com.android.jack.Main;
 import com.android.jack.TestTools;
+import com.android.jack.analysis.dependency.Dependency;
 import com.android.jack.analysis.dependency.type.TypeDependencies;
 import com.android.jack.library.FileType;
 import com.android.jack.library.FileTypeDoesNotExistException;
@@ -38,7 +39,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.util.Map;
 import java.util.Set;
 
@@ -107,16 +108,16 @@ public class DependenciesTest009 {
     TypeDependencies typeDependencies = new TypeDependencies();
     InputVFile typeDependenciesVFile =
         inputJackLibrary.getFile(FileType.DEPENDENCIES, TypeDependencies.vpath);
-    InputStreamReader reader = null;
+    InputStream in = null;
     try {
-      reader = new InputStreamReader(typeDependenciesVFile.openRead());
-      typeDependencies.read(reader);
+      in = typeDependenciesVFile.openRead();
+      typeDependencies.read(Dependency.load(in));
     } catch (IOException e) {
       throw new CannotReadException(typeDependenciesVFile.getLocation(), e);
     } finally {
-      if (reader != null) {
+      if (in != null) {
         try {
-          reader.close();
+          in.close();
         } catch (IOException e) {
         }
       }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.experimental.incremental;
+
+import com.android.jack.Main;
+import com.android.jack.TestTools;
+import com.android.jack.test.helper.IncrementalTestHelper;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * JUnit test checking that types are recompiled according to the content and the API of the
+ * types they depend on.
+ */
+public class DependenciesTest016 {
+
+  @BeforeClass
+  public static void setUpClass() {
+    Main.class.getClassLoader().setDefaultAssertionStatus(true);
+  }
+
+  /**
+   * Check that only A is recompiled when the body of one of its methods is modified.
+   */
+  @Test
+  public void testDependency001() throws Exception {
+    IncrementalTestHelper ite =
+        new IncrementalTestHelper(TestTools.createTempDir("DependenciesTest_", "_001"));
+
+    ite.addJavaFile("jack.incremental", "A.java",
+        "package jack.incremental; \n"+
+        "public class A { public int m() { return 1; } } \n");
+
+    ite.addJavaFile("jack.incremental", "B.java",
+        "package jack.incremental; \n"+
+        "public class B extends A { public int n() { return m(); } } \n");
+
+    ite.addJavaFile("jack.incremental", "C.java",
+        "package jack.incremental; \n"+
+        "public class C { public int n() { return new A().m(); } } \n");
+
+    ite.incrementalBuildFromFolder();
+    ite.snapshotJackFilesModificationDate();
+
+    ite.addJavaFile("jack.incremental", "A.java",
+        "package jack.incremental; \n"+
+        "public class A { public int m() { return 2; } private int p; } \n");
+
+    ite.incrementalBuildFromFolder();
+
+    List<String> fqnOfRebuiltTypes = ite.getFQNOfRebuiltTypes();
+    Assert.assertEquals(1, fqnOfRebuiltTypes.size());
+    Assert.assertEquals("jack.incremental.A", fqnOfRebuiltTypes.get(0));
+  }
+
+  /**
+   * Check that types using a constant are recompiled when its value is modified.
+   */
+  @Test
+  public void testDependency002() throws Exception {
+    IncrementalTestHelper ite =
+        new IncrementalTestHelper(TestTools.createTempDir("DependenciesTest_", "_002"));
+
+    ite.addJavaFile("jack.incremental", "A.java",
+        "package jack.incremental; \n"+
+        "public class A { public static final int CST = 1; } \n");
+
+    ite.addJavaFile("jack.incremental", "B.java",
+        "package jack.incremental; \n"+
+        "public class B { public int n() { return A.CST; } } \n");
+
+    ite.incrementalBuildFromFolder();
+    ite.snapshotJackFilesModificationDate();
+
+    ite.addJavaFile("jack.incremental", "A.java",
+        "package jack.incremental; \n"+
+        "public class A { public static final int CST = 2; } \n");
+
+    ite.incrementalBuildFromFolder();
+
+    List<String> fqnOfRebuiltTypes = ite.getFQNOfRebuiltTypes();
+    Assert.assertEquals(2, fqnOfRebuiltTypes.size());
+    Assert.assertTrue(fqnOfRebuiltTypes.contains("jack.incremental.A"));
+    Assert.assertTrue(fqnOfRebuiltTypes.contains("jack.incremental.B"));
+  }
+
+  /**
+   * Check that no type is recompiled when a file is written again with the same content.
+   */
+  @Test
+  public void testDependency003() throws Exception {
+    IncrementalTestHelper ite =
+        new IncrementalTestHelper(TestTools.createTempDir("DependenciesTest_", "_003"));
+
+    String content = "package jack.incremental; \n"+
+        "public class A { public int m() { return 1; } } \n";
+    File a = ite.addJavaFile("jack.incremental", "A.java", content);
+
+    ite.incrementalBuildFromFolder();
+    ite.snapshotJackFilesModificationDate();
+
+    ite.deleteJavaFile(a);
+    ite.addJavaFile("jack.incremental", "A.java", content);
+
+    ite.incrementalBuildFromFolder();
+
+    Assert.assertEquals(0, ite.getFQNOfRebuiltTypes().size());
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.java8;
+
+import com.android.jack.TestTools;
+import com.android.jack.test.helper.RuntimeTestHelper;
+import com.android.jack.test.runtime.RuntimeTest;
+import com.android.jack.test.runtime.RuntimeTestInfo;
+import com.android.jack.test.toolchain.AbstractTestTools;
+import com.android.jack.test.toolchain.JackBasedToolchain;
+import com.android.jack.test.toolchain.Toolchain.SourceLevel;
+
+import junit.framework.Assert;
+
+import org.jf.dexlib.ClassDataItem;
+import org.jf.dexlib.ClassDataItem.EncodedField;
+import org.jf.dexlib.ClassDataItem.EncodedMethod;
+import org.jf.dexlib.ClassDefItem;
+import org.jf.dexlib.CodeItem;
+import org.jf.dexlib.DexFile;
+import org.jf.dexlib.Code.Instruction;
+import org.jf.dexlib.Code.Opcode;
+import org.jf.dexlib.Util.AccessFlags;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+
+import javax.annotation.Nonnull;
+
+/**
+ * JUnit test for compilation of lambdas and method references.
+ */
+public class LambdaTests extends RuntimeTest {
+
+  private RuntimeTestInfo TEST001 = new RuntimeTestInfo(
+      AbstractTestTools.getTestRootDir("com.android.jack.java8.lambda.test001"),
+      "com.android.jack.java8.lambda.test001.dx.Tests");
+
+  @Nonnull
+  private static final String[] LOOP_METHODS = {"sum", "count", "fold"};
+
+  @BeforeClass
+  public static void setUpClass() {
+    LambdaTests.class.getClassLoader().setDefaultAssertionStatus(true);
+  }
+
+  @Test
+  public void test001() throws Exception {
+    new RuntimeTestHelper(TEST001).setSourceLevel(SourceLevel.JAVA_8).compileAndRunTest();
+  }
+
+  /**
+   * Lambda classes call the methods holding the code of lambdas capturing the instance, and the
+   * bridges of super method references, without accessors.
+   */
+  @Test
+  public void noAccessor() throws Exception {
+    DexFile dexFile = new DexFile(compile("com.android.jack.java8.lambda.test001.jack"));
+    int lambdaMethods = 0;
+    for (ClassDefItem classDef : dexFile.ClassDefsSection.getItems()) {
+      ClassDataItem classData = classDef.getClassData();
+      if (classData == null) {
+        continue;
+      }
+      for (EncodedMethod method : classData.getDirectMethods()) {
+        String name = method.method.getMethodName().getStringValue();
+        Assert.assertFalse(name, name.startsWith("-wrap"));
+        Assert.assertFalse(name, name.startsWith("-lambda$")
+            && (method.accessFlags & AccessFlags.STATIC.getValue()) == 0);
+      }
+      for (EncodedMethod method : classData.getVirtualMethods()) {
+        if (method.method.getMethodName().getStringValue().startsWith("-lambda$")) {
+          lambdaMethods++;
+        }
+      }
+    }
+    // scale, increment, superReference, baseName and derivedName
+    Assert.assertEquals(5, lambdaMethods);
+  }
+
+  /**
+   * Compares the lambda-heavy code of test002 with the same code using anonymous classes in
+   * test003: creating a non-capturing lambda in a loop must not allocate, and the dex of lambdas
+   * must stay close to the one of anonymous classes.
+   */
+  @Test
+  public void test002() throws Exception {
+    File lambdaDex = compile("com.android.jack.java8.lambda.test002.jack");
+    File anonymousDex = compile("com.android.jack.java8.lambda.test003.jack");
+    DexFile lambdas = new DexFile(lambdaDex);
+    DexFile anonymous = new DexFile(anonymousDex);
+
+    for (String method : LOOP_METHODS) {
+      Assert.assertEquals(0, countNewInstances(lambdas,
+          "Lcom/android/jack/java8/lambda/test002/jack/Corpus;", method, getSignature(method)));
+      Assert.assertEquals(1, countNewInstances(anonymous,
+          "Lcom/android/jack/java8/lambda/test003/jack/Corpus;", method, getSignature(method)));
+    }
+    // The lambda capturing a value is allocated once, outside of the loop, like the anonymous
+    // class.
+    Assert.assertEquals(1, countNewInstances(lambdas,
+        "Lcom/android/jack/java8/lambda/test002/jack/Corpus;", "countAbove", "([II)I"));
+    Assert.assertEquals(1, countNewInstances(anonymous,
+        "Lcom/android/jack/java8/lambda/test003/jack/Corpus;", "countAbove", "([II)I"));
+
+    // Each non-capturing lambda has a single instance, no invokedynamic is needed.
+    Assert.assertEquals(LOOP_METHODS.length, countSingletonClasses(lambdas));
+    Assert.assertEquals(0, countSingletonClasses(anonymous));
+
+    Assert.assertEquals(anonymous.ClassDefsSection.getItems().size(),
+        lambdas.ClassDefsSection.getItems().size());
+    Assert.assertTrue("Dex of lambdas is " + lambdaDex.length() + " bytes, dex of anonymous classes"
+        + " is " + anonymousDex.length() + " bytes",
+        lambdaDex.length() * 2 <= anonymousDex.length() * 3);
+  }
+
+  @Nonnull
+  private static File compile(@Nonnull String testName) throws Exception {
+    File out = AbstractTestTools.createTempDir();
+    JackBasedToolchain toolchain =
+        AbstractTestTools.getCandidateToolchain(JackBasedToolchain.class);
+    toolchain.setSourceLevel(SourceLevel.JAVA_8);
+    toolchain.srcToExe(
+        AbstractTestTools.getClasspathAsString(toolchain.getDefaultBootClasspath()),
+        out,
+        /* zipFile = */ false,
+        AbstractTestTools.getTestRootDir(testName));
+    return new File(out, "classes.dex");
+  }
+
+  @Nonnull
+  private static String getSignature(@Nonnull String method) {
+    return "fold".equals(method) ? "([II)I" : "([I)I";
+  }
+
+  private static int countNewInstances(@Nonnull DexFile dexFile, @Nonnull String typeSig,
+      @Nonnull String methodName, @Nonnull String methodSig) {
+    CodeItem codeItem = TestTools.getEncodedMethod(dexFile, typeSig, methodName, methodSig)
+        .codeItem;
+    int count = 0;
+    for (Instruction inst : codeItem.getInstructions()) {
+      if (inst.opcode == Opcode.NEW_INSTANCE) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static int countSingletonClasses(@Nonnull DexFile dexFile) {
+    int count = 0;
+    for (ClassDefItem classDef : dexFile.ClassDefsSection.getItems()) {
+      String type = classDef.getClassType().getTypeDescriptor();
+      if (classDef.getClassData() == null) {
+        continue;
+      }
+      for (EncodedField field : classDef.getClassData().getStaticFields()) {
+        if (field.field.getFieldType().getTypeDescriptor().equals(type)) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  @Override
+  protected void fillRtTestInfos() {
+    rtTestInfos.add(TEST001);
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.java8.lambda.test001.dx;
+
+import com.android.jack.java8.lambda.test001.jack.Lambdas;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests about lambdas and method references.
+ */
+public class Tests {
+
+  @Test
+  public void nonCapturing() {
+    Assert.assertEquals(5, Lambdas.add().apply(2, 3));
+    Assert.assertEquals(45, Lambdas.sumLoop(10));
+  }
+
+  @Test
+  public void nonCapturingIsSingleton() {
+    Assert.assertSame(Lambdas.add(), Lambdas.add());
+  }
+
+  @Test
+  public void capturingLocal() {
+    Assert.assertEquals(15, Lambdas.addOffset(10).apply(2, 3));
+    Assert.assertNotSame(Lambdas.addOffset(10), Lambdas.addOffset(10));
+  }
+
+  @Test
+  public void capturingThis() {
+    Assert.assertEquals(Integer.valueOf(12), new Lambdas(3).scale().map(Integer.valueOf(4)));
+    Lambdas lambdas = new Lambdas();
+    Lambdas.Action action = lambdas.increment();
+    action.run();
+    action.run();
+    Assert.assertEquals(2, lambdas.getCounter());
+  }
+
+  @Test
+  public void capturingThisInSubclass() {
+    Lambdas.Derived derived = new Lambdas.Derived();
+    Assert.assertEquals("base!", derived.baseName().create());
+    Assert.assertEquals("derived!", derived.derivedName().create());
+  }
+
+  @Test
+  public void nested() {
+    Assert.assertEquals(Integer.valueOf(7),
+        Lambdas.curriedAdd().map(Integer.valueOf(3)).map(Integer.valueOf(4)));
+  }
+
+  @Test
+  public void methodReferences() {
+    Assert.assertEquals(7, Lambdas.staticReference().apply(7, 2));
+    Assert.assertEquals(Integer.valueOf(5), Lambdas.unboundReference().map("hello"));
+    Assert.assertEquals("Lambdas2", Lambdas.boundReference(new Lambdas(2)).create());
+    Assert.assertEquals("Lambdas1", Lambdas.constructorReference().create().toString());
+    Assert.assertEquals(4, Lambdas.arrayConstructorReference().create(4).length);
+    Assert.assertEquals("Lambdas1", new Lambdas.Sub().superReference().create());
+  }
+
+  @Test
+  public void boundReferenceChecksNull() {
+    try {
+      Lambdas.boundReference(null);
+      Assert.fail();
+    } catch (NullPointerException e) {
+      // Ok
+    }
+  }
+}
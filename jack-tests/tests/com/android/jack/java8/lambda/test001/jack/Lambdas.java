@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.java8.lambda.test001.jack;
+
+/**
+ * Lambdas and method references.
+ */
+public class Lambdas {
+
+  public interface IntOp {
+    int apply(int a, int b);
+  }
+
+  public interface Mapper<T, R> {
+    R map(T value);
+  }
+
+  public interface Factory<T> {
+    T create();
+  }
+
+  public interface ArrayFactory<T> {
+    T create(int length);
+  }
+
+  public interface Action {
+    void run();
+  }
+
+  private final int factor;
+
+  private int counter;
+
+  public Lambdas(int factor) {
+    this.factor = factor;
+  }
+
+  public Lambdas() {
+    this(1);
+  }
+
+  public static IntOp add() {
+    return (a, b) -> a + b;
+  }
+
+  public static int sumLoop(int n) {
+    int total = 0;
+    for (int i = 0; i < n; i++) {
+      IntOp op = (a, b) -> a + b;
+      total = op.apply(total, i);
+    }
+    return total;
+  }
+
+  public static IntOp addOffset(int offset) {
+    return (a, b) -> a + b + offset;
+  }
+
+  public Mapper<Integer, Integer> scale() {
+    return value -> Integer.valueOf(value.intValue() * factor);
+  }
+
+  public Action increment() {
+    return () -> {
+      counter++;
+    };
+  }
+
+  public int getCounter() {
+    return counter;
+  }
+
+  public static Mapper<Integer, Mapper<Integer, Integer>> curriedAdd() {
+    return a -> b -> Integer.valueOf(a.intValue() + b.intValue());
+  }
+
+  public static int max(int a, int b) {
+    return a > b ? a : b;
+  }
+
+  public static IntOp staticReference() {
+    return Lambdas::max;
+  }
+
+  public static Mapper<String, Integer> unboundReference() {
+    return String::length;
+  }
+
+  public static Factory<String> boundReference(Object receiver) {
+    return receiver::toString;
+  }
+
+  public static Factory<Lambdas> constructorReference() {
+    return Lambdas::new;
+  }
+
+  public static ArrayFactory<String[]> arrayConstructorReference() {
+    return String[]::new;
+  }
+
+  @Override
+  public String toString() {
+    return "Lambdas" + factor;
+  }
+
+  /**
+   * Method references to super methods go through the current class.
+   */
+  public static class Sub extends Lambdas {
+
+    public Factory<String> superReference() {
+      return super::toString;
+    }
+
+    @Override
+    public String toString() {
+      return "Sub";
+    }
+  }
+
+  /**
+   * Lambdas capturing the instance of a class and of its subclass, in the same package.
+   */
+  public static class Base {
+
+    protected final String suffix = "!";
+
+    public Factory<String> baseName() {
+      return () -> "base" + suffix;
+    }
+  }
+
+  public static class Derived extends Base {
+
+    public Factory<String> derivedName() {
+      return () -> "derived" + suffix;
+    }
+  }
+}
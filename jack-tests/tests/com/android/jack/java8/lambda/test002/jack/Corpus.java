@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.java8.lambda.test002.jack;
+
+/**
+ * Lambda-heavy code, the same code using anonymous classes is in test003.
+ */
+public class Corpus {
+
+  public interface IntOp {
+    int apply(int a, int b);
+  }
+
+  public interface Predicate {
+    boolean test(int value);
+  }
+
+  public static int sum(int[] values) {
+    int total = 0;
+    for (int value : values) {
+      IntOp op = (a, b) -> a + b;
+      total = op.apply(total, value);
+    }
+    return total;
+  }
+
+  public static int count(int[] values) {
+    int count = 0;
+    for (int value : values) {
+      Predicate even = v -> (v & 1) == 0;
+      if (even.test(value)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  public static int fold(int[] values, int seed) {
+    int result = seed;
+    for (int value : values) {
+      IntOp op = (a, b) -> a * 31 + b;
+      result = op.apply(result, value);
+    }
+    return result;
+  }
+
+  public static int countAbove(int[] values, int threshold) {
+    Predicate above = v -> v > threshold;
+    int count = 0;
+    for (int value : values) {
+      if (above.test(value)) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
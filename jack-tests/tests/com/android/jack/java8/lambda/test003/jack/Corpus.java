@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.java8.lambda.test003.jack;
+
+/**
+ * The code of test002 using anonymous classes instead of lambdas.
+ */
+public class Corpus {
+
+  public interface IntOp {
+    int apply(int a, int b);
+  }
+
+  public interface Predicate {
+    boolean test(int value);
+  }
+
+  public static int sum(int[] values) {
+    int total = 0;
+    for (int value : values) {
+      IntOp op = new IntOp() {
+        @Override
+        public int apply(int a, int b) {
+          return a + b;
+        }
+      };
+      total = op.apply(total, value);
+    }
+    return total;
+  }
+
+  public static int count(int[] values) {
+    int count = 0;
+    for (int value : values) {
+      Predicate even = new Predicate() {
+        @Override
+        public boolean test(int v) {
+          return (v & 1) == 0;
+        }
+      };
+      if (even.test(value)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  public static int fold(int[] values, int seed) {
+    int result = seed;
+    for (int value : values) {
+      IntOp op = new IntOp() {
+        @Override
+        public int apply(int a, int b) {
+          return a * 31 + b;
+        }
+      };
+      result = op.apply(result, value);
+    }
+    return result;
+  }
+
+  public static int countAbove(int[] values, final int threshold) {
+    Predicate above = new Predicate() {
+      @Override
+      public boolean test(int v) {
+        return v > threshold;
+      }
+    };
+    int count = 0;
+    for (int value : values) {
+      if (above.test(value)) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.transformations.request;
+
+import com.android.jack.test.comparator.ComparatorDex;
+import com.android.jack.test.toolchain.AbstractTestTools;
+import com.android.jack.test.toolchain.JackBasedToolchain;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Checks that committing transformation requests in batch gives the same dex as committing each
+ * step on its own.
+ */
+public class TransformationRequestTests {
+
+  @Nonnull
+  private static final String[] TESTS = {
+    "com.android.jack.threeaddress.test001.jack",
+    "com.android.jack.tryfinally.finally002.jack",
+    "com.android.jack.tryfinally.finally003.jack",
+    "com.android.jack.synchronize.test001.jack",
+    "com.android.jack.switchstatement.test001.jack",
+    "com.android.jack.newarray.test001.jack",
+    "com.android.jack.assign.test001.jack",
+    "com.android.jack.string.test001.jack"};
+
+  @BeforeClass
+  public static void setUpClass() {
+    TransformationRequestTests.class.getClassLoader().setDefaultAssertionStatus(true);
+  }
+
+  @Test
+  public void batchedCommitGivesSameDex() throws Exception {
+    for (String test : TESTS) {
+      File sequential = compile(test, false);
+      File batched = compile(test, true);
+      new ComparatorDex(batched, sequential).setWithDebugInfo(true).setStrict(true).compare();
+    }
+  }
+
+  @Nonnull
+  private static File compile(@Nonnull String test, boolean batched) throws Exception {
+    File out = AbstractTestTools.createTempDir();
+    JackBasedToolchain toolchain =
+        AbstractTestTools.getCandidateToolchain(JackBasedToolchain.class);
+    toolchain.addProperty(TransformationRequest.BATCHED_COMMIT.getName(),
+        Boolean.toString(batched));
+    toolchain.srcToExe(
+        AbstractTestTools.getClasspathAsString(toolchain.getDefaultBootClasspath()),
+        out,
+        /* zipFile = */ false,
+        AbstractTestTools.getTestRootDir(test));
+    return new File(out, "classes.dex");
+  }
+}
@@ -57,6 +57,18 @@ public abstract class CommandLine {
   private static Logger logger = LoggerFactory.getLogger();
 
   protected static void runJackAndExitOnError(@Nonnull Options options) {
+    int status = runJack(options);
+    if (status != ExitStatus.SUCCESS) {
+      System.exit(status);
+    }
+  }
+
+  /**
+   * Runs the jack compiler and reports its errors.
+   *
+   * @return the exit status of the compilation.
+   */
+  protected static int runJack(@Nonnull Options options) {
     try {
       Jack.run(options);
     } catch (NothingToDoException e1) {
@@ -69,49 +81,49 @@ public abstract class CommandLine {
         System.err.println("  " + exception.getMessage());
       }
 
-      System.exit(ExitStatus.FAILURE_USAGE);
+      return ExitStatus.FAILURE_USAGE;
     } catch (IllegalOptionsException e) {
       System.err.println(e.getMessage());
       System.err.println("Try --help for help.");
 
-      System.exit(ExitStatus.FAILURE_USAGE);
+      return ExitStatus.FAILURE_USAGE;
     } catch (FrontendCompilationException e) {
       // Cause exception has already been logged
-      System.exit(ExitStatus.FAILURE_COMPILATION);
+      return ExitStatus.FAILURE_COMPILATION;
     } catch (JackUserException e) {
       System.err.println(e.getMessage());
       logger.log(Level.FINE, "Jack user exception:", e);
-      System.exit(ExitStatus.FAILURE_COMPILATION);
+      return ExitStatus.FAILURE_COMPILATION;
     } catch (JackLoadingException e) {
       System.err.println(e.getMessage());
       logger.log(Level.FINE, "Jack loading exception:", e);
-      System.exit(ExitStatus.FAILURE_COMPILATION);
+      return ExitStatus.FAILURE_COMPILATION;
     } catch (OutOfMemoryError e) {
       printExceptionMessage(e, "Out of memory error.");
       System.err.println("Try increasing heap size with java option '-Xmx<size>'");
       System.err.println(INTERRUPTED_COMPILATION_WARNING);
       logger.log(Level.FINE, "Out of memory error:", e);
-      System.exit(ExitStatus.FAILURE_VM);
+      return ExitStatus.FAILURE_VM;
     } catch (StackOverflowError e) {
       printExceptionMessage(e, "Stack overflow error.");
       System.err.println("Try increasing stack size with java option '-Xss<size>'");
       System.err.println(INTERRUPTED_COMPILATION_WARNING);
       logger.log(Level.FINE, "Stack overflow error:", e);
-      System.exit(ExitStatus.FAILURE_VM);
+      return ExitStatus.FAILURE_VM;
     } catch (VirtualMachineError e) {
       printExceptionMessage(e, "Virtual machine error: " + e.getClass() + ".");
       System.err.println(INTERRUPTED_COMPILATION_WARNING);
       logger.log(Level.FINE, "Virtual machine error:", e);
-      System.exit(ExitStatus.FAILURE_VM);
+      return ExitStatus.FAILURE_VM;
     } catch (UnrecoverableException e) {
       System.err.println("Unrecoverable error: " + e.getMessage());
       System.err.println(INTERRUPTED_COMPILATION_WARNING);
       logger.log(Level.FINE, "Unrecoverable exception:", e);
-      System.exit(ExitStatus.FAILURE_UNRECOVERABLE);
+      return ExitStatus.FAILURE_UNRECOVERABLE;
     } catch (JackAbortException e) {
       // Exception should already have been reported, do not print message.
       logger.log(Level.FINE, "Jack fatal exception:", e);
-      System.exit(ExitStatus.FAILURE_COMPILATION);
+      return ExitStatus.FAILURE_COMPILATION;
     } catch (Throwable e) {
       String info = "Internal compiler error (version " + Jack.getVersionString() + ")";
       logger.log(Level.SEVERE, info + ':', e);
@@ -122,8 +134,10 @@ public abstract class CommandLine {
         System.err.println(e.getMessage() + '.');
       }
       System.err.println(INTERRUPTED_COMPILATION_WARNING);
-      System.exit(ExitStatus.FAILURE_INTERNAL);
+      return ExitStatus.FAILURE_INTERNAL;
     }
+
+    return ExitStatus.SUCCESS;
   }
 
   public static void printVersion() {
@@ -31,7 +31,8 @@ import com.android.jack.analysis.dependency.type.TypeDependenciesCollector;
 import com.android.jack.analysis.dependency.type.TypeDependenciesWriter;
 import com.android.jack.analysis.dfa.reachingdefs.ReachingDefinitions;
 import com.android.jack.analysis.dfa.reachingdefs.ReachingDefinitionsRemover;
-import com.android.jack.analysis.tracer.ExtendingOrImplementingClassFinder;
+import com.android.jack.analysis.hierarchy.ClassHierarchyBuilder;
+import com.android.jack.analysis.hierarchy.ClassHierarchyRemover;
 import com.android.jack.backend.ResourceWriter;
 import com.android.jack.backend.dex.ClassAnnotationBuilder;
 import com.android.jack.backend.dex.ClassDefItemBuilder;
@@ -125,6 +126,7 @@ import com.android.jack.scheduling.feature.DxLegacy;
 import com.android.jack.scheduling.feature.JayceFileOutput;
 import com.android.jack.scheduling.feature.Resources;
 import com.android.jack.scheduling.feature.SourceVersion7;
+import com.android.jack.server.CompilationCache;
 import com.android.jack.shrob.obfuscation.Mapping;
 import com.android.jack.shrob.obfuscation.MappingPrinter;
 import com.android.jack.shrob.obfuscation.NameFinalizer;
@@ -287,6 +289,7 @@ import com.android.sched.vfs.Container;
 import com.android.sched.vfs.DirectVFS;
 import com.android.sched.vfs.InputOutputVFS;
 import com.android.sched.vfs.InputVFS;
+import com.android.sched.vfs.InputVFile;
 import com.android.sched.vfs.InputZipVFS;
 
 import org.antlr.runtime.RecognitionException;
@@ -295,12 +298,14 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -591,7 +596,9 @@ public abstract class Jack {
         }
 
         if (options.out != null || options.outZip != null) {
-          request.addProduction(IntermediateDexProduct.class);
+          if (!config.get(DexFileWriter.DEX_WRITING_POLICY).isDirectMerge()) {
+            request.addProduction(IntermediateDexProduct.class);
+          }
           request.addProduction(DexFileProduct.class);
           session.addGeneratedFileType(FileType.DEX);
         }
@@ -603,56 +610,16 @@ public abstract class Jack {
           request.addProduction(JayceFormatProduct.class);
         }
 
-        ProductionSet targetProduction = request.getTargetProductions();
-        FeatureSet features = request.getFeatures();
-        PlanBuilder<JSession> planBuilder;
-        try {
-          planBuilder = request.getPlanBuilder(JSession.class);
-        } catch (IllegalRequestException e) {
-          throw new AssertionError(e);
-        }
-
-        planBuilder.append(PreProcessorApplier.class);
-
-        fillDexPlan(options, planBuilder);
-        if (targetProduction.contains(DexFileProduct.class)) {
-          planBuilder.append(DexFileWriter.class);
+        Plan<JSession> plan = null;
+        CompilationCache compilationCache = options.getCompilationCache();
+        if (compilationCache != null) {
+          plan = compilationCache.getPlan(request, options.keepMethodBody);
         }
-
-        if (features.contains(Resources.class)) {
-          if (targetProduction.contains(DexFileProduct.class)) {
-            planBuilder.append(ResourceWriter.class);
+        if (plan == null) {
+          plan = createPlan(options, request);
+          if (compilationCache != null) {
+            compilationCache.putPlan(request, options.keepMethodBody, plan);
           }
-          if (targetProduction.contains(JayceFormatProduct.class)) {
-            planBuilder.append(LibraryResourceWriter.class);
-          }
-        }
-
-        if (targetProduction.contains(JayceFormatProduct.class)) {
-          planBuilder.append(LibraryMetaWriter.class);
-        }
-
-        Plan<JSession> plan;
-        try {
-          // Try to build an automatic plan ...
-          try {
-            plan = request.buildPlan(JSession.class);
-          } catch (PlanNotFoundException e) {
-            throw new AssertionError(e);
-          } catch (IllegalRequestException e) {
-            throw new AssertionError(e);
-          }
-        } catch (UnsupportedOperationException e) {
-          // ... but use a manual one if not supported
-          plan = planBuilder.getPlan();
-
-          assert !targetProduction.contains(JayceFormatProduct.class)
-              || targetProduction.contains(DexFileProduct.class)
-              || (plan.computeFinalTagsOrMarkers(
-                  request.getInitialTags()).contains(JackFormatIr.class)
-                  && !targetProduction.contains(IntermediateDexProduct.class))
-              || (targetProduction.contains(IntermediateDexProduct.class)
-                  && targetProduction.contains(JayceFormatProduct.class));
         }
 
         PlanPrinterFactory.getPlanPrinter().printPlan(plan);
@@ -680,6 +647,8 @@ public abstract class Jack {
         }
       } finally {
         event.end();
+        // The compilation is over, let the tracer export what it collected
+        RunnableHooks.getShutdownHooks().runHooks();
       }
     } finally {
 
@@ -688,6 +657,63 @@ public abstract class Jack {
     }
   }
 
+  @Nonnull
+  private static Plan<JSession> createPlan(@Nonnull Options options, @Nonnull Request request) {
+    ProductionSet targetProduction = request.getTargetProductions();
+    FeatureSet features = request.getFeatures();
+    PlanBuilder<JSession> planBuilder;
+    try {
+      planBuilder = request.getPlanBuilder(JSession.class);
+    } catch (IllegalRequestException e) {
+      throw new AssertionError(e);
+    }
+
+    planBuilder.append(PreProcessorApplier.class);
+
+    fillDexPlan(options, planBuilder);
+    if (targetProduction.contains(DexFileProduct.class)) {
+      planBuilder.append(DexFileWriter.class);
+    }
+
+    if (features.contains(Resources.class)) {
+      if (targetProduction.contains(DexFileProduct.class)) {
+        planBuilder.append(ResourceWriter.class);
+      }
+      if (targetProduction.contains(JayceFormatProduct.class)) {
+        planBuilder.append(LibraryResourceWriter.class);
+      }
+    }
+
+    if (targetProduction.contains(JayceFormatProduct.class)) {
+      planBuilder.append(LibraryMetaWriter.class);
+    }
+
+    Plan<JSession> plan;
+    try {
+      // Try to build an automatic plan ...
+      try {
+        plan = request.buildPlan(JSession.class);
+      } catch (PlanNotFoundException e) {
+        throw new AssertionError(e);
+      } catch (IllegalRequestException e) {
+        throw new AssertionError(e);
+      }
+    } catch (UnsupportedOperationException e) {
+      // ... but use a manual one if not supported
+      plan = planBuilder.getPlan();
+
+      assert !targetProduction.contains(JayceFormatProduct.class)
+          || targetProduction.contains(DexFileProduct.class)
+          || (plan.computeFinalTagsOrMarkers(
+              request.getInitialTags()).contains(JackFormatIr.class)
+              && !targetProduction.contains(IntermediateDexProduct.class))
+          || (targetProduction.contains(IntermediateDexProduct.class)
+              && targetProduction.contains(JayceFormatProduct.class));
+    }
+
+    return plan;
+  }
+
   @Nonnull
   public static Request createInitialRequest() {
     Scheduler scheduler = Scheduler.getScheduler();
@@ -737,13 +763,16 @@ public abstract class Jack {
     JayceFileImporter jayceImporter;
     try {
       jayceImporter = getJayceFileImporter(options.jayceImport, hooks, session);
-      putInJackClasspath(options.getBootclasspath(), hooks, session);
-      putInJackClasspath(options.getClasspath(), hooks, session);
+      CompilationCache compilationCache = options.getCompilationCache();
+      putInJackClasspath(options.getBootclasspath(), hooks, session, compilationCache);
+      putInJackClasspath(options.getClasspath(), hooks, session, compilationCache);
     } catch (LibraryReadingException e) {
       session.getReporter().report(Severity.FATAL, e);
       throw new JackAbortException(e);
     }
 
+    session.getLookup().ensureCapacity(getLibraryTypeCount(session));
+
     if (ecjArguments != null) {
       JackBatchCompiler jbc = new JackBatchCompiler(session);
 
@@ -855,18 +884,25 @@ public abstract class Jack {
 
   private static void putInJackClasspath(@Nonnull List<File> jackFiles,
       @Nonnull RunnableHooks hooks,
-      @Nonnull JSession session) throws LibraryReadingException {
+      @Nonnull JSession session,
+      @CheckForNull CompilationCache compilationCache) throws LibraryReadingException {
     ReflectFactory<JaycePackageLoader> factory = ThreadConfig.get(CLASSPATH_POLICY);
+    boolean strictClasspath = ThreadConfig.get(STRICT_CLASSPATH).booleanValue();
     for (final File jackFile : jackFiles) {
       try {
-        InputVFS vDir = wrapAsVDir(jackFile, hooks);
-        InputJackLibrary inputJackLibrary = JackLibraryFactory.getInputLibrary(vDir);
+        InputJackLibrary inputJackLibrary;
+        if (compilationCache != null && jackFile.isFile()) {
+          inputJackLibrary = compilationCache.getLibrary(jackFile);
+        } else {
+          InputVFS vDir = wrapAsVDir(jackFile, hooks);
+          inputJackLibrary = JackLibraryFactory.getInputLibrary(vDir);
+        }
         JaycePackageLoader rootPLoader =
             factory.create(inputJackLibrary, session.getPhantomLookup());
         session.getTopLevelPackage().addLoader(rootPLoader);
         session.addLibraryOnClasspath(inputJackLibrary);
       } catch (IOException ioException) {
-        if (ThreadConfig.get(STRICT_CLASSPATH).booleanValue()) {
+        if (strictClasspath) {
           throw new LibraryReadingException(ioException);
         } else {
           // Ignore bad entry
@@ -874,7 +910,7 @@ public abstract class Jack {
               new ClasspathEntryIgnoredReportable(ioException));
         }
       } catch (LibraryException e) {
-        if (ThreadConfig.get(STRICT_CLASSPATH).booleanValue()) {
+        if (strictClasspath) {
           throw new LibraryReadingException(e);
         } else {
           // Ignore bad entry
@@ -885,6 +921,20 @@ public abstract class Jack {
     }
   }
 
+  @Nonnegative
+  private static int getLibraryTypeCount(@Nonnull JSession session) {
+    int count = 0;
+    Iterator<InputLibrary> libraries = session.getPathSources();
+    while (libraries.hasNext()) {
+      Iterator<InputVFile> jayceFiles = libraries.next().iterator(FileType.JAYCE);
+      while (jayceFiles.hasNext()) {
+        jayceFiles.next();
+        count++;
+      }
+    }
+    return count;
+  }
+
   @Nonnull
   private static InputVFS wrapAsVDir(@Nonnull final File dirOrZip,
       @Nonnull RunnableHooks hooks)
@@ -977,11 +1027,10 @@ public abstract class Jack {
         typePlan.append(RuntimeAnnotationFinder.class);
         typePlan.append(AnnotatedFinder.class);
       }
+    }
 
-      if (isMultiDexWithConstraints || isShrinking) {
-        typePlan.append(ExtendingOrImplementingClassFinder.class);
-
-      }
+    if (isMultiDexWithConstraints || isShrinking) {
+      planBuilder.append(ClassHierarchyBuilder.class);
     }
 
     if (isShrinking) {
@@ -996,6 +1045,7 @@ public abstract class Jack {
           typePlan.append(Keeper.class);
         }
       }
+      planBuilder.append(ClassHierarchyRemover.class);
       {
         SubPlanBuilder<JDefinedClassOrInterface> typePlan =
             planBuilder.appendSubPlan(JDefinedClassOrInterfaceAdapter.class);
@@ -1013,6 +1063,7 @@ public abstract class Jack {
       SubPlanBuilder<JDefinedClassOrInterface> typePlan =
           planBuilder.appendSubPlan(JDefinedClassOrInterfaceAdapter.class);
       typePlan.append(MainDexTracer.class);
+      planBuilder.append(ClassHierarchyRemover.class);
     }
 
     if (isMultiDexWithConstraints) {
@@ -1296,14 +1347,11 @@ public abstract class Jack {
         }
         methodPlan4.append(ConstantRefinerAndVariableRemover.class);
         methodPlan4.append(UseDefsChainsSimplifier.class);
+        // Schedulables removing instructions until IfWithConstantSimplifier keep the cfg up to
+        // date, it is rebuilt only once the control flow is changed.
         methodPlan4.append(DefUsesChainsSimplifier.class);
-        // Instructions are removed by DefUsesChainsSimplifier thus rebuild the cfg.
-        methodPlan4.append(CfgMarkerRemover.class);
-        methodPlan4.append(CfgBuilder.class);
         methodPlan4.append(UnusedDefinitionRemover.class);
         methodPlan4.append(RefAsStatementRemover.class);
-        methodPlan4.append(CfgMarkerRemover.class);
-        methodPlan4.append(CfgBuilder.class);
         methodPlan4.append(IfWithConstantSimplifier.class);
         methodPlan4.append(UnusedLocalRemover.class);
         methodPlan4.append(DefUsesAndUseDefsChainRemover.class);
@@ -1697,14 +1745,11 @@ public abstract class Jack {
         }
         methodPlan4.append(ConstantRefinerAndVariableRemover.class);
         methodPlan4.append(UseDefsChainsSimplifier.class);
+        // Schedulables removing instructions until IfWithConstantSimplifier keep the cfg up to
+        // date, it is rebuilt only once the control flow is changed.
         methodPlan4.append(DefUsesChainsSimplifier.class);
-        // Instructions are removed by DefUsesChainsSimplifier thus rebuild the cfg.
-        methodPlan4.append(CfgMarkerRemover.class);
-        methodPlan4.append(CfgBuilder.class);
         methodPlan4.append(UnusedDefinitionRemover.class);
         methodPlan4.append(RefAsStatementRemover.class);
-        methodPlan4.append(CfgMarkerRemover.class);
-        methodPlan4.append(CfgBuilder.class);
         methodPlan4.append(IfWithConstantSimplifier.class);
         methodPlan4.append(UnusedLocalRemover.class);
         methodPlan4.append(DefUsesAndUseDefsChainRemover.class);
@@ -16,6 +16,7 @@
 
 package com.android.jack;
 
+import com.android.jack.server.CompilationCache;
 import com.android.sched.util.config.cli.TokenIterator;
 import com.android.sched.util.location.NoLocation;
 
@@ -26,6 +27,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -39,10 +41,22 @@ public abstract class Main extends CommandLine {
    * @param args supported arguments are the same as for the ecj batch compiler.
    */
   public static void main(@Nonnull String[] args) {
+    System.exit(run(args, null));
+  }
+
+  /**
+   * Runs the jack compiler on a command line, without exiting.
+   *
+   * @param args supported arguments are the same as for the ecj batch compiler.
+   * @param compilationCache state kept from a previous compilation, or null.
+   * @return the exit status of the command.
+   */
+  public static int run(@Nonnull String[] args,
+      @CheckForNull CompilationCache compilationCache) {
     if (args.length == 0) {
       printVersion();
       System.err.println("Try --help for help.");
-      System.exit(ExitStatus.SUCCESS);
+      return ExitStatus.SUCCESS;
     }
 
     try {
@@ -55,28 +69,30 @@ public abstract class Main extends CommandLine {
 
       if (options.askForHelp()) {
         printUsage(System.out);
-        System.exit(ExitStatus.SUCCESS);
+        return ExitStatus.SUCCESS;
       }
 
       if (options.askForPropertiesHelp()) {
         printHelpProperties(options);
-        System.exit(ExitStatus.SUCCESS);
+        return ExitStatus.SUCCESS;
       }
 
       if (options.askForEcjHelp()) {
         // ECJ help was already printed by Options.checkValidity()
-        System.exit(ExitStatus.SUCCESS);
+        return ExitStatus.SUCCESS;
       }
 
       if (options.askForVersion()) {
         printVersion();
-        System.exit(ExitStatus.SUCCESS);
+        return ExitStatus.SUCCESS;
       }
 
-      // Compile
-      runJackAndExitOnError(options);
+      if (compilationCache != null) {
+        options.setCompilationCache(compilationCache);
+      }
 
-      System.exit(ExitStatus.SUCCESS);
+      // Compile
+      return runJack(options);
     } catch (CmdLineException e) {
       System.err.println(e.getMessage());
       CmdLineParser parser = e.getParser();
@@ -86,11 +102,11 @@ public abstract class Main extends CommandLine {
         System.err.println("Try --help for help.");
       }
 
-      System.exit(ExitStatus.FAILURE_USAGE);
+      return ExitStatus.FAILURE_USAGE;
     } catch (IOException e) {
       System.err.println(e.getMessage());
 
-      System.exit(ExitStatus.FAILURE_USAGE);
+      return ExitStatus.FAILURE_USAGE;
     }
   }
 
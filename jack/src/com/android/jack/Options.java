@@ -19,6 +19,7 @@ package com.android.jack;
 import com.google.common.io.Files;
 
 import com.android.jack.backend.dex.DexFileWriter;
+import com.android.jack.backend.dex.DexWritingTool;
 import com.android.jack.backend.dex.FieldInitializerRemover;
 import com.android.jack.backend.dex.MultiDexLegacy;
 import com.android.jack.backend.dex.rop.CodeItemBuilder;
@@ -26,6 +27,7 @@ import com.android.jack.config.id.Arzon;
 import com.android.jack.config.id.JavaVersionPropertyId;
 import com.android.jack.config.id.Private;
 import com.android.jack.ir.ast.JMethod;
+import com.android.jack.server.CompilationCache;
 import com.android.jack.shrob.obfuscation.MappingPrinter;
 import com.android.jack.shrob.obfuscation.NameProviderFactory;
 import com.android.jack.shrob.obfuscation.Renamer;
@@ -150,11 +152,25 @@ public class Options {
       new DirectDirOutputVDirCodec(Existence.MUST_EXIST)).requiredIf(
       DEX_OUTPUT_CONTAINER_TYPE.is(Container.DIR));
 
+  @Nonnull
+  public static final BooleanPropertyId DEX_OUTPUT_ZIP_PARALLEL = BooleanPropertyId.create(
+      "jack.dex.output.zip.parallel",
+      "Deflate the entries of the output zip archive for dex using several threads")
+      .addDefaultValue(Boolean.FALSE).requiredIf(DEX_OUTPUT_CONTAINER_TYPE.is(Container.ZIP));
+
   @Nonnull
   public static final PropertyId<OutputVFS> DEX_OUTPUT_ZIP = PropertyId.create(
       "jack.dex.output.zip", "Output zip archive for dex",
       new ZipOutputVDirCodec(Existence.MAY_EXIST)).requiredIf(
-      DEX_OUTPUT_CONTAINER_TYPE.is(Container.ZIP));
+      DEX_OUTPUT_CONTAINER_TYPE.is(Container.ZIP)
+          .and(DEX_OUTPUT_ZIP_PARALLEL.getValue().isFalse()));
+
+  @Nonnull
+  public static final PropertyId<OutputVFS> INTERNAL_DEX_OUTPUT_PARALLEL_ZIP = PropertyId.create(
+      "jack.internal.dex.output.zip.parallel", "Output zip archive for dex, deflated in parallel",
+      new ZipOutputVDirCodec(Existence.MAY_EXIST).parallel())
+      .withCategory(Private.get()).requiredIf(DEX_OUTPUT_CONTAINER_TYPE.is(Container.ZIP)
+          .and(DEX_OUTPUT_ZIP_PARALLEL.getValue().isTrue()));
 
   @Nonnull
   public static final BooleanPropertyId ENABLE_COMPILED_FILES_STATISTICS = BooleanPropertyId.create(
@@ -322,6 +338,9 @@ public class Options {
 
   protected boolean keepMethodBody = false;
 
+  @CheckForNull
+  private CompilationCache compilationCache = null;
+
   @Nonnull
   public static final BooleanPropertyId SHROB_ENABLED =
       BooleanPropertyId.create("jack.shrob", "Enable shrink and obfuscation features")
@@ -631,12 +650,14 @@ public class Options {
 
     if (outZip != null) {
       configBuilder.setString(DEX_OUTPUT_ZIP, outZip.getAbsolutePath());
+      configBuilder.setString(INTERNAL_DEX_OUTPUT_PARALLEL_ZIP, outZip.getAbsolutePath());
       configBuilder.set(DEX_OUTPUT_CONTAINER_TYPE, Container.ZIP);
       configBuilder.set(GENERATE_DEX_FILE, true);
       configBuilder.set(GENERATE_INTERMEDIATE_DEX, true);
       if (libraryOutZip == null && libraryOutDir == null) {
         configBuilder.set(Options.INTERNAL_LIBRARY_OUTPUT_DIR,
             new DirectVFS(createTempDirForTypeDexFiles(hooks)));
+        configBuilder.set(DexWritingTool.DIRECT_MERGE, true);
       }
     } else if (out != null) {
       configBuilder.setString(DEX_OUTPUT_DIR, out.getAbsolutePath());
@@ -646,6 +667,7 @@ public class Options {
       if (libraryOutZip == null && libraryOutDir == null) {
         configBuilder.set(Options.INTERNAL_LIBRARY_OUTPUT_DIR,
             new DirectVFS(createTempDirForTypeDexFiles(hooks)));
+        configBuilder.set(DexWritingTool.DIRECT_MERGE, true);
       }
     }
     configBuilder.set(FieldInitializerRemover.CLASS_AS_INITIALVALUE, !dxLegacy);
@@ -868,6 +890,15 @@ public class Options {
     this.incrementalFolder = incrementalFolder;
   }
 
+  @CheckForNull
+  public CompilationCache getCompilationCache() {
+    return compilationCache;
+  }
+
+  public void setCompilationCache(@Nonnull CompilationCache compilationCache) {
+    this.compilationCache = compilationCache;
+  }
+
   public boolean isAutomaticFullRebuildEnabled() {
     return !disableAutomaticFullRebuild;
   }
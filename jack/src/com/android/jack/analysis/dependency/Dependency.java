@@ -16,97 +16,188 @@
 
 package com.android.jack.analysis.dependency;
 
-import com.google.common.io.LineReader;
-
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.annotation.CheckForNull;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
  * Tools related to dependencies support.
+ *
+ * Dependencies are written in a binary format: a header, then a table of all the names they
+ * contain, each written once, then the dependencies as indexes in this table. Reading the
+ * dependencies of a large module thus decodes each name once, and the read names are shared by
+ * all the dependencies referencing them.
  */
 public abstract class Dependency {
 
-  @Nonnull
-  public static final String MAP_SEPARATOR = "#";
+  private static final int MAGIC = 0x4a444550;
 
-  public static final char MAP_VALUE_SEPARATOR = ',';
+  private static final int VERSION = 1;
 
-  public static final char MAP_KEY_VALUE_SEPARATOR = ':';
+  @Nonnull
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
 
-  private static class LineParser {
+  /**
+   * Names of written dependencies, indexed in the order they are added.
+   */
+  protected static class NameTable {
     @Nonnull
-    private final String line;
+    private final Map<String, Integer> indexes = new HashMap<String, Integer>();
 
-    @Nonnegative
-    private int lineCharIdx = 0;
+    @Nonnull
+    private final List<String> names = new ArrayList<String>();
 
-    LineParser(@Nonnull String line) {
-      this.line = line;
+    public NameTable() {
     }
 
-    @CheckForNull
-    private String nextToken(char separator) {
-      if (lineCharIdx >= line.length()) {
-        return null;
+    public void add(@Nonnull String name) {
+      if (!indexes.containsKey(name)) {
+        indexes.put(name, Integer.valueOf(names.size()));
+        names.add(name);
       }
+    }
 
-      char c;
-      StringBuffer token = new StringBuffer();
-      while (lineCharIdx < line.length() && (c = line.charAt(lineCharIdx)) != separator) {
-        token.append(c);
-        lineCharIdx++;
+    public void addAll(@Nonnull Map<String, ? extends Set<String>> one2many) {
+      for (Map.Entry<String, ? extends Set<String>> entry : one2many.entrySet()) {
+        add(entry.getKey());
+        for (String value : entry.getValue()) {
+          add(value);
+        }
+      }
+    }
+
+    @Nonnegative
+    public int getIndex(@Nonnull String name) {
+      Integer index = indexes.get(name);
+      assert index != null : name;
+      return index.intValue();
+    }
+
+    public void write(@Nonnull DataOutputStream out) throws IOException {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(names.size());
+      for (String name : names) {
+        writeBytes(out, name.getBytes(UTF_8));
       }
-      lineCharIdx++;
-      return token.toString();
     }
   }
 
+  public abstract void write(@Nonnull DataOutputStream out) throws IOException;
+
+  /**
+   * Reads dependencies written by {@link #write(DataOutputStream)}.
+   */
+  public abstract void read(@Nonnull ByteBuffer buffer) throws IOException;
+
+  /**
+   * @return the content of a stream, mapped in memory when the stream reads a file.
+   */
   @Nonnull
-  protected Map<String, Set<String>> readMapOne2Many(@Nonnull LineReader lr)
-      throws IOException {
-    Map<String, Set<String>> one2many = new HashMap<String, Set<String>>();
-    String line;
-
-    while ((line = lr.readLine()) != null && !line.equals(MAP_SEPARATOR)) {
-      Set<String> values = new HashSet<String>();
-      LineParser lp = new LineParser(line);
-      String key = lp.nextToken(MAP_KEY_VALUE_SEPARATOR);
-      assert key != null;
-      String value = lp.nextToken(MAP_VALUE_SEPARATOR);
-      while (value != null) {
-        values.add(value);
-        value = lp.nextToken(MAP_VALUE_SEPARATOR);
+  public static ByteBuffer load(@Nonnull InputStream in) throws IOException {
+    if (in instanceof FileInputStream) {
+      FileChannel channel = ((FileInputStream) in).getChannel();
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8 * 1024];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      content.write(buffer, 0, read);
+    }
+    return ByteBuffer.wrap(content.toByteArray());
+  }
+
+  /**
+   * @return false if {@code buffer} does not start with dependencies in the format read by this
+   * version.
+   */
+  public static boolean isSupported(@Nonnull ByteBuffer buffer) {
+    return buffer.remaining() >= 8 && buffer.getInt(buffer.position()) == MAGIC
+        && buffer.getInt(buffer.position() + 4) == VERSION;
+  }
+
+  /**
+   * @return the names of the name table starting at the current position of {@code buffer}.
+   */
+  @Nonnull
+  protected static String[] readNames(@Nonnull ByteBuffer buffer) throws IOException {
+    if (!isSupported(buffer)) {
+      throw new IOException("Unsupported dependency format");
+    }
+    try {
+      buffer.position(buffer.position() + 8);
+      String[] names = new String[buffer.getInt()];
+      for (int i = 0; i < names.length; i++) {
+        names[i] = new String(readBytes(buffer), UTF_8);
       }
-      one2many.put(key, values);
+      return names;
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated dependencies", e);
     }
+  }
 
-    return one2many;
+  @Nonnull
+  protected static Map<String, Set<String>> readMapOne2Many(@Nonnull ByteBuffer buffer,
+      @Nonnull String[] names) throws IOException {
+    try {
+      int size = buffer.getInt();
+      Map<String, Set<String>> one2many = new HashMap<String, Set<String>>(size * 4 / 3 + 1);
+      for (int i = 0; i < size; i++) {
+        String key = names[buffer.getInt()];
+        int valueCount = buffer.getInt();
+        Set<String> values = new HashSet<String>(valueCount * 4 / 3 + 1);
+        for (int j = 0; j < valueCount; j++) {
+          values.add(names[buffer.getInt()]);
+        }
+        one2many.put(key, values);
+      }
+      return one2many;
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated dependencies", e);
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IOException("Corrupted dependencies", e);
+    }
   }
 
-  protected void writeMapOne2Many(@Nonnull PrintStream ps,
-      @Nonnull Map<String, Set<String>> one2many) {
+  protected static void writeMapOne2Many(@Nonnull DataOutputStream out,
+      @Nonnull NameTable names, @Nonnull Map<String, Set<String>> one2many) throws IOException {
+    out.writeInt(one2many.size());
     for (Map.Entry<String, Set<String>> entry : one2many.entrySet()) {
-      StringBuffer sb = new StringBuffer();
-      sb.append(entry.getKey());
-      sb.append(MAP_KEY_VALUE_SEPARATOR);
-      Iterator<String> itValues = entry.getValue().iterator();
-      while (itValues.hasNext()) {
-        sb.append(itValues.next());
-        if (itValues.hasNext()) {
-          sb.append(MAP_VALUE_SEPARATOR);
-        }
+      out.writeInt(names.getIndex(entry.getKey()));
+      out.writeInt(entry.getValue().size());
+      for (String value : entry.getValue()) {
+        out.writeInt(names.getIndex(value));
       }
-      ps.print(sb.toString());
-      ps.println();
     }
   }
+
+  @Nonnull
+  protected static byte[] readBytes(@Nonnull ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  protected static void writeBytes(@Nonnull DataOutputStream out, @Nonnull byte[] bytes)
+      throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
 }
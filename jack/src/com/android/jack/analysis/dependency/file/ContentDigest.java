@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.analysis.dependency.file;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Digest of the content of a file, or of all the files of a directory with their relative paths.
+ *
+ * A digest also records a stamp of the files it was computed from, their lengths and modification
+ * dates, so that the content of files whose stamp did not change is not read again. Files
+ * modified too recently to be told apart from a later modification by their date are not stamped,
+ * their content is read each time.
+ */
+public class ContentDigest {
+
+  @Nonnull
+  private static final String ALGORITHM = "SHA-1";
+
+  /**
+   * Modification dates may be truncated to the second, a file modified in the same second could
+   * keep the same date.
+   */
+  private static final long DATE_PRECISION = 2000;
+
+  @CheckForNull
+  private final byte[] stamp;
+
+  @Nonnull
+  private final byte[] digest;
+
+  public ContentDigest(@CheckForNull byte[] stamp, @Nonnull byte[] digest) {
+    this.stamp = stamp;
+    this.digest = digest;
+  }
+
+  /**
+   * @return the digest of {@code file}, which is {@code previous} when the stamp of the file is
+   * the one of {@code previous}.
+   */
+  @Nonnull
+  public static ContentDigest get(@Nonnull File file, @CheckForNull ContentDigest previous)
+      throws IOException {
+    MessageDigest stampDigest = newDigest();
+    boolean stable = addStamp(file, "", stampDigest, System.currentTimeMillis() - DATE_PRECISION);
+    byte[] stamp = stable ? stampDigest.digest() : null;
+
+    if (previous != null && stamp != null && Arrays.equals(stamp, previous.stamp)) {
+      return previous;
+    }
+
+    MessageDigest contentDigest = newDigest();
+    addContent(file, "", contentDigest, new byte[64 * 1024]);
+    return new ContentDigest(stamp, contentDigest.digest());
+  }
+
+  @CheckForNull
+  public byte[] getStamp() {
+    return stamp;
+  }
+
+  @Nonnull
+  public byte[] getDigest() {
+    return digest;
+  }
+
+  /**
+   * @return true if both digests were computed from the same content.
+   */
+  public boolean hasSameContent(@CheckForNull ContentDigest other) {
+    return other != null && Arrays.equals(digest, other.digest);
+  }
+
+  /**
+   * @return false if a file was modified after {@code stableDate}.
+   */
+  private static boolean addStamp(@Nonnull File file, @Nonnull String path,
+      @Nonnull MessageDigest stamp, long stableDate) {
+    boolean stable = true;
+    if (file.isDirectory()) {
+      for (File child : getSortedFiles(file)) {
+        stable &= addStamp(child, path + '/' + child.getName(), stamp, stableDate);
+      }
+    } else {
+      long lastModified = file.lastModified();
+      addString(stamp, path);
+      addLong(stamp, file.length());
+      addLong(stamp, lastModified);
+      stable = lastModified < stableDate;
+    }
+    return stable;
+  }
+
+  private static void addContent(@Nonnull File file, @Nonnull String path,
+      @Nonnull MessageDigest digest, @Nonnull byte[] buffer) throws IOException {
+    if (file.isDirectory()) {
+      for (File child : getSortedFiles(file)) {
+        addContent(child, path + '/' + child.getName(), digest, buffer);
+      }
+    } else {
+      addString(digest, path);
+      InputStream in = new FileInputStream(file);
+      try {
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+          digest.update(buffer, 0, read);
+        }
+      } finally {
+        in.close();
+      }
+    }
+  }
+
+  @Nonnull
+  private static File[] getSortedFiles(@Nonnull File dir) {
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return new File[0];
+    }
+    Arrays.sort(files);
+    return files;
+  }
+
+  private static void addString(@Nonnull MessageDigest digest, @Nonnull String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      digest.update((byte) (c >> 8));
+      digest.update((byte) c);
+    }
+    digest.update((byte) 0);
+    digest.update((byte) 0);
+  }
+
+  private static void addLong(@Nonnull MessageDigest digest, long value) {
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      digest.update((byte) (value >> shift));
+    }
+  }
+
+  @Nonnull
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
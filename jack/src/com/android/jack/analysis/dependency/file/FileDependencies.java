@@ -16,8 +16,6 @@
 
 package com.android.jack.analysis.dependency.file;
 
-import com.google.common.io.LineReader;
-
 import com.android.jack.Jack;
 import com.android.jack.analysis.dependency.Dependency;
 import com.android.jack.ir.ast.JType;
@@ -27,8 +25,10 @@ import com.android.sched.item.Name;
 import com.android.sched.item.Tag;
 import com.android.sched.vfs.VPath;
 
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -39,7 +39,8 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
- * Class representing bidirectional dependencies between java files and their types.
+ * Class representing bidirectional dependencies between java files and their types, and the
+ * digests of the content of the files a compilation depends on.
  */
 public class FileDependencies extends Dependency {
 
@@ -57,6 +58,12 @@ public class FileDependencies extends Dependency {
   @Nonnull
   private Map<String, Set<String>> javaFileToTypes = new HashMap<String, Set<String>>();
 
+  @Nonnull
+  private Map<String, String> typeToJavaFile = new HashMap<String, String>();
+
+  @Nonnull
+  private Map<String, ContentDigest> digests = new HashMap<String, ContentDigest>();
+
   public void addMappingBetweenJavaFileAndType(@Nonnull String javaFileName,
       @Nonnull JType type) {
     String typeFqn = BinaryQualifiedNameFormatter.getFormatter().getName(type);
@@ -68,17 +75,83 @@ public class FileDependencies extends Dependency {
     }
 
     types.add(typeFqn);
+    typeToJavaFile.put(typeFqn, javaFileName);
   }
 
-  public void write(@Nonnull PrintStream ps) {
-    writeMapOne2Many(ps, javaFileToTypes);
-    ps.print(Dependency.MAP_SEPARATOR);
-    ps.println();
+  /**
+   * Removes the types of a java file, before the file is compiled again or once it was deleted.
+   */
+  public void removeJavaFile(@Nonnull String javaFileName) {
+    Set<String> types = javaFileToTypes.remove(javaFileName);
+    if (types != null) {
+      for (String type : types) {
+        typeToJavaFile.remove(type);
+      }
+    }
   }
 
-  @Nonnull
-  public void read(@Nonnull Readable reader) throws IOException {
-    javaFileToTypes = readMapOne2Many(new LineReader(reader));
+  /**
+   * @return the digest of a java file or of a library as recorded by the last compilation, or
+   * null if there is none.
+   */
+  @CheckForNull
+  public ContentDigest getDigest(@Nonnull String fileName) {
+    return digests.get(fileName);
+  }
+
+  public void setDigest(@Nonnull String fileName, @Nonnull ContentDigest digest) {
+    digests.put(fileName, digest);
+  }
+
+  public void removeDigest(@Nonnull String fileName) {
+    digests.remove(fileName);
+  }
+
+  @Override
+  public void write(@Nonnull DataOutputStream out) throws IOException {
+    NameTable names = new NameTable();
+    names.addAll(javaFileToTypes);
+    for (String fileName : digests.keySet()) {
+      names.add(fileName);
+    }
+
+    names.write(out);
+    writeMapOne2Many(out, names, javaFileToTypes);
+    out.writeInt(digests.size());
+    for (Map.Entry<String, ContentDigest> entry : digests.entrySet()) {
+      ContentDigest digest = entry.getValue();
+      out.writeInt(names.getIndex(entry.getKey()));
+      byte[] stamp = digest.getStamp();
+      writeBytes(out, stamp == null ? new byte[0] : stamp);
+      writeBytes(out, digest.getDigest());
+    }
+  }
+
+  @Override
+  public void read(@Nonnull ByteBuffer buffer) throws IOException {
+    String[] names = readNames(buffer);
+    javaFileToTypes = readMapOne2Many(buffer, names);
+    typeToJavaFile = new HashMap<String, String>();
+    for (Map.Entry<String, Set<String>> entry : javaFileToTypes.entrySet()) {
+      for (String type : entry.getValue()) {
+        typeToJavaFile.put(type, entry.getKey());
+      }
+    }
+
+    try {
+      int size = buffer.getInt();
+      digests = new HashMap<String, ContentDigest>(size * 4 / 3 + 1);
+      for (int i = 0; i < size; i++) {
+        String fileName = names[buffer.getInt()];
+        byte[] stamp = readBytes(buffer);
+        digests.put(fileName,
+            new ContentDigest(stamp.length == 0 ? null : stamp, readBytes(buffer)));
+      }
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated dependencies", e);
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IOException("Corrupted dependencies", e);
+    }
   }
 
   @Nonnull
@@ -92,13 +165,7 @@ public class FileDependencies extends Dependency {
 
   @CheckForNull
   public String getJavaFileName(@Nonnull String typeName) {
-    for (Map.Entry<String, Set<String>> entry : javaFileToTypes.entrySet()) {
-      if (entry.getValue().contains(typeName)) {
-        return entry.getKey();
-      }
-    }
-
-    return null;
+    return typeToJavaFile.get(typeName);
   }
 
   @Nonnull
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.analysis.dependency.type;
+
+import com.android.jack.ir.ast.Annotable;
+import com.android.jack.ir.ast.JAbstractStringLiteral;
+import com.android.jack.ir.ast.JAnnotation;
+import com.android.jack.ir.ast.JBooleanLiteral;
+import com.android.jack.ir.ast.JClass;
+import com.android.jack.ir.ast.JClassOrInterface;
+import com.android.jack.ir.ast.JDefinedClassOrInterface;
+import com.android.jack.ir.ast.JField;
+import com.android.jack.ir.ast.JInterface;
+import com.android.jack.ir.ast.JLiteral;
+import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JNullLiteral;
+import com.android.jack.ir.ast.JNumberLiteral;
+import com.android.jack.ir.ast.marker.GenericSignature;
+import com.android.jack.ir.ast.marker.ThrownExceptionMarker;
+import com.android.jack.ir.formatter.BinarySignatureFormatter;
+import com.android.sched.marker.MarkerManager;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Fingerprint of the part of a type that the compilation of other types depends on: its
+ * modifiers, super types, member types, generic signature and annotations, and the signatures of
+ * its non private members with the values of its constant fields.
+ *
+ * Changing the body of a method, or a private member, keeps the fingerprint of a type, the types
+ * depending on it do not need to be compiled again.
+ */
+public class ApiFingerprint {
+
+  @Nonnull
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  @Nonnull
+  private static final BinarySignatureFormatter formatter = BinarySignatureFormatter.getFormatter();
+
+  private ApiFingerprint() {
+  }
+
+  public static long compute(@Nonnull JDefinedClassOrInterface type) {
+    StringBuilder api = new StringBuilder();
+    api.append(type.getModifier()).append(' ').append(formatter.getName(type));
+    JClass superClass = type.getSuperClass();
+    if (superClass != null) {
+      api.append(" extends ").append(formatter.getName(superClass));
+    }
+    for (JInterface implement : type.getImplements()) {
+      api.append(" implements ").append(formatter.getName(implement));
+    }
+    appendGenericSignature(api, type);
+    appendAnnotations(api, type);
+    api.append('\n');
+
+    List<String> members = new ArrayList<String>();
+    for (JClassOrInterface memberType : type.getMemberTypes()) {
+      members.add("type " + formatter.getName(memberType));
+    }
+    for (JField field : type.getFields()) {
+      if (!field.isPrivate() && !field.isSynthetic()) {
+        members.add(getApi(field));
+      }
+    }
+    for (JMethod method : type.getMethods()) {
+      if (!method.isPrivate() && !method.isSynthetic()) {
+        members.add(getApi(method));
+      }
+    }
+    // The order of members does not change how other types are compiled
+    Collections.sort(members);
+    for (String member : members) {
+      api.append(member).append('\n');
+    }
+
+    byte[] digest = getDigest().digest(api.toString().getBytes(UTF_8));
+    long fingerprint = 0;
+    for (int i = 0; i < 8; i++) {
+      fingerprint = (fingerprint << 8) | (digest[i] & 0xFF);
+    }
+    return fingerprint;
+  }
+
+  @Nonnull
+  private static String getApi(@Nonnull JField field) {
+    StringBuilder api = new StringBuilder("field ");
+    api.append(field.getModifier()).append(' ').append(field.getName()).append(':')
+        .append(formatter.getName(field.getType()));
+    JLiteral initialValue = field.getInitialValue();
+    if (initialValue != null) {
+      // Constant values are inlined by the types using them
+      api.append(" = ").append(getValue(initialValue));
+    }
+    appendGenericSignature(api, field);
+    appendAnnotations(api, field);
+    return api.toString();
+  }
+
+  @Nonnull
+  private static String getApi(@Nonnull JMethod method) {
+    StringBuilder api = new StringBuilder("method ");
+    api.append(method.getModifier()).append(' ').append(formatter.getName(method));
+    ThrownExceptionMarker thrown = method.getMarker(ThrownExceptionMarker.class);
+    if (thrown != null) {
+      for (JClass exception : thrown.getThrownExceptions()) {
+        api.append(" throws ").append(formatter.getName(exception));
+      }
+    }
+    appendGenericSignature(api, method);
+    appendAnnotations(api, method);
+    return api.toString();
+  }
+
+  @Nonnull
+  private static String getValue(@Nonnull JLiteral literal) {
+    if (literal instanceof JNumberLiteral) {
+      return ((JNumberLiteral) literal).getNumber().toString();
+    } else if (literal instanceof JBooleanLiteral) {
+      return String.valueOf(((JBooleanLiteral) literal).getValue());
+    } else if (literal instanceof JAbstractStringLiteral) {
+      return '"' + ((JAbstractStringLiteral) literal).getValue() + '"';
+    } else if (literal instanceof JNullLiteral) {
+      return "null";
+    }
+    // Not a constant of the Java language
+    return literal.getClass().getName();
+  }
+
+  private static void appendGenericSignature(@Nonnull StringBuilder api,
+      @Nonnull MarkerManager element) {
+    GenericSignature signature = element.getMarker(GenericSignature.class);
+    if (signature != null) {
+      api.append(" <").append(signature.getGenericSignature()).append('>');
+    }
+  }
+
+  private static void appendAnnotations(@Nonnull StringBuilder api,
+      @Nonnull Annotable element) {
+    List<String> annotations = new ArrayList<String>();
+    for (JAnnotation annotation : element.getAnnotationTypes()) {
+      annotations.add(formatter.getName(annotation));
+    }
+    Collections.sort(annotations);
+    for (String annotation : annotations) {
+      api.append(" @").append(annotation);
+    }
+  }
+
+  @Nonnull
+  private static MessageDigest getDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
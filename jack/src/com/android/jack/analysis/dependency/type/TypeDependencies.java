@@ -16,8 +16,6 @@
 
 package com.android.jack.analysis.dependency.type;
 
-import com.google.common.io.LineReader;
-
 import com.android.jack.analysis.dependency.Dependency;
 import com.android.jack.ir.ast.JType;
 import com.android.jack.ir.formatter.BinaryQualifiedNameFormatter;
@@ -26,10 +24,15 @@ import com.android.sched.item.Name;
 import com.android.sched.item.Tag;
 import com.android.sched.vfs.VPath;
 
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -41,6 +44,8 @@ import javax.annotation.Nonnull;
  * - hierarchy dependency represents inheritance and implementation
  * - constant dependency represents constant usage dependency
  * - code dependency represents type used by code
+ * The API fingerprint of each type, see {@link ApiFingerprint}, is also kept, to only recompile
+ * the types depending on a modified type when its API changed.
  */
 public class TypeDependencies extends Dependency {
 
@@ -64,6 +69,9 @@ public class TypeDependencies extends Dependency {
   @Nonnull
   private Map<String, Set<String>> constantDependencies = new HashMap<String, Set<String>>();
 
+  @Nonnull
+  private Map<String, Long> apiFingerprints = new HashMap<String, Long>();
+
   public void addHierarchyDependency(@Nonnull JType depender, @Nonnull JType dependee) {
     addDependency(hierarchyDependencies, depender, dependee);
   }
@@ -76,24 +84,98 @@ public class TypeDependencies extends Dependency {
     addDependency(codeDependencies, depender, dependee);
   }
 
-  public void write(@Nonnull PrintStream ps) {
-    writeMapOne2Many(ps, hierarchyDependencies);
-    ps.print(Dependency.MAP_SEPARATOR);
-    ps.println();
-    writeMapOne2Many(ps, constantDependencies);
-    ps.print(Dependency.MAP_SEPARATOR);
-    ps.println();
-    writeMapOne2Many(ps, codeDependencies);
-    ps.print(Dependency.MAP_SEPARATOR);
-    ps.println();
+  public void setApiFingerprint(@Nonnull JType type, long fingerprint) {
+    apiFingerprints.put(BinaryQualifiedNameFormatter.getFormatter().getName(type),
+        Long.valueOf(fingerprint));
+  }
+
+  /**
+   * @return the API fingerprint of a type, or null if the type was not compiled.
+   */
+  @CheckForNull
+  public Long getApiFingerprint(@Nonnull String typeName) {
+    return apiFingerprints.get(typeName);
+  }
+
+  /**
+   * Removes the dependencies of a type and its fingerprint, before the type is compiled again or
+   * once it was deleted. Dependencies on the type are kept.
+   */
+  public void removeType(@Nonnull String typeName) {
+    hierarchyDependencies.remove(typeName);
+    constantDependencies.remove(typeName);
+    codeDependencies.remove(typeName);
+    apiFingerprints.remove(typeName);
   }
 
+  @Override
+  public void write(@Nonnull DataOutputStream out) throws IOException {
+    NameTable names = new NameTable();
+    names.addAll(hierarchyDependencies);
+    names.addAll(constantDependencies);
+    names.addAll(codeDependencies);
+    for (String typeName : apiFingerprints.keySet()) {
+      names.add(typeName);
+    }
+
+    names.write(out);
+    writeMapOne2Many(out, names, hierarchyDependencies);
+    writeMapOne2Many(out, names, constantDependencies);
+    writeMapOne2Many(out, names, codeDependencies);
+    out.writeInt(apiFingerprints.size());
+    for (Map.Entry<String, Long> entry : apiFingerprints.entrySet()) {
+      out.writeInt(names.getIndex(entry.getKey()));
+      out.writeLong(entry.getValue().longValue());
+    }
+  }
+
+  @Override
+  public void read(@Nonnull ByteBuffer buffer) throws IOException {
+    String[] names = readNames(buffer);
+    hierarchyDependencies = readMapOne2Many(buffer, names);
+    constantDependencies = readMapOne2Many(buffer, names);
+    codeDependencies = readMapOne2Many(buffer, names);
+    try {
+      int size = buffer.getInt();
+      apiFingerprints = new HashMap<String, Long>(size * 4 / 3 + 1);
+      for (int i = 0; i < size; i++) {
+        String typeName = names[buffer.getInt()];
+        apiFingerprints.put(typeName, Long.valueOf(buffer.getLong()));
+      }
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated dependencies", e);
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IOException("Corrupted dependencies", e);
+    }
+  }
+
+  /**
+   * @return the types to recompile when the given types are modified, as computed by
+   * {@link #getRecompileDependencies()}, without computing the dependencies of the other types.
+   */
   @Nonnull
-  public void read(@Nonnull Readable readable) throws IOException {
-    LineReader lr = new LineReader(readable);
-    hierarchyDependencies = readMapOne2Many(lr);
-    constantDependencies = readMapOne2Many(lr);
-    codeDependencies = readMapOne2Many(lr);
+  public Set<String> getRecompileDependencies(@Nonnull Collection<String> modifiedTypes) {
+    Map<String, List<String>> subTypes = reverse(hierarchyDependencies);
+    Map<String, List<String>> codeDependers = reverse(codeDependencies);
+    Map<String, List<String>> constantDependers = reverse(constantDependencies);
+
+    Set<String> typesToRecompile = new HashSet<String>();
+    for (String modifiedType : modifiedTypes) {
+      // Types using the modified type or one of its sub-types, and the sub-types themselves
+      Set<String> usedTypes = new HashSet<String>();
+      usedTypes.add(modifiedType);
+      addReachable(subTypes, modifiedType, usedTypes);
+      for (String usedType : usedTypes) {
+        if (!usedType.equals(modifiedType)) {
+          typesToRecompile.add(usedType);
+        }
+        addAll(codeDependers.get(usedType), typesToRecompile);
+      }
+
+      // Types using a constant computed from the modified type
+      addReachable(constantDependers, modifiedType, typesToRecompile);
+    }
+    return typesToRecompile;
   }
 
   @Nonnull
@@ -201,4 +283,46 @@ public class TypeDependencies extends Dependency {
       }
     }
   }
+
+  @Nonnull
+  private static Map<String, List<String>> reverse(@Nonnull Map<String, Set<String>> one2many) {
+    Map<String, List<String>> reversed = new HashMap<String, List<String>>();
+    for (Map.Entry<String, Set<String>> entry : one2many.entrySet()) {
+      for (String value : entry.getValue()) {
+        List<String> keys = reversed.get(value);
+        if (keys == null) {
+          keys = new ArrayList<String>(1);
+          reversed.put(value, keys);
+        }
+        keys.add(entry.getKey());
+      }
+    }
+    return reversed;
+  }
+
+  private static void addReachable(@Nonnull Map<String, List<String>> edges,
+      @Nonnull String start, @Nonnull Set<String> reached) {
+    List<String> toVisit = new ArrayList<String>();
+    toVisit.add(start);
+    Set<String> visited = new HashSet<String>();
+    visited.add(start);
+    while (!toVisit.isEmpty()) {
+      String current = toVisit.remove(toVisit.size() - 1);
+      List<String> nexts = edges.get(current);
+      if (nexts != null) {
+        for (String next : nexts) {
+          if (visited.add(next)) {
+            reached.add(next);
+            toVisit.add(next);
+          }
+        }
+      }
+    }
+  }
+
+  private static void addAll(@CheckForNull List<String> values, @Nonnull Set<String> set) {
+    if (values != null) {
+      set.addAll(values);
+    }
+  }
 }
@@ -34,7 +34,7 @@ import com.android.sched.schedulable.Transform;
 import javax.annotation.Nonnull;
 
 /**
- * Collect type dependencies.
+ * Collect type dependencies and the API fingerprint of types.
  */
 @Description("Collect type dependencies")
 @Name("TypeDependenciesCollector")
@@ -86,6 +86,8 @@ public class TypeDependenciesCollector implements RunnableSchedulable<JDefinedCl
 
     Visitor v = new Visitor(declaredType);
     v.accept(declaredType);
+    Jack.getSession().getTypeDependencies().setApiFingerprint(declaredType,
+        ApiFingerprint.compute(declaredType));
   }
 
 }
@@ -29,8 +29,10 @@ import com.android.sched.schedulable.Constraint;
 import com.android.sched.schedulable.RunnableSchedulable;
 import com.android.sched.util.file.CannotCreateFileException;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.OutputStream;
 
 import javax.annotation.Nonnull;
 
@@ -44,11 +46,13 @@ public class TypeDependenciesWriter implements RunnableSchedulable<JSession>{
 
   @Override
   public void run(@Nonnull JSession session) throws JackUserException {
-    PrintStream ps = null;
+    OutputStream os = null;
     try {
-      ps = new PrintStream(session.getJackInternalOutputLibrary()
-          .createFile(FileType.DEPENDENCIES, TypeDependencies.vpath).openWrite());
-      Jack.getSession().getTypeDependencies().write(ps);
+      os = session.getJackInternalOutputLibrary().createFile(FileType.DEPENDENCIES,
+          TypeDependencies.vpath).openWrite();
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+      Jack.getSession().getTypeDependencies().write(out);
+      out.flush();
     } catch (CannotCreateFileException e) {
       IncrementalException incrementalException = new IncrementalException(e);
       Jack.getSession().getReporter().report(Severity.FATAL, incrementalException);
@@ -58,9 +62,13 @@ public class TypeDependenciesWriter implements RunnableSchedulable<JSession>{
       Jack.getSession().getReporter().report(Severity.FATAL, incrementalException);
       throw new JackAbortException(incrementalException);
     } finally {
-      if (ps != null) {
-        ps.close();
+      if (os != null) {
+        try {
+          os.close();
+        } catch (IOException e) {
+          // Content was already flushed
+        }
       }
     }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.analysis.dfa;
+
+import com.android.jack.cfg.BasicBlock;
+import com.android.jack.cfg.ControlFlowGraph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Iterative solver of a dataflow problem over the basic blocks of a {@link ControlFlowGraph}.
+ * The solver only schedules the blocks, the facts and their transfer functions are kept by the
+ * subclasses.
+ *
+ * Blocks are visited in reverse post-order of the analysis direction. The worklist always
+ * visits the pending block coming first in that order, and a block is never pending twice. The
+ * exit block is not a node of the graph and is never visited.
+ */
+public abstract class DataflowSolver {
+
+  /**
+   * Direction in which facts flow along the edges of the graph.
+   */
+  public static enum Direction {
+    FORWARD,
+    BACKWARD
+  }
+
+  @Nonnull
+  protected final ControlFlowGraph cfg;
+
+  @Nonnull
+  private final Direction direction;
+
+  protected DataflowSolver(@Nonnull ControlFlowGraph cfg, @Nonnull Direction direction) {
+    this.cfg = cfg;
+    this.direction = direction;
+  }
+
+  /**
+   * Compute the facts of the {@code bb} from the facts of its predecessors, or of its successors
+   * for a backward analysis.
+   *
+   * @return true if the facts propagated by {@code bb} to the following blocks have changed.
+   */
+  protected abstract boolean transfer(@Nonnull BasicBlock bb);
+
+  /**
+   * Visit blocks until a fixed point is reached. Every block is visited at least once.
+   */
+  public void solve() {
+    List<BasicBlock> order = getReversePostOrder();
+    int blockCount = order.size();
+    int[] orderIndexes = new int[cfg.getBasicBlockMaxId()];
+    for (int i = 0; i < blockCount; i++) {
+      orderIndexes[order.get(i).getId()] = i;
+    }
+
+    BitSet pending = new BitSet(blockCount);
+    pending.set(0, blockCount);
+
+    for (int idx = pending.nextSetBit(0); idx >= 0; idx = pending.nextSetBit(0)) {
+      pending.clear(idx);
+      BasicBlock bb = order.get(idx);
+      if (transfer(bb)) {
+        for (BasicBlock next : getNextBlocks(bb)) {
+          if (next != cfg.getExitNode()) {
+            pending.set(orderIndexes[next.getId()]);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return all the blocks of the graph, in reverse post-order of the analysis direction.
+   *         Blocks that cannot be reached from the start of the analysis come last.
+   */
+  @Nonnull
+  protected List<BasicBlock> getReversePostOrder() {
+    List<BasicBlock> nodes = cfg.getNodes();
+    BitSet visited = new BitSet(cfg.getBasicBlockMaxId());
+    LinkedList<BasicBlock> order = new LinkedList<BasicBlock>();
+
+    List<BasicBlock> roots;
+    if (direction == Direction.FORWARD) {
+      roots = Collections.<BasicBlock>singletonList(cfg.getEntryNode());
+    } else {
+      roots = cfg.getExitNode().getPredecessors();
+    }
+
+    // Iterative depth first search, deep graphs of generated methods could overflow the stack.
+    LinkedList<BasicBlock> blocks = new LinkedList<BasicBlock>();
+    LinkedList<Iterator<BasicBlock>> nextBlocks = new LinkedList<Iterator<BasicBlock>>();
+    for (BasicBlock root : roots) {
+      if (!visited.get(root.getId())) {
+        visited.set(root.getId());
+        blocks.push(root);
+        nextBlocks.push(getNextBlocks(root).iterator());
+      }
+      while (!blocks.isEmpty()) {
+        Iterator<BasicBlock> iterator = nextBlocks.peek();
+        if (iterator.hasNext()) {
+          BasicBlock next = iterator.next();
+          if (next != cfg.getExitNode() && !visited.get(next.getId())) {
+            visited.set(next.getId());
+            blocks.push(next);
+            nextBlocks.push(getNextBlocks(next).iterator());
+          }
+        } else {
+          order.addFirst(blocks.pop());
+          nextBlocks.pop();
+        }
+      }
+    }
+
+    List<BasicBlock> result = new ArrayList<BasicBlock>(nodes.size());
+    result.addAll(order);
+    for (BasicBlock bb : nodes) {
+      if (!visited.get(bb.getId())) {
+        result.add(bb);
+      }
+    }
+    return result;
+  }
+
+  @Nonnull
+  private List<BasicBlock> getNextBlocks(@Nonnull BasicBlock bb) {
+    return direction == Direction.FORWARD ? bb.getSuccessors() : bb.getPredecessors();
+  }
+}
@@ -18,6 +18,7 @@ package com.android.jack.analysis.dfa.reachingdefs;
 
 import com.android.jack.Options;
 import com.android.jack.analysis.DefinitionMarker;
+import com.android.jack.analysis.dfa.DataflowSolver;
 import com.android.jack.cfg.BasicBlock;
 import com.android.jack.cfg.ControlFlowGraph;
 import com.android.jack.cfg.PeiBasicBlock;
@@ -27,6 +28,7 @@ import com.android.jack.ir.ast.JMethod;
 import com.android.jack.ir.ast.JParameter;
 import com.android.jack.ir.ast.JStatement;
 import com.android.jack.ir.ast.JThis;
+import com.android.jack.ir.ast.JVariable;
 import com.android.jack.util.ThreeAddressCodeFormUtils;
 import com.android.jack.util.filter.Filter;
 import com.android.sched.item.Description;
@@ -36,13 +38,16 @@ import com.android.sched.schedulable.RunnableSchedulable;
 import com.android.sched.schedulable.Transform;
 import com.android.sched.schedulable.Use;
 import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.ResolvedConfig;
 import com.android.sched.util.config.ThreadConfig;
 import com.android.sched.util.config.id.ImplementationPropertyId;
 import com.android.sched.util.config.id.PropertyId;
 
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 
@@ -64,9 +69,19 @@ public class ReachingDefinitions implements RunnableSchedulable<JMethod> {
           ReachingDefinitionsChecker.class).addDefaultValue("none").withCategory(Private.get());
 
   @Nonnull
-  private final Filter<JMethod> filter = ThreadConfig.get(Options.METHOD_FILTER);
+  private final Filter<JMethod> filter;
 
-  private final ReachingDefinitionsChecker checker =  ThreadConfig.get(REACHING_DEFS_CHECKER);
+  @Nonnull
+  private final ReachingDefinitionsChecker checker;
+
+  public ReachingDefinitions() {
+    this(ThreadConfig.getResolvedConfig());
+  }
+
+  public ReachingDefinitions(@Nonnull ResolvedConfig config) {
+    filter = config.get(Options.METHOD_FILTER);
+    checker = config.get(REACHING_DEFS_CHECKER);
+  }
 
   @Override
   public void run(@Nonnull JMethod method) throws Exception {
@@ -85,78 +100,28 @@ public class ReachingDefinitions implements RunnableSchedulable<JMethod> {
     assert cfg != null;
 
     List<DefinitionMarker> definitions = getAllDefinitions(method, cfg);
-    int definitionsSize = definitions.size();
-
-    int basicBlockMaxId = cfg.getBasicBlockMaxId();
-    BitSet[] in = new BitSet[basicBlockMaxId];
-    // Output are not the same if we are on an exception path or not. Thus we compute two
-    // informations that are used according to the path.
-    BitSet[] out = new BitSet[basicBlockMaxId];
-    BitSet[] outException = new BitSet[basicBlockMaxId];
 
-    for (BasicBlock bb : cfg.getNodes()) {
-      int bbId = bb.getId();
-      in[bbId] = new BitSet(definitionsSize);
-      out[bbId] = new BitSet(definitionsSize);
-      outException[bbId] = new BitSet(definitionsSize);
-    }
+    Solver solver = new Solver(cfg, definitions);
 
     BasicBlock entryBb = cfg.getEntryNode();
-
+    BitSet entryIn = solver.in[entryBb.getId()];
     if (!method.isStatic() && method.getEnclosingType() instanceof JDefinedClass) {
-      DefinitionMarker dm = getDefinitionMarkerForThis(method);
-      in[entryBb.getId()].set(dm.getBitSetIdx());
-      out[entryBb.getId()].set(dm.getBitSetIdx());
+      entryIn.set(getDefinitionMarkerForThis(method).getBitSetIdx());
     }
 
     // Parameters are definitions
     for (JParameter param : method.getParams()) {
       DefinitionMarker dm = param.getMarker(DefinitionMarker.class);
       assert dm != null;
-      in[entryBb.getId()].set(dm.getBitSetIdx());
-      out[entryBb.getId()].set(dm.getBitSetIdx());
+      entryIn.set(dm.getBitSetIdx());
     }
 
-    List<BasicBlock> changeNodes = cfg.getNodes();
-
-    while (!changeNodes.isEmpty()) {
-      BasicBlock bb = changeNodes.remove(0);
-      int bbId = bb.getId();
-      List<BasicBlock> predecessors = bb.getPredecessors();
-
-      if (!predecessors.isEmpty()) {
-        BitSet unionOfPred = in[bbId];
-        unionOfPred.clear();
-
-        for (BasicBlock pred : predecessors) {
-          if (pred instanceof PeiBasicBlock
-              && ((PeiBasicBlock) pred).getExceptionBlocks().contains(bb)) {
-            unionOfPred.or(outException[pred.getId()]);
-          } else {
-            unionOfPred.or(out[pred.getId()]);
-          }
-        }
-
-        in[bbId] = unionOfPred;
-      }
-
-      BitSet oldOut = (BitSet) out[bbId].clone();
-
-      computeOutput(definitions, in[bbId], out[bbId], outException[bbId], bb);
-
-      if (!oldOut.equals(out[bbId])) {
-        for (BasicBlock succ : bb.getSuccessors()) {
-          if (!changeNodes.contains(succ) && succ != cfg.getExitNode()) {
-            changeNodes.add(succ);
-          }
-        }
-      }
-    }
+    solver.solve();
 
     assert cfg.getNodes().contains(entryBb);
 
     for (BasicBlock bb : cfg.getNodes()) {
-      bb.addMarker(new ReachingDefsMarker(getDefinitions(definitions, in[bb.getId()])));
+      bb.addMarker(new ReachingDefsMarker(getDefinitions(definitions, solver.in[bb.getId()])));
     }
   }
 
@@ -170,30 +135,125 @@ public class ReachingDefinitions implements RunnableSchedulable<JMethod> {
     return dm;
   }
 
-  private void computeOutput(@Nonnull List<DefinitionMarker> definitions, @Nonnull BitSet inBs,
-      @Nonnull BitSet outBs, @Nonnull BitSet outExceptionBs, @Nonnull BasicBlock bb) {
-    outBs.clear();
-    outBs.or(inBs);
+  private static class Solver extends DataflowSolver {
+
+    /**
+     * Definitions of each variable, to kill them without looking at all definitions.
+     */
+    @Nonnull
+    private final Map<JVariable, List<DefinitionMarker>> definitionsByVariable;
 
-    List<JStatement> statements = bb.getStatements();
+    @Nonnull
+    private final BitSet[] in;
 
-    for (JStatement stmt : statements) {
-      if (stmt == statements.get(statements.size() - 1)) {
-        // We are on the lastStatement
-        outExceptionBs.clear();
-        outExceptionBs.or(outBs);
+    @Nonnull
+    private final BitSet[] out;
+
+    /**
+     * Output are not the same if we are on an exception path or not, thus blocks that can throw
+     * to a catch block also have an output used along exception edges.
+     */
+    @Nonnull
+    private final BitSet[] outException;
+
+    @Nonnull
+    private BitSet newOut;
+
+    @Nonnull
+    private BitSet newOutException;
+
+    Solver(@Nonnull ControlFlowGraph cfg, @Nonnull List<DefinitionMarker> definitions) {
+      super(cfg, Direction.FORWARD);
+
+      definitionsByVariable = new HashMap<JVariable, List<DefinitionMarker>>();
+      for (DefinitionMarker dm : definitions) {
+        JVariable variable = dm.getDefinedVariable();
+        List<DefinitionMarker> variableDefinitions = definitionsByVariable.get(variable);
+        if (variableDefinitions == null) {
+          variableDefinitions = new ArrayList<DefinitionMarker>(1);
+          definitionsByVariable.put(variable, variableDefinitions);
+        }
+        variableDefinitions.add(dm);
+      }
+
+      int definitionsSize = definitions.size();
+      int basicBlockMaxId = cfg.getBasicBlockMaxId();
+      in = new BitSet[basicBlockMaxId];
+      out = new BitSet[basicBlockMaxId];
+      outException = new BitSet[basicBlockMaxId];
+      for (BasicBlock bb : cfg.getNodes()) {
+        int bbId = bb.getId();
+        in[bbId] = new BitSet(definitionsSize);
+        out[bbId] = new BitSet(definitionsSize);
+        if (bb instanceof PeiBasicBlock && !((PeiBasicBlock) bb).getExceptionBlocks().isEmpty()) {
+          outException[bbId] = new BitSet(definitionsSize);
+        }
+      }
+      newOut = new BitSet(definitionsSize);
+      newOutException = new BitSet(definitionsSize);
+    }
+
+    @Override
+    protected boolean transfer(@Nonnull BasicBlock bb) {
+      int bbId = bb.getId();
+      List<BasicBlock> predecessors = bb.getPredecessors();
+      BitSet inBs = in[bbId];
+
+      if (!predecessors.isEmpty()) {
+        inBs.clear();
+
+        for (BasicBlock pred : predecessors) {
+          BitSet predOutException = outException[pred.getId()];
+          if (predOutException != null
+              && ((PeiBasicBlock) pred).getExceptionBlocks().contains(bb)) {
+            inBs.or(predOutException);
+          } else {
+            inBs.or(out[pred.getId()]);
+          }
+        }
+      }
+
+      computeOutput(inBs, bb);
+
+      boolean changed = !newOut.equals(out[bbId]);
+      if (changed) {
+        BitSet oldOut = out[bbId];
+        out[bbId] = newOut;
+        newOut = oldOut;
+      }
+
+      BitSet oldOutException = outException[bbId];
+      if (oldOutException != null && !newOutException.equals(oldOutException)) {
+        outException[bbId] = newOutException;
+        newOutException = oldOutException;
+        changed = true;
       }
 
-      DefinitionMarker currentDef = ThreeAddressCodeFormUtils.getDefinitionMarker(stmt);
-      if (currentDef != null) {
-        outBs.set(currentDef.getBitSetIdx());
+      return changed;
+    }
+
+    private void computeOutput(@Nonnull BitSet inBs, @Nonnull BasicBlock bb) {
+      newOut.clear();
+      newOut.or(inBs);
+      newOutException.clear();
+
+      List<JStatement> statements = bb.getStatements();
+      int lastIdx = statements.size() - 1;
+
+      for (int i = 0; i <= lastIdx; i++) {
+        if (i == lastIdx) {
+          // We are on the lastStatement
+          newOutException.or(newOut);
+        }
 
-        // Gen keeps only the last definition of a variable, previous are killed.
-        for (int i = outBs.nextSetBit(0); i >= 0; i = outBs.nextSetBit(i + 1)) {
-          DefinitionMarker dm = definitions.get(i);
-          if (dm.getDefinedVariable() == currentDef.getDefinedVariable() && dm != currentDef) {
-            outBs.clear(dm.getBitSetIdx());
+        DefinitionMarker currentDef =
+            ThreeAddressCodeFormUtils.getDefinitionMarker(statements.get(i));
+        if (currentDef != null) {
+          // Gen keeps only the last definition of a variable, previous are killed.
+          for (DefinitionMarker dm : definitionsByVariable.get(currentDef.getDefinedVariable())) {
+            newOut.clear(dm.getBitSetIdx());
           }
+          newOut.set(currentDef.getBitSetIdx());
         }
       }
     }
@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.analysis.hierarchy;
+
+import com.android.jack.ir.ast.JClass;
+import com.android.jack.ir.ast.JDefinedClass;
+import com.android.jack.ir.ast.JDefinedClassOrInterface;
+import com.android.jack.ir.ast.JInterface;
+import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JMethodId;
+import com.android.jack.ir.ast.JSession;
+import com.android.jack.ir.ast.JType;
+import com.android.sched.item.Description;
+import com.android.sched.marker.Marker;
+import com.android.sched.marker.ValidOn;
+import com.android.sched.scheduler.SharedExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Index of the hierarchy of a set of types: the super types and the sub types of each type of the
+ * set, and the methods declared by a type indexed by method id.
+ *
+ * Only {@link JDefinedClassOrInterface}s are indexed, the hierarchy is not followed through
+ * phantom types. The index does not follow changes of the hierarchy, it must be rebuilt once
+ * types are added, removed or change their super types.
+ */
+@Description("Index of the hierarchy of a set of types")
+@ValidOn(JSession.class)
+public class ClassHierarchy implements Marker {
+
+  /**
+   * Super types of less types than this are collected by the current thread.
+   */
+  @Nonnegative
+  private static final int MIN_TYPES_BY_THREAD = 512;
+
+  @Nonnull
+  private final Map<JDefinedClassOrInterface, List<JDefinedClassOrInterface>> superTypes;
+
+  @Nonnull
+  private final Map<JDefinedClassOrInterface, List<JDefinedClassOrInterface>> subTypes;
+
+  @Nonnull
+  private final ConcurrentHashMap<JDefinedClassOrInterface, Map<JMethodId, List<JMethod>>>
+      declaredMethods = new ConcurrentHashMap<JDefinedClassOrInterface,
+          Map<JMethodId, List<JMethod>>>();
+
+  public ClassHierarchy(@Nonnull Collection<? extends JDefinedClassOrInterface> types)
+      throws InterruptedException {
+    List<JDefinedClassOrInterface> typeList = new ArrayList<JDefinedClassOrInterface>(types);
+    List<List<JDefinedClassOrInterface>> superTypesByType = collectSuperTypes(typeList);
+
+    superTypes = new IdentityHashMap<JDefinedClassOrInterface, List<JDefinedClassOrInterface>>(
+        typeList.size());
+    Map<JDefinedClassOrInterface, List<JDefinedClassOrInterface>> subTypesBuilder =
+        new IdentityHashMap<JDefinedClassOrInterface, List<JDefinedClassOrInterface>>();
+    for (int i = 0; i < typeList.size(); i++) {
+      JDefinedClassOrInterface type = typeList.get(i);
+      List<JDefinedClassOrInterface> superTypesOfType = superTypesByType.get(i);
+      superTypes.put(type, superTypesOfType);
+      for (JDefinedClassOrInterface superType : superTypesOfType) {
+        List<JDefinedClassOrInterface> subTypesOfSuperType = subTypesBuilder.get(superType);
+        if (subTypesOfSuperType == null) {
+          subTypesOfSuperType = new ArrayList<JDefinedClassOrInterface>();
+          subTypesBuilder.put(superType, subTypesOfSuperType);
+        }
+        subTypesOfSuperType.add(type);
+      }
+    }
+
+    subTypes = new IdentityHashMap<JDefinedClassOrInterface, List<JDefinedClassOrInterface>>(
+        subTypesBuilder.size());
+    for (Map.Entry<JDefinedClassOrInterface, List<JDefinedClassOrInterface>> entry :
+        subTypesBuilder.entrySet()) {
+      subTypes.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+    }
+  }
+
+  /**
+   * @return the direct and indirect super classes and interfaces of {@code type}, ordered by a
+   * depth-first walk starting with the super class. {@code java.lang.Object} is not a super type
+   * of an interface.
+   */
+  @Nonnull
+  public List<JDefinedClassOrInterface> getSuperTypes(@Nonnull JDefinedClassOrInterface type) {
+    List<JDefinedClassOrInterface> result = superTypes.get(type);
+    if (result == null) {
+      result = collectSuperTypes(type);
+    }
+    return result;
+  }
+
+  /**
+   * @return the indexed types extending or implementing {@code type}, directly or indirectly.
+   */
+  @Nonnull
+  public List<JDefinedClassOrInterface> getSubTypes(@Nonnull JDefinedClassOrInterface type) {
+    List<JDefinedClassOrInterface> result = subTypes.get(type);
+    if (result == null) {
+      return Collections.emptyList();
+    }
+    return result;
+  }
+
+  /**
+   * @return the method declared by {@code type} with the given id and return type, or null if
+   * there is none.
+   */
+  @CheckForNull
+  public JMethod getMethod(@Nonnull JMethodId methodId, @Nonnull JType returnType,
+      @Nonnull JDefinedClassOrInterface type) {
+    List<JMethod> methods = getDeclaredMethods(type).get(methodId);
+    if (methods != null) {
+      for (JMethod method : methods) {
+        if (method.getType().isSameType(returnType)) {
+          return method;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the method called on an instance of {@code receiverType} by a virtual call of the
+   * given method id and return type, that is the first method declared by {@code receiverType} or
+   * by one of its super classes, or null if there is none.
+   */
+  @CheckForNull
+  public JMethod getImplementation(@Nonnull JMethodId methodId, @Nonnull JType returnType,
+      @Nonnull JDefinedClass receiverType) {
+    JClass currentType = receiverType;
+    while (currentType instanceof JDefinedClass) {
+      JDefinedClass currentDefinedType = (JDefinedClass) currentType;
+      JMethod method = getMethod(methodId, returnType, currentDefinedType);
+      if (method != null) {
+        return method;
+      }
+      currentType = currentDefinedType.getSuperClass();
+    }
+    return null;
+  }
+
+  @Nonnull
+  private Map<JMethodId, List<JMethod>> getDeclaredMethods(
+      @Nonnull JDefinedClassOrInterface type) {
+    Map<JMethodId, List<JMethod>> methodsById = declaredMethods.get(type);
+    if (methodsById == null) {
+      List<JMethod> methods = type.getMethods();
+      methodsById = new HashMap<JMethodId, List<JMethod>>(methods.size());
+      for (JMethod method : methods) {
+        JMethodId methodId = method.getMethodId();
+        List<JMethod> methodsWithId = methodsById.get(methodId);
+        if (methodsWithId == null) {
+          methodsById.put(methodId, Collections.singletonList(method));
+        } else {
+          // Methods differing only by their return type, such as bridges
+          List<JMethod> sameId = new ArrayList<JMethod>(methodsWithId.size() + 1);
+          sameId.addAll(methodsWithId);
+          sameId.add(method);
+          methodsById.put(methodId, sameId);
+        }
+      }
+      Map<JMethodId, List<JMethod>> previous = declaredMethods.putIfAbsent(type, methodsById);
+      if (previous != null) {
+        methodsById = previous;
+      }
+    }
+    return methodsById;
+  }
+
+  @Nonnull
+  private static List<List<JDefinedClassOrInterface>> collectSuperTypes(
+      @Nonnull final List<JDefinedClassOrInterface> types) throws InterruptedException {
+    final int typeCount = types.size();
+    final int threadCount = Math.min(SharedExecutor.getThreadCount(),
+        (typeCount + MIN_TYPES_BY_THREAD - 1) / MIN_TYPES_BY_THREAD);
+    final List<List<JDefinedClassOrInterface>> result =
+        new ArrayList<List<JDefinedClassOrInterface>>(
+            Collections.<List<JDefinedClassOrInterface>>nCopies(typeCount, null));
+
+    if (threadCount <= 1) {
+      for (int i = 0; i < typeCount; i++) {
+        result.set(i, collectSuperTypes(types.get(i)));
+      }
+      return result;
+    }
+
+    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(threadCount);
+    for (int thread = 0; thread < threadCount; thread++) {
+      final int first = thread;
+      tasks.add(new Callable<Void>() {
+        @Override
+        public Void call() {
+          // Each task fills its own indexes, the results are published by Future.get
+          for (int i = first; i < typeCount; i += threadCount) {
+            result.set(i, collectSuperTypes(types.get(i)));
+          }
+          return null;
+        }
+      });
+    }
+
+    SharedExecutor.invokeAll(tasks, RuntimeException.class);
+    return result;
+  }
+
+  @Nonnull
+  private static List<JDefinedClassOrInterface> collectSuperTypes(
+      @Nonnull JDefinedClassOrInterface type) {
+    List<JDefinedClassOrInterface> result = new ArrayList<JDefinedClassOrInterface>();
+    collectSuperTypes(type, result, new HashSet<JDefinedClassOrInterface>());
+    if (result.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  private static void collectSuperTypes(@Nonnull JDefinedClassOrInterface type,
+      @Nonnull List<JDefinedClassOrInterface> superTypes,
+      @Nonnull Set<JDefinedClassOrInterface> visited) {
+    if (type instanceof JDefinedClass) {
+      JClass superClass = ((JDefinedClass) type).getSuperClass();
+      if (superClass instanceof JDefinedClassOrInterface) {
+        addSuperType((JDefinedClassOrInterface) superClass, superTypes, visited);
+      }
+    }
+    for (JInterface superInterface : type.getImplements()) {
+      if (superInterface instanceof JDefinedClassOrInterface) {
+        addSuperType((JDefinedClassOrInterface) superInterface, superTypes, visited);
+      }
+    }
+  }
+
+  private static void addSuperType(@Nonnull JDefinedClassOrInterface superType,
+      @Nonnull List<JDefinedClassOrInterface> superTypes,
+      @Nonnull Set<JDefinedClassOrInterface> visited) {
+    if (visited.add(superType)) {
+      superTypes.add(superType);
+      collectSuperTypes(superType, superTypes, visited);
+    }
+  }
+
+  @Override
+  @Nonnull
+  public Marker cloneIfNeeded() {
+    return this;
+  }
+}
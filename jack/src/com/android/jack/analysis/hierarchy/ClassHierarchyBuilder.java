@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.analysis.hierarchy;
+
+import com.android.jack.ir.ast.JSession;
+import com.android.sched.item.Description;
+import com.android.sched.schedulable.RunnableSchedulable;
+import com.android.sched.schedulable.Transform;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Adds the {@link ClassHierarchy} of the types to emit to the session.
+ */
+@Description("Adds the class hierarchy of the types to emit to the session")
+@Transform(add = ClassHierarchy.class)
+public class ClassHierarchyBuilder implements RunnableSchedulable<JSession> {
+
+  @Override
+  public void run(@Nonnull JSession session) throws Exception {
+    session.addMarker(new ClassHierarchy(session.getTypesToEmit()));
+  }
+}
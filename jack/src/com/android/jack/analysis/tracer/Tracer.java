@@ -17,6 +17,7 @@
 package com.android.jack.analysis.tracer;
 
 import com.android.jack.Jack;
+import com.android.jack.analysis.hierarchy.ClassHierarchy;
 import com.android.jack.ir.ast.Annotable;
 import com.android.jack.ir.ast.JAbstractMethodBody;
 import com.android.jack.ir.ast.JAbstractStringLiteral;
@@ -60,7 +61,6 @@ import com.android.jack.ir.ast.JVisitor;
 import com.android.jack.ir.ast.marker.ThrownExceptionMarker;
 import com.android.jack.lookup.JMethodLookupException;
 import com.android.sched.item.Description;
-import com.android.sched.marker.LocalMarkerManager;
 import com.android.sched.util.log.LoggerFactory;
 import com.android.sched.util.log.TracerFactory;
 
@@ -85,10 +85,25 @@ public class Tracer extends JVisitor {
   @Nonnull
   private final TracerBrush brush;
 
+  @CheckForNull
+  private volatile ClassHierarchy hierarchy;
+
   public Tracer(@Nonnull TracerBrush brush) {
     this.brush = brush;
   }
 
+  @Nonnull
+  private ClassHierarchy getHierarchy() {
+    ClassHierarchy result = hierarchy;
+    if (result == null) {
+      // Tracers are instantiated before the hierarchy is added to the session
+      result = Jack.getSession().getMarker(ClassHierarchy.class);
+      assert result != null;
+      hierarchy = result;
+    }
+    return result;
+  }
+
   public void run(@Nonnull JDefinedClassOrInterface type) throws Exception {
     if (brush.startTraceSeed(type)) {
       trace(type);
@@ -114,34 +129,23 @@ public class Tracer extends JVisitor {
     return m instanceof JConstructor && m.getParams().isEmpty();
   }
 
-  private void traceImplementation(
-      @Nonnull JDefinedClass extendingOrImplementingClass, @Nonnull JClassOrInterface superClOrI) {
-    if (superClOrI instanceof JDefinedClassOrInterface) {
-      JDefinedClassOrInterface definedSuperClOrI = (JDefinedClassOrInterface) superClOrI;
-      for (JMethod method : definedSuperClOrI.getMethods()) {
-        if (brush.startTraceOverridingMethod(method)) {
-          JMethodId methodId = method.getMethodId();
-          JType returnType = method.getType();
-          JMethod implementation =
-              findImplementation(methodId, returnType, extendingOrImplementingClass);
-          // method was already marked, if implementation is the same, no need to re-trace it, and
-          // no need to mark implementation in subtypes. It was already done when the method
-          // was marked the first time, and for further subtypes that will be marked later,
-          // the case will be managed by this method.
-          if (implementation != null && implementation != method) {
-            trace(methodId, implementation.getEnclosingType(), returnType,
-                true /* mustTraceOverridingMethods */);
-          }
-          brush.endTraceOverridingMethod(method);
+  private void traceImplementation(@Nonnull JDefinedClass extendingOrImplementingClass,
+      @Nonnull JDefinedClassOrInterface superClOrI) {
+    for (JMethod method : superClOrI.getMethods()) {
+      if (brush.startTraceOverridingMethod(method)) {
+        JMethodId methodId = method.getMethodId();
+        JType returnType = method.getType();
+        JMethod implementation =
+            findImplementation(methodId, returnType, extendingOrImplementingClass);
+        // method was already marked, if implementation is the same, no need to re-trace it, and
+        // no need to mark implementation in subtypes. It was already done when the method
+        // was marked the first time, and for further subtypes that will be marked later,
+        // the case will be managed by this method.
+        if (implementation != null && implementation != method) {
+          trace(methodId, implementation.getEnclosingType(), returnType,
+              true /* mustTraceOverridingMethods */);
         }
-      }
-
-      JClass superClass = definedSuperClOrI.getSuperClass();
-      if (superClass != null) {
-        traceImplementation(extendingOrImplementingClass, superClass);
-      }
-      for (JInterface i : definedSuperClOrI.getImplements()) {
-        traceImplementation(extendingOrImplementingClass, i);
+        brush.endTraceOverridingMethod(method);
       }
     }
   }
@@ -152,17 +156,10 @@ public class Tracer extends JVisitor {
 
       if (t instanceof JDefinedClass) {
         JDefinedClass definedClass = (JDefinedClass) t;
-        JClass superClass = definedClass.getSuperClass();
-
-        if (superClass != null) {
-          traceImplementation(definedClass, superClass);
+        for (JDefinedClassOrInterface superType : getHierarchy().getSuperTypes(definedClass)) {
+          traceImplementation(definedClass, superType);
         }
 
-        for (JInterface i : definedClass.getImplements()) {
-          traceImplementation(definedClass, i);
-        }
-
-
         if (JModifier.isAnonymousType(t.getModifier())) {
           trace(t.getEnclosingType());
           if (brush.startTraceEnclosingMethod()) {
@@ -229,6 +226,10 @@ public class Tracer extends JVisitor {
   @CheckForNull
   private JMethod findMethod(@Nonnull JMethodId methodId,
       @Nonnull JClassOrInterface enclosingType, @Nonnull JType returnType) {
+    if (enclosingType instanceof JDefinedClassOrInterface) {
+      return getHierarchy().getMethod(
+          methodId, returnType, (JDefinedClassOrInterface) enclosingType);
+    }
     for (JMethod m : methodId.getMethods()) {
       if (m.getEnclosingType().isSameType(enclosingType) && m.getType().isSameType(returnType)) {
         return m;
@@ -257,10 +258,10 @@ public class Tracer extends JVisitor {
     }
 
     if (receiverType instanceof JDefinedClassOrInterface && mustTraceOverridingMethods) {
-      ExtendingOrImplementingClassMarker marker =
-          ((LocalMarkerManager) receiverType).getMarker(ExtendingOrImplementingClassMarker.class);
-      if (marker != null) {
-        for (JDefinedClass subClass : marker.getExtendingOrImplementingClasses()) {
+      for (JDefinedClassOrInterface subType :
+          getHierarchy().getSubTypes((JDefinedClassOrInterface) receiverType)) {
+        if (subType instanceof JDefinedClass) {
+          JDefinedClass subClass = (JDefinedClass) subType;
           if (brush.traceMarked(subClass)) {
             JMethod implementation = findImplementation(mid, returnType, subClass);
             if (implementation != null) {
@@ -399,16 +400,7 @@ public class Tracer extends JVisitor {
   @CheckForNull
   private JMethod findImplementation(
       @Nonnull JMethodId methodId, @Nonnull JType returnType, @Nonnull JDefinedClass receiverType) {
-    JClass currentType = receiverType;
-    while (currentType instanceof JDefinedClass) {
-      JMethod foundMethod = findMethod(methodId, currentType, returnType);
-      if (foundMethod != null) {
-        return foundMethod;
-      }
-      currentType = ((JDefinedClass) currentType).getSuperClass();
-    }
-
-    return null;
+    return getHierarchy().getImplementation(methodId, returnType, receiverType);
   }
 
 
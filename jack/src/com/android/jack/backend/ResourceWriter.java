@@ -54,6 +54,8 @@ public class ResourceWriter implements RunnableSchedulable<JSession> {
     Container containerType = ThreadConfig.get(Options.DEX_OUTPUT_CONTAINER_TYPE);
     if (containerType == Container.DIR) {
       outputVDir = ThreadConfig.get(Options.DEX_OUTPUT_DIR);
+    } else if (ThreadConfig.get(Options.DEX_OUTPUT_ZIP_PARALLEL).booleanValue()) {
+      outputVDir = ThreadConfig.get(Options.INTERNAL_DEX_OUTPUT_PARALLEL_ZIP);
     } else {
       outputVDir = ThreadConfig.get(Options.DEX_OUTPUT_ZIP);
     }
@@ -28,6 +28,7 @@ import com.android.sched.schedulable.Constraint;
 import com.android.sched.schedulable.Produce;
 import com.android.sched.schedulable.RunnableSchedulable;
 import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.ResolvedConfig;
 import com.android.sched.util.config.ThreadConfig;
 import com.android.sched.util.config.id.ImplementationPropertyId;
 import com.android.sched.vfs.Container;
@@ -59,23 +60,33 @@ public class DexFileWriter extends DexWriter implements RunnableSchedulable<JSes
           "jack.dex.output.policy", "Define which policy will be used to emit dex files",
           DexWritingTool.class).addDefaultValue("single-dex");
 
+  @Nonnull
+  private final ResolvedConfig config;
+
   @Nonnull
   private final OutputVFS outputVDir;
 
-  {
-    assert ThreadConfig.get(Options.GENERATE_DEX_FILE).booleanValue();
-    Container container = ThreadConfig.get(Options.DEX_OUTPUT_CONTAINER_TYPE);
+  public DexFileWriter() {
+    this(ThreadConfig.getResolvedConfig());
+  }
+
+  public DexFileWriter(@Nonnull ResolvedConfig config) {
+    this.config = config;
+    assert config.get(Options.GENERATE_DEX_FILE).booleanValue();
+    Container container = config.get(Options.DEX_OUTPUT_CONTAINER_TYPE);
     if (container == Container.DIR) {
-      outputVDir = ThreadConfig.get(Options.DEX_OUTPUT_DIR);
+      outputVDir = config.get(Options.DEX_OUTPUT_DIR);
+    } else if (config.get(Options.DEX_OUTPUT_ZIP_PARALLEL).booleanValue()) {
+      outputVDir = config.get(Options.INTERNAL_DEX_OUTPUT_PARALLEL_ZIP);
     } else {
-      outputVDir = ThreadConfig.get(Options.DEX_OUTPUT_ZIP);
+      outputVDir = config.get(Options.DEX_OUTPUT_ZIP);
     }
   }
 
   @Override
   public void run(@Nonnull JSession session) {
 
-    DexWritingTool writingTool = ThreadConfig.get(DEX_WRITING_POLICY);
+    DexWritingTool writingTool = config.get(DEX_WRITING_POLICY);
     try {
       writingTool.write(outputVDir);
     } catch (DexWritingException e) {
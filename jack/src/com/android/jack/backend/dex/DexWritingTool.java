@@ -17,6 +17,7 @@
 package com.android.jack.backend.dex;
 
 import com.android.jack.Jack;
+import com.android.jack.Options;
 import com.android.jack.backend.dex.rop.CodeItemBuilder;
 import com.android.jack.dx.dex.DexOptions;
 import com.android.jack.dx.dex.file.DexFile;
@@ -25,37 +26,76 @@ import com.android.jack.ir.ast.JDefinedClassOrInterface;
 import com.android.jack.ir.formatter.BinaryQualifiedNameFormatter;
 import com.android.jack.library.FileType;
 import com.android.jack.library.FileTypeDoesNotExistException;
+import com.android.jack.library.InputLibrary;
 import com.android.jack.library.LibraryFormatException;
 import com.android.jack.library.OutputJackLibrary;
+import com.android.jack.library.TypeInInputLibraryLocation;
+import com.android.jack.scheduling.marker.ClassDefItemMarker;
+import com.android.jack.tools.merger.DecodedDex;
 import com.android.jack.tools.merger.JackMerger;
 import com.android.jack.tools.merger.MergingOverflowException;
+import com.android.sched.scheduler.SharedExecutor;
+import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.ResolvedConfig;
 import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.config.id.BooleanPropertyId;
 import com.android.sched.util.file.CannotCreateFileException;
 import com.android.sched.util.file.CannotReadException;
+import com.android.sched.util.location.Location;
 import com.android.sched.util.log.LoggerFactory;
 import com.android.sched.vfs.InputVFile;
 import com.android.sched.vfs.OutputVFS;
 import com.android.sched.vfs.OutputVFile;
+import com.android.sched.vfs.ParallelOutputVFS;
 import com.android.sched.vfs.VPath;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Logger;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
  * A helper to write dex files.
  */
+@HasKeyId
 public abstract class DexWritingTool {
 
   @Nonnull
-  private static Logger logger = LoggerFactory.getLogger();
+  public static final BooleanPropertyId PARALLEL_MERGE = BooleanPropertyId.create(
+      "jack.dex.output.merge.parallel",
+      "Decode, merge and write dex files using several threads").addDefaultValue(Boolean.FALSE);
+
+  @Nonnull
+  public static final BooleanPropertyId DIRECT_MERGE = BooleanPropertyId.create(
+      "jack.dex.output.merge.direct",
+      "Merge the compiled types into the output dex without writing intermediate dex files")
+      .addDefaultValue(Boolean.FALSE);
 
   @Nonnull
-  private final boolean forceJumbo = ThreadConfig.get(CodeItemBuilder.FORCE_JUMBO).booleanValue();
+  private static Logger logger = LoggerFactory.getLogger();
+
+  private final boolean forceJumbo;
+
+  private final boolean parallelMerge;
+
+  private final boolean directMerge;
+
+  protected DexWritingTool() {
+    ResolvedConfig config = ThreadConfig.getResolvedConfig();
+    forceJumbo = config.get(CodeItemBuilder.FORCE_JUMBO).booleanValue();
+    parallelMerge = config.get(PARALLEL_MERGE).booleanValue();
+    // Intermediate dex files are still needed for the library
+    directMerge = config.get(DIRECT_MERGE).booleanValue()
+        && !config.get(Options.GENERATE_JACK_LIBRARY).booleanValue();
+  }
 
   @Nonnull
   protected DexFile createDexFile() {
@@ -68,11 +108,13 @@ public abstract class DexWritingTool {
 
   protected void finishMerge(@Nonnull JackMerger merger, @Nonnull OutputVFile out)
       throws DexWritingException {
+    // Sections of the dex are written concurrently, each into its own buffer
+    ExecutorService executor = parallelMerge ? SharedExecutor.get() : null;
     OutputStream os = null;
     try {
       try {
         os = new BufferedOutputStream(out.openWrite());
-        merger.finish(os);
+        merger.finish(os, executor);
       } finally {
         if (os != null) {
           os.close();
@@ -92,6 +134,170 @@ public abstract class DexWritingTool {
     }
   }
 
+  protected boolean isParallelMerge() {
+    return parallelMerge;
+  }
+
+  /**
+   * @return true if the types to emit are merged from their {@link ClassDefItemMarker}, so that
+   * intermediate dex files do not need to be produced.
+   */
+  public boolean isDirectMerge() {
+    return directMerge && supportsDirectMerge();
+  }
+
+  /**
+   * @return true if this tool can merge types from their {@link ClassDefItemMarker}. Tools that
+   * lay out several dex files need the constants of each type, which are read from its
+   * intermediate dex file.
+   */
+  protected boolean supportsDirectMerge() {
+    return false;
+  }
+
+  /**
+   * Merges the types to emit into {@code merger}, each one from its {@link ClassDefItemMarker}, or
+   * from its dex file if it comes from a library containing dex files.
+   */
+  protected void mergeTypesDirectly(@Nonnull JackMerger merger)
+      throws MergingOverflowException, DexWritingException {
+    for (JDefinedClassOrInterface type : Jack.getSession().getTypesToEmit()) {
+      InputVFile prebuiltDex = getPrebuiltDex(type);
+      if (prebuiltDex != null) {
+        mergeDex(merger, prebuiltDex);
+      } else {
+        ClassDefItemMarker cdiMarker = type.getMarker(ClassDefItemMarker.class);
+        assert cdiMarker != null;
+        merger.addClassDefItem(cdiMarker.getClassDefItem());
+      }
+    }
+    merger.prepare();
+  }
+
+  /**
+   * @return the dex file of {@code type} in the library it comes from, or null if the type does not
+   * come from a library containing dex files.
+   */
+  @CheckForNull
+  static InputVFile getPrebuiltDex(@Nonnull JDefinedClassOrInterface type) {
+    Location loc = type.getLocation();
+    if (loc instanceof TypeInInputLibraryLocation) {
+      InputLibrary inputLibrary =
+          ((TypeInInputLibraryLocation) loc).getInputLibraryLocation().getInputLibrary();
+      if (inputLibrary.containsFileType(FileType.DEX)) {
+        try {
+          return inputLibrary.getFile(FileType.DEX,
+              new VPath(BinaryQualifiedNameFormatter.getFormatter().getName(type), '/'));
+        } catch (FileTypeDoesNotExistException e) {
+          // this was created by Jack, so this should not happen
+          throw new AssertionError(e);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads and decodes dex files concurrently.
+   * @return the decoded dex files, in the order of {@code inputDexes}
+   */
+  @Nonnull
+  protected List<DecodedDex> decodeDexes(@Nonnull List<InputVFile> inputDexes)
+      throws DexWritingException {
+    List<Callable<DecodedDex>> tasks = new ArrayList<Callable<DecodedDex>>(inputDexes.size());
+    for (final InputVFile inputDex : inputDexes) {
+      tasks.add(new Callable<DecodedDex>() {
+        @Override
+        public DecodedDex call() throws DexWritingException {
+          try {
+            return new DecodedDex(new DexBuffer(inputDex.openRead()));
+          } catch (IOException e) {
+            throw new DexWritingException(new CannotReadException(inputDex.getLocation(), e));
+          }
+        }
+      });
+    }
+    return invokeAll(tasks);
+  }
+
+  /**
+   * Merges each shard into its own dex concurrently, then writes them in order to the output. Shards
+   * must have been laid out beforehand so that none of them overflows.
+   */
+  protected void mergeShards(@Nonnull OutputVFS outputVDir,
+      @Nonnull List<List<DecodedDex>> shards) throws DexWritingException {
+    final boolean concurrentWrites = outputVDir instanceof ParallelOutputVFS;
+    List<OutputVFile> outputDexes = new ArrayList<OutputVFile>(shards.size());
+    List<Callable<byte[]>> tasks = new ArrayList<Callable<byte[]>>(shards.size());
+    for (final List<DecodedDex> shard : shards) {
+      final JackMerger merger = new JackMerger(createDexFile());
+      final OutputVFile outputDex = getOutputDex(outputVDir, outputDexes.size() + 1);
+      outputDexes.add(outputDex);
+      tasks.add(new Callable<byte[]>() {
+        @Override
+        public byte[] call() throws DexWritingException {
+          for (DecodedDex decodedDex : shard) {
+            try {
+              merger.addDexFile(decodedDex);
+            } catch (MergingOverflowException e) {
+              // This should not happen, shards were laid out with the same constants.
+              throw new AssertionError(e);
+            }
+          }
+          try {
+            if (concurrentWrites) {
+              OutputStream os = new BufferedOutputStream(outputDex.openWrite());
+              try {
+                merger.finish(os);
+              } finally {
+                os.close();
+              }
+              return null;
+            }
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            merger.finish(os);
+            return os.toByteArray();
+          } catch (IOException e) {
+            throw new DexWritingException(e);
+          }
+        }
+      });
+    }
+
+    List<byte[]> dexes = invokeAll(tasks);
+    if (!concurrentWrites) {
+      // Output VFS does not support concurrent writes, dex files are written sequentially
+      try {
+        for (int i = 0; i < dexes.size(); i++) {
+          writeDex(outputDexes.get(i), dexes.get(i));
+        }
+      } catch (IOException e) {
+        throw new DexWritingException(e);
+      }
+    }
+  }
+
+  private static void writeDex(@Nonnull OutputVFile outputDex, @Nonnull byte[] dex)
+      throws IOException {
+    OutputStream os = outputDex.openWrite();
+    try {
+      os.write(dex);
+    } finally {
+      os.close();
+    }
+  }
+
+  @Nonnull
+  private static <T> List<T> invokeAll(@Nonnull List<Callable<T>> tasks)
+      throws DexWritingException {
+    try {
+      return SharedExecutor.invokeAll(tasks, DexWritingException.class);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DexWritingException(e);
+    }
+  }
+
   @Nonnull
   protected OutputVFile getOutputDex(@Nonnull OutputVFS outputVfs, int dexCount)
       throws DexWritingException {
@@ -24,10 +24,7 @@ import com.android.jack.dx.dex.file.DexFile;
 import com.android.jack.ir.ast.JDefinedClassOrInterface;
 import com.android.jack.ir.formatter.BinaryQualifiedNameFormatter;
 import com.android.jack.library.FileType;
-import com.android.jack.library.FileTypeDoesNotExistException;
-import com.android.jack.library.InputLibrary;
 import com.android.jack.library.OutputLibrary;
-import com.android.jack.library.TypeInInputLibraryLocation;
 import com.android.jack.scheduling.marker.ClassDefItemMarker;
 import com.android.jack.scheduling.marker.DexCodeMarker;
 import com.android.sched.item.Description;
@@ -35,7 +32,6 @@ import com.android.sched.schedulable.Constraint;
 import com.android.sched.schedulable.Produce;
 import com.android.sched.schedulable.RunnableSchedulable;
 import com.android.sched.util.config.ThreadConfig;
-import com.android.sched.util.location.Location;
 import com.android.sched.util.stream.ByteStreamSucker;
 import com.android.sched.vfs.InputVFile;
 import com.android.sched.vfs.OutputVFile;
@@ -65,33 +61,20 @@ public class IntermediateDexPerTypeWriter extends DexWriter implements
   public void run(@Nonnull JDefinedClassOrInterface type) throws Exception {
     OutputVFile vFile;
 
-    Location loc = type.getLocation();
-    if (loc instanceof TypeInInputLibraryLocation) {
-      InputVFile in;
-      InputLibrary inputLibrary =
-          ((TypeInInputLibraryLocation) loc).getInputLibraryLocation().getInputLibrary();
-      if (inputLibrary.containsFileType(FileType.DEX)) {
-        try {
-          in = inputLibrary.getFile(FileType.DEX,
-              new VPath(BinaryQualifiedNameFormatter.getFormatter().getName(type), '/'));
-        } catch (FileTypeDoesNotExistException e) {
-          // this was created by Jack, so this should not happen
-          throw new AssertionError(e);
-        }
-
-        vFile = outputLibrary.createFile(FileType.DEX,
-            new VPath(BinaryQualifiedNameFormatter.getFormatter().getName(type), '/'));
-
-        InputStream is = in.openRead();
-        OutputStream os = vFile.openWrite();
-        try {
-          new ByteStreamSucker(is, os, true).suck();
-        } finally {
-          is.close(); // is != null or check before
-        }
+    InputVFile in = DexWritingTool.getPrebuiltDex(type);
+    if (in != null) {
+      vFile = outputLibrary.createFile(FileType.DEX,
+          new VPath(BinaryQualifiedNameFormatter.getFormatter().getName(type), '/'));
 
-        return;
+      InputStream is = in.openRead();
+      OutputStream os = vFile.openWrite();
+      try {
+        new ByteStreamSucker(is, os, true).suck();
+      } finally {
+        is.close(); // is != null or check before
       }
+
+      return;
     }
 
     ClassDefItemMarker cdiMarker = type.getMarker(ClassDefItemMarker.class);
@@ -16,7 +16,7 @@
 
 package com.android.jack.backend.dex;
 
-import com.android.jack.analysis.tracer.ExtendingOrImplementingClassMarker;
+import com.android.jack.analysis.hierarchy.ClassHierarchy;
 import com.android.jack.analysis.tracer.Tracer;
 import com.android.jack.ir.ast.JDefinedClassOrInterface;
 import com.android.sched.item.Description;
@@ -30,7 +30,7 @@ import javax.annotation.Nonnull;
  * Trace for main dex.
  */
 @Description("Trace for main dex.")
-@Constraint(need = ExtendingOrImplementingClassMarker.class)
+@Constraint(need = ClassHierarchy.class)
 @Use(MultiDexLegacyTracerBrush.class)
 public class MainDexTracer implements RunnableSchedulable<JDefinedClassOrInterface> {
 
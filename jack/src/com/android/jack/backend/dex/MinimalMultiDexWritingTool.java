@@ -16,6 +16,8 @@
 
 package com.android.jack.backend.dex;
 
+import com.android.jack.tools.merger.ConstantManager;
+import com.android.jack.tools.merger.DecodedDex;
 import com.android.jack.tools.merger.JackMerger;
 import com.android.jack.tools.merger.MergingOverflowException;
 import com.android.sched.util.codec.ImplementationName;
@@ -38,13 +40,19 @@ public class MinimalMultiDexWritingTool extends DexWritingTool {
 
   @Override
   public void write(@Nonnull OutputVFS outputVDir) throws DexWritingException {
-    int dexCount = 1;
-    JackMerger merger = new JackMerger(createDexFile());
-    OutputVFile outputDex = getOutputDex(outputVDir, dexCount++);
     List<InputVFile> mainDexList = new ArrayList<InputVFile>();
     List<InputVFile> anyDexList = new ArrayList<InputVFile>();
     fillDexLists(mainDexList, anyDexList);
 
+    if (isParallelMerge()) {
+      mergeShards(outputVDir, layoutShards(decodeDexes(mainDexList), decodeDexes(anyDexList)));
+      return;
+    }
+
+    int dexCount = 1;
+    JackMerger merger = new JackMerger(createDexFile());
+    OutputVFile outputDex = getOutputDex(outputVDir, dexCount++);
+
     for (InputVFile currentDex : mainDexList) {
       try {
         mergeDex(merger, currentDex);
@@ -76,4 +84,46 @@ public class MinimalMultiDexWritingTool extends DexWritingTool {
     finishMerge(merger, outputDex);
   }
 
+  /**
+   * Lays out dex files into shards exactly as {@link #write(OutputVFS)} does when merging
+   * sequentially.
+   */
+  @Nonnull
+  private List<List<DecodedDex>> layoutShards(@Nonnull List<DecodedDex> mainDexList,
+      @Nonnull List<DecodedDex> anyDexList) throws DexWritingException {
+    List<List<DecodedDex>> shards = new ArrayList<List<DecodedDex>>();
+    ConstantManager cstManager = new ConstantManager();
+
+    for (DecodedDex currentDex : mainDexList) {
+      try {
+        cstManager.addDexFile(currentDex);
+      } catch (MergingOverflowException e) {
+        throw new DexWritingException(new MainDexOverflowException(e));
+      }
+    }
+    shards.add(mainDexList);
+
+    List<DecodedDex> shard = new ArrayList<DecodedDex>();
+    cstManager = new ConstantManager();
+
+    for (DecodedDex currentDex : anyDexList) {
+      try {
+        cstManager.addDexFile(currentDex);
+      } catch (MergingOverflowException e) {
+        shards.add(shard);
+        shard = new ArrayList<DecodedDex>();
+        cstManager = new ConstantManager();
+        try {
+          cstManager.addDexFile(currentDex);
+        } catch (MergingOverflowException e1) {
+          // This should not happen, the type is not too big, we've just read it from a dex.
+          throw new AssertionError(e1);
+        }
+      }
+      shard.add(currentDex);
+    }
+
+    shards.add(shard);
+    return shards;
+  }
 }
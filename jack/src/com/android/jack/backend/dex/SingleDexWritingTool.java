@@ -18,6 +18,9 @@ package com.android.jack.backend.dex;
 
 import com.android.jack.Jack;
 import com.android.jack.library.FileType;
+import com.android.jack.scheduling.marker.ClassDefItemMarker;
+import com.android.jack.tools.merger.ConstantManager;
+import com.android.jack.tools.merger.DecodedDex;
 import com.android.jack.tools.merger.JackMerger;
 import com.android.jack.tools.merger.MergingOverflowException;
 import com.android.sched.util.codec.ImplementationName;
@@ -25,13 +28,16 @@ import com.android.sched.vfs.InputVFile;
 import com.android.sched.vfs.OutputVFS;
 import com.android.sched.vfs.OutputVFile;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.annotation.Nonnull;
 
 /**
  * A {@link DexWritingTool} that merges dex files, each one corresponding to a type, to a single
- * dex.
+ * dex. With a direct merge, types are merged from their {@link ClassDefItemMarker} instead.
  */
 @ImplementationName(iface = DexWritingTool.class, name = "single-dex",
     description = "only emit one dex file")
@@ -39,11 +45,41 @@ public class SingleDexWritingTool extends DexWritingTool {
 
   @Override
   public void write(@Nonnull OutputVFS outputVDir) throws DexWritingException {
-    JackMerger merger = new JackMerger(createDexFile());
-    OutputVFile outputDex = getOutputDex(outputVDir);
+    if (isDirectMerge()) {
+      JackMerger merger = new JackMerger(createDexFile());
+      try {
+        mergeTypesDirectly(merger);
+      } catch (MergingOverflowException e) {
+        throw new DexWritingException(new SingleDexOverflowException(e));
+      }
+      finishMerge(merger, getOutputDex(outputVDir));
+      return;
+    }
+
     Iterator<InputVFile> inputVFileIt =
         Jack.getSession().getJackInternalOutputLibrary().iterator(FileType.DEX);
 
+    if (isParallelMerge()) {
+      List<InputVFile> inputDexes = new ArrayList<InputVFile>();
+      while (inputVFileIt.hasNext()) {
+        inputDexes.add(inputVFileIt.next());
+      }
+      List<DecodedDex> decodedDexes = decodeDexes(inputDexes);
+      ConstantManager cstManager = new ConstantManager();
+      for (DecodedDex decodedDex : decodedDexes) {
+        try {
+          cstManager.addDexFile(decodedDex);
+        } catch (MergingOverflowException e) {
+          throw new DexWritingException(new SingleDexOverflowException(e));
+        }
+      }
+      mergeShards(outputVDir, Collections.singletonList(decodedDexes));
+      return;
+    }
+
+    JackMerger merger = new JackMerger(createDexFile());
+    OutputVFile outputDex = getOutputDex(outputVDir);
+
     while (inputVFileIt.hasNext()) {
       try {
         mergeDex(merger, inputVFileIt.next());
@@ -54,6 +90,11 @@ public class SingleDexWritingTool extends DexWritingTool {
     finishMerge(merger, outputDex);
   }
 
+  @Override
+  protected boolean supportsDirectMerge() {
+    return true;
+  }
+
   @Nonnull
   private OutputVFile getOutputDex(@Nonnull OutputVFS outputVDir) throws DexWritingException {
     return getOutputDex(outputVDir, 1);
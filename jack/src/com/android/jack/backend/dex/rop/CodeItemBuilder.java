@@ -92,6 +92,7 @@ import com.android.sched.schedulable.Constraint;
 import com.android.sched.schedulable.RunnableSchedulable;
 import com.android.sched.schedulable.Transform;
 import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.ResolvedConfig;
 import com.android.sched.util.config.ThreadConfig;
 import com.android.sched.util.config.id.BooleanPropertyId;
 import com.android.sched.util.log.Event;
@@ -156,16 +157,28 @@ public class CodeItemBuilder implements RunnableSchedulable<JMethod> {
       .addDefaultValue(Boolean.TRUE);
 
   @Nonnull
-  private final Filter<JMethod> filter = ThreadConfig.get(Options.METHOD_FILTER);
-  private final boolean emitSyntheticLocalDebugInfo =
-      ThreadConfig.get(EMIT_SYNTHETIC_LOCAL_DEBUG_INFO).booleanValue();
-  private final boolean emitLocalDebugInfo =
-      ThreadConfig.get(Options.EMIT_LOCAL_DEBUG_INFO).booleanValue();
-  private final boolean runDxOptimizations =
-      ThreadConfig.get(DEX_OPTIMIZE).booleanValue();
-  private final boolean forceJumbo = ThreadConfig.get(FORCE_JUMBO).booleanValue();
-  private final boolean emitLineNumberTable =
-      ThreadConfig.get(Options.EMIT_LINE_NUMBER_DEBUG_INFO).booleanValue();
+  private final Filter<JMethod> filter;
+  private final boolean emitSyntheticLocalDebugInfo;
+  private final boolean emitLocalDebugInfo;
+  private final boolean runDxOptimizations;
+  private final boolean forceJumbo;
+  private final boolean emitLineNumberTable;
+  @Nonnull
+  private final Tracer tracer;
+
+  public CodeItemBuilder() {
+    this(ThreadConfig.getResolvedConfig());
+  }
+
+  public CodeItemBuilder(@Nonnull ResolvedConfig config) {
+    filter = config.get(Options.METHOD_FILTER);
+    emitSyntheticLocalDebugInfo = config.get(EMIT_SYNTHETIC_LOCAL_DEBUG_INFO).booleanValue();
+    emitLocalDebugInfo = config.get(Options.EMIT_LOCAL_DEBUG_INFO).booleanValue();
+    runDxOptimizations = config.get(DEX_OPTIMIZE).booleanValue();
+    forceJumbo = config.get(FORCE_JUMBO).booleanValue();
+    emitLineNumberTable = config.get(Options.EMIT_LINE_NUMBER_DEBUG_INFO).booleanValue();
+    tracer = config.get(TracerFactory.TRACER);
+  }
 
   @Override
   public void run(@Nonnull JMethod method) throws Exception {
@@ -355,8 +368,6 @@ public class CodeItemBuilder implements RunnableSchedulable<JMethod> {
         new RopMethod(ropBb.getBasicBlockList(),
             ropBb.getSpecialLabel(RopBasicBlockManager.PARAM_ASSIGNMENT));
 
-    Tracer tracer = TracerFactory.getTracer();
-
     if (runDxOptimizations) {
       Event optEvent = tracer.start(JackEventType.DX_OPTIMIZATION);
 
@@ -295,6 +295,10 @@ public class RopHelper {
 
   private static class RopFormatter extends InternalFormatter {
 
+    public RopFormatter() {
+      super(true);
+    }
+
     /**
      * Gets method signature without method's name
      */
@@ -62,6 +62,11 @@ public abstract class BasicBlock extends GraphNode<BasicBlock> {
     return Jack.getUnmodifiableCollections().getUnmodifiableList(statements);
   }
 
+  void removeStatement(@Nonnull JStatement stmt) {
+    boolean removed = statements.remove(stmt);
+    assert removed;
+  }
+
   /**
    * @return the id
    */
@@ -70,6 +70,7 @@ import com.android.sched.util.log.TracerFactory;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
@@ -512,7 +513,7 @@ public class CfgBuilder implements RunnableSchedulable<JMethod> {
     List<BasicBlock> nodes = cfg.getNodes();
 
     if (!nodes.isEmpty()) {
-      List<BasicBlock> accessibleNodes = new ArrayList<BasicBlock>();
+      BitSet accessibleNodes = new BitSet(cfg.getBasicBlockMaxId());
 
       BasicBlock entryNode = cfg.getEntryNode();
       assert entryNode != null;
@@ -524,7 +525,7 @@ public class CfgBuilder implements RunnableSchedulable<JMethod> {
       while (!workingList.isEmpty()) {
         BasicBlock currentBb = workingList.remove(0);
 
-        if (accessibleNodes.contains(currentBb)) {
+        if (accessibleNodes.get(currentBb.getId())) {
           continue;
         }
 
@@ -534,7 +535,7 @@ public class CfgBuilder implements RunnableSchedulable<JMethod> {
           BasicBlock newBlock = ((NormalBasicBlock) currentBb).getTarget();
           currentBb.replaceBy(newBlock);
         } else {
-          accessibleNodes.add(currentBb);
+          accessibleNodes.set(currentBb.getId());
         }
 
         assert !hasDeadCode(currentBb) : "JDeadCodeStatement must be removed.";
@@ -547,7 +548,7 @@ public class CfgBuilder implements RunnableSchedulable<JMethod> {
       }
 
       for (BasicBlock node : nodes) {
-        if (!accessibleNodes.contains(node)) {
+        if (!accessibleNodes.get(node.getId())) {
           cfg.removeNode(node);
         }
       }
@@ -18,6 +18,7 @@ package com.android.jack.cfg;
 
 import com.android.jack.Jack;
 import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JStatement;
 import com.android.jack.util.graph.Graph;
 import com.android.sched.item.Description;
 import com.android.sched.marker.Marker;
@@ -76,6 +77,31 @@ public class ControlFlowGraph extends Graph<BasicBlock> implements Marker {
     return basicBlockId++;
   }
 
+  /**
+   * Update the graph after {@code stmt} was removed from the method, instead of building it again.
+   * A basic block without statements left is replaced by its target, as {@link CfgBuilder} does.
+   * Statements changing the control flow of the method cannot be removed this way.
+   * @param stmt the removed statement
+   */
+  public void removeStatement(@Nonnull JStatement stmt) {
+    BasicBlockMarker bbm = stmt.getMarker(BasicBlockMarker.class);
+    assert bbm != null;
+    BasicBlock bb = bbm.getBasicBlock();
+    assert bb.getLastInstruction() != stmt || bb.getClass() == NormalBasicBlock.class;
+
+    bb.removeStatement(stmt);
+
+    if (bb.getStatements().isEmpty() && bb != getEntryNode()) {
+      assert bb.getClass() == NormalBasicBlock.class;
+      BasicBlock target = ((NormalBasicBlock) bb).getTarget();
+      assert target != bb;
+      // Blocks that were not reachable when the graph was built are not part of it
+      if (removeNode(bb)) {
+        bb.replaceBy(target);
+      }
+    }
+  }
+
   @Override
   @Nonnull
   public String toString() {
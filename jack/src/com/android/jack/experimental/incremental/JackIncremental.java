@@ -23,6 +23,8 @@ import com.android.jack.Jack;
 import com.android.jack.JackUserException;
 import com.android.jack.NothingToDoException;
 import com.android.jack.Options;
+import com.android.jack.analysis.dependency.Dependency;
+import com.android.jack.analysis.dependency.file.ContentDigest;
 import com.android.jack.analysis.dependency.file.FileDependencies;
 import com.android.jack.analysis.dependency.file.FileDependenciesWriter;
 import com.android.jack.analysis.dependency.type.TypeDependencies;
@@ -61,6 +63,7 @@ import com.android.sched.util.file.FileOrDirectory.Permission;
 import com.android.sched.util.file.NoSuchFileException;
 import com.android.sched.util.file.NotFileOrDirectoryException;
 import com.android.sched.util.file.WrongPermissionException;
+import com.android.sched.util.location.FileLocation;
 import com.android.sched.util.log.LoggerFactory;
 import com.android.sched.vfs.DirectVFS;
 import com.android.sched.vfs.InputVFile;
@@ -68,10 +71,12 @@ import com.android.sched.vfs.VPath;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -91,7 +96,7 @@ public class JackIncremental extends CommandLine {
   private static final Logger logger = LoggerFactory.getLogger();
 
   @Nonnull
-  private static List<String> deletedTypes = new ArrayList<String>();
+  private static Set<String> deletedTypes = new HashSet<String>();
 
   @CheckForNull
   private static File incrementalFolder;
@@ -201,133 +206,86 @@ public class JackIncremental extends CommandLine {
       assert incrementalFolder != null;
       options.addProperty(Options.LIBRARY_OUTPUT_DIR.getName(), incrementalFolder.getPath());
 
-      if (!firstCompilation && !needFullRebuild(options)) {
-        assert incrementalInputLibrary != null;
-        InputVFile typeDependenciesVFile = null;
-        InputVFile fileDependenciesVFile = null;
-        try {
-          typeDependenciesVFile =
-              incrementalInputLibrary.getFile(FileType.DEPENDENCIES, TypeDependencies.vpath);
-        } catch (FileTypeDoesNotExistException e) {
-          throw new AssertionError(e);
-        }
-        try {
-          fileDependenciesVFile =
-              incrementalInputLibrary.getFile(FileType.DEPENDENCIES, FileDependencies.vpath);
-        } catch (FileTypeDoesNotExistException e) {
-          throw new AssertionError(e);
-        }
+      List<String> javaFilesNames = getJavaFilesSpecifiedOnCommandLine(options);
 
-        logger.log(Level.FINE, "Incremental compilation");
+      FileDependencies fileDependencies = new FileDependencies();
+      if (firstCompilation || !readDependencies(FileDependencies.vpath, fileDependencies)) {
+        fullRebuild(options, getDigests(options, javaFilesNames, new FileDependencies()));
+        return;
+      }
 
-        List<String> javaFilesNames = getJavaFilesSpecifiedOnCommandLine(options);
+      Map<String, ContentDigest> digests =
+          getDigests(options, javaFilesNames, fileDependencies);
+      if (needFullRebuild(options, digests, fileDependencies)) {
+        fullRebuild(options, digests);
+        return;
+      }
 
-        TypeDependencies typeDependencies = new TypeDependencies();
-        InputStreamReader typeReader = null;
-        try {
-          typeReader = new InputStreamReader(typeDependenciesVFile.openRead());
-          typeDependencies.read(typeReader);
-        } catch (IOException e) {
-          throw new CannotReadException(typeDependenciesVFile.getLocation(), e);
-        } finally {
-          if (typeReader != null) {
-            try {
-              typeReader.close();
-            } catch (IOException e) {
-            }
-          }
-        }
+      logger.log(Level.FINE, "Incremental compilation");
 
-        FileDependencies fileDependencies = new FileDependencies();
-        InputStreamReader fileReader = null;
-        try {
-          fileReader = new InputStreamReader(fileDependenciesVFile.openRead());
-          fileDependencies.read(fileReader);
-        } catch (IOException e) {
-          throw new CannotReadException(typeDependenciesVFile.getLocation(), e);
-        } finally {
-          if (fileReader != null) {
-            try {
-              fileReader.close();
-            } catch (IOException e) {
-            }
+      Set<String> javaFiles = new HashSet<String>(javaFilesNames);
+      Set<String> deletedFiles = getDeletedFiles(javaFiles, fileDependencies);
+      Set<String> filesToRecompile = getModifiedFiles(fileDependencies, javaFiles, digests);
+      filesToRecompile.addAll(getAddedFiles(fileDependencies, javaFiles));
+
+      if (filesToRecompile.isEmpty() && deletedFiles.isEmpty()) {
+        logger.log(Level.FINE, "No files to recompile");
+        return;
+      }
+
+      TypeDependencies typeDependencies = new TypeDependencies();
+      if (!readDependencies(TypeDependencies.vpath, typeDependencies)) {
+        fullRebuild(options, digests);
+        return;
+      }
+
+      for (Map.Entry<String, ContentDigest> entry : digests.entrySet()) {
+        fileDependencies.setDigest(entry.getKey(), entry.getValue());
+      }
+
+      Set<String> typesOfDeletedFiles = new HashSet<String>();
+      for (String deletedFile : deletedFiles) {
+        typesOfDeletedFiles.addAll(fileDependencies.getTypeNames(deletedFile));
+      }
+      filesToRecompile.addAll(getJavaFiles(
+          typeDependencies.getRecompileDependencies(typesOfDeletedFiles), fileDependencies));
+      filesToRecompile.removeAll(deletedFiles);
+      for (String deletedFile : deletedFiles) {
+        removeOldFiles(fileDependencies, typeDependencies, deletedFile);
+        fileDependencies.removeDigest(deletedFile);
+      }
+
+      updateClasspath(options);
+      List<String> ecjOptions = getEcjOptions(options);
+
+      // Types depending on a recompiled type are recompiled once its API changed
+      Set<String> compiledFiles = new HashSet<String>();
+      do {
+        Map<String, Long> previousFingerprints = new HashMap<String, Long>();
+        for (String fileToRecompile : filesToRecompile) {
+          for (String typeName : fileDependencies.getTypeNames(fileToRecompile)) {
+            previousFingerprints.put(typeName, typeDependencies.getApiFingerprint(typeName));
           }
+          removeOldFiles(fileDependencies, typeDependencies, fileToRecompile);
         }
 
-        Map<String, Set<String>> typeRecompileDependencies =
-            typeDependencies.getRecompileDependencies();
-        printDependencyStat(typeRecompileDependencies);
-
-        Set<String> deletedFiles = getDeletedFiles(javaFilesNames, fileDependencies);
-        Set<String> filesToRecompile = getFilesToRecompile(fileDependencies,
-            typeRecompileDependencies, javaFilesNames, deletedFiles);
-
-        if (!filesToRecompile.isEmpty() || !deletedFiles.isEmpty()) {
-          logger.log(Level.FINE, "{0} Files to recompile {1}",
-              new Object[] {Integer.valueOf(filesToRecompile.size()), filesToRecompile});
-          updateOptions(options, filesToRecompile);
-
-          logger.log(Level.FINE, "Ecj options {0}", options.getEcjArguments());
-
-          try {
-            Jack.run(options, typeDependencies, fileDependencies);
-          } catch (NothingToDoException e) {
-            // Even if there is nothing to compile, the output dex file must be rebuild from all dex
-            // (one dex per types) since some dex files could be removed. To rebuild output dex
-            // file, a specific plan is used.
-            ThreadConfig.setConfig(options.getConfig());
-
-            JSession session = Jack.getSession();
-            session.setTypeDependencies(typeDependencies);
-            session.setFileDependencies(fileDependencies);
-
-            Request request = Jack.createInitialRequest();
-            request.addProduction(DexFileProduct.class);
-            request.addInitialTagOrMarker(ClassDefItemMarker.Complete.class);
-            request.addInitialTagOrMarker(TypeDependencies.Collected.class);
-            request.addInitialTagOrMarker(FileDependencies.Collected.class);
-
-            PlanBuilder<JSession> planBuilder;
-            try {
-              planBuilder = request.getPlanBuilder(JSession.class);
-            } catch (IllegalRequestException illegalRequest) {
-              throw new AssertionError(illegalRequest);
-            }
+        compile(options, ecjOptions, filesToRecompile, typeDependencies, fileDependencies);
+        compiledFiles.addAll(filesToRecompile);
 
-            planBuilder.append(TypeDependenciesWriter.class);
-            planBuilder.append(FileDependenciesWriter.class);
-            planBuilder.append(DexFileWriter.class);
-
-            assert incrementalFolder != null;
-            OutputJackLibrary incrementalOutputLibrary =
-                JackLibraryFactory.getOutputLibrary(new DirectVFS(new Directory(
-                    incrementalFolder.getPath(), null, Existence.MAY_EXIST, Permission.WRITE,
-                    ChangePermission.NOCHANGE)), Jack.getEmitterId(), Jack.getVersionString());
-
-            assert incrementalInputLibrary != null;
-            session.setJackInternalOutputLibrary(incrementalOutputLibrary);
-
-            try {
-              planBuilder.getPlan().getScheduleInstance().process(Jack.getSession());
-            } catch (RuntimeException runtimeExcept) {
-              throw runtimeExcept;
-            } catch (Exception except) {
-              throw new AssertionError(except);
-            } finally {
-              if (incrementalOutputLibrary != null) {
-                incrementalOutputLibrary.close();
-              }
-            }
-          } finally {
-            ThreadConfig.unsetConfig();
+        Set<String> modifiedApis = new HashSet<String>();
+        for (Map.Entry<String, Long> entry : previousFingerprints.entrySet()) {
+          Long previousFingerprint = entry.getValue();
+          if (previousFingerprint == null
+              || !previousFingerprint.equals(typeDependencies.getApiFingerprint(entry.getKey()))) {
+            modifiedApis.add(entry.getKey());
           }
-
-        } else {
-          logger.log(Level.FINE, "No files to recompile");
         }
-      } else {
-        Jack.run(options);
-      }
+        logger.log(Level.FINE, "Types with a modified API {0}", modifiedApis);
+
+        filesToRecompile = getJavaFiles(
+            typeDependencies.getRecompileDependencies(modifiedApis), fileDependencies);
+        filesToRecompile.removeAll(compiledFiles);
+      } while (!filesToRecompile.isEmpty());
     } catch (WrongPermissionException e) {
       throw new AssertionError(e);
     } catch (CannotSetPermissionException e) {
@@ -345,67 +303,185 @@ public class JackIncremental extends CommandLine {
     }
   }
 
-  /*
-   * A full rebuild is needed:
-   * - when a file contained inside a folder in the classpath or an archive in the classpath
-   * is more recent than the generated dex file.
-   * - when a file contained inside a folder in the import option or an archive in the import
-   * option is more recent than the generated dex file.
-   */
-  private static boolean needFullRebuild(@Nonnull Options options) {
-    if (!options.isAutomaticFullRebuildEnabled()) {
-      return false;
+  private static void fullRebuild(@Nonnull Options options,
+      @Nonnull Map<String, ContentDigest> digests) throws ConfigurationException,
+      IllegalOptionsException, NothingToDoException, JackUserException {
+    FileDependencies fileDependencies = new FileDependencies();
+    for (Map.Entry<String, ContentDigest> entry : digests.entrySet()) {
+      fileDependencies.setDigest(entry.getKey(), entry.getValue());
     }
+    Jack.run(options, new TypeDependencies(), fileDependencies);
+  }
 
-    File outputDexFile = new File(options.getOutputDir(), DexFileWriter.DEX_FILENAME);
-    if (outputDexFile.exists()) {
-      for (File lib : options.getBootclasspath()) {
-        if (isModifiedLibrary(lib, outputDexFile.lastModified())) {
-          return true;
-        }
+  private static void compile(@Nonnull Options options, @Nonnull List<String> ecjOptions,
+      @Nonnull Set<String> filesToRecompile, @Nonnull TypeDependencies typeDependencies,
+      @Nonnull FileDependencies fileDependencies)
+      throws ConfigurationException, IllegalOptionsException, NothingToDoException,
+      JackUserException, CannotCreateFileException, WrongPermissionException,
+      CannotSetPermissionException, NoSuchFileException, NotFileOrDirectoryException,
+      FileAlreadyExistsException {
+    logger.log(Level.FINE, "{0} Files to recompile {1}",
+        new Object[] {Integer.valueOf(filesToRecompile.size()), filesToRecompile});
+    updateOptions(options, ecjOptions, filesToRecompile);
+
+    logger.log(Level.FINE, "Ecj options {0}", options.getEcjArguments());
+
+    try {
+      Jack.run(options, typeDependencies, fileDependencies);
+    } catch (NothingToDoException e) {
+      // Even if there is nothing to compile, the output dex file must be rebuild from all dex
+      // (one dex per types) since some dex files could be removed. To rebuild output dex
+      // file, a specific plan is used.
+      ThreadConfig.setConfig(options.getConfig());
+
+      JSession session = Jack.getSession();
+      session.setTypeDependencies(typeDependencies);
+      session.setFileDependencies(fileDependencies);
+
+      Request request = Jack.createInitialRequest();
+      request.addProduction(DexFileProduct.class);
+      request.addInitialTagOrMarker(ClassDefItemMarker.Complete.class);
+      request.addInitialTagOrMarker(TypeDependencies.Collected.class);
+      request.addInitialTagOrMarker(FileDependencies.Collected.class);
+
+      PlanBuilder<JSession> planBuilder;
+      try {
+        planBuilder = request.getPlanBuilder(JSession.class);
+      } catch (IllegalRequestException illegalRequest) {
+        throw new AssertionError(illegalRequest);
       }
-      for (File lib : options.getClasspath()) {
-        if (isModifiedLibrary(lib, outputDexFile.lastModified())) {
-          return true;
+
+      planBuilder.append(TypeDependenciesWriter.class);
+      planBuilder.append(FileDependenciesWriter.class);
+      planBuilder.append(DexFileWriter.class);
+
+      assert incrementalFolder != null;
+      OutputJackLibrary incrementalOutputLibrary =
+          JackLibraryFactory.getOutputLibrary(new DirectVFS(new Directory(
+              incrementalFolder.getPath(), null, Existence.MAY_EXIST, Permission.WRITE,
+              ChangePermission.NOCHANGE)), Jack.getEmitterId(), Jack.getVersionString());
+
+      assert incrementalInputLibrary != null;
+      session.setJackInternalOutputLibrary(incrementalOutputLibrary);
+
+      try {
+        planBuilder.getPlan().getScheduleInstance().process(Jack.getSession());
+      } catch (RuntimeException runtimeExcept) {
+        throw runtimeExcept;
+      } catch (Exception except) {
+        throw new AssertionError(except);
+      } finally {
+        if (incrementalOutputLibrary != null) {
+          incrementalOutputLibrary.close();
         }
       }
+    } finally {
+      ThreadConfig.unsetConfig();
     }
-
-    return hasModifiedImport(options, outputDexFile.lastModified());
   }
 
-  private static boolean isModifiedLibrary(@Nonnull File lib, long time) {
-    if (lib.isFile() && (lib.lastModified() > time)) {
-      return true;
-    } else if (lib.isDirectory() && hasModifiedFile(lib, time)) {
-      return true;
+  /**
+   * @return false if the dependencies were written in a format this version does not read.
+   */
+  private static boolean readDependencies(@Nonnull VPath vpath, @Nonnull Dependency dependency)
+      throws CannotReadException {
+    assert incrementalInputLibrary != null;
+    InputVFile dependenciesVFile;
+    try {
+      dependenciesVFile = incrementalInputLibrary.getFile(FileType.DEPENDENCIES, vpath);
+    } catch (FileTypeDoesNotExistException e) {
+      throw new AssertionError(e);
     }
 
-    return false;
+    InputStream in = null;
+    try {
+      in = dependenciesVFile.openRead();
+      ByteBuffer buffer = Dependency.load(in);
+      if (!Dependency.isSupported(buffer)) {
+        logger.log(Level.FINE, "Dependencies of {0} were written by another version",
+            dependenciesVFile.getLocation().getDescription());
+        return false;
+      }
+      dependency.read(buffer);
+      return true;
+    } catch (IOException e) {
+      throw new CannotReadException(dependenciesVFile.getLocation(), e);
+    } finally {
+      if (in != null) {
+        try {
+          in.close();
+        } catch (IOException e) {
+        }
+      }
+    }
   }
 
-  private static boolean hasModifiedFile(@Nonnull File file, long time) {
-    assert file.isDirectory();
-
-    for (File f : file.listFiles()) {
-      if (f.isDirectory()) {
-        if (hasModifiedFile(f, time)) {
-          return true;
-        }
-      } else if (f.lastModified() > time) {
-          return true;
+  /**
+   * @return the digests of the java files and of the libraries, reusing the digests of
+   * {@code fileDependencies} for the files that were not modified.
+   */
+  @Nonnull
+  private static Map<String, ContentDigest> getDigests(@Nonnull Options options,
+      @Nonnull List<String> javaFileNames, @Nonnull FileDependencies fileDependencies)
+      throws CannotReadException {
+    Map<String, ContentDigest> digests = new HashMap<String, ContentDigest>();
+    for (String javaFileName : javaFileNames) {
+      addDigest(new File(javaFileName), javaFileName, fileDependencies, digests);
+    }
+    for (File library : getLibraries(options)) {
+      if (library.exists()) {
+        addDigest(library, getLibraryName(library), fileDependencies, digests);
       }
     }
+    return digests;
+  }
 
-    return false;
+  private static void addDigest(@Nonnull File file, @Nonnull String fileName,
+      @Nonnull FileDependencies fileDependencies, @Nonnull Map<String, ContentDigest> digests)
+      throws CannotReadException {
+    try {
+      digests.put(fileName, ContentDigest.get(file, fileDependencies.getDigest(fileName)));
+    } catch (IOException e) {
+      throw new CannotReadException(new FileLocation(file), e);
+    }
+  }
+
+  @Nonnull
+  private static List<File> getLibraries(@Nonnull Options options) {
+    List<File> libraries = new ArrayList<File>(options.getBootclasspath());
+    libraries.addAll(options.getClasspath());
+    libraries.addAll(options.getJayceImport());
+    return libraries;
+  }
+
+  @Nonnull
+  private static String getLibraryName(@Nonnull File library) {
+    try {
+      return library.getCanonicalPath();
+    } catch (IOException e) {
+      return library.getAbsolutePath();
+    }
   }
 
-  private static boolean hasModifiedImport(@Nonnull Options options, long time) {
-    for (File importedJackFiles : options.getJayceImport()) {
-      if (isModifiedLibrary(importedJackFiles, time)) {
+  /*
+   * A full rebuild is needed when the content of a folder or an archive in the classpath or in the
+   * import option changed since the last compilation.
+   */
+  private static boolean needFullRebuild(@Nonnull Options options,
+      @Nonnull Map<String, ContentDigest> digests, @Nonnull FileDependencies fileDependencies) {
+    if (!options.isAutomaticFullRebuildEnabled()) {
+      return false;
+    }
+
+    for (File library : getLibraries(options)) {
+      String libraryName = getLibraryName(library);
+      ContentDigest digest = digests.get(libraryName);
+      if (digest != null && !digest.hasSameContent(fileDependencies.getDigest(libraryName))) {
+        logger.log(Level.FINE, "{0} was modified", libraryName);
         return true;
       }
     }
+
     return false;
   }
 
@@ -426,46 +502,11 @@ public class JackIncremental extends CommandLine {
     return (builder.toString());
   }
 
-  private static void printDependencyStat(
-      @Nonnull Map<String, Set<String>> typeRecompileDependencies) {
-    int dependencyNumber = 0;
-    int maxDependencyNumber = -1;
-    int minDependencyNumber = -1;
-
-    for (Set<String> dependency : typeRecompileDependencies.values()) {
-      int currentDepSize = dependency.size();
-      dependencyNumber += currentDepSize;
-      if (minDependencyNumber == -1 || minDependencyNumber > currentDepSize) {
-        minDependencyNumber = currentDepSize;
-      }
-      if (maxDependencyNumber == -1 || maxDependencyNumber < currentDepSize) {
-        maxDependencyNumber = currentDepSize;
-      }
-    }
-
-    logger.log(Level.FINE,
-        "There are {0} dependencies, with {1} files per dependency in average", new Object[] {
-            Integer.valueOf(typeRecompileDependencies.size()),
-            Double.valueOf((double) dependencyNumber / (double) typeRecompileDependencies.size())});
-    logger.log(Level.FINE, "Dependencies are at minimun {0} and at maximun {1}",
-        new Object[] {Integer.valueOf(minDependencyNumber), Integer.valueOf(maxDependencyNumber)});
-  }
-
-  private static void updateOptions(@Nonnull Options options,
-      @Nonnull Set<String> javaFilesToRecompile) {
-    List<String> newEcjArguments = new ArrayList<String>();
-
-    for (String ecjOptions : options.getEcjArguments()) {
-      if (!ecjOptions.startsWith("@") && !ecjOptions.endsWith(".java")
-          && !new File(ecjOptions).isDirectory()) {
-        newEcjArguments.add(ecjOptions);
-      }
-    }
-
-    for (String fileToRecompile : javaFilesToRecompile) {
-      newEcjArguments.add(fileToRecompile);
-    }
-
+  /**
+   * Puts the incremental folder and the imported libraries in the classpath, so that the files to
+   * recompile are compiled against the types that are not.
+   */
+  private static void updateClasspath(@Nonnull Options options) {
     assert incrementalFolder != null;
     StringBuilder newClasspath = new StringBuilder(incrementalFolder.getPath());
 
@@ -486,65 +527,83 @@ public class JackIncremental extends CommandLine {
     }
 
     options.setClasspath(newClasspath.toString());
-
-    if (!newEcjArguments.isEmpty()) {
-      options.setEcjArguments(newEcjArguments);
-    }
   }
 
+  /**
+   * @return the ecj arguments that are not java files, before they are completed by a
+   * compilation.
+   */
   @Nonnull
-  private static Set<String> getFilesToRecompile(@Nonnull FileDependencies fileDependencies,
-      @Nonnull Map<String, Set<String>> typeRecompileDependencies,
-      @Nonnull List<String> javaFileNames, Set<String> deletedFiles) throws IncrementalException {
-    Set<String> filesToRecompile = new HashSet<String>();
-
-    filesToRecompile.addAll(getModifiedFiles(fileDependencies, typeRecompileDependencies,
-        javaFileNames, deletedFiles));
-    filesToRecompile.addAll(getAddedFiles(fileDependencies, javaFileNames));
-
-    for (String deletedFile : deletedFiles) {
-      deleteOldFilesFromJavaFiles(fileDependencies, deletedFile);
-      addNotModifiedDependencies(fileDependencies, typeRecompileDependencies, deletedFiles,
-          filesToRecompile, deletedFile);
+  private static List<String> getEcjOptions(@Nonnull Options options) {
+    List<String> ecjOptions = new ArrayList<String>();
+
+    for (String ecjOption : options.getEcjArguments()) {
+      if (!ecjOption.startsWith("@") && !ecjOption.endsWith(".java")
+          && !new File(ecjOption).isDirectory()) {
+        ecjOptions.add(ecjOption);
+      }
     }
 
-    for (String fileToRecompile : filesToRecompile) {
-      deleteOldFilesFromJavaFiles(fileDependencies, fileToRecompile);
+    return ecjOptions;
+  }
+
+  private static void updateOptions(@Nonnull Options options, @Nonnull List<String> ecjOptions,
+      @Nonnull Set<String> javaFilesToRecompile) {
+    List<String> newEcjArguments = new ArrayList<String>(ecjOptions);
+
+    for (String fileToRecompile : javaFilesToRecompile) {
+      newEcjArguments.add(fileToRecompile);
     }
 
-    return filesToRecompile;
+    if (!newEcjArguments.isEmpty()) {
+      options.setEcjArguments(newEcjArguments);
+    }
   }
 
-  private static void addNotModifiedDependencies(@Nonnull FileDependencies fileDependencies,
-      @Nonnull Map<String, Set<String>> typeRecompileDependencies,
-      @Nonnull Set<String> deletedFiles, @Nonnull Set<String> filesToRecompile,
-      @Nonnull String modifiedJavaFileName) {
-    for (String modifiedTypeName : fileDependencies.getTypeNames(modifiedJavaFileName)) {
-      for (String typeName : typeRecompileDependencies.get(modifiedTypeName)) {
-        String dependentFileName = fileDependencies.getJavaFileName(typeName);
-        if (dependentFileName != null && !deletedFiles.contains(dependentFileName)) {
-          filesToRecompile.add(dependentFileName);
-        }
+  /**
+   * @return the java files defining the given types.
+   */
+  @Nonnull
+  private static Set<String> getJavaFiles(@Nonnull Set<String> typeNames,
+      @Nonnull FileDependencies fileDependencies) {
+    Set<String> javaFiles = new HashSet<String>();
+    for (String typeName : typeNames) {
+      String javaFileName = fileDependencies.getJavaFileName(typeName);
+      if (javaFileName != null) {
+        javaFiles.add(javaFileName);
       }
     }
+    return javaFiles;
   }
 
-    @Nonnull
-  private static Set<String> getDeletedFiles(@Nonnull List<String> javaFileNames,
-      @Nonnull FileDependencies fileDependencies)
-        throws JackUserException {
-      Set<String> deletedFiles = new HashSet<String>();
+  /**
+   * Deletes the compiled types of a java file, and their dependencies.
+   */
+  private static void removeOldFiles(@Nonnull FileDependencies fileDependencies,
+      @Nonnull TypeDependencies typeDependencies, @Nonnull String javaFileName)
+      throws IncrementalException {
+    deleteOldFilesFromJavaFiles(fileDependencies, javaFileName);
+    for (String typeName : fileDependencies.getTypeNames(javaFileName)) {
+      typeDependencies.removeType(typeName);
+    }
+    fileDependencies.removeJavaFile(javaFileName);
+  }
 
-      for (String javaFileName : fileDependencies.getCompiledJavaFiles()) {
-        if (!javaFileNames.contains(javaFileName)) {
-          logger.log(Level.FINE, "{0} was deleted", javaFileName);
-          deletedFiles.add(javaFileName);
-        }
+  @Nonnull
+  private static Set<String> getDeletedFiles(@Nonnull Set<String> javaFileNames,
+      @Nonnull FileDependencies fileDependencies) {
+    Set<String> deletedFiles = new HashSet<String>();
+
+    for (String javaFileName : fileDependencies.getCompiledJavaFiles()) {
+      if (!javaFileNames.contains(javaFileName)) {
+        logger.log(Level.FINE, "{0} was deleted", javaFileName);
+        deletedFiles.add(javaFileName);
       }
-
-      return deletedFiles;
     }
 
+    return deletedFiles;
+  }
+
   private static void deleteOldFilesFromJavaFiles(
       @Nonnull FileDependencies fileDependencies, @Nonnull String javaFileName)
       throws IncrementalException {
@@ -574,7 +633,7 @@ public class JackIncremental extends CommandLine {
 
   @Nonnull
   private static Set<String> getAddedFiles(@Nonnull FileDependencies fileDependencies,
-      @Nonnull List<String> javaFileNames) {
+      @Nonnull Set<String> javaFileNames) {
     Set<String> addedFiles = new HashSet<String>();
     Set<String> previousFiles = fileDependencies.getCompiledJavaFiles();
 
@@ -588,26 +647,30 @@ public class JackIncremental extends CommandLine {
     return addedFiles;
   }
 
+  /**
+   * @return the java files whose content changed since they were compiled, or with a compiled
+   * type missing.
+   */
   @Nonnull
   private static Set<String> getModifiedFiles(@Nonnull FileDependencies fileDependencies,
-      @Nonnull Map<String, Set<String>> typeRecompileDependencies,
-      @Nonnull List<String> javaFileNames, @Nonnull Set<String> deletedFiles)
-      throws JackUserException {
+      @Nonnull Set<String> javaFileNames, @Nonnull Map<String, ContentDigest> digests) {
     Set<String> modifiedFiles = new HashSet<String>();
 
-    for (Map.Entry<String, Set<String>> previousFileEntry : typeRecompileDependencies.entrySet()) {
-      String typeName = previousFileEntry.getKey();
-      String javaFileName = fileDependencies.getJavaFileName(typeName);
-      if (javaFileName != null && !deletedFiles.contains(javaFileName)) {
-        File javaFile = new File(javaFileName);
-        File dexFile = getDexFile(typeName);
-        if (!dexFile.exists() || (javaFileNames.contains(javaFileName)
-            && javaFile.lastModified() > dexFile.lastModified())) {
-          logger.log(Level.FINE, "{0} was modified", new Object[] {javaFileName});
+    for (String javaFileName : fileDependencies.getCompiledJavaFiles()) {
+      if (javaFileNames.contains(javaFileName)) {
+        boolean modified =
+            !digests.get(javaFileName).hasSameContent(fileDependencies.getDigest(javaFileName));
+        if (!modified) {
+          for (String typeName : fileDependencies.getTypeNames(javaFileName)) {
+            if (!getDexFile(typeName).exists()) {
+              modified = true;
+              break;
+            }
+          }
+        }
+        if (modified) {
+          logger.log(Level.FINE, "{0} was modified", javaFileName);
           modifiedFiles.add(javaFileName);
-          addNotModifiedDependencies(fileDependencies, typeRecompileDependencies, deletedFiles,
-              modifiedFiles, javaFileName);
-          break;
         }
       }
     }
@@ -0,0 +1,1882 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.ir.ast;
+
+import com.android.sched.schedulable.HookWalker;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link JVisitor} running several visitors during a single traversal. Each node is given to the
+ * visitors in order. A visitor refusing to visit the children of a node is suspended until the end
+ * visit of this node, the other visitors continue to visit the children.
+ */
+public class FusedVisitor extends JVisitor {
+
+  /**
+   * {@link HookWalker} walking a {@link JNode} with all the {@link JVisitor} hooks at once.
+   */
+  @Nonnull
+  public static final HookWalker<JNode, JVisitor> WALKER = new HookWalker<JNode, JVisitor>() {
+    @Override
+    public void walk(@Nonnull JNode node, @Nonnull List<? extends JVisitor> hooks) {
+      if (hooks.size() == 1) {
+        hooks.get(0).accept(node);
+      } else {
+        new FusedVisitor(hooks).accept(node);
+      }
+    }
+  };
+
+  @Nonnull
+  private final JVisitor[] visitors;
+
+  /**
+   * Node whose children are not visited by the visitor of the same index, or {@code null} if the
+   * visitor is active.
+   */
+  @Nonnull
+  private final Object[] suspendedAt;
+
+  private int activeCount;
+
+  public FusedVisitor(@Nonnull List<? extends JVisitor> visitors) {
+    super(needLoading(visitors));
+    this.visitors = visitors.toArray(new JVisitor[visitors.size()]);
+    suspendedAt = new Object[this.visitors.length];
+    activeCount = this.visitors.length;
+  }
+
+  private static boolean needLoading(@Nonnull List<? extends JVisitor> visitors) {
+    for (JVisitor visitor : visitors) {
+      if (visitor.needLoading()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isActive(int idx) {
+    return suspendedAt[idx] == null;
+  }
+
+  private void suspend(int idx, @Nonnull Object node) {
+    suspendedAt[idx] = node;
+    activeCount--;
+  }
+
+  private boolean isEndOfSuspension(int idx, @Nonnull Object node) {
+    Object suspended = suspendedAt[idx];
+    if (suspended == null) {
+      return true;
+    }
+    if (suspended == node) {
+      suspendedAt[idx] = null;
+      activeCount++;
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public boolean visit(@Nonnull JAbsentArrayDimension x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JAbsentArrayDimension x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JAbstractMethodBody x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JAbstractMethodBody x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JAbstractStringLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JAbstractStringLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JAlloc x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JAlloc x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JAnnotationLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JAnnotationLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JArrayLength x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JArrayLength x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JArrayLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JArrayLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JArrayRef x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JArrayRef x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JArrayType x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JArrayType x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JAssertStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JAssertStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JBinaryOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JBinaryOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JBlock x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JBlock x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JBooleanLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JBooleanLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JBreakStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JBreakStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JByteLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JByteLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JCaseStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JCaseStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JCastOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JCastOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JCatchBlock x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JCatchBlock x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JCharLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JCharLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JClassLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JClassLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JCompositeStringLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JCompositeStringLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JConditionalExpression x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JConditionalExpression x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JConstructor x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JConstructor x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JContinueStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JContinueStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JDefinedClass x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JDefinedClass x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JDefinedClassOrInterface x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JDefinedClassOrInterface x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JDefinedInterface x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JDefinedInterface x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JDoStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JDoStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JDoubleLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JDoubleLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JDynamicCastOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JDynamicCastOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JEnumLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JEnumLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JExceptionRuntimeValue x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JExceptionRuntimeValue x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JExpression x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JExpression x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JExpressionStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JExpressionStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JField x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JField x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JFieldInitializer x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JFieldInitializer x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JFieldNameLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JFieldNameLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JFieldRef x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JFieldRef x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JFloatLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JFloatLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JForStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JForStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JGoto x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JGoto x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JIfStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JIfStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JInstanceOf x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JInstanceOf x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JIntLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JIntLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JLabel x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JLabel x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JLabeledStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JLabeledStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JLocal x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JLocal x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JLocalRef x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JLocalRef x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JLock x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JLock x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JLongLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JLongLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JMethod x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JMethod x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JMethodBody x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JMethodBody x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JMethodCall x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JMethodCall x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JMethodLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JMethodLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JMethodNameLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JMethodNameLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JMultiExpression x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JMultiExpression x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JNameValuePair x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JNameValuePair x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JNewArray x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JNewArray x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JNewInstance x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JNewInstance x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JNode x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JNode x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JNullLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JNullLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JNullType x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JNullType x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JPackage x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JPackage x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JParameter x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JParameter x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JParameterRef x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JParameterRef x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JPhantomAnnotation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JPhantomAnnotation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JPhantomClass x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JPhantomClass x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JPhantomClassOrInterface x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JPhantomClassOrInterface x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JPhantomInterface x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JPhantomInterface x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JPostfixOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JPostfixOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JPrefixOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JPrefixOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JPrimitiveType x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JPrimitiveType x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JReferenceType x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JReferenceType x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JReinterpretCastOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JReinterpretCastOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JReturnStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JReturnStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JSession x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JSession x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JShortLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JShortLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JStringLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JStringLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JSwitchStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JSwitchStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JSynchronizedBlock x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JSynchronizedBlock x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JThis x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JThis x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JThisRef x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JThisRef x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JThrowStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JThrowStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JTryStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JTryStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JType x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JType x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JTypeStringLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JTypeStringLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JUnaryOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JUnaryOperation x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JUnlock x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JUnlock x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JValueLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JValueLiteral x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JVariable x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JVariable x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JVariableRef x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JVariableRef x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+
+  @Override
+  public boolean visit(@Nonnull JWhileStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isActive(i) && !visitors[i].visit(x)) {
+        suspend(i, x);
+      }
+    }
+    return activeCount > 0;
+  }
+
+  @Override
+  public void endVisit(@Nonnull JWhileStatement x) {
+    for (int i = 0; i < visitors.length; i++) {
+      if (isEndOfSuspension(i, x)) {
+        visitors[i].endVisit(x);
+      }
+    }
+  }
+}
@@ -16,6 +16,7 @@
 package com.android.jack.ir.ast;
 
 import com.android.jack.Jack;
+import com.android.jack.ir.formatter.CachedNames;
 import com.android.jack.ir.sourceinfo.SourceInfo;
 import com.android.jack.lookup.CommonTypes;
 import com.android.jack.lookup.JPhantomLookup;
@@ -60,6 +61,7 @@ public class JArrayType extends JDefinedReferenceType {
 
   public void setElementType(@Nonnull JType elementType) {
     this.elementType = elementType;
+    invalidateCachedNames();
   }
 
   public JType getLeafType() {
@@ -96,10 +96,12 @@ public class JDefinedClass extends JDefinedClassOrInterface implements CanBeSetF
   @Override
   protected void transform(@Nonnull JNode existingNode, @CheckForNull JNode newNode,
       @Nonnull Transformation transformation) throws UnsupportedOperationException {
-    if (!transform(fields, existingNode, (JField) newNode, transformation)) {
-      if (!transform(methods, existingNode, (JMethod) newNode, transformation)) {
-        super.transform(existingNode, newNode, transformation);
-      }
+    if (transform(fields, existingNode, (JField) newNode, transformation)) {
+      invalidateFieldIndex();
+    } else if (transform(methods, existingNode, (JMethod) newNode, transformation)) {
+      invalidateMethodIndex();
+    } else {
+      super.transform(existingNode, newNode, transformation);
     }
   }
 
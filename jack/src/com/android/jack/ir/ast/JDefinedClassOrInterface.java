@@ -18,6 +18,7 @@ package com.android.jack.ir.ast;
 
 import com.android.jack.Jack;
 import com.android.jack.ir.JNodeInternalError;
+import com.android.jack.ir.formatter.CachedNames;
 import com.android.jack.ir.sourceinfo.SourceInfo;
 import com.android.jack.load.ClassOrInterfaceLoader;
 import com.android.jack.load.NopClassOrInterfaceLoader;
@@ -90,10 +91,17 @@ public abstract class JDefinedClassOrInterface extends JDefinedReferenceType
   @Nonnull
   private final Location location;
 
+  @CheckForNull
+  private volatile MemberIndex<JMethod> methodIndex;
+
+  @CheckForNull
+  private volatile MemberIndex<JField> fieldIndex;
+
   public JDefinedClassOrInterface(@Nonnull SourceInfo info, @Nonnull String name, int modifier,
       @Nonnull JPackage enclosingPackage, @Nonnull ClassOrInterfaceLoader loader) {
     super(info, name);
-    assert NamingTools.isIdentifier(name) || "package-info".equals(name);
+    assert NamingTools.isIdentifier(name) || NamingTools.isNameSynthetic(name)
+        || "package-info".equals(name);
     assert JModifier.isTypeModifier(modifier);
     assert JModifier.isValidTypeModifier(modifier);
     this.modifier = modifier;
@@ -136,6 +144,10 @@ public abstract class JDefinedClassOrInterface extends JDefinedReferenceType
     assert field.getEnclosingType() == this;
     assert getPhantomField(field.getName(), field.getType(), field.getId().getKind()) == null;
     fields.add(field);
+    MemberIndex<JField> index = fieldIndex;
+    if (index != null) {
+      index.add(field);
+    }
   }
 
   @Override
@@ -190,6 +202,7 @@ public abstract class JDefinedClassOrInterface extends JDefinedReferenceType
   public void setEnclosingPackage(@CheckForNull JPackage enclosingPackage) {
     assert enclosingPackage != null;
     this.enclosingPackage = enclosingPackage;
+    invalidateCachedNames();
     updateParents(enclosingPackage);
     assert Jack.getSession().getPhantomLookup().check(this);
   }
@@ -202,6 +215,10 @@ public abstract class JDefinedClassOrInterface extends JDefinedReferenceType
     assert getPhantomMethod(method.getName(), method.getMethodId().getParamTypes(),
         method.getMethodId().getKind()) == null;
     methods.add(method);
+    MemberIndex<JMethod> index = methodIndex;
+    if (index != null) {
+      index.add(method);
+    }
   }
 
   /**
@@ -231,7 +248,7 @@ public abstract class JDefinedClassOrInterface extends JDefinedReferenceType
   public List<JField> getFields(@Nonnull String fieldName) {
     loader.ensureFields(this, fieldName);
     List<JField> fieldsFound = new ArrayList<JField>();
-    for (JField field : getFields()) {
+    for (JField field : getFieldsNamed(fieldName)) {
       if (field.getName().equals(fieldName)) {
         fieldsFound.add(field);
       }
@@ -275,7 +292,7 @@ public abstract class JDefinedClassOrInterface extends JDefinedReferenceType
   public JMethod getMethod(@Nonnull String name, @Nonnull JType returnType,
       @Nonnull List<? extends JType> args) throws JMethodLookupException {
     loader.ensureMethod(this, name, args, returnType);
-    for (JMethod m : methods) {
+    for (JMethod m : getMethodsNamed(name)) {
       if (m.getMethodId().equals(name, args) && m.getType().isSameType(returnType)) {
         return m;
       }
@@ -314,6 +331,7 @@ public abstract class JDefinedClassOrInterface extends JDefinedReferenceType
   public void removeField(int i) {
     assert !isExternal() : "External types can not be modiified.";
     fields.remove(i);
+    invalidateFieldIndex();
   }
 
   /**
@@ -322,6 +340,57 @@ public abstract class JDefinedClassOrInterface extends JDefinedReferenceType
   public void removeMethod(int i) {
     assert !isExternal() : "External types can not be modiified.";
     methods.remove(i);
+    invalidateMethodIndex();
+  }
+
+  /**
+   * Must be called when the name of a declared method changes or when the list of declared methods
+   * is modified without {@link #addMethod(JMethod)} or {@link #removeMethod(int)}.
+   */
+  void invalidateMethodIndex() {
+    methodIndex = null;
+  }
+
+  /**
+   * Must be called when the name of a declared field changes or when the list of declared fields
+   * is modified without {@link #addField(JField)} or {@link #removeField(int)}.
+   */
+  void invalidateFieldIndex() {
+    fieldIndex = null;
+  }
+
+  /**
+   * @return the declared methods which may be named {@code name}, the caller must check their
+   *         name. Methods must be loaded.
+   */
+  @Nonnull
+  private List<JMethod> getMethodsNamed(@Nonnull String name) {
+    if (methods.size() <= MemberIndex.THRESHOLD) {
+      return methods;
+    }
+    MemberIndex<JMethod> index = methodIndex;
+    if (index == null) {
+      index = new MemberIndex<JMethod>(methods);
+      methodIndex = index;
+    }
+    return index.get(name);
+  }
+
+  /**
+   * @return the declared fields which may be named {@code name}, the caller must check their
+   *         name. Fields must be loaded.
+   */
+  @Nonnull
+  private List<JField> getFieldsNamed(@Nonnull String name) {
+    if (fields.size() <= MemberIndex.THRESHOLD) {
+      return fields;
+    }
+    MemberIndex<JField> index = fieldIndex;
+    if (index == null) {
+      index = new MemberIndex<JField>(fields);
+      fieldIndex = index;
+    }
+    return index.get(name);
   }
 
   /**
@@ -441,7 +510,7 @@ public abstract class JDefinedClassOrInterface extends JDefinedReferenceType
       throws JMethodLookupException {
     assert !(name.contains("(") || name.contains(")"));
     loader.ensureMethods(this);
-    for (JMethod method : methods) {
+    for (JMethod method : getMethodsNamed(name)) {
       JMethodId id = method.getMethodId();
       if (id.equals(name, argsType)) {
         return id;
@@ -509,7 +578,7 @@ public abstract class JDefinedClassOrInterface extends JDefinedReferenceType
       @Nonnull String name, @Nonnull JType type,
       @Nonnull FieldKind kind) throws JFieldLookupException {
     loader.ensureFields(this);
-    for (JField field : fields) {
+    for (JField field : getFieldsNamed(name)) {
       JFieldId id = field.getId();
       if (id.equals(name, type, kind)) {
         return id;
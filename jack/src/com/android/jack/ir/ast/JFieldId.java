@@ -18,7 +18,7 @@ package com.android.jack.ir.ast;
 
 import com.android.jack.Jack;
 import com.android.jack.ir.StringInterner;
-import com.android.sched.marker.LocalMarkerManager;
+import com.android.sched.marker.CompactMarkerManager;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
@@ -26,7 +26,7 @@ import javax.annotation.Nonnull;
 /**
  * Description of a field.
  */
-public class JFieldId extends LocalMarkerManager
+public class JFieldId extends CompactMarkerManager
   implements HasName, CanBeRenamed, HasType {
 
   @Nonnull
@@ -65,6 +65,9 @@ public class JFieldId extends LocalMarkerManager
   @Override
   public void setName(@Nonnull String name) {
     this.name = StringInterner.get().intern(name);
+    if (field != null) {
+      field.getEnclosingType().invalidateFieldIndex();
+    }
   }
 
   @Nonnull
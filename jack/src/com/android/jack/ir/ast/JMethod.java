@@ -386,6 +386,9 @@ public class JMethod extends JNode implements HasEnclosingType, HasName, HasType
 
   public void setMethodId(@Nonnull JMethodId methodId) {
     assert getExpectedMethodKind() == methodId.getKind();
+    if (!methodId.getName().equals(this.methodId.getName())) {
+      enclosingType.invalidateMethodIndex();
+    }
     this.methodId = methodId;
     methodId.addMethod(this);
   }
@@ -18,8 +18,9 @@ package com.android.jack.ir.ast;
 
 import com.android.jack.Jack;
 import com.android.jack.ir.StringInterner;
+import com.android.jack.ir.formatter.CachedNames;
 import com.android.jack.util.NamingTools;
-import com.android.sched.marker.LocalMarkerManager;
+import com.android.sched.marker.CompactMarkerManager;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -33,7 +34,7 @@ import javax.annotation.Nonnull;
  * An identifier for methods. A JMethodId instance is shared between JMethods
  * that may share an overriding relation.
  */
-public class JMethodId extends LocalMarkerManager implements HasName, CanBeRenamed {
+public class JMethodId extends CompactMarkerManager implements HasName, CanBeRenamed {
 
   /**
    * Method hierarchy filter.
@@ -55,6 +56,9 @@ public class JMethodId extends LocalMarkerManager implements HasName, CanBeRenam
   @Nonnull
   private final MethodKind methodKind;
 
+  @CheckForNull
+  private CachedNames cachedNames;
+
   public JMethodId(@Nonnull String name, @Nonnull MethodKind kind) {
     assert !(name.contains("(") || name.contains(")"));
     assert (!(NamingTools.INIT_NAME.equals(name) || NamingTools.STATIC_INIT_NAME.equals(name)))
@@ -74,6 +78,7 @@ public class JMethodId extends LocalMarkerManager implements HasName, CanBeRenam
    */
   public void addParam(@Nonnull JType x) {
     paramTypes.add(x);
+    cachedNames = null;
   }
 
   @Nonnull
@@ -148,6 +153,20 @@ public class JMethodId extends LocalMarkerManager implements HasName, CanBeRenam
   public void setName(@Nonnull String newName) {
     assert !(newName.contains("(") || newName.contains(")"));
     this.name = StringInterner.get().intern(newName);
+    cachedNames = null;
+    for (JMethod method : methods) {
+      method.getEnclosingType().invalidateMethodIndex();
+    }
+  }
+
+  @Nonnull
+  public CachedNames getCachedNames() {
+    CachedNames names = cachedNames;
+    if (names == null) {
+      names = new CachedNames();
+      cachedNames = names;
+    }
+    return names;
   }
 
   boolean equals(@Nonnull String otherName, @Nonnull List<? extends JType> otherParamTypes) {
@@ -24,7 +24,7 @@ import com.android.jack.scheduling.marker.collector.SubTreeMarkersCollector;
 import com.android.jack.util.DefaultTextOutput;
 import com.android.sched.item.Component;
 import com.android.sched.item.Description;
-import com.android.sched.marker.LocalMarkerManager;
+import com.android.sched.marker.CompactMarkerManager;
 import com.android.sched.marker.Marker;
 
 import java.util.List;
@@ -38,7 +38,7 @@ import javax.annotation.Nonnull;
  * Base class for all visitable AST nodes.
  */
 @Description("AST Node")
-public abstract class JNode extends LocalMarkerManager
+public abstract class JNode extends CompactMarkerManager
   implements JVisitable, HasSourceInfo, Component {
 
   /**
@@ -18,6 +18,7 @@ package com.android.jack.ir.ast;
 
 import com.android.jack.ir.JNodeInternalError;
 import com.android.jack.ir.StringInterner;
+import com.android.jack.ir.formatter.CachedNames;
 import com.android.jack.ir.sourceinfo.SourceInfo;
 import com.android.jack.load.PackageLoader;
 import com.android.jack.lookup.JLookupException;
@@ -100,6 +101,9 @@ public class JPackage extends JNode implements HasName, CanBeRenamed, HasEnclosi
 
   private OnPath isOnPath = OnPath.NOT_YET_AVAILABLE;
 
+  @CheckForNull
+  private CachedNames cachedNames;
+
   public JPackage(
       @Nonnull String name, @Nonnull JSession session, @CheckForNull JPackage enclosingPackage) {
     this(name, session, enclosingPackage, Collections.<PackageLoader>emptyList());
@@ -159,6 +163,7 @@ public class JPackage extends JNode implements HasName, CanBeRenamed, HasEnclosi
   @Override
   public void setEnclosingPackage(@CheckForNull JPackage enclosingPackage) {
     this.enclosingPackage = enclosingPackage;
+    cachedNames = null;
   }
 
   public boolean isTopLevelPackage() {
@@ -325,6 +330,17 @@ public class JPackage extends JNode implements HasName, CanBeRenamed, HasEnclosi
   @Override
   public void setName(@Nonnull String name) {
     this.name = StringInterner.get().intern(name);
+    cachedNames = null;
+  }
+
+  @Nonnull
+  public CachedNames getCachedNames() {
+    CachedNames names = cachedNames;
+    if (names == null) {
+      names = new CachedNames();
+      cachedNames = names;
+    }
+    return names;
   }
 
   public boolean isDefaultPackage() {
@@ -17,6 +17,7 @@
 package com.android.jack.ir.ast;
 
 import com.android.jack.ir.JNodeInternalError;
+import com.android.jack.ir.formatter.CachedNames;
 import com.android.jack.ir.sourceinfo.SourceInfo;
 import com.android.jack.util.NamingTools;
 import com.android.sched.item.Component;
@@ -50,7 +51,7 @@ public class JPhantomClassOrInterface extends JReferenceTypeCommon implements JC
 
   public JPhantomClassOrInterface(@Nonnull String name, @Nonnull JPackage enclosingPackage) {
     super(SourceInfo.UNKNOWN, name);
-    assert NamingTools.isIdentifier(name);
+    assert NamingTools.isIdentifier(name) || NamingTools.isNameSynthetic(name);
     this.enclosingPackage = enclosingPackage;
   }
 
@@ -64,6 +65,7 @@ public class JPhantomClassOrInterface extends JReferenceTypeCommon implements JC
   public void setEnclosingPackage(@CheckForNull JPackage enclosingPackage) {
     assert enclosingPackage != null;
     this.enclosingPackage = enclosingPackage;
+    invalidateCachedNames();
   }
 
   @Override
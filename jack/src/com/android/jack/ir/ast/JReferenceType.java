@@ -15,6 +15,7 @@
  */
 package com.android.jack.ir.ast;
 
+import com.android.jack.ir.formatter.CachedNames;
 import com.android.sched.item.Description;
 
 import javax.annotation.Nonnull;
@@ -33,4 +34,10 @@ public interface JReferenceType extends JType {
    * @return true if this instance can be upcast to {@code castTo} or false otherwise.
    */
   public abstract boolean canBeSafelyUpcast(@Nonnull JReferenceType castTo);
+
+  /**
+   * @return the names of this type cached by the formatters.
+   */
+  @Nonnull
+  public CachedNames getCachedNames();
 }
@@ -18,6 +18,7 @@ package com.android.jack.ir.ast;
 import com.android.jack.Jack;
 import com.android.jack.ir.StringInterner;
 import com.android.jack.ir.ast.JPrimitiveType.JPrimitiveTypeEnum;
+import com.android.jack.ir.formatter.CachedNames;
 import com.android.jack.ir.sourceinfo.SourceInfo;
 import com.android.jack.lookup.CommonTypes;
 import com.android.sched.item.Description;
@@ -37,6 +38,9 @@ abstract class JReferenceTypeCommon extends JNode implements JReferenceType, Can
   @CheckForNull
   private JArrayType array;
 
+  @CheckForNull
+  private CachedNames cachedNames;
+
 
   public JReferenceTypeCommon(@Nonnull SourceInfo info, @Nonnull String name) {
     super(info);
@@ -52,9 +56,29 @@ abstract class JReferenceTypeCommon extends JNode implements JReferenceType, Can
   @Override
   public void setName(@Nonnull String name) {
     this.name = StringInterner.get().intern(name);
+    invalidateCachedNames();
     assert Jack.getSession().getPhantomLookup().check(this);
   }
 
+  @Override
+  @Nonnull
+  public CachedNames getCachedNames() {
+    CachedNames names = cachedNames;
+    if (names == null) {
+      // Two threads may create the cache concurrently, one of them is then lost, which is harmless
+      names = new CachedNames();
+      cachedNames = names;
+    }
+    return names;
+  }
+
+  /**
+   * Drops the names cached on this type, which must be done each time it is renamed or moved.
+   */
+  void invalidateCachedNames() {
+    cachedNames = null;
+  }
+
   @Nonnull
   @Override
   public JExpression createDefaultValue(@Nonnull SourceInfo sourceInfo) {
@@ -88,7 +112,7 @@ abstract class JReferenceTypeCommon extends JNode implements JReferenceType, Can
 
   @Override
   @Nonnull
-  public JArrayType getArray() {
+  public synchronized JArrayType getArray() {
     if (array == null) {
       array = new JArrayType(this);
     }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.ir.ast;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Index by name of the methods or fields declared by a type. Overloaded members share the same
+ * entry, so the caller must still check the signature of the returned members.
+ *
+ * Entries are never modified once published, adding a member replaces its entry, so that lookups
+ * do not lock.
+ */
+class MemberIndex<T extends HasName> {
+
+  /**
+   * Members of types declaring more members than this are looked up through an index.
+   */
+  @Nonnegative
+  static final int THRESHOLD = 16;
+
+  @Nonnull
+  private final ConcurrentHashMap<String, List<T>> membersByName;
+
+  MemberIndex(@Nonnull Collection<? extends T> members) {
+    membersByName = new ConcurrentHashMap<String, List<T>>(members.size());
+    for (T member : members) {
+      add(member);
+    }
+  }
+
+  /**
+   * @return the members named {@code name}, in the order in which they were added.
+   */
+  @Nonnull
+  List<T> get(@Nonnull String name) {
+    List<T> members = membersByName.get(name);
+    if (members == null) {
+      return Collections.emptyList();
+    }
+    return members;
+  }
+
+  void add(@Nonnull T member) {
+    String name = member.getName();
+    List<T> members = membersByName.get(name);
+    if (members == null) {
+      members = Collections.singletonList(member);
+    } else {
+      List<T> overloads = new ArrayList<T>(members.size() + 1);
+      overloads.addAll(members);
+      overloads.add(member);
+      members = overloads;
+    }
+    membersByName.put(name, members);
+  }
+}
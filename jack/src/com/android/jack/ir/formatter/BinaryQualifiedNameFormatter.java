@@ -21,8 +21,10 @@ import com.android.jack.ir.ast.JClassOrInterface;
 import com.android.jack.ir.ast.JNullType;
 import com.android.jack.ir.ast.JPackage;
 import com.android.jack.ir.ast.JPrimitiveType;
+import com.android.jack.ir.ast.JReferenceType;
 import com.android.jack.ir.ast.JType;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -33,9 +35,22 @@ public class BinaryQualifiedNameFormatter extends CharSeparatedPackageFormatter
     implements TypeFormatter, PackageFormatter {
 
   @Nonnull
-  private static final BinaryQualifiedNameFormatter formatter = new BinaryQualifiedNameFormatter();
+  private static final BinaryQualifiedNameFormatter formatter =
+      new BinaryQualifiedNameFormatter(true);
+
+  private final boolean cacheNames;
 
   protected BinaryQualifiedNameFormatter() {
+    this(false);
+  }
+
+  protected BinaryQualifiedNameFormatter(boolean cacheNames) {
+    this.cacheNames = cacheNames;
+  }
+
+  @Override
+  protected boolean cacheNames() {
+    return cacheNames;
   }
 
   @Override
@@ -51,6 +66,33 @@ public class BinaryQualifiedNameFormatter extends CharSeparatedPackageFormatter
   @Override
   @Nonnull
   public String getName(@Nonnull JType type) {
+    if (cacheNames && type instanceof JClassOrInterface) {
+      JPackage enclosingPackage = ((JClassOrInterface) type).getEnclosingPackage();
+      assert enclosingPackage != null;
+      String packageName =
+          enclosingPackage.isDefaultPackage() ? null : getPackageName(enclosingPackage);
+      CachedNames cachedNames = ((JReferenceType) type).getCachedNames();
+      String name = cachedNames.getBinaryName(packageName);
+      if (name == null) {
+        name = getClassOrInterfaceName(packageName, type.getName());
+        cachedNames.setBinaryName(name, packageName);
+      }
+      return name;
+    } else if (cacheNames && type instanceof JArrayType) {
+      String elementName = getName(((JArrayType) type).getElementType());
+      CachedNames cachedNames = ((JReferenceType) type).getCachedNames();
+      String name = cachedNames.getBinaryName(elementName);
+      if (name == null) {
+        name = elementName + "[]";
+        cachedNames.setBinaryName(name, elementName);
+      }
+      return name;
+    }
+    return getNameWithoutCache(type);
+  }
+
+  @Nonnull
+  private String getNameWithoutCache(@Nonnull JType type) {
     if (type instanceof JClassOrInterface) {
       return getClassOrInterfaceName((JClassOrInterface) type);
     } else if (type instanceof JArrayType) {
@@ -95,21 +137,24 @@ public class BinaryQualifiedNameFormatter extends CharSeparatedPackageFormatter
   @Override
   @Nonnull
   public String getName(@Nonnull JPackage pack) {
-    return getNameInternal(pack).toString();
+    return getPackageName(pack);
   }
 
   @Override
   @Nonnull
   public String getName(
       @Nonnull JPackage enclosingPackage, @Nonnull String classOrInterfaceSimpleName) {
-    StringBuilder sb;
-    if (!enclosingPackage.isDefaultPackage()) {
-      sb = getNameInternal(enclosingPackage);
-      sb.append(getPackageSeparator());
-    } else {
-      sb = new StringBuilder();
+    return getClassOrInterfaceName(
+        enclosingPackage.isDefaultPackage() ? null : getPackageName(enclosingPackage),
+        classOrInterfaceSimpleName);
+  }
+
+  @Nonnull
+  private String getClassOrInterfaceName(
+      @CheckForNull String packageName, @Nonnull String classOrInterfaceSimpleName) {
+    if (packageName == null) {
+      return classOrInterfaceSimpleName;
     }
-    sb.append(classOrInterfaceSimpleName);
-    return sb.toString();
+    return packageName + getPackageSeparator() + classOrInterfaceSimpleName;
   }
 }
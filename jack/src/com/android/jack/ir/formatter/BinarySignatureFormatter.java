@@ -24,10 +24,12 @@ import com.android.jack.ir.ast.JNullType;
 import com.android.jack.ir.ast.JPackage;
 import com.android.jack.ir.ast.JParameter;
 import com.android.jack.ir.ast.JPrimitiveType;
+import com.android.jack.ir.ast.JReferenceType;
 import com.android.jack.ir.ast.JType;
 
 import java.util.List;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -39,9 +41,21 @@ public class BinarySignatureFormatter extends CharSeparatedPackageFormatter
     implements TypeAndMethodFormatter {
 
   @Nonnull
-  private static final BinarySignatureFormatter formatter = new BinarySignatureFormatter();
+  private static final BinarySignatureFormatter formatter = new BinarySignatureFormatter(true);
+
+  private final boolean cacheNames;
 
   protected BinarySignatureFormatter() {
+    this(false);
+  }
+
+  protected BinarySignatureFormatter(boolean cacheNames) {
+    this.cacheNames = cacheNames;
+  }
+
+  @Override
+  protected boolean cacheNames() {
+    return cacheNames;
   }
 
   @Override
@@ -57,6 +71,33 @@ public class BinarySignatureFormatter extends CharSeparatedPackageFormatter
   @Override
   @Nonnull
   public String getName(@Nonnull JType type) {
+    if (cacheNames && type instanceof JClassOrInterface) {
+      JPackage enclosingPackage = ((JClassOrInterface) type).getEnclosingPackage();
+      assert enclosingPackage != null;
+      String packageName =
+          enclosingPackage.isDefaultPackage() ? null : getPackageName(enclosingPackage);
+      CachedNames cachedNames = ((JReferenceType) type).getCachedNames();
+      String name = cachedNames.getSignature(packageName);
+      if (name == null) {
+        name = getClassOrInterfaceName(packageName, type.getName());
+        cachedNames.setSignature(name, packageName);
+      }
+      return name;
+    } else if (cacheNames && type instanceof JArrayType) {
+      String elementName = getName(((JArrayType) type).getElementType());
+      CachedNames cachedNames = ((JReferenceType) type).getCachedNames();
+      String name = cachedNames.getSignature(elementName);
+      if (name == null) {
+        name = "[" + elementName;
+        cachedNames.setSignature(name, elementName);
+      }
+      return name;
+    }
+    return getNameWithoutCache(type);
+  }
+
+  @Nonnull
+  private String getNameWithoutCache(@Nonnull JType type) {
     if (type instanceof JClassOrInterface) {
       return getClassOrInterfaceName((JClassOrInterface) type);
     } else if (type instanceof JArrayType) {
@@ -102,9 +143,17 @@ public class BinarySignatureFormatter extends CharSeparatedPackageFormatter
   @Nonnull
   public String getName(
       @Nonnull JPackage enclosingPackage, @Nonnull String classOrInterfaceSimpleName) {
+    return getClassOrInterfaceName(
+        enclosingPackage.isDefaultPackage() ? null : getPackageName(enclosingPackage),
+        classOrInterfaceSimpleName);
+  }
+
+  @Nonnull
+  private String getClassOrInterfaceName(
+      @CheckForNull String packageName, @Nonnull String classOrInterfaceSimpleName) {
     StringBuilder sb = new StringBuilder("L");
-    if (!enclosingPackage.isDefaultPackage()) {
-      sb.append(getNameInternal(enclosingPackage));
+    if (packageName != null) {
+      sb.append(packageName);
       sb.append(getPackageSeparator());
     }
     sb.append(classOrInterfaceSimpleName).append(";");
@@ -131,6 +180,25 @@ public class BinarySignatureFormatter extends CharSeparatedPackageFormatter
   @Override
   @Nonnull
   public String getNameWithoutReturnType(@Nonnull JMethodId methodId) {
+    if (cacheNames) {
+      List<JType> paramTypes = methodId.getParamTypes();
+      CachedNames cachedNames = methodId.getCachedNames();
+      String name = cachedNames.getSignature(paramTypes, this);
+      if (name == null) {
+        String[] paramNames = new String[paramTypes.size()];
+        StringBuilder sb = new StringBuilder();
+        sb.append(methodId.getName());
+        sb.append('(');
+        for (int i = 0; i < paramNames.length; i++) {
+          paramNames[i] = getName(paramTypes.get(i));
+          sb.append(paramNames[i]);
+        }
+        sb.append(')');
+        name = sb.toString();
+        cachedNames.setSignature(name, paramNames);
+      }
+      return name;
+    }
     return getNameWithoutReturnType(methodId.getName(), methodId.getParamTypes());
   }
 
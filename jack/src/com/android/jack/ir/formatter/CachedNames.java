@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.ir.formatter;
+
+import com.android.jack.ir.ast.JType;
+import com.android.sched.util.log.Tracer;
+import com.android.sched.util.log.TracerFactory;
+import com.android.sched.util.log.stats.ArrayAlloc;
+import com.android.sched.util.log.stats.ArrayAllocImpl;
+import com.android.sched.util.log.stats.StatisticId;
+import com.android.sched.util.log.tracer.TracerEventType;
+
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Names of a type, package or method id computed by the binary formatters, kept on the node so
+ * that they are built only once.
+ *
+ * The name of a node depends on its own name, which the node drops from its cache when it is
+ * renamed or moved, and on the names of its enclosing package, of its element type or of its
+ * parameter types. A name is kept with the names it was built from, and is valid as long as they
+ * are still the names of these nodes. Since the names of the nodes are themselves cached, they
+ * are compared by identity, and are the same instances until one of them changes.
+ */
+public final class CachedNames {
+
+  @Nonnull
+  public static final StatisticId<ArrayAlloc> NAME_ALLOCATION = new StatisticId<ArrayAlloc>(
+      "jack.formatter.name.allocation", "Names built by the binary formatters",
+      ArrayAllocImpl.class, ArrayAlloc.class);
+
+  @CheckForNull
+  private volatile Entry binaryName;
+
+  @CheckForNull
+  private volatile Entry signature;
+
+  /**
+   * @param dependency the name of the node the binary name depends on, or null if there is none
+   * @return the binary name, or null if it was not built from the given name
+   */
+  @CheckForNull
+  String getBinaryName(@CheckForNull String dependency) {
+    return getValue(binaryName, dependency);
+  }
+
+  void setBinaryName(@Nonnull String name, @CheckForNull String dependency) {
+    binaryName = newEntry(name, dependency);
+  }
+
+  /**
+   * @param dependency the name of the node the signature depends on, or null if there is none
+   * @return the signature, or null if it was not built from the given name
+   */
+  @CheckForNull
+  String getSignature(@CheckForNull String dependency) {
+    return getValue(signature, dependency);
+  }
+
+  void setSignature(@Nonnull String name, @CheckForNull String dependency) {
+    signature = newEntry(name, dependency);
+  }
+
+  /**
+   * @return the signature of a method id, or null if it was not built from the current names of
+   *         its parameter types given by the formatter
+   */
+  @CheckForNull
+  String getSignature(@Nonnull List<? extends JType> paramTypes,
+      @Nonnull TypeFormatter formatter) {
+    Entry entry = signature;
+    if (entry == null) {
+      return null;
+    }
+    String[] dependencies = entry.dependencies;
+    if (dependencies == null || dependencies.length != paramTypes.size()) {
+      return null;
+    }
+    for (int i = 0; i < dependencies.length; i++) {
+      if (formatter.getName(paramTypes.get(i)) != dependencies[i]) {
+        return null;
+      }
+    }
+    return entry.value;
+  }
+
+  void setSignature(@Nonnull String name, @Nonnull String[] dependencies) {
+    signature = newEntry(name, null, dependencies);
+  }
+
+  @CheckForNull
+  private static String getValue(@CheckForNull Entry entry, @CheckForNull String dependency) {
+    if (entry != null && entry.dependencies == null && entry.dependency == dependency) {
+      return entry.value;
+    }
+    return null;
+  }
+
+  @Nonnull
+  private static Entry newEntry(@Nonnull String name, @CheckForNull String dependency) {
+    return newEntry(name, dependency, null);
+  }
+
+  @Nonnull
+  private static Entry newEntry(@Nonnull String name, @CheckForNull String dependency,
+      @CheckForNull String[] dependencies) {
+    Tracer tracer = TracerFactory.getTracer();
+    if (tracer.getCurrentEventType() != TracerEventType.NOEVENT) {
+      tracer.getStatistic(NAME_ALLOCATION)
+          .recordObjectAllocation(name.length(), name.length() * 2L);
+    }
+    return new Entry(name, dependency, dependencies);
+  }
+
+  private static class Entry {
+    @Nonnull
+    private final String value;
+    @CheckForNull
+    private final String dependency;
+    @CheckForNull
+    private final String[] dependencies;
+
+    public Entry(@Nonnull String value, @CheckForNull String dependency,
+        @CheckForNull String[] dependencies) {
+      this.value = value;
+      this.dependency = dependency;
+      this.dependencies = dependencies;
+    }
+  }
+}
@@ -44,4 +44,36 @@ public abstract class CharSeparatedPackageFormatter {
 
   protected abstract char getPackageSeparator();
 
+  /**
+   * @return true if the names computed by this formatter are cached on the nodes. Only formatters
+   *         using the binary names of packages can share the names cached on packages.
+   */
+  protected boolean cacheNames() {
+    return false;
+  }
+
+  @Nonnull
+  protected String getPackageName(@Nonnull JPackage pack) {
+    if (!cacheNames()) {
+      return getNameInternal(pack).toString();
+    }
+
+    assert getPackageSeparator() == '/';
+    JPackage enclosingPackage = pack.getEnclosingPackage();
+    String enclosingName = enclosingPackage == null ? null : getPackageName(enclosingPackage);
+    CachedNames cachedNames = pack.getCachedNames();
+    String name = cachedNames.getBinaryName(enclosingName);
+    if (name == null) {
+      if (enclosingName == null) {
+        name = "";
+      } else if (enclosingName.isEmpty()) {
+        name = pack.getName();
+      } else {
+        name = enclosingName + getPackageSeparator() + pack.getName();
+      }
+      cachedNames.setBinaryName(name, enclosingName);
+    }
+    return name;
+  }
+
 }
@@ -28,11 +28,15 @@ public class InternalFormatter extends BinarySignatureFormatter
     implements TypePackageAndMethodFormatter {
 
   @Nonnull
-  private static final InternalFormatter formatter = new InternalFormatter();
+  private static final InternalFormatter formatter = new InternalFormatter(true);
 
   protected InternalFormatter() {
   }
 
+  protected InternalFormatter(boolean cacheNames) {
+    super(cacheNames);
+  }
+
   @Nonnull
   public static InternalFormatter getFormatter() {
     return formatter;
@@ -41,7 +45,7 @@ public class InternalFormatter extends BinarySignatureFormatter
   @Override
   @Nonnull
   public String getName(@Nonnull JPackage pack) {
-    return getNameInternal(pack).toString();
+    return getPackageName(pack);
   }
 
 }
@@ -38,6 +38,7 @@ import com.android.sched.marker.Marker;
 import com.android.sched.util.location.Location;
 
 import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.ast.LambdaExpression;
 import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
 import org.eclipse.jdt.internal.compiler.lookup.FieldBinding;
 import org.eclipse.jdt.internal.compiler.lookup.LocalTypeBinding;
@@ -124,7 +125,8 @@ public class EcjSourceTypeLoader implements ClassOrInterfaceLoader {
       type = new JDefinedClass(info, name, accessFlags, enclosingPackage, loader);
       if (binding.isNestedType()
           && !binding.isMemberType()
-          && ((LocalTypeBinding) binding).enclosingMethod != null) {
+          && ((LocalTypeBinding) binding).enclosingMethod != null
+          && !isInLambda((LocalTypeBinding) binding)) {
         MethodBinding methodBinding = ((LocalTypeBinding) binding).enclosingMethod;
         JMethod jMethod = refMap.get(methodBinding);
         ((JDefinedClass) type).setEnclosingMethod(jMethod);
@@ -150,6 +152,14 @@ public class EcjSourceTypeLoader implements ClassOrInterfaceLoader {
     return type;
   }
 
+  /**
+   * Indicates that a local type is declared in the body of a lambda, whose method is only created
+   * when building the body of its enclosing method.
+   */
+  static boolean isInLambda(@Nonnull LocalTypeBinding binding) {
+    return binding.scope.enclosingMethodScope().referenceContext instanceof LambdaExpression;
+  }
+
   private EcjSourceTypeLoader(@Nonnull ReferenceMapper refMap, @Nonnull SourceTypeBinding binding,
       @CheckForNull TypeDeclaration typeDeclaration, @Nonnull Location location) {
     this.refMap = new WeakReference<ReferenceMapper>(refMap);
@@ -120,6 +120,7 @@ import com.android.jack.ir.ast.marker.GenericSignature;
 import com.android.jack.ir.ast.marker.ThisRefTypeInfo;
 import com.android.jack.ir.sourceinfo.SourceInfo;
 import com.android.jack.ir.sourceinfo.SourceInfoFactory;
+import com.android.jack.load.NopClassOrInterfaceLoader;
 import com.android.jack.lookup.CommonTypes;
 import com.android.jack.lookup.JLookupException;
 import com.android.jack.lookup.JMethodLookupException;
@@ -166,11 +167,13 @@ import org.eclipse.jdt.internal.compiler.ast.FieldReference;
 import org.eclipse.jdt.internal.compiler.ast.FloatLiteral;
 import org.eclipse.jdt.internal.compiler.ast.ForStatement;
 import org.eclipse.jdt.internal.compiler.ast.ForeachStatement;
+import org.eclipse.jdt.internal.compiler.ast.FunctionalExpression;
 import org.eclipse.jdt.internal.compiler.ast.IfStatement;
 import org.eclipse.jdt.internal.compiler.ast.Initializer;
 import org.eclipse.jdt.internal.compiler.ast.InstanceOfExpression;
 import org.eclipse.jdt.internal.compiler.ast.IntLiteral;
 import org.eclipse.jdt.internal.compiler.ast.LabeledStatement;
+import org.eclipse.jdt.internal.compiler.ast.LambdaExpression;
 import org.eclipse.jdt.internal.compiler.ast.LocalDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.LongLiteral;
 import org.eclipse.jdt.internal.compiler.ast.MarkerAnnotation;
@@ -188,6 +191,7 @@ import org.eclipse.jdt.internal.compiler.ast.QualifiedAllocationExpression;
 import org.eclipse.jdt.internal.compiler.ast.QualifiedNameReference;
 import org.eclipse.jdt.internal.compiler.ast.QualifiedSuperReference;
 import org.eclipse.jdt.internal.compiler.ast.QualifiedThisReference;
+import org.eclipse.jdt.internal.compiler.ast.ReferenceExpression;
 import org.eclipse.jdt.internal.compiler.ast.ReturnStatement;
 import org.eclipse.jdt.internal.compiler.ast.SingleMemberAnnotation;
 import org.eclipse.jdt.internal.compiler.ast.SingleNameReference;
@@ -214,6 +218,8 @@ import org.eclipse.jdt.internal.compiler.lookup.BlockScope;
 import org.eclipse.jdt.internal.compiler.lookup.ClassScope;
 import org.eclipse.jdt.internal.compiler.lookup.CompilationUnitScope;
 import org.eclipse.jdt.internal.compiler.lookup.FieldBinding;
+import org.eclipse.jdt.internal.compiler.lookup.IntersectionCastTypeBinding;
+import org.eclipse.jdt.internal.compiler.lookup.LocalTypeBinding;
 import org.eclipse.jdt.internal.compiler.lookup.LocalVariableBinding;
 import org.eclipse.jdt.internal.compiler.lookup.LookupEnvironment;
 import org.eclipse.jdt.internal.compiler.lookup.MethodBinding;
@@ -279,6 +285,9 @@ public class JackIrBuilder {
     @Nonnegative
     private long superInstanceQualifierSuffix = 0;
 
+    @Nonnegative
+    private long lambdaReceiverSuffix = 0;
+
     @Nonnull
     private final Stack<List<JCaseStatement>> switchCases = new Stack<List<JCaseStatement>>();
 
@@ -1920,6 +1929,111 @@ public class JackIrBuilder {
       }
     }
 
+    @Override
+    public boolean visit(LambdaExpression x, BlockScope scope) {
+      try {
+        SourceInfo info = makeSourceInfo(x);
+        int lambdaIndex = curClass.lambdaCount++;
+        JDefinedClass lambdaClass = createLambdaClass(info, x, lambdaIndex);
+
+        // Interfaces can not declare the method holding the code of the lambda, its class does.
+        JDefinedClassOrInterface host = curClass.classType != null ? curClass.type : lambdaClass;
+        boolean captureThis = x.shouldCaptureInstance && host == curClass.type;
+
+        // Captured values are evaluated where the lambda is created.
+        List<JExpression> captures = new ArrayList<JExpression>();
+        if (captureThis) {
+          captures.add(makeThisRef(info));
+        }
+        if (x.outerLocalVariables != null) {
+          for (SyntheticArgumentBinding arg : x.outerLocalVariables) {
+            captures.add(makeOuterLocalRef(info, arg.actualOuterLocalVariable, scope));
+          }
+        }
+
+        JType returnType = getTypeMap().get(x.binding.returnType.erasure());
+        JMethod method = createSyntheticMethod(info, getLambdaMethodName(lambdaIndex, captureThis),
+            host, returnType, captureThis ? JModifier.DEFAULT : JModifier.STATIC);
+        JMethodBody body = (JMethodBody) method.getBody();
+        assert body != null;
+        pushMethodInfo(new MethodInfo(this, method, body, x.scope));
+
+        // Captured locals come first, then the arguments of the lambda.
+        if (x.outerLocalVariables != null) {
+          for (SyntheticArgumentBinding arg : x.outerLocalVariables) {
+            JParameter param = addSyntheticParameter(info, method,
+                ReferenceMapper.intern(arg.name), getTypeMap().get(arg.type.erasure()));
+            curMethod.addVariableMapping(arg, param);
+            curMethod.addVariableMapping(arg.actualOuterLocalVariable, param);
+          }
+        }
+        if (x.arguments != null) {
+          for (Argument argument : x.arguments) {
+            JType paramType = getTypeMap().get(argument.binding.type.erasure());
+            JParameter param = new JParameter(makeSourceInfo(argument),
+                ReferenceMapper.intern(argument.name), paramType,
+                argument.binding.isFinal() ? JModifier.FINAL : JModifier.DEFAULT, method);
+            method.addParam(param);
+            method.getMethodId().addParam(paramType);
+            curMethod.addVariableMapping(argument.binding, param);
+          }
+        }
+
+        x.body.traverse(this, x.scope);
+
+        JBlock block = body.getBlock();
+        if (x.body instanceof Expression) {
+          JExpression result = pop((Expression) x.body);
+          if (returnType == JPrimitiveTypeEnum.VOID.getType()) {
+            block.addStmt(result.makeStatement());
+            generateImplicitReturn();
+          } else {
+            block.addStmt(new JReturnStatement(result.getSourceInfo(), result));
+          }
+        } else {
+          block.addStmt(pop((Block) x.body));
+          if ((x.bits & ASTNode.NeedFreeReturn) != 0) {
+            generateImplicitReturn();
+          }
+        }
+        popMethodInfo();
+
+        // The functional method forwards its arguments to the lambda method.
+        JMethod samMethod = createFunctionalMethod(info, x, lambdaClass);
+        List<JField> fields = createCaptureFields(info, lambdaClass, captures);
+        JThis samThis = samMethod.getThis();
+        assert samThis != null;
+        JMethodCall call;
+        int fieldIndex = 0;
+        if (captureThis) {
+          call = makeMethodCall(info, new JFieldRef(info, new JThisRef(info, samThis),
+              fields.get(fieldIndex++).getId(), lambdaClass), host, method);
+        } else {
+          call = makeMethodCall(info, null, host, method);
+        }
+        while (fieldIndex < fields.size()) {
+          call.addArg(new JFieldRef(info, new JThisRef(info, samThis),
+              fields.get(fieldIndex++).getId(), lambdaClass));
+        }
+        MethodBinding sam = x.descriptor.original();
+        for (int i = 0, length = sam.parameters.length; i < length; i++) {
+          call.addArg(maybeCastFunctionalValue(
+              new JParameterRef(info, samMethod.getParams().get(i)), sam.parameters[i],
+              x.descriptor.parameters[i], x.binding.parameters[i]));
+        }
+        implementFunctionalMethod(info, samMethod, call, x.binding.returnType,
+            x.binding.returnType, sam.returnType);
+
+        push(createLambdaInstance(info, lambdaClass, captures, fields));
+        return false;
+      } catch (JTypeLookupException e) {
+        throw translateException(x, e);
+      } catch (RuntimeException e) {
+        throw translateException(x, e);
+      }
+    }
+
+
     @Override
     public boolean visit(MarkerAnnotation annotation, BlockScope scope) {
       return visit((Annotation) annotation, scope);
@@ -1958,6 +2072,155 @@ public class JackIrBuilder {
       return visit((Annotation) annotation, scope);
     }
 
+    @Override
+    public boolean visit(ReferenceExpression x, BlockScope scope) {
+      try {
+        SourceInfo info = makeSourceInfo(x);
+        int lambdaIndex = curClass.lambdaCount++;
+        JDefinedClass lambdaClass = createLambdaClass(info, x, lambdaIndex);
+        MethodBinding sam = x.descriptor.original();
+        MethodBinding binding = x.binding;
+
+        boolean isArrayConstructor = x.isArrayConstructorReference();
+        boolean isConstructor = !isArrayConstructor && x.isConstructorReference();
+        boolean isSuper = x.isSuperAccess();
+        boolean hasReceiver = !isArrayConstructor && !isConstructor && !binding.isStatic();
+        boolean isBoundReceiver = hasReceiver && !x.isTypeAccess();
+
+        // Super calls and calls to protected methods of another package can only be done from the
+        // current class, they go through a synthetic method of this class.
+        boolean needsBridge = isSuper || (binding.isProtected() && !isConstructor
+            && binding.declaringClass.getPackage() != curClass.typeDecl.binding.getPackage());
+
+        // Captured values are evaluated where the method reference is created.
+        List<JExpression> captures = new ArrayList<JExpression>();
+        int enclosingInstanceCount = 0;
+        if (isSuper) {
+          captures.add(makeThisRef(info));
+        } else if (isBoundReceiver) {
+          x.lhs.traverse(this, scope);
+          JExpression receiver = pop(x.lhs);
+          if (!(x.lhs instanceof ThisReference)) {
+            // Check the receiver for null at creation time:
+            // (tmp = receiver, tmp.getClass(), tmp)
+            JLocal tmp = new JLocal(info, ".lambdaReceiver" + lambdaReceiverSuffix++,
+                receiver.getType(), JModifier.FINAL | JModifier.SYNTHETIC, curMethod.body);
+            curMethod.body.addLocal(tmp);
+            List<JExpression> exprs = new ArrayList<JExpression>();
+            exprs.add(new JAsgOperation(info, new JLocalRef(info, tmp), receiver));
+            exprs.add(makeMethodCall(info, new JLocalRef(info, tmp), javaLangObject,
+                getGetClassMethod()));
+            exprs.add(new JLocalRef(info, tmp));
+            receiver = new JMultiExpression(info, exprs);
+          }
+          captures.add(receiver);
+        } else if (isConstructor) {
+          ReferenceBinding targetBinding = (ReferenceBinding) binding.declaringClass.erasure();
+          if (isNested(targetBinding)) {
+            if (targetBinding.syntheticEnclosingInstanceTypes() != null) {
+              for (ReferenceBinding argType : targetBinding.syntheticEnclosingInstanceTypes()) {
+                captures.add(makeThisReference(info, argType, false, scope));
+                enclosingInstanceCount++;
+              }
+            }
+            if (targetBinding.syntheticOuterLocalVariables() != null) {
+              for (SyntheticArgumentBinding arg : targetBinding.syntheticOuterLocalVariables()) {
+                captures.add(makeOuterLocalRef(info, arg.actualOuterLocalVariable, scope));
+              }
+            }
+          }
+        }
+
+        JMethod samMethod = createFunctionalMethod(info, x, lambdaClass);
+        List<JField> fields = createCaptureFields(info, lambdaClass, captures);
+        JThis samThis = samMethod.getThis();
+        assert samThis != null;
+        List<JExpression> capturedRefs = new ArrayList<JExpression>(fields.size());
+        for (JField field : fields) {
+          capturedRefs.add(
+              new JFieldRef(info, new JThisRef(info, samThis), field.getId(), lambdaClass));
+        }
+
+        // Arguments of the functional method, the unbound receiver is the first one.
+        int firstArg = (hasReceiver && !isBoundReceiver) ? 1 : 0;
+        JExpression receiver = null;
+        if (isBoundReceiver) {
+          receiver = capturedRefs.get(0);
+        } else if (hasReceiver) {
+          receiver = maybeCastFunctionalValue(
+              new JParameterRef(info, samMethod.getParams().get(0)), sam.parameters[0],
+              x.descriptor.parameters[0], x.receiverType);
+        }
+        List<JExpression> args = new ArrayList<JExpression>();
+        List<TypeBinding> argTypes = new ArrayList<TypeBinding>();
+        List<TypeBinding> argInstantiatedTypes = new ArrayList<TypeBinding>();
+        for (int i = firstArg, length = sam.parameters.length; i < length; i++) {
+          args.add(new JParameterRef(info, samMethod.getParams().get(i)));
+          argTypes.add(sam.parameters[i]);
+          argInstantiatedTypes.add(x.descriptor.parameters[i]);
+        }
+
+        JExpression call;
+        TypeBinding resultType;
+        TypeBinding resultInstantiatedType;
+        if (isArrayConstructor) {
+          resultType = x.lhs.resolvedType;
+          resultInstantiatedType = resultType;
+          List<JExpression> dims = new ArrayList<JExpression>(1);
+          dims.add(maybeCastFunctionalValue(args.get(0), argTypes.get(0),
+              argInstantiatedTypes.get(0), TypeBinding.INT));
+          call = JNewArray.createWithDims(info, (JArrayType) getTypeMap().get(resultType), dims);
+        } else if (isConstructor) {
+          resultType = binding.declaringClass;
+          resultInstantiatedType = resultType;
+          JConstructor ctor = (JConstructor) getTypeMap().get(binding);
+          JMethodCall newInstance =
+              new JNewInstance(info, ctor.getEnclosingType(), ctor.getMethodId());
+          newInstance.addMarker(new ResolutionTargetMarker(ctor));
+          newInstance.addArgs(capturedRefs.subList(0, enclosingInstanceCount));
+          addMethodReferenceArgs(info, newInstance, binding, args, argTypes,
+              argInstantiatedTypes);
+          newInstance.addArgs(capturedRefs.subList(enclosingInstanceCount, capturedRefs.size()));
+          call = newInstance;
+        } else if (needsBridge) {
+          resultType = binding.original().returnType;
+          resultInstantiatedType = binding.returnType;
+          JMethod bridge = createMethodReferenceBridge(info, x, lambdaIndex, hasReceiver,
+              argInstantiatedTypes, scope);
+          JMethodCall bridgeCall;
+          if (isSuper) {
+            bridgeCall = makeMethodCall(info, capturedRefs.get(0), curClass.type, bridge);
+          } else {
+            bridgeCall = makeMethodCall(info, null, curClass.type, bridge);
+            if (hasReceiver) {
+              bridgeCall.addArg(receiver);
+            }
+          }
+          for (int i = 0, length = args.size(); i < length; i++) {
+            bridgeCall.addArg(maybeCastFunctionalValue(args.get(i), argTypes.get(i),
+                argInstantiatedTypes.get(i), argInstantiatedTypes.get(i)));
+          }
+          call = bridgeCall;
+        } else {
+          resultType = binding.original().returnType;
+          resultInstantiatedType = binding.returnType;
+          JMethodCall methodCall = makeMethodReferenceCall(info, x, receiver);
+          addMethodReferenceArgs(info, methodCall, binding, args, argTypes, argInstantiatedTypes);
+          call = methodCall;
+        }
+        implementFunctionalMethod(info, samMethod, call, resultType, resultInstantiatedType,
+            sam.returnType);
+
+        push(createLambdaInstance(info, lambdaClass, captures, fields));
+        return false;
+      } catch (JTypeLookupException e) {
+        throw translateException(x, e);
+      } catch (RuntimeException e) {
+        throw translateException(x, e);
+      }
+    }
+
+
     @Override
     public boolean visit(SingleMemberAnnotation annotation, BlockScope scope) {
       return visit((Annotation) annotation, scope);
@@ -2021,6 +2284,17 @@ public class JackIrBuilder {
       // Local types actually need to be created now.
       createTypes(typeDecl);
       createMembers(typeDecl);
+      if (EcjSourceTypeLoader.isInLambda((LocalTypeBinding) typeDecl.binding)) {
+        try {
+          JDefinedClassOrInterface type =
+              (JDefinedClassOrInterface) getTypeMap().get(typeDecl.binding);
+          if (type instanceof JDefinedClass) {
+            ((JDefinedClass) type).setEnclosingMethod(curMethod.method);
+          }
+        } catch (JTypeLookupException e) {
+          throw translateException(typeDecl, e);
+        }
+      }
       return visit(typeDecl);
     }
 
@@ -2253,6 +2527,72 @@ public class JackIrBuilder {
      * </p>
      * @throws JTypeLookupException
      */
+    private void addLambdaInterfaces(@Nonnull JDefinedClass lambdaClass,
+        @Nonnull TypeBinding type) throws JTypeLookupException {
+      if (type instanceof IntersectionCastTypeBinding) {
+        for (ReferenceBinding intersectingType :
+            ((IntersectionCastTypeBinding) type).intersectingTypes) {
+          addLambdaInterfaces(lambdaClass, intersectingType);
+        }
+      } else if (type.isInterface()) {
+        JInterface jInterface = (JInterface) getTypeMap().get(type.erasure());
+        for (JInterface implemented : lambdaClass.getImplements()) {
+          if (implemented.isSameType(jInterface)) {
+            return;
+          }
+        }
+        lambdaClass.addImplements(jInterface);
+      }
+    }
+
+    @Nonnull
+    private JParameter addParameter(@Nonnull SourceInfo info, @Nonnull JMethod method,
+        @Nonnull String name, @Nonnull JType type, int modifier) {
+      JParameter param = new JParameter(info, name, type, modifier, method);
+      method.addParam(param);
+      method.getMethodId().addParam(type);
+      return param;
+    }
+
+    @Nonnull
+    private JParameter addSyntheticParameter(@Nonnull SourceInfo info, @Nonnull JMethod method,
+        @Nonnull String name, @Nonnull JType type) {
+      return addParameter(info, method, name, type, JModifier.FINAL | JModifier.SYNTHETIC);
+    }
+
+    /**
+     * Add the arguments of the method or constructor referenced by a method reference, packing
+     * them into an array when the reference needs a variable arity invocation.
+     */
+    private void addMethodReferenceArgs(@Nonnull SourceInfo info, @Nonnull JMethodCall call,
+        @Nonnull MethodBinding binding, @Nonnull List<JExpression> args,
+        @Nonnull List<TypeBinding> argTypes, @Nonnull List<TypeBinding> argInstantiatedTypes)
+        throws JTypeLookupException {
+      TypeBinding[] params = binding.original().parameters;
+      int varArg = params.length - 1;
+      boolean packVarArgs = binding.isVarargs()
+          && (args.size() != params.length
+              || !argInstantiatedTypes.get(varArg).isCompatibleWith(binding.parameters[varArg]));
+      int fixedArgCount = packVarArgs ? varArg : params.length;
+
+      for (int i = 0; i < fixedArgCount; i++) {
+        call.addArg(maybeCastFunctionalValue(args.get(i), argTypes.get(i),
+            argInstantiatedTypes.get(i), params[i]));
+      }
+
+      if (packVarArgs) {
+        ArrayBinding varArgType = (ArrayBinding) binding.parameters[varArg].erasure();
+        TypeBinding elementType = varArgType.elementsType();
+        List<JExpression> initializers = new ArrayList<JExpression>();
+        for (int i = varArg, length = args.size(); i < length; i++) {
+          initializers.add(maybeCastFunctionalValue(args.get(i), argTypes.get(i),
+              argInstantiatedTypes.get(i), elementType));
+        }
+        call.addArg(JNewArray.createWithInits(info, (JArrayType) getTypeMap().get(varArgType),
+            initializers));
+      }
+    }
+
     private void addBridgeMethods(SourceTypeBinding clazzBinding) throws JTypeLookupException {
       /*
        * JDT adds bridge methods in all the places Jack needs them. Use JDT's
@@ -2331,6 +2671,202 @@ public class JackIrBuilder {
       popMethodInfo();
     }
 
+    /**
+     * Create the fields of a lambda class holding the values captured by the lambda.
+     */
+    @Nonnull
+    private List<JField> createCaptureFields(@Nonnull SourceInfo info,
+        @Nonnull JDefinedClass lambdaClass, @Nonnull List<JExpression> captures) {
+      List<JField> fields = new ArrayList<JField>(captures.size());
+      for (int i = 0, length = captures.size(); i < length; i++) {
+        JField field = new JField(info,
+            NamingTools.getNonSourceConflictingName(LAMBDA_CAPTURE_PREFIX + i), lambdaClass,
+            captures.get(i).getType(), JModifier.PRIVATE | JModifier.FINAL | JModifier.SYNTHETIC);
+        lambdaClass.addField(field);
+        field.updateParents(lambdaClass);
+        fields.add(field);
+      }
+      return fields;
+    }
+
+    /**
+     * Create the method implementing the functional interface method in a lambda class, with an
+     * empty body, and the bridges to it required by the functional interface.
+     */
+    @Nonnull
+    private JMethod createFunctionalMethod(@Nonnull SourceInfo info,
+        @Nonnull FunctionalExpression x, @Nonnull JDefinedClass lambdaClass)
+        throws JTypeLookupException {
+      MethodBinding sam = x.descriptor.original();
+      String name = ReferenceMapper.intern(sam.selector);
+      JMethod samMethod = new JMethod(info, new JMethodId(name, MethodKind.INSTANCE_VIRTUAL),
+          lambdaClass, getTypeMap().get(sam.returnType.erasure()), JModifier.PUBLIC);
+      for (int i = 0, length = sam.parameters.length; i < length; i++) {
+        addParameter(info, samMethod, "arg" + i, getTypeMap().get(sam.parameters[i].erasure()),
+            JModifier.FINAL);
+      }
+      samMethod.setBody(new JMethodBody(info, new JBlock(info)));
+      lambdaClass.addMethod(samMethod);
+      samMethod.updateParents(lambdaClass);
+
+      MethodBinding[] bridges = x.getRequiredBridges();
+      if (bridges != null) {
+        for (MethodBinding bridgeBinding : bridges) {
+          JMethod bridge = new JMethod(info, new JMethodId(name, MethodKind.INSTANCE_VIRTUAL),
+              lambdaClass, getTypeMap().get(bridgeBinding.returnType.erasure()),
+              JModifier.PUBLIC | JModifier.BRIDGE | JModifier.SYNTHETIC);
+          for (int i = 0, length = bridgeBinding.parameters.length; i < length; i++) {
+            addParameter(info, bridge, "arg" + i,
+                getTypeMap().get(bridgeBinding.parameters[i].erasure()), JModifier.FINAL);
+          }
+          bridge.setBody(new JMethodBody(info, new JBlock(info)));
+          lambdaClass.addMethod(bridge);
+          bridge.updateParents(lambdaClass);
+
+          JMethodCall call =
+              makeMethodCall(info, new JThisRef(info, bridge.getThis()), lambdaClass, samMethod);
+          for (int i = 0, length = sam.parameters.length; i < length; i++) {
+            call.addArg(maybeCastFunctionalValue(
+                new JParameterRef(info, bridge.getParams().get(i)), bridgeBinding.parameters[i],
+                sam.parameters[i], sam.parameters[i]));
+          }
+          implementFunctionalMethod(info, bridge, call, sam.returnType, sam.returnType,
+              bridgeBinding.returnType);
+        }
+      }
+      return samMethod;
+    }
+
+    /**
+     * Create the class implementing the functional interface of a lambda or of a method
+     * reference, its members are added by the caller.
+     */
+    @Nonnull
+    private JDefinedClass createLambdaClass(@Nonnull SourceInfo info,
+        @Nonnull FunctionalExpression x, @Nonnegative int lambdaIndex)
+        throws JTypeLookupException {
+      JDefinedClassOrInterface enclosingType = curClass.type;
+      String name = ReferenceMapper.intern(enclosingType.getName() + '$'
+          + NamingTools.getNonSourceConflictingName(LAMBDA_CLASS_PREFIX + lambdaIndex));
+      JDefinedClass lambdaClass = new JDefinedClass(info, name,
+          JModifier.FINAL | JModifier.SYNTHETIC, enclosingType.getEnclosingPackage(),
+          NopClassOrInterfaceLoader.INSTANCE);
+      lambdaClass.setSuperClass(javaLangObject);
+      addLambdaInterfaces(lambdaClass, x.resolvedType);
+      // Marker interfaces of an intersection cast, including java.io.Serializable
+      TypeBinding expectedType = x.expectedType();
+      if (expectedType instanceof IntersectionCastTypeBinding) {
+        addLambdaInterfaces(lambdaClass, expectedType);
+      }
+      newTypes.add(lambdaClass);
+      return lambdaClass;
+    }
+
+    /**
+     * Create the constructor and the static initializer of a lambda class, and return the
+     * expression giving an instance of it. A lambda capturing no value has a single instance,
+     * created once by the static initializer, so that evaluating it never allocates.
+     */
+    @Nonnull
+    private JExpression createLambdaInstance(@Nonnull SourceInfo info,
+        @Nonnull JDefinedClass lambdaClass, @Nonnull List<JExpression> captures,
+        @Nonnull List<JField> fields) throws JTypeLookupException {
+      JConstructor ctor = new JConstructor(info, lambdaClass, JModifier.SYNTHETIC);
+      JMethodBody ctorBody = new JMethodBody(info, new JBlock(info));
+      ctor.setBody(ctorBody);
+      lambdaClass.addMethod(ctor);
+      JBlock ctorBlock = ctorBody.getBlock();
+      ctorBlock.addStmt(makeMethodCall(info, new JThisRef(info, ctor.getThis()), javaLangObject,
+          getObjectConstructor()).makeStatement());
+      for (JField field : fields) {
+        JParameter param = addSyntheticParameter(info, ctor, field.getName(), field.getType());
+        JFieldRef fieldRef =
+            new JFieldRef(info, new JThisRef(info, ctor.getThis()), field.getId(), lambdaClass);
+        ctorBlock.addStmt(
+            new JAsgOperation(info, fieldRef, new JParameterRef(info, param)).makeStatement());
+      }
+      ctorBlock.addStmt(new JReturnStatement(info, null));
+      ctor.updateParents(lambdaClass);
+
+      JNewInstance newInstance = new JNewInstance(info, lambdaClass, ctor.getMethodId());
+      newInstance.addMarker(new ResolutionTargetMarker(ctor));
+      JBlock clinitBlock =
+          ((JMethodBody) createStaticInitializer(info, lambdaClass).getBody()).getBlock();
+      JExpression result;
+      if (captures.isEmpty()) {
+        JField instanceField = new JField(info, LAMBDA_INSTANCE_FIELD_NAME, lambdaClass,
+            lambdaClass, JModifier.STATIC | JModifier.FINAL | JModifier.SYNTHETIC);
+        lambdaClass.addField(instanceField);
+        instanceField.updateParents(lambdaClass);
+        clinitBlock.addStmt(new JAsgOperation(info,
+            new JFieldRef(info, null, instanceField.getId(), lambdaClass), newInstance)
+            .makeStatement());
+        result = new JFieldRef(info, null, instanceField.getId(), lambdaClass);
+      } else {
+        newInstance.addArgs(captures);
+        result = newInstance;
+      }
+      clinitBlock.addStmt(new JReturnStatement(info, null));
+      return result;
+    }
+
+    /**
+     * Name of a synthetic method of the current class called by a lambda class. These methods are
+     * not private, so that the lambda class calls them without accessor. The name of an instance
+     * method also contains the name of its class, so that it does not override the one of a super
+     * class of the same package.
+     */
+    @Nonnull
+    private String getLambdaMethodName(@Nonnegative int lambdaIndex, boolean isInstance) {
+      String name = isInstance
+          ? LAMBDA_METHOD_PREFIX + curClass.type.getName() + '$' + lambdaIndex
+          : LAMBDA_METHOD_PREFIX + lambdaIndex;
+      return ReferenceMapper.intern(NamingTools.getNonSourceConflictingName(name));
+    }
+
+    /**
+     * Create the synthetic method of the current class doing the call of a method reference which
+     * can only be done from the current class, namely super method references and references to
+     * protected methods of another package.
+     */
+    @Nonnull
+    private JMethod createMethodReferenceBridge(@Nonnull SourceInfo info,
+        @Nonnull ReferenceExpression x, @Nonnegative int lambdaIndex, boolean hasReceiver,
+        @Nonnull List<TypeBinding> argTypes, @Nonnull BlockScope scope)
+        throws JTypeLookupException {
+      boolean isSuper = x.isSuperAccess();
+      JMethod bridge = createSyntheticMethod(info, getLambdaMethodName(lambdaIndex, isSuper),
+          curClass.type, getTypeMap().get(x.binding).getType(),
+          isSuper ? JModifier.DEFAULT : JModifier.STATIC);
+      JMethodBody body = (JMethodBody) bridge.getBody();
+      assert body != null;
+      pushMethodInfo(new MethodInfo(this, bridge, body, scope.methodScope()));
+
+      JExpression receiver = null;
+      if (isSuper) {
+        x.lhs.traverse(this, scope);
+        receiver = pop(x.lhs);
+      } else if (hasReceiver) {
+        receiver = new JParameterRef(info, addSyntheticParameter(info, bridge, "receiver",
+            getTypeMap().get(x.receiverType.erasure())));
+      }
+      List<JExpression> args = new ArrayList<JExpression>(argTypes.size());
+      for (int i = 0, length = argTypes.size(); i < length; i++) {
+        args.add(new JParameterRef(info, addSyntheticParameter(info, bridge, "arg" + i,
+            getTypeMap().get(argTypes.get(i).erasure()))));
+      }
+      JMethodCall call = makeMethodReferenceCall(info, x, receiver);
+      addMethodReferenceArgs(info, call, x.binding, args, argTypes, argTypes);
+      if (bridge.getType() == JPrimitiveTypeEnum.VOID.getType()) {
+        body.getBlock().addStmt(call.makeStatement());
+        body.getBlock().addStmt(new JReturnStatement(info, null));
+      } else {
+        body.getBlock().addStmt(new JReturnStatement(info, call));
+      }
+      popMethodInfo();
+      return bridge;
+    }
+
     private JField createEnumValuesField(JDefinedEnum type) throws JTypeLookupException,
         JMethodLookupException {
       // $VALUES = new E[]{A,B,B};
@@ -2426,6 +2962,26 @@ public class JackIrBuilder {
       return jlabel;
     }
 
+    /**
+     * Implement a method of a lambda class by returning the result of {@code call}, whose type is
+     * the erasure of {@code resultType}.
+     */
+    private void implementFunctionalMethod(@Nonnull SourceInfo info, @Nonnull JMethod method,
+        @Nonnull JExpression call, @Nonnull TypeBinding resultType,
+        @Nonnull TypeBinding resultInstantiatedType, @Nonnull TypeBinding returnType)
+        throws JTypeLookupException {
+      JMethodBody body = (JMethodBody) method.getBody();
+      assert body != null;
+      JBlock block = body.getBlock();
+      if (method.getType() == JPrimitiveTypeEnum.VOID.getType()) {
+        block.addStmt(call.makeStatement());
+        block.addStmt(new JReturnStatement(info, null));
+      } else {
+        block.addStmt(new JReturnStatement(info,
+            maybeCastFunctionalValue(call, resultType, resultInstantiatedType, returnType)));
+      }
+    }
+
     private void implementMethod(JMethod method, JExpression returnValue) {
       JMethodBody body = (JMethodBody) method.getBody();
       assert body != null;
@@ -2461,6 +3017,62 @@ public class JackIrBuilder {
       }
     }
 
+    @Nonnull
+    private JMethodCall makeMethodReferenceCall(@Nonnull SourceInfo info,
+        @Nonnull ReferenceExpression x, @CheckForNull JExpression receiver)
+        throws JTypeLookupException {
+      JMethod method = getTypeMap().get(x.binding);
+
+      JDefinedClassOrInterface receiverType;
+      JType jType = getTypeMap().get(x.receiverType);
+      if (jType instanceof JClassOrInterface) {
+        if (jType instanceof JInterface && method.getEnclosingType().isSameType(javaLangObject)) {
+          receiverType = method.getEnclosingType();
+        } else {
+          receiverType = (JDefinedClassOrInterface) jType;
+        }
+      } else {
+        receiverType = method.getEnclosingType();
+      }
+
+      if (x.isSuperAccess()) {
+        return makeSuperCall(info, receiver, receiverType, method);
+      } else {
+        return makeMethodCall(info, method.isStatic() ? null : receiver, receiverType, method);
+      }
+    }
+
+    /**
+     * Make a reference to a local variable of an enclosing method, captured by a local class or a
+     * lambda.
+     */
+    @Nonnull
+    private JExpression makeOuterLocalRef(@Nonnull SourceInfo info,
+        @Nonnull LocalVariableBinding targetVariable, @Nonnull BlockScope scope)
+        throws JTypeLookupException {
+      VariableBinding[] path = scope.getEmulationPath(targetVariable);
+      assert path.length == 1;
+      if (curMethod.scope.isInsideInitializer() && path[0] instanceof SyntheticArgumentBinding) {
+        SyntheticArgumentBinding sb = (SyntheticArgumentBinding) path[0];
+        JField field;
+        if (sb.matchingField == null) {
+          field = curClass.syntheticArgToFields.get(sb);
+        } else {
+          field = typeMap.get(sb.matchingField);
+        }
+        assert field != null;
+        return makeInstanceFieldRef(info, field);
+      } else if (path[0] instanceof LocalVariableBinding) {
+        return makeLocalRef(info, (LocalVariableBinding) path[0]);
+      } else if (path[0] instanceof FieldBinding) {
+        JField field = getTypeMap().get((FieldBinding) path[0]);
+        assert field != null;
+        return makeInstanceFieldRef(info, field);
+      } else {
+        throw new AssertionError("Unknown emulation path.");
+      }
+    }
+
     private JThisRef makeThisRef(SourceInfo info) {
       if (curMethod.method == null || curMethod.method.isStatic()) {
         return null;
@@ -2524,6 +3136,24 @@ public class JackIrBuilder {
       }
     }
 
+    /**
+     * Cast a value passed through a lambda class, whose type is the erasure of {@code from}, so
+     * that it can be used where a {@code to} is expected. Boxing and unboxing are left to
+     * {@link com.android.jack.transformations.ast.TypeLegalizer}, a value to unbox is only cast to
+     * its wrapper type, the erasure of {@code instantiated}.
+     */
+    @Nonnull
+    private JExpression maybeCastFunctionalValue(@Nonnull JExpression value,
+        @Nonnull TypeBinding from, @Nonnull TypeBinding instantiated, @Nonnull TypeBinding to)
+        throws JTypeLookupException {
+      TypeBinding erasedFrom = from.erasure();
+      TypeBinding target = to.isBaseType() ? instantiated.erasure() : to.erasure();
+      if (erasedFrom.isBaseType() || target.isBaseType() || erasedFrom.isCompatibleWith(target)) {
+        return value;
+      }
+      return new JDynamicCastOperation(value.getSourceInfo(), getTypeMap().get(target), value);
+    }
+
     private JNode pop() {
       return nodeStack.remove(nodeStack.size() - 1);
     }
@@ -2721,6 +3351,14 @@ public class JackIrBuilder {
       throw new AssertionError();
     }
 
+    @Nonnull
+    private JMethod getObjectConstructor() throws JTypeLookupException {
+      ReferenceBinding refBinding = lookupEnvironment.getType(LookupEnvironment.JAVA_LANG_OBJECT);
+      MethodBinding ctor = refBinding.getExactConstructor(Binding.NO_PARAMETERS);
+      assert ctor != null;
+      return getTypeMap().get(ctor);
+    }
+
     private void pushNewExpression(SourceInfo info, AllocationExpression x, Expression qualifier,
         List<JExpression> arguments, BlockScope scope) throws JTypeLookupException {
       TypeBinding typeBinding = x.resolvedType;
@@ -2815,30 +3453,7 @@ public class JackIrBuilder {
         // Synthetic locals for local classes
         if (targetBinding.syntheticOuterLocalVariables() != null) {
           for (SyntheticArgumentBinding arg : targetBinding.syntheticOuterLocalVariables()) {
-            LocalVariableBinding targetVariable = arg.actualOuterLocalVariable;
-            VariableBinding[] path = scope.getEmulationPath(targetVariable);
-            assert path.length == 1;
-            if (curMethod.scope.isInsideInitializer()
-                && path[0] instanceof SyntheticArgumentBinding) {
-              SyntheticArgumentBinding sb = (SyntheticArgumentBinding) path[0];
-              JField field;
-              if (sb.matchingField == null) {
-                field = curClass.syntheticArgToFields.get(sb);
-              } else {
-                field = typeMap.get(sb.matchingField);
-              }
-              assert field != null;
-              call.addArg(makeInstanceFieldRef(info, field));
-            } else if (path[0] instanceof LocalVariableBinding) {
-              JExpression localRef = makeLocalRef(info, (LocalVariableBinding) path[0]);
-              call.addArg(localRef);
-            } else if (path[0] instanceof FieldBinding) {
-              JField field = getTypeMap().get((FieldBinding) path[0]);
-              assert field != null;
-              call.addArg(makeInstanceFieldRef(info, field));
-            } else {
-              throw new AssertionError("Unknown emulation path.");
-            }
+            call.addArg(makeOuterLocalRef(info, arg.actualOuterLocalVariable, scope));
           }
         }
       }
@@ -3059,6 +3674,8 @@ public class JackIrBuilder {
         new IdentityHashMap<SyntheticArgumentBinding, JField>();
     public final JDefinedClassOrInterface type;
     public final TypeDeclaration typeDecl;
+    @Nonnegative
+    public int lambdaCount = 0;
 
     public ClassInfo(JDefinedClassOrInterface type, TypeDeclaration x) {
       this.type = type;
@@ -3274,6 +3891,11 @@ public class JackIrBuilder {
   private static final TypeBinding[] NO_TYPES = new TypeBinding[0];
   private static final String VALUE_OF_STRING = "valueOf";
   private static final String INIT_METHOD_NAME = "$init";
+  private static final String LAMBDA_CAPTURE_PREFIX = "capture$";
+  private static final String LAMBDA_CLASS_PREFIX = "Lambda$";
+  private static final String LAMBDA_INSTANCE_FIELD_NAME =
+      NamingTools.getNonSourceConflictingName("instance");
+  private static final String LAMBDA_METHOD_PREFIX = "lambda$";
   private static final char[] VALUE_OF = VALUE_OF_STRING.toCharArray();
   private static final String VALUES_STRING = "values";
   private static final char[] VALUES = VALUES_STRING.toCharArray();
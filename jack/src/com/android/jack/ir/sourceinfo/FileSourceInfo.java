@@ -17,6 +17,7 @@
 package com.android.jack.ir.sourceinfo;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -36,6 +37,9 @@ public class FileSourceInfo extends SourceInfo {
   @Nonnull
   private String fileName;
 
+  @Nonnull
+  private final LineTable lineTable = new LineTable(this);
+
   FileSourceInfo(@Nonnull String fileName) {
     this.originalFileName = fileName;
     this.fileName = fileName;
@@ -76,4 +80,10 @@ public class FileSourceInfo extends SourceInfo {
   public FileSourceInfo getFileSourceInfo() {
     return this;
   }
+
+  @Nonnull
+  SourceInfo getPosition(
+      @Nonnegative int startLine, @Nonnegative int endLine, int startCol, int endCol) {
+    return lineTable.get(startLine, endLine, startCol, endCol);
+  }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.ir.sourceinfo;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Canonical {@link PositionSourceInfo}s of a file, in an open addressing hash table.
+ *
+ * Looking up a position neither locks nor allocates. Only the creation of a position locks the
+ * table, it is then added to the current array, or to a new array published once filled when the
+ * table must grow. A lookup racing with a creation may miss the new position and then retries
+ * under the lock.
+ */
+class LineTable {
+
+  @Nonnegative
+  private static final int INITIAL_CAPACITY = 16;
+
+  @Nonnull
+  private final FileSourceInfo fileSourceInfo;
+
+  @Nonnull
+  private volatile PositionSourceInfo[] positions = new PositionSourceInfo[INITIAL_CAPACITY];
+
+  @Nonnegative
+  private int size = 0;
+
+  LineTable(@Nonnull FileSourceInfo fileSourceInfo) {
+    this.fileSourceInfo = fileSourceInfo;
+  }
+
+  @Nonnull
+  PositionSourceInfo get(
+      @Nonnegative int startLine, @Nonnegative int endLine, int startCol, int endCol) {
+    PositionSourceInfo position = find(positions, startLine, endLine, startCol, endCol);
+    if (position == null) {
+      position = add(startLine, endLine, startCol, endCol);
+    }
+    return position;
+  }
+
+  @Nonnull
+  private synchronized PositionSourceInfo add(
+      @Nonnegative int startLine, @Nonnegative int endLine, int startCol, int endCol) {
+    PositionSourceInfo[] table = positions;
+    PositionSourceInfo position = find(table, startLine, endLine, startCol, endCol);
+    if (position == null) {
+      position = new PositionSourceInfo(fileSourceInfo, startLine, endLine, startCol, endCol);
+      size++;
+      // Keep at least a quarter of the slots empty so that lookups stop quickly
+      if (size * 4 > table.length * 3) {
+        PositionSourceInfo[] grown = new PositionSourceInfo[table.length * 2];
+        for (PositionSourceInfo existing : table) {
+          if (existing != null) {
+            insert(grown, existing);
+          }
+        }
+        insert(grown, position);
+        positions = grown;
+      } else {
+        insert(table, position);
+      }
+    }
+    return position;
+  }
+
+  @CheckForNull
+  private static PositionSourceInfo find(@Nonnull PositionSourceInfo[] table,
+      @Nonnegative int startLine, @Nonnegative int endLine, int startCol, int endCol) {
+    int mask = table.length - 1;
+    int index = getIndex(PositionSourceInfo.hashCode(startLine, endLine, startCol, endCol), mask);
+    while (true) {
+      PositionSourceInfo position = table[index];
+      if (position == null || position.isAt(startLine, endLine, startCol, endCol)) {
+        return position;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  private static void insert(
+      @Nonnull PositionSourceInfo[] table, @Nonnull PositionSourceInfo position) {
+    int mask = table.length - 1;
+    int index = getIndex(PositionSourceInfo.hashCode(position.getStartLine(),
+        position.getEndLine(), position.getStartColumn(), position.getEndColumn()), mask);
+    while (table[index] != null) {
+      index = (index + 1) & mask;
+    }
+    table[index] = position;
+  }
+
+  private static int getIndex(int hashCode, int mask) {
+    int h = hashCode * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+}
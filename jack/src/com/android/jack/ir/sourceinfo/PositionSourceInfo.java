@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.ir.sourceinfo;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Lines and columns of a node in a file. Instances are canonicalized by the {@link LineTable} of
+ * their file.
+ */
+class PositionSourceInfo extends SourceInfo {
+
+  @Nonnull
+  private final FileSourceInfo fileSourceInfo;
+  @Nonnegative
+  private final int startLine;
+  @Nonnegative
+  private final int endLine;
+  private final int startCol;
+  private final int endCol;
+
+  PositionSourceInfo(@Nonnull FileSourceInfo fileSourceInfo, @Nonnegative int startLine,
+      @Nonnegative int endLine, int startCol, int endCol) {
+    this.fileSourceInfo = fileSourceInfo;
+    this.startLine = startLine;
+    this.endLine = endLine;
+    this.startCol = startCol;
+    this.endCol = endCol;
+  }
+
+  boolean isAt(@Nonnegative int startLine, @Nonnegative int endLine, int startCol, int endCol) {
+    return this.startLine == startLine && this.endLine == endLine && this.startCol == startCol
+        && this.endCol == endCol;
+  }
+
+  static int hashCode(@Nonnegative int startLine, @Nonnegative int endLine, int startCol,
+      int endCol) {
+    return 17 * startLine + 19 * endLine + 29 * startCol + 31 * endCol;
+  }
+
+  @Override
+  @Nonnull
+  public FileSourceInfo getFileSourceInfo() {
+    return fileSourceInfo;
+  }
+
+  @Override
+  @Nonnegative
+  public int getStartLine() {
+    return startLine;
+  }
+
+  @Override
+  @Nonnegative
+  public int getEndLine() {
+    return endLine;
+  }
+
+  @Override
+  public int getStartColumn() {
+    return startCol;
+  }
+
+  @Override
+  public int getEndColumn() {
+    return endCol;
+  }
+
+  @Override
+  public final boolean equals(@CheckForNull Object o) {
+    if (!(o instanceof PositionSourceInfo)) {
+      return false;
+    }
+    PositionSourceInfo other = (PositionSourceInfo) o;
+    return other.isAt(startLine, endLine, startCol, endCol)
+        && fileSourceInfo.equals(other.fileSourceInfo);
+  }
+
+  @Override
+  public final int hashCode() {
+    return 13 * fileSourceInfo.hashCode() + hashCode(startLine, endLine, startCol, endCol);
+  }
+
+  @Override
+  @Nonnull
+  public String toString() {
+    return fileSourceInfo.getFileName() + '(' + getStartLine() + ')';
+  }
+}
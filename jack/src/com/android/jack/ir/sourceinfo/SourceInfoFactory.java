@@ -18,46 +18,39 @@ package com.android.jack.ir.sourceinfo;
 
 import com.android.sched.schedulable.Constraint;
 
-import java.util.HashMap;
-import java.util.Set;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
- * A factory used to create {@link SourceInfo}s.
+ * A factory used to create {@link SourceInfo}s. It provides canonicalized instances of
+ * {@link SourceInfo}, and can be used concurrently without locking, except when a new instance is
+ * created. Looking up an existing instance does not allocate.
  */
 @Constraint(need = SourceInfoCreation.class)
 public class SourceInfoFactory {
   @Nonnull
-  private final HashMap<FileSourceInfo, FileSourceInfo> canonicalFileSourceInfos =
-      new HashMap<FileSourceInfo, FileSourceInfo>();
-
-  @Nonnull
-  private final HashMap<LineSourceInfo, LineSourceInfo> canonicalLineSourceInfos =
-      new HashMap<LineSourceInfo, LineSourceInfo>();
-
-  @Nonnull
-  private final HashMap<ColumnSourceInfo, ColumnSourceInfo> canonicalColumnSourceInfos =
-      new HashMap<ColumnSourceInfo, ColumnSourceInfo>();
+  private final ConcurrentHashMap<String, FileSourceInfo> canonicalFileSourceInfos =
+      new ConcurrentHashMap<String, FileSourceInfo>();
 
   /**
    * Creates SourceInfo nodes. This factory method will provide
    * canonicalized instances of SourceInfo objects.
    */
   @Nonnull
-  public synchronized FileSourceInfo create(@Nonnull String fileName) {
-    FileSourceInfo newInstance = new FileSourceInfo(fileName);
-
-    FileSourceInfo canonical = canonicalFileSourceInfos.get(newInstance);
-
-    assert canonical == null || (newInstance != canonical && newInstance.equals(canonical));
-    if (canonical != null) {
-      return canonical;
-    } else {
-      canonicalFileSourceInfos.put(newInstance, newInstance);
-      return newInstance;
+  public FileSourceInfo create(@Nonnull String fileName) {
+    FileSourceInfo canonical = canonicalFileSourceInfos.get(fileName);
+    if (canonical == null) {
+      FileSourceInfo newInstance = new FileSourceInfo(fileName);
+      canonical = canonicalFileSourceInfos.putIfAbsent(fileName, newInstance);
+      if (canonical == null) {
+        canonical = newInstance;
+      }
     }
+    return canonical;
   }
 
   /**
@@ -65,24 +58,13 @@ public class SourceInfoFactory {
    * canonicalized instances of SourceInfo objects.
    */
   @Nonnull
-  public synchronized SourceInfo create(int startCol, int endCol,
+  public SourceInfo create(int startCol, int endCol,
       @Nonnegative int startLine, @Nonnegative int endLine, @Nonnull String fileName) {
-    FileSourceInfo fileSourceInfo = create(fileName);
-    LineSourceInfo lineSourceOrigin = create(startLine, endLine, fileSourceInfo);
     if (startCol <= 0 && endCol <= 0) {
-      return create(startLine, endLine, fileSourceInfo);
-    }
-
-    ColumnSourceInfo newInstance = new ColumnSourceInfo(lineSourceOrigin, startCol, endCol);
-    ColumnSourceInfo canonical = canonicalColumnSourceInfos.get(newInstance);
-
-    assert canonical == null || (newInstance != canonical && newInstance.equals(canonical));
-    if (canonical != null) {
-      return canonical;
-    } else {
-      canonicalColumnSourceInfos.put(newInstance, newInstance);
-      return newInstance;
+      startCol = SourceInfo.UNKNOWN_COLUMN_NUMBER;
+      endCol = SourceInfo.UNKNOWN_COLUMN_NUMBER;
     }
+    return create(fileName).getPosition(startLine, endLine, startCol, endCol);
   }
 
   /**
@@ -90,10 +72,9 @@ public class SourceInfoFactory {
    * canonicalized instances of SourceInfo objects.
    */
   @Nonnull
-  public synchronized SourceInfo create(@Nonnegative int startLine, @Nonnegative int endLine,
+  public SourceInfo create(@Nonnegative int startLine, @Nonnegative int endLine,
       @Nonnull String fileName) {
-    FileSourceInfo fileSourceInfo = create(fileName);
-    return create(startLine, endLine, fileSourceInfo);
+    return create(startLine, endLine, create(fileName));
   }
 
   /**
@@ -101,32 +82,14 @@ public class SourceInfoFactory {
    * canonicalized instances of SourceInfo objects.
    */
   @Nonnull
-  public synchronized LineSourceInfo create(
+  public SourceInfo create(
       @Nonnegative int startLine, @Nonnegative int endLine, @Nonnull FileSourceInfo fileName) {
-    LineSourceInfo newInstance = new LineSourceInfo(fileName, startLine, endLine);
-    LineSourceInfo canonical = canonicalLineSourceInfos.get(newInstance);
-
-    assert canonical == null || (newInstance != canonical && newInstance.equals(canonical));
-    if (canonical != null) {
-      return canonical;
-    } else {
-      canonicalLineSourceInfos.put(newInstance, newInstance);
-      return newInstance;
-    }
-  }
-
-  @Nonnull
-  public Set<FileSourceInfo> getFileSourceInfos() {
-    return canonicalFileSourceInfos.keySet();
-  }
-
-  @Nonnull
-  public Set<ColumnSourceInfo> getColumnSourceInfos() {
-    return canonicalColumnSourceInfos.keySet();
+    return fileName.getPosition(startLine, endLine, SourceInfo.UNKNOWN_COLUMN_NUMBER,
+        SourceInfo.UNKNOWN_COLUMN_NUMBER);
   }
 
   @Nonnull
-  public Set<LineSourceInfo> getLineSourceInfos() {
-    return canonicalLineSourceInfos.keySet();
+  public Collection<FileSourceInfo> getFileSourceInfos() {
+    return Collections.unmodifiableCollection(canonicalFileSourceInfos.values());
   }
 }
@@ -71,6 +71,10 @@ public class JayceClassOrInterfaceLoader extends AbtractClassOrInterfaceLoader i
   private static final StatisticId<Counter> STRUCTURE_LOAD = new StatisticId<Counter>(
       "jayce.structure.load", "NDeclaredType structure loaded in a JNode",
           CounterImpl.class, Counter.class);
+  @Nonnull
+  private static final StatisticId<Percent> BODY_ALONE_LOAD = new StatisticId<Percent>(
+      "jayce.body.alone", "Method body read alone versus body read with a whole jayce file",
+          PercentImpl.class, Percent.class);
 
   @Nonnull
   private static final Logger logger = LoggerFactory.getLogger();
@@ -213,6 +217,36 @@ public class JayceClassOrInterfaceLoader extends AbtractClassOrInterfaceLoader i
     return type;
   }
 
+  /**
+   * Reads the body of a method without reading the whole type when the library allows it.
+   * @return false if the body was not read
+   */
+  boolean readBody(@Nonnull MethodNode methodNode) throws LibraryFormatException,
+      LibraryIOException {
+    boolean read = false;
+    InputStream in = null;
+    try {
+      in = new BufferedInputStream(source.openRead());
+      read = JayceReaderFactory.get(inputJackLibrary, in).readBody(methodNode);
+    } catch (IOException e) {
+      throw new LibraryIOException(inputJackLibrary.getLocation(), e);
+    } catch (JayceFormatException e) {
+      logger.log(Level.SEVERE,
+          "Library " + inputJackLibrary.getLocation().getDescription() + " is invalid", e);
+      throw new LibraryFormatException(inputJackLibrary.getLocation());
+    } finally {
+      try {
+        if (in != null) {
+          in.close();
+        }
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Failed to close input stream on '" + source + "'", e);
+      }
+    }
+    tracer.getStatistic(BODY_ALONE_LOAD).add(read);
+    return read;
+  }
+
   @Override
   protected void ensureAll(@Nonnull JDefinedClassOrInterface loaded) {
     synchronized (this) {
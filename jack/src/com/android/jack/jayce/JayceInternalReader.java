@@ -29,6 +29,13 @@ public interface JayceInternalReader {
   @Nonnull
   DeclaredTypeNode readType(@Nonnull NodeLevel nodeLevel) throws IOException, JayceFormatException;
 
+  /**
+   * Reads the body of a method without reading the rest of its type, {@code methodNode} must have
+   * been read from the same file.
+   * @return false if the format of the file does not allow it, the method is then unchanged.
+   */
+  boolean readBody(@Nonnull MethodNode methodNode) throws IOException, JayceFormatException;
+
   int getCurrentMinor();
 
   int getMinorMin();
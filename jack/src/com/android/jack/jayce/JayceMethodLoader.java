@@ -94,7 +94,10 @@ public class JayceMethodLoader extends AbstractMethodLoader implements HasInputL
   private MethodNode getNNode(@Nonnull JMethod loaded) throws LibraryFormatException,
       LibraryIOException {
     MethodNode methodNode = nnode.get();
-    if (methodNode == null || methodNode.getLevel() != NodeLevel.FULL) {
+    if (methodNode == null) {
+      methodNode = enclosingClassLoader.getNNode(NodeLevel.STRUCTURE).getMethodNode(loaded);
+    }
+    if (methodNode.getLevel() != NodeLevel.FULL && !enclosingClassLoader.readBody(methodNode)) {
       DeclaredTypeNode declaredTypeNode = enclosingClassLoader.getNNode(NodeLevel.FULL);
       methodNode = declaredTypeNode.getMethodNode(loaded);
     }
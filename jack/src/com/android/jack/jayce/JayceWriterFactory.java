@@ -16,9 +16,11 @@
 
 package com.android.jack.jayce;
 
-import com.android.jack.jayce.v0002.io.JayceInternalWriterImpl;
 import com.android.jack.library.FileType;
 import com.android.jack.library.OutputJackLibrary;
+import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.config.id.IntegerPropertyId;
 
 import java.io.OutputStream;
 
@@ -27,19 +29,35 @@ import javax.annotation.Nonnull;
 /**
  * {@link JayceInternalWriter} Factory.
  */
+@HasKeyId
 public abstract class JayceWriterFactory {
 
   public static final int DEFAULT_MAJOR_VERSION = 2;
 
+  public static final int LATEST_MAJOR_VERSION = 3;
+
+  @Nonnull
+  public static final IntegerPropertyId MAJOR_VERSION = IntegerPropertyId.create(
+      "jack.library.jayce.major", "Major version of the Jayce format used to write libraries")
+      .withMin(2).withMax(LATEST_MAJOR_VERSION)
+      .addDefaultValue(String.valueOf(DEFAULT_MAJOR_VERSION));
+
   @Nonnull
   public static JayceInternalWriter get(@Nonnull OutputJackLibrary outputJackLibrary,
       @Nonnull OutputStream out) {
-    JayceInternalWriterImpl jayceWriter = new JayceInternalWriterImpl(out);
+    int majorVersion = ThreadConfig.get(MAJOR_VERSION).intValue();
+    JayceInternalWriter jayceWriter;
+    if (majorVersion == 2) {
+      jayceWriter = new com.android.jack.jayce.v0002.io.JayceInternalWriterImpl(out);
+    } else {
+      assert majorVersion == 3;
+      jayceWriter = new com.android.jack.jayce.v0003.io.JayceInternalWriterImpl(out);
+    }
 
     outputJackLibrary.putProperty(FileType.JAYCE.buildPropertyName(null /* suffix */),
         String.valueOf(true));
     outputJackLibrary.putProperty(JayceProperties.KEY_JAYCE_MAJOR_VERSION,
-        String.valueOf(DEFAULT_MAJOR_VERSION));
+        String.valueOf(majorVersion));
     outputJackLibrary.putProperty(JayceProperties.KEY_JAYCE_MINOR_VERSION,
         String.valueOf(jayceWriter.getCurrentMinor()));
 
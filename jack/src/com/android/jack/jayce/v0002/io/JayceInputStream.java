@@ -28,7 +28,7 @@ import javax.annotation.Nonnull;
 /**
  * This class extends {@code DataInputStream} to add uleb128 support for int and long.
  */
-class JayceInputStream implements DataInput {
+public class JayceInputStream implements DataInput {
 
   @Nonnull
   private final DataInputStream in;
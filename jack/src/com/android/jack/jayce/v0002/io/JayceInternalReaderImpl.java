@@ -19,11 +19,13 @@ package com.android.jack.jayce.v0002.io;
 import com.android.jack.jayce.DeclaredTypeNode;
 import com.android.jack.jayce.JayceFormatException;
 import com.android.jack.jayce.JayceInternalReader;
+import com.android.jack.jayce.MethodNode;
 import com.android.jack.jayce.NodeLevel;
 import com.android.jack.jayce.v0002.NNode;
 import com.android.jack.jayce.v0002.Version;
 import com.android.jack.jayce.v0002.nodes.HasCatchBlockIds;
 import com.android.jack.jayce.v0002.nodes.HasSourceInfo;
+import com.android.jack.jayce.v0002.nodes.NAbstractMethodBody;
 import com.android.jack.jayce.v0002.nodes.NDeclaredType;
 import com.android.jack.jayce.v0002.nodes.NMethod;
 import com.android.jack.jayce.v0002.nodes.NSourceInfo;
@@ -90,6 +92,28 @@ public class JayceInternalReaderImpl implements JayceInternalReader {
     return nodeLevel;
   }
 
+  protected void setNodeLevel(@Nonnull NodeLevel nodeLevel) {
+    this.nodeLevel = nodeLevel;
+  }
+
+  @CheckForNull
+  protected String getCurrentFileName() {
+    return currentFileName;
+  }
+
+  protected void setCurrentFileName(@CheckForNull String currentFileName) {
+    this.currentFileName = currentFileName;
+  }
+
+  @Nonnegative
+  protected int getCurrentLine() {
+    return currentLine;
+  }
+
+  protected void setCurrentLine(@Nonnegative int currentLine) {
+    this.currentLine = currentLine;
+  }
+
   @CheckForNull
   public String readId() throws IOException {
     return readString();
@@ -257,6 +281,12 @@ public class JayceInternalReaderImpl implements JayceInternalReader {
     }
   }
 
+  @CheckForNull
+  public NAbstractMethodBody readMethodBody(@Nonnull NMethod method) throws IOException,
+      JayceFormatException {
+    return readNode(NAbstractMethodBody.class);
+  }
+
   @Nonnull
   public <T extends NNode> List<T> readNodes(@Nonnull Class<T> nodeClass) throws IOException,
       JayceFormatException {
@@ -318,6 +348,12 @@ public class JayceInternalReaderImpl implements JayceInternalReader {
     return type;
   }
 
+  @Override
+  public boolean readBody(@Nonnull MethodNode methodNode) throws IOException,
+      JayceFormatException {
+    return false;
+  }
+
   @Override
   public int getCurrentMinor() {
     return Version.CURRENT_MINOR;
@@ -24,6 +24,7 @@ import com.android.jack.jayce.v0002.NodeFactory;
 import com.android.jack.jayce.v0002.Version;
 import com.android.jack.jayce.v0002.nodes.HasCatchBlockIds;
 import com.android.jack.jayce.v0002.nodes.HasSourceInfo;
+import com.android.jack.jayce.v0002.nodes.NAbstractMethodBody;
 import com.android.jack.jayce.v0002.nodes.NMethod;
 import com.android.jack.jayce.v0002.nodes.NSourceInfo;
 import com.android.jack.jayce.v0002.util.DispatchKindIdHelper;
@@ -84,6 +85,28 @@ public class JayceInternalWriterImpl implements JayceInternalWriter {
     }
   }
 
+  public void writeMethodBody(@CheckForNull NAbstractMethodBody body) throws IOException {
+    writeNode(body);
+  }
+
+  @CheckForNull
+  protected String getCurrentFileName() {
+    return currentFileName;
+  }
+
+  protected void setCurrentFileName(@CheckForNull String currentFileName) {
+    this.currentFileName = currentFileName;
+  }
+
+  @Nonnegative
+  protected int getCurrentLineNumber() {
+    return currentLineNumber;
+  }
+
+  protected void setCurrentLineNumber(@Nonnegative int currentLineNumber) {
+    this.currentLineNumber = currentLineNumber;
+  }
+
   private void writeSourceInfoBegin(@Nonnull NNode node) throws IOException {
     if (node instanceof HasSourceInfo) {
       NSourceInfo sourceInfo = ((HasSourceInfo) node).getSourceInfos();
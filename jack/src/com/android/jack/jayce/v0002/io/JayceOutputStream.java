@@ -28,7 +28,7 @@ import javax.annotation.Nonnull;
 /**
  * This class extends {@code DataOutputStream} to add uleb128 support for int and long.
  */
-class JayceOutputStream implements DataOutput {
+public class JayceOutputStream implements DataOutput {
 
   @Nonnull
   private final DataOutputStream out;
@@ -102,7 +102,7 @@ public class NConstructor extends NMethod {
     out.writeNodes(parameters);
     out.writeInt(modifier);
     out.writeNodes(annotations);
-    out.writeNode(body);
+    out.writeMethodBody(body);
     out.writeNodes(markers);
   }
 
@@ -112,7 +112,7 @@ public class NConstructor extends NMethod {
     parameters = in.readNodes(NParameter.class);
     modifier = in.readInt();
     annotations = in.readNodes(NAnnotationLiteral.class);
-    body = in.readNode(NAbstractMethodBody.class);
+    body = in.readMethodBody(this);
     markers = in.readNodes(NMarker.class);
   }
 
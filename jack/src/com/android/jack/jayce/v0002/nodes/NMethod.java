@@ -75,6 +75,12 @@ public class NMethod extends NNode implements HasSourceInfo, MethodNode {
   @CheckForNull
   protected NodeLevel level;
 
+  /**
+   * Position of the body in the file this method was read from, or -1 if the format does not
+   * allow to read the body alone.
+   */
+  public int bodyOffset = -1;
+
   @Override
   @Nonnull
   public NodeLevel getLevel() {
@@ -170,7 +176,7 @@ public class NMethod extends NNode implements HasSourceInfo, MethodNode {
     out.writeMethodKindEnum(methodKind);
     out.writeInt(modifier);
     out.writeNodes(annotations);
-    out.writeNode(body);
+    out.writeMethodBody(body);
     out.writeNodes(markers);
   }
 
@@ -183,7 +189,7 @@ public class NMethod extends NNode implements HasSourceInfo, MethodNode {
     methodKind = in.<MethodKind>readMethodKindEnum();
     modifier = in.readInt();
     annotations = in.readNodes(NAnnotationLiteral.class);
-    body = in.readNode(NAbstractMethodBody.class);
+    body = in.readMethodBody(this);
     markers = in.readNodes(NMarker.class);
   }
 
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.jayce.v0003.io;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+
+import com.android.jack.jayce.DeclaredTypeNode;
+import com.android.jack.jayce.JayceFormatException;
+import com.android.jack.jayce.MethodNode;
+import com.android.jack.jayce.NodeLevel;
+import com.android.jack.jayce.v0002.io.JayceInputStream;
+import com.android.jack.jayce.v0002.io.ParseException;
+import com.android.jack.jayce.v0002.nodes.NAbstractMethodBody;
+import com.android.jack.jayce.v0002.nodes.NMethod;
+import com.android.jack.jayce.v0003.Version;
+import com.android.sched.util.log.TracerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Jayce internal reader implementation.
+ *
+ * <p>Version 3 uses the nodes of version 2, but a file starts with a table of all the strings it
+ * contains, strings are then read as an index into this table. Every occurrence of a string in the
+ * file is thus decoded once and shares the same instance.
+ *
+ * <p>Method bodies are recorded with their length, they are skipped without being decoded when the
+ * requested level does not include them. The position of each body is kept in its method, so that
+ * it can later be read alone with {@link #readBody(MethodNode)}.
+ */
+public class JayceInternalReaderImpl extends
+    com.android.jack.jayce.v0002.io.JayceInternalReaderImpl {
+
+  @Nonnull
+  private final CountingInputStream in;
+
+  @CheckForNull
+  private String[] strings;
+
+  public JayceInternalReaderImpl(@Nonnull InputStream in) {
+    this(new CountingInputStream(in));
+  }
+
+  private JayceInternalReaderImpl(@Nonnull CountingInputStream in) {
+    super(in);
+    this.in = in;
+  }
+
+  @Override
+  @Nonnull
+  public DeclaredTypeNode readType(@Nonnull NodeLevel nodeLevel) throws IOException,
+      JayceFormatException {
+    if (strings == null) {
+      strings = readStringTable();
+    }
+    return super.readType(nodeLevel);
+  }
+
+  @Override
+  public boolean readBody(@Nonnull MethodNode methodNode) throws IOException,
+      JayceFormatException {
+    NMethod method = (NMethod) methodNode;
+    if (method.bodyOffset < 0) {
+      return false;
+    }
+    assert strings == null;
+    strings = readStringTable();
+    ByteStreams.skipFully(in, method.bodyOffset - in.getCount());
+    setNodeLevel(NodeLevel.FULL);
+    readInt();
+    setCurrentFileName(readString());
+    setCurrentLine(readInt());
+    method.body = readNode(NAbstractMethodBody.class);
+    return true;
+  }
+
+  @Override
+  @CheckForNull
+  public NAbstractMethodBody readMethodBody(@Nonnull NMethod method) throws IOException,
+      JayceFormatException {
+    method.bodyOffset = (int) in.getCount();
+    int length = readInt();
+    String fileName = readString();
+    int line = readInt();
+
+    if (!getNodeLevel().keep(NodeLevel.FULL)) {
+      ByteStreams.skipFully(in, length);
+      TracerFactory.getTracer().getStatistic(SKIPED_BODY).addTrue();
+      return null;
+    }
+
+    setCurrentFileName(fileName);
+    setCurrentLine(line);
+    NAbstractMethodBody body = super.readMethodBody(method);
+    setCurrentFileName(fileName);
+    setCurrentLine(line);
+    return body;
+  }
+
+  @Nonnull
+  private String[] readStringTable() throws IOException {
+    JayceInputStream tableIn = new JayceInputStream(in);
+    int length = tableIn.readInt();
+    if (length < 0) {
+      throw new ParseException("Invalid string table length: " + length);
+    }
+    String[] table = new String[length];
+    for (int i = 0; i < length; i++) {
+      table[i] = tableIn.readUTF();
+    }
+    return table;
+  }
+
+  @Override
+  @CheckForNull
+  public String readString() throws IOException {
+    String[] table = strings;
+    assert table != null;
+    int index = readInt();
+    if (index == JayceInternalWriterImpl.NULL_STRING_INDEX) {
+      return null;
+    }
+    try {
+      return table[index];
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new ParseException("Invalid string index: " + index, e);
+    }
+  }
+
+  @Override
+  public int getCurrentMinor() {
+    return Version.CURRENT_MINOR;
+  }
+
+  @Override
+  public int getMinorMin() {
+    return Version.MINOR_MIN;
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.jayce.v0003.io;
+
+import com.android.jack.ir.ast.JNode;
+import com.android.jack.jayce.v0002.io.JayceOutputStream;
+import com.android.jack.jayce.v0002.nodes.NAbstractMethodBody;
+import com.android.jack.jayce.v0003.Version;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Jayce internal writer implementation.
+ *
+ * <p>Nodes are written as in version 2 into a buffer, strings being replaced by their index in a
+ * table. Once the type is written, the table is written followed by the buffer.
+ *
+ * <p>Each method body is preceded by its length and by the current file name and line it is
+ * encoded against. Those are restored after the body, so that a reader can skip the body, or read
+ * it alone.
+ */
+public class JayceInternalWriterImpl extends
+    com.android.jack.jayce.v0002.io.JayceInternalWriterImpl {
+
+  static final int NULL_STRING_INDEX = -1;
+
+  @Nonnull
+  private final OutputStream out;
+
+  @Nonnull
+  private final ByteArrayOutputStream nodes = new ByteArrayOutputStream();
+
+  @Nonnull
+  private final SwitchableOutputStream current;
+
+  @Nonnull
+  private final List<String> strings = new ArrayList<String>();
+
+  @Nonnull
+  private final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+
+  public JayceInternalWriterImpl(@Nonnull OutputStream out) {
+    this(out, new SwitchableOutputStream());
+  }
+
+  private JayceInternalWriterImpl(@Nonnull OutputStream out,
+      @Nonnull SwitchableOutputStream current) {
+    super(current);
+    this.out = out;
+    this.current = current;
+    current.target = nodes;
+  }
+
+  @Override
+  public void writeString(@CheckForNull String string) throws IOException {
+    if (string == null) {
+      writeInt(NULL_STRING_INDEX);
+      return;
+    }
+    Integer index = stringIndexes.get(string);
+    if (index == null) {
+      index = Integer.valueOf(strings.size());
+      strings.add(string);
+      stringIndexes.put(string, index);
+    }
+    writeInt(index.intValue());
+  }
+
+  @Override
+  public void writeMethodBody(@CheckForNull NAbstractMethodBody body) throws IOException {
+    String fileName = getCurrentFileName();
+    int line = getCurrentLineNumber();
+
+    ByteArrayOutputStream bodyOut = new ByteArrayOutputStream();
+    OutputStream previous = current.target;
+    assert previous != null;
+    current.target = bodyOut;
+    try {
+      super.writeMethodBody(body);
+    } finally {
+      current.target = previous;
+    }
+    setCurrentFileName(fileName);
+    setCurrentLineNumber(line);
+
+    writeInt(bodyOut.size());
+    writeString(fileName);
+    writeInt(line);
+    bodyOut.writeTo(previous);
+  }
+
+  @Override
+  public void write(@Nonnull JNode jNode) throws IOException {
+    super.write(jNode);
+    flush();
+  }
+
+  /**
+   * Writes the string table and the nodes written since the previous flush.
+   */
+  public void flush() throws IOException {
+    JayceOutputStream tableOut = new JayceOutputStream(out);
+    tableOut.writeInt(strings.size());
+    for (String string : strings) {
+      tableOut.writeUTF(string);
+    }
+    nodes.writeTo(out);
+    out.flush();
+
+    strings.clear();
+    stringIndexes.clear();
+    nodes.reset();
+  }
+
+  @Override
+  public int getCurrentMinor() {
+    return Version.CURRENT_MINOR;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (nodes.size() > 0) {
+      flush();
+    }
+    out.close();
+  }
+
+  private static class SwitchableOutputStream extends OutputStream {
+
+    @CheckForNull
+    private OutputStream target;
+
+    @Override
+    public void write(int b) throws IOException {
+      assert target != null;
+      target.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      assert target != null;
+      target.write(b, off, len);
+    }
+  }
+}
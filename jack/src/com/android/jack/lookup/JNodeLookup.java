@@ -18,7 +18,6 @@ package com.android.jack.lookup;
 
 import com.android.jack.Jack;
 import com.android.jack.ir.ast.IncompatibleJTypeLookupException;
-import com.android.jack.ir.ast.JArrayType;
 import com.android.jack.ir.ast.JDefinedAnnotation;
 import com.android.jack.ir.ast.JDefinedClass;
 import com.android.jack.ir.ast.JDefinedEnum;
@@ -37,10 +36,9 @@ import com.android.sched.util.log.stats.Percent;
 import com.android.sched.util.log.stats.PercentImpl;
 import com.android.sched.util.log.stats.StatisticId;
 
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -53,7 +51,7 @@ public class JNodeLookup extends JLookup {
       PercentImpl.class, Percent.class);
 
   @Nonnull
-  private final Map<String, JType> types = new HashMap<String, JType>();
+  private final TypeCache<JType> types = new TypeCache<JType>();
 
   @Nonnull
   private final Tracer tracer = TracerFactory.getTracer();
@@ -84,47 +82,58 @@ public class JNodeLookup extends JLookup {
 
 
 
+  /**
+   * Size the lookup for the given number of types, to avoid rehashing while types are looked up.
+   * This method must be called before any lookup runs concurrently.
+   */
+  public void ensureCapacity(@Nonnegative int expectedTypeCount) {
+    types.ensureCapacity(expectedTypeCount);
+  }
+
   @Override
   @Nonnull
   public JType getType(@Nonnull String typeName) throws JTypeLookupException {
     Percent statistic = tracer.getStatistic(SUCCESS_LOOKUP);
-    statistic.addFalse();
-    synchronized (types) {
-      JType result = types.get(typeName);
-
-      if (result == null) {
-        int typeNameLength = typeName.length();
-        assert typeNameLength > 1 : "Invalid signature or missing primitive type '" + typeName
-        + "'";
-        if (typeName.charAt(0) == '[') {
-          JArrayType arrayType = getArrayType(typeName);
-          types.put(typeName, arrayType);
-          return arrayType;
-        }
-
-        assert NamingTools.isClassDescriptor(typeName) : "Invalid signature '" + typeName + "'";
-
-        int separatorIndex = typeName.lastIndexOf(JLookup.PACKAGE_SEPARATOR);
-        JPackage currentPackage;
-        String simpleName;
-        if (separatorIndex == -1) {
-          currentPackage = topLevelPackage;
-          simpleName = typeName.substring(1, typeNameLength - 1);
-        } else {
-          try {
-            currentPackage = getPackage(typeName.substring(1, separatorIndex));
-            simpleName = typeName.substring(separatorIndex + 1, typeNameLength - 1);
-          } catch (JPackageLookupException e) {
-            throw new MissingJTypeLookupException(typeName);
-          }
-        }
-        result = currentPackage.getType(simpleName);
-        types.put(typeName, result);
+    JType result = types.get(typeName);
+
+    if (result == null) {
+      try {
+        result = types.putIfAbsent(typeName, findType(typeName));
+      } catch (JTypeLookupException e) {
+        statistic.addFalse();
+        throw e;
       }
-      statistic.removeFalse();
-      statistic.addTrue();
-      return result;
     }
+    statistic.addTrue();
+    return result;
+  }
+
+  @Nonnull
+  private JType findType(@Nonnull String typeName) throws JTypeLookupException {
+    int typeNameLength = typeName.length();
+    assert typeNameLength > 1 : "Invalid signature or missing primitive type '" + typeName
+    + "'";
+    if (typeName.charAt(0) == '[') {
+      return getArrayType(typeName);
+    }
+
+    assert NamingTools.isClassDescriptor(typeName) : "Invalid signature '" + typeName + "'";
+
+    int separatorIndex = typeName.lastIndexOf(JLookup.PACKAGE_SEPARATOR);
+    JPackage currentPackage;
+    String simpleName;
+    if (separatorIndex == -1) {
+      currentPackage = topLevelPackage;
+      simpleName = typeName.substring(1, typeNameLength - 1);
+    } else {
+      try {
+        currentPackage = getPackage(typeName.substring(1, separatorIndex));
+        simpleName = typeName.substring(separatorIndex + 1, typeNameLength - 1);
+      } catch (JPackageLookupException e) {
+        throw new MissingJTypeLookupException(typeName);
+      }
+    }
+    return currentPackage.getType(simpleName);
   }
 
   @Override
@@ -150,7 +159,7 @@ public class JNodeLookup extends JLookup {
   }
 
   private void addType(@Nonnull JType type) {
-    types.put(Jack.getLookupFormatter().getName(type), type);
+    types.putIfAbsent(Jack.getLookupFormatter().getName(type), type);
   }
 
   @Override
@@ -177,10 +186,8 @@ public class JNodeLookup extends JLookup {
 
   @Override
   public void clear() {
-    synchronized (types) {
-      types.clear();
-      init();
-    }
+    types.clear();
+    init();
   }
 
   private void init() {
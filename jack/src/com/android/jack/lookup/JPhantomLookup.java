@@ -20,7 +20,6 @@ import com.android.jack.Jack;
 import com.android.jack.ir.ast.JAnnotation;
 import com.android.jack.ir.ast.JArrayType;
 import com.android.jack.ir.ast.JClass;
-import com.android.jack.ir.ast.JClassOrInterface;
 import com.android.jack.ir.ast.JEnum;
 import com.android.jack.ir.ast.JInterface;
 import com.android.jack.ir.ast.JPackage;
@@ -31,9 +30,6 @@ import com.android.jack.ir.formatter.TypeFormatter;
 import com.android.jack.lookup.CommonTypes.CommonType;
 import com.android.jack.util.NamingTools;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
@@ -43,20 +39,15 @@ import javax.annotation.Nonnull;
 public class JPhantomLookup extends JLookup {
 
   @Nonnull
-  private final Map<String, JReferenceType> typeCache =
-      new HashMap<String, JReferenceType>();
+  private final TypeCache<JReferenceType> typeCache = new TypeCache<JReferenceType>();
   @Nonnull
-  private final Map<String, JClass> classCache =
-      new HashMap<String, JClass>();
+  private final TypeCache<JClass> classCache = new TypeCache<JClass>();
   @Nonnull
-  private final Map<String, JEnum> enumCache =
-      new HashMap<String, JEnum>();
+  private final TypeCache<JEnum> enumCache = new TypeCache<JEnum>();
   @Nonnull
-  private final Map<String, JInterface> interfaceCache =
-      new HashMap<String, JInterface>();
+  private final TypeCache<JInterface> interfaceCache = new TypeCache<JInterface>();
   @Nonnull
-  private final Map<String, JAnnotation> annotationCache =
-      new HashMap<String, JAnnotation>();
+  private final TypeCache<JAnnotation> annotationCache = new TypeCache<JAnnotation>();
 
   @Nonnull
   private final JNodeLookup jackLookup;
@@ -79,27 +70,22 @@ public class JPhantomLookup extends JLookup {
     JType type;
     try {
       type = jackLookup.getType(signature);
-      assert !doesCacheContain(typeCache, signature);
+      assert !typeCache.containsKey(signature);
     } catch (JLookupException e) {
-      synchronized (typeCache) {
-        type = typeCache.get(signature);
+      type = typeCache.get(signature);
 
-        if (type == null) {
-          int typeNameLength = signature.length();
-          assert typeNameLength > 1 : "Invalid signature '" + signature + "'";
-          if (signature.charAt(0) == '[') {
-            JArrayType array = getArrayType(signature);
-            type = array;
-            typeCache.put(signature, array);
-          } else {
-            String[] splitName = splitSignature(signature);
-            JPackage pack = getPackage(splitName);
-            JClassOrInterface phantom =
-                pack.getPhantomClassOrInterface(splitName[splitName.length - 1]);
-            typeCache.put(signature, phantom);
-            type = phantom;
-          }
+      if (type == null) {
+        int typeNameLength = signature.length();
+        assert typeNameLength > 1 : "Invalid signature '" + signature + "'";
+        JReferenceType phantom;
+        if (signature.charAt(0) == '[') {
+          phantom = getArrayType(signature);
+        } else {
+          String[] splitName = splitSignature(signature);
+          JPackage pack = getPackage(splitName);
+          phantom = pack.getPhantomClassOrInterface(splitName[splitName.length - 1]);
         }
+        type = typeCache.putIfAbsent(signature, phantom);
       }
     }
     return type;
@@ -131,15 +117,13 @@ public class JPhantomLookup extends JLookup {
       type = jackLookup.getClass(signature);
       assert !classCache.containsKey(signature);
     } catch (JLookupException e) {
-      synchronized (classCache) {
-        type = classCache.get(signature);
+      type = classCache.get(signature);
 
-        if (type == null) {
-          String[] splitName = splitSignature(signature);
-          JPackage pack = getPackage(splitName);
-          type = pack.getPhantomClass(splitName[splitName.length - 1]);
-          classCache.put(signature, type);
-        }
+      if (type == null) {
+        String[] splitName = splitSignature(signature);
+        JPackage pack = getPackage(splitName);
+        type = classCache.putIfAbsent(signature,
+            pack.getPhantomClass(splitName[splitName.length - 1]));
       }
     }
     return type;
@@ -151,17 +135,15 @@ public class JPhantomLookup extends JLookup {
     JInterface type;
     try {
       type = jackLookup.getInterface(signature);
-      assert !doesCacheContain(interfaceCache, signature);
+      assert !interfaceCache.containsKey(signature);
     } catch (JLookupException e) {
-      synchronized (interfaceCache) {
-        type = interfaceCache.get(signature);
+      type = interfaceCache.get(signature);
 
-        if (type == null) {
-          String[] splitName = splitSignature(signature);
-          JPackage pack = getPackage(splitName);
-          type = pack.getPhantomInterface(splitName[splitName.length - 1]);
-          interfaceCache.put(signature, type);
-        }
+      if (type == null) {
+        String[] splitName = splitSignature(signature);
+        JPackage pack = getPackage(splitName);
+        type = interfaceCache.putIfAbsent(signature,
+            pack.getPhantomInterface(splitName[splitName.length - 1]));
       }
     }
     return type;
@@ -173,17 +155,15 @@ public class JPhantomLookup extends JLookup {
     JAnnotation type;
     try {
       type = jackLookup.getAnnotation(signature);
-      assert !doesCacheContain(annotationCache, signature);
+      assert !annotationCache.containsKey(signature);
     } catch (JLookupException e) {
-      synchronized (annotationCache) {
-        type = annotationCache.get(signature);
+      type = annotationCache.get(signature);
 
-        if (type == null) {
-          String[] splitName = splitSignature(signature);
-          JPackage pack = getPackage(splitName);
-          type = pack.getPhantomAnnotation(splitName[splitName.length - 1]);
-          annotationCache.put(signature, type);
-        }
+      if (type == null) {
+        String[] splitName = splitSignature(signature);
+        JPackage pack = getPackage(splitName);
+        type = annotationCache.putIfAbsent(signature,
+            pack.getPhantomAnnotation(splitName[splitName.length - 1]));
       }
     }
     return type;
@@ -195,16 +175,15 @@ public class JPhantomLookup extends JLookup {
     JEnum type;
     try {
       type = jackLookup.getEnum(signature);
-      assert !doesCacheContain(enumCache, signature);
+      assert !enumCache.containsKey(signature);
     } catch (JLookupException e) {
-      synchronized (enumCache) {
-        type = enumCache.get(signature);
-        if (type == null) {
-          String[] splitName = splitSignature(signature);
-          JPackage pack = getPackage(splitName);
-          type = pack.getPhantomEnum(splitName[splitName.length - 1]);
-          enumCache.put(signature, type);
-        }
+      type = enumCache.get(signature);
+
+      if (type == null) {
+        String[] splitName = splitSignature(signature);
+        JPackage pack = getPackage(splitName);
+        type = enumCache.putIfAbsent(signature,
+            pack.getPhantomEnum(splitName[splitName.length - 1]));
       }
     }
     return type;
@@ -242,28 +221,11 @@ public class JPhantomLookup extends JLookup {
 
   @Override
   public void clear() {
-    synchronized (typeCache) {
-      typeCache.clear();
-    }
-    synchronized (classCache) {
+    typeCache.clear();
     classCache.clear();
-    }
-    synchronized (enumCache) {
-      enumCache.clear();
-    }
-    synchronized (interfaceCache) {
-      interfaceCache.clear();
-    }
-    synchronized (annotationCache) {
-      annotationCache.clear();
-    }
-  }
-
-  private boolean doesCacheContain(@Nonnull Map<String, ? extends JReferenceType> cache,
-      @Nonnull String signature) {
-    synchronized (cache) {
-      return cache.containsKey(signature);
-    }
+    enumCache.clear();
+    interfaceCache.clear();
+    annotationCache.clear();
   }
 
   /**
@@ -296,7 +258,7 @@ public class JPhantomLookup extends JLookup {
       @Nonnull String signature,
       @CheckForNull JType defined,
       @Nonnull Class<?> clazz,
-      @Nonnull Map<String, ? extends JType> cache) {
+      @Nonnull TypeCache<? extends JType> cache) {
     if (!clazz.isInstance(defined)) {
       JType phantom = cache.get(signature);
       if (phantom != null && !phantom.isSameType(checkedType)) {
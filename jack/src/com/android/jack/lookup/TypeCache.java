@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.lookup;
+
+import com.android.jack.ir.ast.JType;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Signature to type index shared by the lookups. Reads do not lock, and when several threads
+ * cache a type for the same signature, all of them get the type cached by the first one.
+ */
+class TypeCache<T extends JType> {
+
+  @Nonnull
+  private volatile ConcurrentHashMap<String, T> types = new ConcurrentHashMap<String, T>();
+
+  @CheckForNull
+  T get(@Nonnull String signature) {
+    return types.get(signature);
+  }
+
+  boolean containsKey(@Nonnull String signature) {
+    return types.containsKey(signature);
+  }
+
+  /**
+   * Cache a type unless a type is already cached for this signature.
+   *
+   * @return the type cached for {@code signature} once this call returns.
+   */
+  @Nonnull
+  T putIfAbsent(@Nonnull String signature, @Nonnull T type) {
+    T previous = types.putIfAbsent(signature, type);
+    return previous == null ? type : previous;
+  }
+
+  void clear() {
+    types.clear();
+  }
+
+  /**
+   * Resize the cache to hold {@code expectedSize} types without rehashing. This method must not be
+   * called while the cache is accessed by another thread.
+   */
+  synchronized void ensureCapacity(@Nonnegative int expectedSize) {
+    ConcurrentHashMap<String, T> current = types;
+    if (expectedSize > current.size()) {
+      ConcurrentHashMap<String, T> resized = new ConcurrentHashMap<String, T>(expectedSize);
+      resized.putAll(current);
+      types = resized;
+    }
+  }
+}
@@ -63,6 +63,9 @@ import com.android.sched.util.log.stats.Counter;
 import com.android.sched.util.log.stats.CounterImpl;
 import com.android.sched.util.log.stats.StatisticId;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.annotation.Nonnull;
 /**
  * Remove and refine constant variables.
@@ -75,7 +78,7 @@ import javax.annotation.Nonnull;
     JShortLiteral.class,
     JLongLiteral.class,
     JFloatLiteral.class,
-    JDoubleLiteral.class})
+    JDoubleLiteral.class}, modify = {ControlFlowGraph.class})
 public class ConstantRefinerAndVariableRemover implements RunnableSchedulable<JMethod> {
 
   @Nonnull
@@ -107,6 +110,9 @@ public class ConstantRefinerAndVariableRemover implements RunnableSchedulable<JM
     @Nonnull
     private final CloneExpressionVisitor cloneExpr = new CloneExpressionVisitor();
 
+    @Nonnull
+    private final List<JStatement> removedStatements = new ArrayList<JStatement>();
+
     public Visitor(@Nonnull JMethod method) {
       this.method = method;
       tracer = TracerFactory.getTracer();
@@ -181,7 +187,9 @@ public class ConstantRefinerAndVariableRemover implements RunnableSchedulable<JM
 
 
           if (dm.isUnused()) {
-            tr.append(new Remove(dm.getDefinition().getParent()));
+            JStatement defStmt = (JStatement) dm.getDefinition().getParent();
+            tr.append(new Remove(defStmt));
+            removedStatements.add(defStmt);
             tracer.getStatistic(REMOVED_CONSTANT_VARIABLE).incValue();
           }
 
@@ -255,5 +263,9 @@ public class ConstantRefinerAndVariableRemover implements RunnableSchedulable<JM
         visitor.accept(stmt);
       }
     }
+
+    for (JStatement removedStatement : visitor.removedStatements) {
+      cfg.removeStatement(removedStatement);
+    }
   }
 }
\ No newline at end of file
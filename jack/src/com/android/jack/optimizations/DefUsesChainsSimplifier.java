@@ -38,8 +38,12 @@ import com.android.jack.util.filter.Filter;
 import com.android.sched.item.Description;
 import com.android.sched.schedulable.Constraint;
 import com.android.sched.schedulable.RunnableSchedulable;
+import com.android.sched.schedulable.Transform;
 import com.android.sched.util.config.ThreadConfig;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.annotation.Nonnull;
 
 /**
@@ -48,6 +52,7 @@ import javax.annotation.Nonnull;
 @Description("Simplify definition uses chains.")
 @Constraint(need = {DefinitionMarker.class, UseDefsMarker.class, ThreeAddressCodeForm.class,
     ControlFlowGraph.class})
+@Transform(modify = {ControlFlowGraph.class})
 public class DefUsesChainsSimplifier extends DefUsesAndUseDefsChainsSimplifier
     implements RunnableSchedulable<JMethod> {
 
@@ -59,8 +64,12 @@ public class DefUsesChainsSimplifier extends DefUsesAndUseDefsChainsSimplifier
     @Nonnull
     private final JMethod method;
 
-    public Visitor(@Nonnull JMethod method) {
+    @Nonnull
+    private final List<JStatement> removedStatements;
+
+    public Visitor(@Nonnull JMethod method, @Nonnull List<JStatement> removedStatements) {
       this.method = method;
+      this.removedStatements = removedStatements;
     }
 
     @Override
@@ -91,8 +100,10 @@ public class DefUsesChainsSimplifier extends DefUsesAndUseDefsChainsSimplifier
 
               def.removeAllUses();
 
-              tr.append(new Remove(binary.getParent()));
+              JStatement defStmt = (JStatement) binary.getParent();
+              tr.append(new Remove(defStmt));
               tr.commit();
+              removedStatements.add(defStmt);
             }
           }
         }
@@ -198,11 +209,17 @@ public class DefUsesChainsSimplifier extends DefUsesAndUseDefsChainsSimplifier
     ControlFlowGraph cfg = method.getMarker(ControlFlowGraph.class);
     assert cfg != null;
 
+    List<JStatement> removedStatements = new ArrayList<JStatement>();
+
     for (BasicBlock bb : cfg.getNodes()) {
       for (JStatement stmt : bb.getStatements()) {
-        Visitor visitor = new Visitor(method);
+        Visitor visitor = new Visitor(method, removedStatements);
         visitor.accept(stmt);
       }
     }
+
+    for (JStatement removedStatement : removedStatements) {
+      cfg.removeStatement(removedStatement);
+    }
   }
 }
@@ -45,6 +45,7 @@ import com.android.sched.schedulable.RunnableSchedulable;
 import com.android.sched.schedulable.Transform;
 import com.android.sched.util.config.ThreadConfig;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.annotation.Nonnull;
@@ -55,7 +56,7 @@ import javax.annotation.Nonnull;
 @Description("Remove useless variable copies.")
 @Constraint(need = {DefinitionMarker.class, UseDefsMarker.class, ThreeAddressCodeForm.class,
     ControlFlowGraph.class})
-@Transform(add = {RefAsStatement.class})
+@Transform(add = {RefAsStatement.class}, modify = {ControlFlowGraph.class})
 public class UnusedDefinitionRemover implements RunnableSchedulable<JMethod> {
 
   @Nonnull
@@ -66,8 +67,13 @@ public class UnusedDefinitionRemover implements RunnableSchedulable<JMethod> {
     @Nonnull
     private final TransformationRequest tr;
 
-    public Visitor(@Nonnull TransformationRequest tr) {
+    @Nonnull
+    private final List<JStatement> removedStatements;
+
+    public Visitor(@Nonnull TransformationRequest tr,
+        @Nonnull List<JStatement> removedStatements) {
       this.tr = tr;
+      this.removedStatements = removedStatements;
     }
 
     @Override
@@ -91,7 +97,9 @@ public class UnusedDefinitionRemover implements RunnableSchedulable<JMethod> {
     private void removeUnusedDefinition(@Nonnull JAsgOperation binary) {
       assert !(binary.getRhs() instanceof JExceptionRuntimeValue);
 
-      tr.append(new Remove(binary.getParent()));
+      JStatement defStmt = (JStatement) binary.getParent();
+      tr.append(new Remove(defStmt));
+      removedStatements.add(defStmt);
 
       if (binary.getRhs() instanceof JVariableRef) {
         UseDefsMarker udm = ((JVariableRef) binary.getRhs()).getMarker(UseDefsMarker.class);
@@ -141,14 +149,19 @@ public class UnusedDefinitionRemover implements RunnableSchedulable<JMethod> {
     assert cfg != null;
 
     TransformationRequest tr = new TransformationRequest(method);
+    List<JStatement> removedStatements = new ArrayList<JStatement>();
 
     for (BasicBlock bb : cfg.getNodes()) {
       for (JStatement stmt : bb.getStatements()) {
-        Visitor visitor = new Visitor(tr);
+        Visitor visitor = new Visitor(tr, removedStatements);
         visitor.accept(stmt);
       }
     }
 
     tr.commit();
+
+    for (JStatement removedStatement : removedStatements) {
+      cfg.removeStatement(removedStatement);
+    }
   }
 }
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.server;
+
+import com.android.jack.LibraryException;
+import com.android.jack.ir.ast.JSession;
+import com.android.jack.library.InputJackLibrary;
+import com.android.jack.library.JackLibraryFactory;
+import com.android.sched.scheduler.FeatureSet;
+import com.android.sched.scheduler.Plan;
+import com.android.sched.scheduler.ProductionSet;
+import com.android.sched.scheduler.Request;
+import com.android.sched.scheduler.TagOrMarkerOrComponentSet;
+import com.android.sched.util.file.FileOrDirectory.ChangePermission;
+import com.android.sched.util.file.FileOrDirectory.Existence;
+import com.android.sched.util.file.InputZipFile;
+import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.vfs.InputVFS;
+import com.android.sched.vfs.InputZipVFS;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * State kept by a resident compiler from one compilation to the next: the plans built for a
+ * request, and the opened and indexed classpath libraries.
+ *
+ * A library is reused as long as the content of its file does not change, whatever its
+ * modification date. Libraries are shared by compilations, so a cache must be used by one
+ * compilation at a time, and only for libraries that are never written.
+ */
+public class CompilationCache {
+
+  @Nonnull
+  private static final Logger logger = LoggerFactory.getLogger();
+
+  @Nonnull
+  private static final String DIGEST_ALGORITHM = "SHA-1";
+
+  /**
+   * Libraries not used by the last compilations are closed beyond this count.
+   */
+  @Nonnegative
+  private static final int MAX_LIBRARIES = 256;
+
+  @Nonnull
+  private final Map<PlanKey, Plan<JSession>> plans = new HashMap<PlanKey, Plan<JSession>>();
+
+  @Nonnull
+  private final LinkedHashMap<String, CachedLibrary> libraries =
+      new LinkedHashMap<String, CachedLibrary>(16, 0.75f, /* accessOrder = */ true);
+
+  @Nonnegative
+  private int planHits = 0;
+
+  @Nonnegative
+  private int libraryHits = 0;
+
+  /**
+   * @return the plan built for a request with the same features, productions and initial tags,
+   * or null if there is none.
+   */
+  @CheckForNull
+  public synchronized Plan<JSession> getPlan(@Nonnull Request request, boolean keepMethodBody) {
+    Plan<JSession> plan = plans.get(new PlanKey(request, keepMethodBody));
+    if (plan != null) {
+      planHits++;
+    }
+    return plan;
+  }
+
+  public synchronized void putPlan(@Nonnull Request request, boolean keepMethodBody,
+      @Nonnull Plan<JSession> plan) {
+    plans.put(new PlanKey(request, keepMethodBody), plan);
+  }
+
+  /**
+   * @return the library of a zip file, opened again only if the content of the file changed since
+   * the last call.
+   */
+  @Nonnull
+  public synchronized InputJackLibrary getLibrary(@Nonnull File zip)
+      throws IOException, LibraryException {
+    String path = zip.getCanonicalPath();
+    byte[] digest = getDigest(zip);
+
+    CachedLibrary cached = libraries.get(path);
+    if (cached != null) {
+      if (Arrays.equals(cached.digest, digest)) {
+        libraryHits++;
+        return cached.library;
+      }
+      libraries.remove(path);
+      close(cached);
+    }
+
+    InputVFS vfs = new InputZipVFS(new InputZipFile(zip.getPath(), /* hooks = */ null,
+        Existence.MUST_EXIST, ChangePermission.NOCHANGE));
+    InputJackLibrary library;
+    try {
+      library = JackLibraryFactory.getInputLibrary(vfs);
+    } catch (LibraryException e) {
+      vfs.close();
+      throw e;
+    }
+    libraries.put(path, new CachedLibrary(digest, vfs, library));
+
+    if (libraries.size() > MAX_LIBRARIES) {
+      Iterator<CachedLibrary> eldest = libraries.values().iterator();
+      close(eldest.next());
+      eldest.remove();
+    }
+    return library;
+  }
+
+  /**
+   * @return the number of plans and libraries found in this cache.
+   */
+  @Nonnegative
+  public synchronized int getHitCount() {
+    return planHits + libraryHits;
+  }
+
+  /**
+   * Closes all the libraries of this cache.
+   */
+  public synchronized void close() {
+    for (CachedLibrary cached : libraries.values()) {
+      close(cached);
+    }
+    libraries.clear();
+    plans.clear();
+  }
+
+  private static void close(@Nonnull CachedLibrary cached) {
+    try {
+      cached.vfs.close();
+    } catch (IOException e) {
+      logger.log(Level.FINE,
+          "Failed to close " + cached.vfs.getLocation().getDescription(), e);
+    }
+  }
+
+  @Nonnull
+  private static byte[] getDigest(@Nonnull File file) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(e);
+    }
+
+    InputStream in = new FileInputStream(file);
+    try {
+      byte[] buffer = new byte[64 * 1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    } finally {
+      in.close();
+    }
+    return digest.digest();
+  }
+
+  private static class CachedLibrary {
+    @Nonnull
+    private final byte[] digest;
+
+    @Nonnull
+    private final InputVFS vfs;
+
+    @Nonnull
+    private final InputJackLibrary library;
+
+    CachedLibrary(@Nonnull byte[] digest, @Nonnull InputVFS vfs,
+        @Nonnull InputJackLibrary library) {
+      this.digest = digest;
+      this.vfs = vfs;
+      this.library = library;
+    }
+  }
+
+  /**
+   * What a plan is built from, the configuration only changes the plan through the features of
+   * the request.
+   */
+  private static class PlanKey {
+    @Nonnull
+    private final FeatureSet features;
+
+    @Nonnull
+    private final ProductionSet productions;
+
+    @Nonnull
+    private final TagOrMarkerOrComponentSet initialTags;
+
+    private final boolean keepMethodBody;
+
+    PlanKey(@Nonnull Request request, boolean keepMethodBody) {
+      features = request.getFeatures().clone();
+      productions = request.getTargetProductions().clone();
+      initialTags = request.getInitialTags().clone();
+      this.keepMethodBody = keepMethodBody;
+    }
+
+    @Override
+    public boolean equals(@CheckForNull Object obj) {
+      if (!(obj instanceof PlanKey)) {
+        return false;
+      }
+      PlanKey other = (PlanKey) obj;
+      return features.equals(other.features) && productions.equals(other.productions)
+          && initialTags.equals(other.initialTags) && keepMethodBody == other.keepMethodBody;
+    }
+
+    @Override
+    public int hashCode() {
+      return ((features.hashCode() * 31 + productions.hashCode()) * 31 + initialTags.hashCode())
+          * 31 + (keepMethodBody ? 1 : 0);
+    }
+  }
+}
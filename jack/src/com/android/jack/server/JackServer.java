@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.server;
+
+import com.android.jack.ExitStatus;
+import com.android.jack.Main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Resident jack compiler, running the compilations read on its standard input in the same virtual
+ * machine, so that plans and classpath libraries are kept from one compilation to the next.
+ *
+ * Each compilation is requested by its command line arguments, one argument by line, followed by
+ * an empty line. Once the compilation is done, the line {@value #EXIT_STATUS_PREFIX} followed by
+ * the exit status of the compilation is printed on the standard output. The server stops at the
+ * end of its standard input.
+ */
+public abstract class JackServer {
+
+  @Nonnull
+  public static final String EXIT_STATUS_PREFIX = "jack-server-exit ";
+
+  public static void main(@Nonnull String[] args) {
+    CompilationCache cache = new CompilationCache();
+    int status;
+    try {
+      status = serve(new BufferedReader(new InputStreamReader(System.in)), System.out, cache);
+    } finally {
+      cache.close();
+    }
+
+    System.exit(status);
+  }
+
+  /**
+   * Runs the compilations read from {@code in} until its end, and prints their exit status on
+   * {@code out}.
+   *
+   * @return the exit status of the server.
+   */
+  static int serve(@Nonnull BufferedReader in, @Nonnull PrintStream out,
+      @Nonnull CompilationCache cache) {
+    try {
+      List<String> arguments = new ArrayList<String>();
+      String line;
+      while ((line = in.readLine()) != null) {
+        if (!line.isEmpty()) {
+          arguments.add(line);
+          continue;
+        }
+
+        int compilationStatus = Main.run(arguments.toArray(new String[arguments.size()]), cache);
+        arguments.clear();
+        System.err.flush();
+        out.println(EXIT_STATUS_PREFIX + compilationStatus);
+        out.flush();
+
+        if (compilationStatus == ExitStatus.FAILURE_VM) {
+          // The state of the virtual machine can not be trusted any more
+          return ExitStatus.FAILURE_VM;
+        }
+      }
+    } catch (IOException e) {
+      System.err.println("Failed to read compilation request: " + e.getMessage());
+      return ExitStatus.FAILURE_UNKNOWN;
+    }
+
+    return ExitStatus.SUCCESS;
+  }
+}
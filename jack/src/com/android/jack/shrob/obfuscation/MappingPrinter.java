@@ -33,7 +33,7 @@ import com.android.jack.ir.ast.JType;
 import com.android.jack.ir.ast.JVisitor;
 import com.android.jack.shrob.proguard.GrammarActions;
 import com.android.sched.item.Description;
-import com.android.sched.marker.LocalMarkerManager;
+import com.android.sched.marker.CompactMarkerManager;
 import com.android.sched.schedulable.Constraint;
 import com.android.sched.schedulable.Optional;
 import com.android.sched.schedulable.Produce;
@@ -120,7 +120,7 @@ public class MappingPrinter implements RunnableSchedulable<JSession> {
     }
 
     private void appendOriginalName(@Nonnull StringBuilder nameBuilder, @Nonnull HasName node) {
-      OriginalNameMarker marker = ((LocalMarkerManager) node).getMarker(OriginalNameMarker.class);
+      OriginalNameMarker marker = ((CompactMarkerManager) node).getMarker(OriginalNameMarker.class);
       if (marker != null) {
         nameBuilder.append(marker.getOriginalName());
       } else {
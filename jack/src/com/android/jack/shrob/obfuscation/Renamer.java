@@ -18,9 +18,12 @@
 package com.android.jack.shrob.obfuscation;
 
 import com.android.jack.Jack;
+import com.android.jack.analysis.hierarchy.ClassHierarchy;
 import com.android.jack.ir.ast.CanBeRenamed;
 import com.android.jack.ir.ast.HasName;
+import com.android.jack.ir.ast.JClass;
 import com.android.jack.ir.ast.JClassOrInterface;
+import com.android.jack.ir.ast.JDefinedClass;
 import com.android.jack.ir.ast.JDefinedClassOrInterface;
 import com.android.jack.ir.ast.JField;
 import com.android.jack.ir.ast.JFieldId;
@@ -29,6 +32,7 @@ import com.android.jack.ir.ast.JMethodId;
 import com.android.jack.ir.ast.JPackage;
 import com.android.jack.ir.ast.JSession;
 import com.android.jack.ir.ast.JVisitor;
+import com.android.jack.lookup.CommonTypes;
 import com.android.jack.shrob.obfuscation.nameprovider.NameProvider;
 import com.android.jack.shrob.proguard.GrammarActions;
 import com.android.jack.transformations.request.ChangeEnclosingPackage;
@@ -192,16 +196,43 @@ public class Renamer implements RunnableSchedulable<JSession> {
       return super.visit(pack);
     }
 
+    /**
+     * @return the types to emit that can be upcast to {@code referenceType} or to which
+     * {@code referenceType} can be upcast.
+     */
+    @Nonnull
+    private Collection<JDefinedClassOrInterface> getTypesInHierarchy(
+        @Nonnull JDefinedClassOrInterface referenceType) {
+      assert allTypes != null;
+      assert allTypesSet != null;
+      assert hierarchy != null;
+      if (referenceType == objectType) {
+        return allTypes;
+      }
+      List<JDefinedClassOrInterface> types = new ArrayList<JDefinedClassOrInterface>();
+      if (allTypesSet.contains(referenceType)) {
+        types.add(referenceType);
+      }
+      for (JDefinedClassOrInterface superType : hierarchy.getSuperTypes(referenceType)) {
+        if (allTypesSet.contains(superType)) {
+          types.add(superType);
+        }
+      }
+      types.addAll(hierarchy.getSubTypes(referenceType));
+      // Every type can be upcast to java.lang.Object, even interfaces
+      if (objectType != null && !(referenceType instanceof JDefinedClass)) {
+        types.add(objectType);
+      }
+      return types;
+    }
+
     @Nonnull
     private Collection<JFieldId> collectAllFieldIdsInHierarchy(
         @Nonnull JDefinedClassOrInterface referenceType) {
       List<JFieldId> collectedFields = new ArrayList<JFieldId>();
-      assert allTypes != null;
-      for (JDefinedClassOrInterface type : allTypes) {
-        if (referenceType.canBeSafelyUpcast(type) || type.canBeSafelyUpcast(referenceType)) {
-          for (JField field : type.getFields()) {
-            collectedFields.add(field.getId());
-          }
+      for (JDefinedClassOrInterface type : getTypesInHierarchy(referenceType)) {
+        for (JField field : type.getFields()) {
+          collectedFields.add(field.getId());
         }
       }
       return collectedFields;
@@ -211,12 +242,9 @@ public class Renamer implements RunnableSchedulable<JSession> {
     private Collection<JMethodId> collectAllMethodIdsInHierarchy(
         @Nonnull JDefinedClassOrInterface referenceType) {
       Set<JMethodId> collectedMethods = new HashSet<JMethodId>();
-      assert allTypes != null;
-      for (JDefinedClassOrInterface type : allTypes) {
-        if (referenceType.canBeSafelyUpcast(type) || type.canBeSafelyUpcast(referenceType)) {
-          for (JMethod method : type.getMethods()) {
-            collectedMethods.add(method.getMethodId());
-          }
+      for (JDefinedClassOrInterface type : getTypesInHierarchy(referenceType)) {
+        for (JMethod method : type.getMethods()) {
+          collectedMethods.add(method.getMethodId());
         }
       }
       return collectedMethods;
@@ -331,6 +359,15 @@ public class Renamer implements RunnableSchedulable<JSession> {
   @CheckForNull
   private Collection<JDefinedClassOrInterface> allTypes;
 
+  @CheckForNull
+  private Set<JDefinedClassOrInterface> allTypesSet;
+
+  @CheckForNull
+  private ClassHierarchy hierarchy;
+
+  @CheckForNull
+  private JDefinedClassOrInterface objectType;
+
   public Renamer() {
     File dictionary = null;
     if (ThreadConfig.get(USE_OBFUSCATION_DICTIONARY).booleanValue()) {
@@ -354,6 +391,16 @@ public class Renamer implements RunnableSchedulable<JSession> {
   @Override
   public void run(@Nonnull JSession session) throws Exception {
     allTypes = session.getTypesToEmit();
+    allTypesSet = new HashSet<JDefinedClassOrInterface>(allTypes);
+    // Types were added and removed since tracing, the hierarchy is indexed again
+    hierarchy = new ClassHierarchy(allTypes);
+    JClass object = session.getPhantomLookup().getClass(CommonTypes.JAVA_LANG_OBJECT);
+    objectType = null;
+    for (JDefinedClassOrInterface type : allTypes) {
+      if (type.isSameType(object)) {
+        objectType = type;
+      }
+    }
     Map<String, String> fieldNames = new HashMap<String, String>();
     Map<String, String> methodNames = new HashMap<String, String>();
     boolean useUniqueClassMemberNames =
@@ -21,7 +21,7 @@ import com.android.jack.ir.sourceinfo.FileSourceInfo;
 import com.android.sched.item.Description;
 import com.android.sched.schedulable.RunnableSchedulable;
 
-import java.util.Set;
+import java.util.Collection;
 
 import javax.annotation.Nonnull;
 
@@ -33,7 +33,7 @@ public class SourceFileRemover implements RunnableSchedulable<JSession> {
 
   @Override
   public void run(@Nonnull JSession session) throws Exception {
-    Set<FileSourceInfo> infos = session.getSourceInfoFactory().getFileSourceInfos();
+    Collection<FileSourceInfo> infos = session.getSourceInfoFactory().getFileSourceInfos();
     for (FileSourceInfo info : infos) {
       info.setFileName("");
     }
@@ -27,7 +27,7 @@ import com.android.sched.util.config.id.BooleanPropertyId;
 import com.android.sched.util.config.id.PropertyId;
 
 import java.io.File;
-import java.util.Set;
+import java.util.Collection;
 
 import javax.annotation.Nonnull;
 
@@ -54,7 +54,7 @@ public class SourceFileRenamer implements RunnableSchedulable<JSession> {
 
   @Override
   public void run(@Nonnull JSession session) throws Exception {
-    Set<FileSourceInfo> infos = session.getSourceInfoFactory().getFileSourceInfos();
+    Collection<FileSourceInfo> infos = session.getSourceInfoFactory().getFileSourceInfos();
     for (FileSourceInfo info : infos) {
       info.setFileName(newSourceFileName.getPath());
     }
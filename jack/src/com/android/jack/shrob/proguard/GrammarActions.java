@@ -33,6 +33,7 @@ import com.android.jack.shrob.spec.KeepModifier;
 import com.android.jack.shrob.spec.MethodSpecification;
 import com.android.jack.shrob.spec.ModifierSpecification;
 import com.android.jack.shrob.spec.NameSpecification;
+import com.android.jack.shrob.spec.WildcardPattern;
 import com.android.jack.util.NamingTools;
 import com.android.sched.util.log.LoggerFactory;
 
@@ -214,7 +215,7 @@ public class GrammarActions {
         convertNameToPattern(name) + "$";
 
     Pattern pattern = Pattern.compile(transformedName);
-    return new NameSpecification(pattern);
+    return new NameSpecification(pattern, WildcardPattern.compile(name));
   }
 
   static void addModifier(@Nonnull ModifierSpecification modSpec,
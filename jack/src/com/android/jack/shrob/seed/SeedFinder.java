@@ -26,6 +26,7 @@ import com.android.jack.ir.ast.JNode;
 import com.android.jack.shrob.obfuscation.OriginalNames;
 import com.android.jack.shrob.shrink.NodeFinder;
 import com.android.jack.shrob.spec.ClassSpecification;
+import com.android.jack.shrob.spec.ClassSpecificationIndex;
 import com.android.jack.shrob.spec.FieldSpecification;
 import com.android.jack.shrob.spec.Flags;
 import com.android.jack.shrob.spec.KeepModifier;
@@ -60,6 +61,18 @@ public class SeedFinder implements RunnableSchedulable<JDefinedClassOrInterface>
   @Nonnull
   private final Flags flags = ThreadConfig.get(Options.FLAGS);
 
+  @Nonnull
+  private final ClassSpecificationIndex keepClassSpecs =
+      new ClassSpecificationIndex(flags.getKeepClassSpecs());
+
+  @Nonnull
+  private final ClassSpecificationIndex keepClassMembersSpecs =
+      new ClassSpecificationIndex(flags.getKeepClassMembersSpecs());
+
+  @Nonnull
+  private final ClassSpecificationIndex keepClassesWithMembersSpecs =
+      new ClassSpecificationIndex(flags.getKeepClassesWithMembersSpecs());
+
   @Nonnull
   protected final com.android.sched.util.log.Tracer tracer = TracerFactory.getTracer();
 
@@ -82,59 +95,54 @@ public class SeedFinder implements RunnableSchedulable<JDefinedClassOrInterface>
 
   @Override
   public void run(@Nonnull JDefinedClassOrInterface type) throws Exception {
-    for (ClassSpecification classSpec : flags.getKeepClassSpecs()) {
-      if (classSpec.matches(type)) {
-        KeepModifier keepModifier = classSpec.getKeepModifier();
-        List<FieldSpecification> fieldSpecs = classSpec.getFieldSpecs();
-        List<MethodSpecification> methodSpecs = classSpec.getMethodSpecs();
-        markIfNecessary(type, keepModifier);
-        matchSpecifications(type.getFields(), fieldSpecs, keepModifier);
-        matchSpecifications(type.getMethods(), methodSpecs, keepModifier);
-        if (searchInHierarchy) {
-          JClass superclass = type.getSuperClass();
-          while (superclass instanceof JDefinedClass) {
-            JDefinedClass definedSuperclass = (JDefinedClass) superclass;
-            matchSpecifications(definedSuperclass.getFields(), fieldSpecs, keepModifier);
-            matchSpecifications(definedSuperclass.getMethods(), methodSpecs, keepModifier);
-            superclass = definedSuperclass.getSuperClass();
-          }
+    for (ClassSpecification classSpec : keepClassSpecs.getMatchingSpecifications(type)) {
+      KeepModifier keepModifier = classSpec.getKeepModifier();
+      List<FieldSpecification> fieldSpecs = classSpec.getFieldSpecs();
+      List<MethodSpecification> methodSpecs = classSpec.getMethodSpecs();
+      markIfNecessary(type, keepModifier);
+      matchSpecifications(type.getFields(), fieldSpecs, keepModifier);
+      matchSpecifications(type.getMethods(), methodSpecs, keepModifier);
+      if (searchInHierarchy) {
+        JClass superclass = type.getSuperClass();
+        while (superclass instanceof JDefinedClass) {
+          JDefinedClass definedSuperclass = (JDefinedClass) superclass;
+          matchSpecifications(definedSuperclass.getFields(), fieldSpecs, keepModifier);
+          matchSpecifications(definedSuperclass.getMethods(), methodSpecs, keepModifier);
+          superclass = definedSuperclass.getSuperClass();
         }
       }
     }
-    for (ClassSpecification classSpec : flags.getKeepClassMembersSpecs()) {
-      if (classSpec.matches(type)) {
+    for (ClassSpecification classSpec : keepClassMembersSpecs.getMatchingSpecifications(type)) {
+      KeepModifier keepModifier = classSpec.getKeepModifier();
+      List<FieldSpecification> fieldSpecs = classSpec.getFieldSpecs();
+      List<MethodSpecification> methodSpecs = classSpec.getMethodSpecs();
+      matchSpecifications(type.getFields(), fieldSpecs, keepModifier);
+      matchSpecifications(type.getMethods(), methodSpecs, keepModifier);
+      if (searchInHierarchy) {
+        JClass superclass = type.getSuperClass();
+        while (superclass instanceof JDefinedClass) {
+          JDefinedClass definedSuperclass = (JDefinedClass) superclass;
+          matchSpecifications(definedSuperclass.getFields(), fieldSpecs, keepModifier);
+          matchSpecifications(definedSuperclass.getMethods(), methodSpecs, keepModifier);
+          superclass = definedSuperclass.getSuperClass();
+        }
+      }
+    }
+    for (ClassSpecification classSpec :
+        keepClassesWithMembersSpecs.getMatchingSpecifications(type)) {
+      NodeFinder<JField> fieldFinder = new NodeFinder<JField>(type.getFields());
+      fieldFinder.find(classSpec.getFieldSpecs());
+
+      NodeFinder<JMethod> methodFinder = new NodeFinder<JMethod>(type.getMethods());
+      methodFinder.find(classSpec.getMethodSpecs());
+
+      if (fieldFinder.allSpecificationsMatched() && methodFinder.allSpecificationsMatched()) {
+        markIfNecessary(type, classSpec.getKeepModifier());
         KeepModifier keepModifier = classSpec.getKeepModifier();
         List<FieldSpecification> fieldSpecs = classSpec.getFieldSpecs();
         List<MethodSpecification> methodSpecs = classSpec.getMethodSpecs();
         matchSpecifications(type.getFields(), fieldSpecs, keepModifier);
         matchSpecifications(type.getMethods(), methodSpecs, keepModifier);
-        if (searchInHierarchy) {
-          JClass superclass = type.getSuperClass();
-          while (superclass instanceof JDefinedClass) {
-            JDefinedClass definedSuperclass = (JDefinedClass) superclass;
-            matchSpecifications(definedSuperclass.getFields(), fieldSpecs, keepModifier);
-            matchSpecifications(definedSuperclass.getMethods(), methodSpecs, keepModifier);
-            superclass = definedSuperclass.getSuperClass();
-          }
-        }
-      }
-    }
-    for (ClassSpecification classSpec : flags.getKeepClassesWithMembersSpecs()) {
-      if (classSpec.matches(type)) {
-        NodeFinder<JField> fieldFinder = new NodeFinder<JField>(type.getFields());
-        fieldFinder.find(classSpec.getFieldSpecs());
-
-        NodeFinder<JMethod> methodFinder = new NodeFinder<JMethod>(type.getMethods());
-        methodFinder.find(classSpec.getMethodSpecs());
-
-        if (fieldFinder.allSpecificationsMatched() && methodFinder.allSpecificationsMatched()) {
-          markIfNecessary(type, classSpec.getKeepModifier());
-          KeepModifier keepModifier = classSpec.getKeepModifier();
-          List<FieldSpecification> fieldSpecs = classSpec.getFieldSpecs();
-          List<MethodSpecification> methodSpecs = classSpec.getMethodSpecs();
-          matchSpecifications(type.getFields(), fieldSpecs, keepModifier);
-          matchSpecifications(type.getMethods(), methodSpecs, keepModifier);
-        }
       }
     }
   }
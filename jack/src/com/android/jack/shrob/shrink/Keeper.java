@@ -16,7 +16,7 @@
 
 package com.android.jack.shrob.shrink;
 
-import com.android.jack.analysis.tracer.ExtendingOrImplementingClassMarker;
+import com.android.jack.analysis.hierarchy.ClassHierarchy;
 import com.android.jack.analysis.tracer.Tracer;
 import com.android.jack.ir.ast.JDefinedClassOrInterface;
 import com.android.sched.item.Description;
@@ -31,7 +31,7 @@ import javax.annotation.Nonnull;
  * shrinking.
  */
 @Description("Marks all classes and members that will be kept when shrinking.")
-@Constraint(need = {ExtendingOrImplementingClassMarker.class})
+@Constraint(need = ClassHierarchy.class)
 @Use(KeeperBrush.class)
 public class Keeper implements RunnableSchedulable<JDefinedClassOrInterface> {
 
@@ -17,7 +17,7 @@
 package com.android.jack.shrob.shrink;
 
 import com.android.jack.analysis.tracer.ComposedTracerBrush;
-import com.android.jack.analysis.tracer.ExtendingOrImplementingClassMarker;
+import com.android.jack.analysis.hierarchy.ClassHierarchy;
 import com.android.jack.analysis.tracer.Tracer;
 import com.android.jack.analysis.tracer.TracerBrush;
 import com.android.jack.backend.dex.MultiDexLegacyTracerBrush;
@@ -33,7 +33,7 @@ import javax.annotation.Nonnull;
  * Trace for shrink and main dex.
  */
 @Description("Trace for shrink and main dex.")
-@Constraint(need = ExtendingOrImplementingClassMarker.class)
+@Constraint(need = ClassHierarchy.class)
 @Use({KeeperBrush.class, MultiDexLegacyTracerBrush.class})
 public class ShrinkAndMainDexTracer implements RunnableSchedulable<JDefinedClassOrInterface> {
 
@@ -16,7 +16,6 @@
 
 package com.android.jack.shrob.shrink.remover;
 
-import com.android.jack.analysis.tracer.ExtendingOrImplementingClassMarker;
 import com.android.jack.ir.ast.JDefinedClassOrInterface;
 import com.android.jack.shrob.shrink.KeepMarker;
 import com.android.sched.item.Description;
@@ -29,7 +28,7 @@ import javax.annotation.Nonnull;
  * A {@code Schedulable} that removes markers used for shrink support on types.
  */
 @Description("Removes shrink-related markers on types.")
-@Transform(remove = {KeepMarker.class, ExtendingOrImplementingClassMarker.class})
+@Transform(remove = KeepMarker.class)
 public class TypeShrinkMarkerRemover implements RunnableSchedulable<JDefinedClassOrInterface> {
 
   @Override
@@ -38,7 +37,6 @@ public class TypeShrinkMarkerRemover implements RunnableSchedulable<JDefinedClas
       return;
     }
     type.removeMarker(KeepMarker.class);
-    type.removeMarker(ExtendingOrImplementingClassMarker.class);
   }
 
 }
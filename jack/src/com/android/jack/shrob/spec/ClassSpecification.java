@@ -75,6 +75,16 @@ public class ClassSpecification implements Specification<JDefinedClassOrInterfac
     return methodSpecs;
   }
 
+  @Nonnull
+  public NameSpecification getName() {
+    return name;
+  }
+
+  @CheckForNull
+  public AnnotationSpecification getAnnotationType() {
+    return annotationType;
+  }
+
   public void setAnnotationType(@CheckForNull AnnotationSpecification annotationType) {
     this.annotationType = annotationType;
   }
@@ -130,6 +140,11 @@ public class ClassSpecification implements Specification<JDefinedClassOrInterfac
     fieldSpecs.add(fieldSpecification);
   }
 
+  @CheckForNull
+  public InheritanceSpecification getInheritance() {
+    return inheritance;
+  }
+
   public void setInheritance(@CheckForNull InheritanceSpecification inheritanceSpec) {
     this.inheritance = inheritanceSpec;
   }
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.shrob.spec;
+
+import com.android.jack.ir.ast.JAnnotationLiteral;
+import com.android.jack.ir.ast.JClass;
+import com.android.jack.ir.ast.JDefinedClassOrInterface;
+import com.android.jack.ir.ast.JInterface;
+import com.android.jack.shrob.proguard.GrammarActions;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Index of a list of {@link ClassSpecification}s, finding the specifications matching a type
+ * without evaluating all of them.
+ *
+ * Each specification is indexed by a name that any type it matches must have: its class name when
+ * it has no wildcard, else the name of the class it extends or of its annotation when they have no
+ * wildcard, else the literal prefix of its class name. Only the specifications indexed by a name
+ * of the type, and the ones that could not be indexed, are evaluated.
+ */
+public class ClassSpecificationIndex {
+
+  @Nonnull
+  private final List<ClassSpecification> specs;
+
+  @Nonnull
+  private final PrefixNode byNamePrefix = new PrefixNode();
+
+  @Nonnull
+  private final Map<String, List<Integer>> bySuperTypeName = new HashMap<String, List<Integer>>();
+
+  @Nonnull
+  private final Map<String, List<Integer>> byAnnotationName =
+      new HashMap<String, List<Integer>>();
+
+  @Nonnull
+  private final BitSet unindexed = new BitSet();
+
+  public ClassSpecificationIndex(@Nonnull List<ClassSpecification> specs) {
+    this.specs = new ArrayList<ClassSpecification>(specs);
+    for (int i = 0; i < this.specs.size(); i++) {
+      add(i, this.specs.get(i));
+    }
+  }
+
+  /**
+   * @return the specifications matching {@code type}, in the order of the indexed list.
+   */
+  @Nonnull
+  public List<ClassSpecification> getMatchingSpecifications(
+      @Nonnull JDefinedClassOrInterface type) {
+    if (specs.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    BitSet candidates = (BitSet) unindexed.clone();
+    byNamePrefix.addCandidates(GrammarActions.getBinaryNameFormatter().getName(type), candidates);
+    if (!bySuperTypeName.isEmpty()) {
+      addSuperTypeCandidates(type, candidates,
+          new IdentityHashMap<JDefinedClassOrInterface, Boolean>());
+    }
+    if (!byAnnotationName.isEmpty()) {
+      for (JAnnotationLiteral annotation : type.getAnnotations()) {
+        addCandidates(byAnnotationName,
+            GrammarActions.getBinaryNameFormatter().getName(annotation.getType()), candidates);
+      }
+    }
+
+    List<ClassSpecification> result = new ArrayList<ClassSpecification>();
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      ClassSpecification spec = specs.get(i);
+      if (spec.matches(type)) {
+        result.add(spec);
+      }
+    }
+    return result;
+  }
+
+  private void add(int index, @Nonnull ClassSpecification spec) {
+    WildcardPattern name = spec.getName().getWildcardName();
+    if (name != null && name.isLiteral()) {
+      byNamePrefix.add(name.getLiteralPrefix(), index);
+      return;
+    }
+
+    InheritanceSpecification inheritance = spec.getInheritance();
+    if (inheritance != null) {
+      String superTypeName = getLiteralName(inheritance.getClassName());
+      if (superTypeName != null) {
+        addIndex(bySuperTypeName, superTypeName, index);
+        return;
+      }
+    }
+
+    AnnotationSpecification annotation = spec.getAnnotationType();
+    if (annotation != null) {
+      String annotationName = getLiteralName(annotation.getAnnotationType());
+      if (annotationName != null) {
+        addIndex(byAnnotationName, annotationName, index);
+        return;
+      }
+    }
+
+    if (name != null && !name.getLiteralPrefix().isEmpty()) {
+      byNamePrefix.add(name.getLiteralPrefix(), index);
+      return;
+    }
+
+    unindexed.set(index);
+  }
+
+  /**
+   * Adds the specifications indexed by the name of a super type of {@code type}. Super types are
+   * followed the way {@link InheritanceSpecification} does.
+   */
+  private void addSuperTypeCandidates(@Nonnull JDefinedClassOrInterface type,
+      @Nonnull BitSet candidates, @Nonnull Map<JDefinedClassOrInterface, Boolean> visited) {
+    for (JInterface implement : type.getImplements()) {
+      if (implement instanceof JDefinedClassOrInterface) {
+        addSuperTypeCandidate((JDefinedClassOrInterface) implement, candidates, visited);
+      }
+    }
+    JClass superClass = type.getSuperClass();
+    if (superClass instanceof JDefinedClassOrInterface) {
+      addSuperTypeCandidate((JDefinedClassOrInterface) superClass, candidates, visited);
+    }
+  }
+
+  private void addSuperTypeCandidate(@Nonnull JDefinedClassOrInterface superType,
+      @Nonnull BitSet candidates, @Nonnull Map<JDefinedClassOrInterface, Boolean> visited) {
+    if (visited.put(superType, Boolean.TRUE) == null) {
+      addCandidates(bySuperTypeName, GrammarActions.getBinaryNameFormatter().getName(superType),
+          candidates);
+      addSuperTypeCandidates(superType, candidates, visited);
+    }
+  }
+
+  @CheckForNull
+  private static String getLiteralName(@Nonnull NameSpecification nameSpec) {
+    WildcardPattern name = nameSpec.getWildcardName();
+    if (name != null && name.isLiteral()) {
+      return name.getLiteralPrefix();
+    }
+    return null;
+  }
+
+  private static void addIndex(@Nonnull Map<String, List<Integer>> index, @Nonnull String name,
+      int specIndex) {
+    List<Integer> specIndexes = index.get(name);
+    if (specIndexes == null) {
+      specIndexes = new ArrayList<Integer>(1);
+      index.put(name, specIndexes);
+    }
+    specIndexes.add(Integer.valueOf(specIndex));
+  }
+
+  private static void addCandidates(@Nonnull Map<String, List<Integer>> index,
+      @Nonnull String name, @Nonnull BitSet candidates) {
+    List<Integer> specIndexes = index.get(name);
+    if (specIndexes != null) {
+      for (Integer specIndex : specIndexes) {
+        candidates.set(specIndex.intValue());
+      }
+    }
+  }
+
+  /**
+   * Node of a trie of literal prefixes of class names.
+   */
+  private static class PrefixNode {
+
+    @Nonnull
+    private final Map<Character, PrefixNode> children = new HashMap<Character, PrefixNode>();
+
+    @Nonnull
+    private final List<Integer> specIndexes = new ArrayList<Integer>(0);
+
+    void add(@Nonnull String prefix, int specIndex) {
+      PrefixNode node = this;
+      for (int i = 0; i < prefix.length(); i++) {
+        Character c = Character.valueOf(prefix.charAt(i));
+        PrefixNode child = node.children.get(c);
+        if (child == null) {
+          child = new PrefixNode();
+          node.children.put(c, child);
+        }
+        node = child;
+      }
+      node.specIndexes.add(Integer.valueOf(specIndex));
+    }
+
+    /**
+     * Adds the specifications indexed by a prefix of {@code name}.
+     */
+    void addCandidates(@Nonnull String name, @Nonnull BitSet candidates) {
+      PrefixNode node = this;
+      int i = 0;
+      while (true) {
+        for (Integer specIndex : node.specIndexes) {
+          candidates.set(specIndex.intValue());
+        }
+        if (i == name.length()) {
+          break;
+        }
+        node = node.children.get(Character.valueOf(name.charAt(i++)));
+        if (node == null) {
+          break;
+        }
+      }
+    }
+  }
+}
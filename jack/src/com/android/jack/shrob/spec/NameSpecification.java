@@ -19,6 +19,7 @@ package com.android.jack.shrob.spec;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -28,12 +29,36 @@ public class NameSpecification implements Specification<String> {
   @Nonnull
   private final Pattern name;
 
+  @CheckForNull
+  private final WildcardPattern wildcardName;
+
   public NameSpecification(@Nonnull Pattern name) {
+    this(name, null);
+  }
+
+  /**
+   * @param wildcardName the compiled form of {@code name}, matching the same names without
+   * a regular expression.
+   */
+  public NameSpecification(@Nonnull Pattern name, @CheckForNull WildcardPattern wildcardName) {
     this.name = name;
+    this.wildcardName = wildcardName;
+  }
+
+  /**
+   * @return the compiled form of the name, or null if the name is only known as a regular
+   * expression.
+   */
+  @CheckForNull
+  public WildcardPattern getWildcardName() {
+    return wildcardName;
   }
 
   @Override
   public boolean matches(@Nonnull String t) {
+    if (wildcardName != null) {
+      return wildcardName.matches(t);
+    }
     Matcher matcher = name.matcher(t);
     return matcher.find();
   }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.shrob.spec;
+
+import com.android.jack.shrob.proguard.GrammarActions;
+
+import java.util.Arrays;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Compiled form of a name with wildcards of a {@code class specification}: {@code ?} matches any
+ * character but the package separator, {@code *} matches any part of a name not containing the
+ * package separator and {@code **} matches any part of a name.
+ *
+ * The automaton has one state by position in the pattern, all the states reachable after a
+ * character are followed at once in a bit set, so that matching is linear in the length of the
+ * name and never backtracks. It matches names exactly like the anchored regular expression built
+ * for the same name by {@link GrammarActions}, as long as they do not contain line terminators,
+ * which type and member names never do.
+ */
+public class WildcardPattern {
+
+  @Nonnegative
+  private static final int MAX_STATES = Long.SIZE - 1;
+
+  /**
+   * Characters with a meaning in a regular expression that are not translated from a wildcard.
+   */
+  @Nonnull
+  private static final String REGEX_CHARACTERS = "\\[](){}|+^";
+
+  private static final char PACKAGE_SEPARATOR = GrammarActions.SHROB_REGEX_PATH_SEPARATOR;
+
+  @Nonnull
+  private final String literalPrefix;
+
+  @Nonnegative
+  private final int prefixStates;
+
+  private final boolean literal;
+
+  /**
+   * Sorted code points appearing in the pattern, and for each of them the states it leaves.
+   */
+  @Nonnull
+  private final int[] alphabet;
+
+  @Nonnull
+  private final long[] literalMasks;
+
+  private final long anyCharMask;
+
+  private final long starMask;
+
+  private final long doubleStarMask;
+
+  private final long acceptMask;
+
+  private WildcardPattern(@Nonnull String literalPrefix, @Nonnegative int prefixStates,
+      boolean literal, @Nonnull int[] alphabet, @Nonnull long[] literalMasks, long anyCharMask,
+      long starMask, long doubleStarMask, @Nonnegative int stateCount) {
+    this.literalPrefix = literalPrefix;
+    this.prefixStates = prefixStates;
+    this.literal = literal;
+    this.alphabet = alphabet;
+    this.literalMasks = literalMasks;
+    this.anyCharMask = anyCharMask;
+    this.starMask = starMask;
+    this.doubleStarMask = doubleStarMask;
+    this.acceptMask = 1L << stateCount;
+  }
+
+  /**
+   * @return the compiled pattern of a name with wildcards, or null if the name contains
+   * characters of a regular expression or is too long to be compiled.
+   */
+  @CheckForNull
+  public static WildcardPattern compile(@Nonnull String name) {
+    int[] literals = new int[MAX_STATES];
+    long anyCharMask = 0;
+    long starMask = 0;
+    long doubleStarMask = 0;
+    int prefixStates = -1;
+    int prefixLength = -1;
+    int state = 0;
+    StringBuilder converted = new StringBuilder(name.length());
+    for (int i = 0; i < name.length(); i += Character.charCount(name.codePointAt(i)), state++) {
+      if (state == MAX_STATES) {
+        return null;
+      }
+      int c = name.codePointAt(i);
+      if (REGEX_CHARACTERS.indexOf(c) != -1) {
+        return null;
+      }
+      if (c == '?' || c == '*') {
+        if (prefixStates == -1) {
+          prefixStates = state;
+          prefixLength = converted.length();
+        }
+        literals[state] = -1;
+        if (c == '?') {
+          anyCharMask |= 1L << state;
+        } else if (i + 1 < name.length() && name.charAt(i + 1) == '*') {
+          doubleStarMask |= 1L << state;
+          i++;
+        } else {
+          starMask |= 1L << state;
+        }
+      } else {
+        if (c == '.') {
+          c = PACKAGE_SEPARATOR;
+        }
+        literals[state] = c;
+        converted.appendCodePoint(c);
+      }
+    }
+
+    boolean literal = prefixStates == -1;
+    if (literal) {
+      prefixStates = state;
+      prefixLength = converted.length();
+    }
+
+    int[] alphabet = new int[state];
+    int alphabetSize = 0;
+    for (int i = 0; i < state; i++) {
+      if (literals[i] != -1) {
+        alphabet[alphabetSize++] = literals[i];
+      }
+    }
+    Arrays.sort(alphabet, 0, alphabetSize);
+    int distinct = 0;
+    for (int i = 0; i < alphabetSize; i++) {
+      if (distinct == 0 || alphabet[distinct - 1] != alphabet[i]) {
+        alphabet[distinct++] = alphabet[i];
+      }
+    }
+    alphabet = Arrays.copyOf(alphabet, distinct);
+    long[] literalMasks = new long[distinct];
+    for (int i = 0; i < state; i++) {
+      if (literals[i] != -1) {
+        literalMasks[Arrays.binarySearch(alphabet, literals[i])] |= 1L << i;
+      }
+    }
+
+    return new WildcardPattern(converted.substring(0, prefixLength), prefixStates, literal,
+        alphabet, literalMasks, anyCharMask, starMask, doubleStarMask, state);
+  }
+
+  /**
+   * @return the characters any matching name starts with, using the package separator of binary
+   * names.
+   */
+  @Nonnull
+  public String getLiteralPrefix() {
+    return literalPrefix;
+  }
+
+  /**
+   * @return true if the pattern has no wildcard, in which case it only matches its literal prefix.
+   */
+  public boolean isLiteral() {
+    return literal;
+  }
+
+  public boolean matches(@Nonnull String name) {
+    if (literal) {
+      return literalPrefix.equals(name);
+    }
+    if (!name.startsWith(literalPrefix)) {
+      return false;
+    }
+
+    long states = close(1L << prefixStates);
+    int c;
+    for (int i = literalPrefix.length(); i < name.length(); i += Character.charCount(c)) {
+      c = name.codePointAt(i);
+      long advancing = getLiteralMask(c);
+      long looping = doubleStarMask;
+      if (c != PACKAGE_SEPARATOR) {
+        advancing |= anyCharMask;
+        looping |= starMask;
+      }
+      states = close(((states & advancing) << 1) | (states & looping));
+      if (states == 0) {
+        return false;
+      }
+    }
+    return (states & acceptMask) != 0;
+  }
+
+  private long getLiteralMask(int c) {
+    int index = Arrays.binarySearch(alphabet, c);
+    return index < 0 ? 0 : literalMasks[index];
+  }
+
+  /**
+   * @return {@code states} with the states following the wildcards that may match nothing.
+   */
+  private long close(long states) {
+    long skippable = starMask | doubleStarMask;
+    long closed = states | ((states & skippable) << 1);
+    while (closed != states) {
+      states = closed;
+      closed = states | ((states & skippable) << 1);
+    }
+    return closed;
+  }
+}
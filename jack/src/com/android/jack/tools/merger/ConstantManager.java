@@ -18,14 +18,11 @@ package com.android.jack.tools.merger;
 import com.android.jack.dx.dex.DexFormat;
 import com.android.jack.dx.dex.file.DexFile;
 import com.android.jack.dx.io.DexBuffer;
-import com.android.jack.dx.io.FieldId;
-import com.android.jack.dx.io.MethodId;
 import com.android.jack.dx.rop.cst.CstFieldRef;
 import com.android.jack.dx.rop.cst.CstIndexMap;
 import com.android.jack.dx.rop.cst.CstMethodRef;
 import com.android.jack.dx.rop.cst.CstString;
 import com.android.jack.dx.rop.cst.CstType;
-import com.android.jack.dx.rop.type.Type;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -55,58 +52,38 @@ public class ConstantManager extends MergerTools {
 
   @Nonnull
   public CstIndexMap addDexFile(@Nonnull DexBuffer dexBuffer) throws MergingOverflowException {
-    CstIndexMap cstIndexMap = new CstIndexMap();
+    return addDexFile(new DecodedDex(dexBuffer));
+  }
 
+  @Nonnull
+  public CstIndexMap addDexFile(@Nonnull DecodedDex decodedDex) throws MergingOverflowException {
     HashSet<CstString> addedCstStrings = new HashSet<CstString>();
     HashSet<CstFieldRef> addedCstFieldRefs = new HashSet<CstFieldRef>();
     HashSet<CstMethodRef> addedCstMethodRefs = new HashSet<CstMethodRef>();
     HashSet<CstType> addedCstTypes = new HashSet<CstType>();
 
-    int idx = 0;
-
-    for (String string : dexBuffer.strings()) {
-      CstString cstString = new CstString(string);
+    for (CstString cstString : decodedDex.getCstStrings()) {
       if (!cstStrings.contains(cstString)) {
         addedCstStrings.add(cstString);
       }
-      cstIndexMap.addStringMapping(idx++, cstString);
     }
 
-    idx = 0;
-    for (FieldId fieldId : dexBuffer.fieldIds()) {
-      CstFieldRef cstFieldRef = getCstFieldRef(dexBuffer, fieldId);
+    for (CstFieldRef cstFieldRef : decodedDex.getCstFieldRefs()) {
       if (!cstFieldRefs.contains(cstFieldRef)) {
         addedCstFieldRefs.add(cstFieldRef);
       }
-      cstIndexMap.addFieldMapping(idx++, cstFieldRef);
     }
 
-    idx = 0;
-    for (MethodId methodId : dexBuffer.methodIds()) {
-      CstMethodRef cstMethodRef = getCstMethodRef(dexBuffer, methodId);
+    for (CstMethodRef cstMethodRef : decodedDex.getCstMethodRefs()) {
       if (!cstMethodRefs.contains(cstMethodRef)) {
         addedCstMethodRefs.add(cstMethodRef);
       }
-      cstIndexMap.addMethodMapping(idx++, cstMethodRef);
     }
 
-    idx = 0;
-    for (String typeNameDesc : dexBuffer.typeNames()) {
-      /*
-       * Note: VOID isn't put in the intern table of type, since it's special and shouldn't be found
-       * by a normal call to intern() from Type.
-       */
-      CstType cstType = null;
-      if (typeNameDesc.equals(Type.VOID.getDescriptor())) {
-        cstType = CstType.intern(Type.VOID);
-      } else {
-        cstType = getCstTypeFromTypeName(typeNameDesc);
-      }
-
+    for (CstType cstType : decodedDex.getCstTypes()) {
       if (!cstTypes.contains(cstType)) {
         addedCstTypes.add(cstType);
       }
-      cstIndexMap.addTypeMapping(idx++, cstType);
     }
 
     if ((cstFieldRefs.size() + addedCstFieldRefs.size()) > DexFormat.MAX_MEMBER_IDX + 1) {
@@ -126,6 +103,7 @@ public class ConstantManager extends MergerTools {
     cstMethodRefs.addAll(addedCstMethodRefs);
     cstTypes.addAll(addedCstTypes);
 
+    CstIndexMap cstIndexMap = decodedDex.getCstIndexMap();
     cstIndexMaps.add(cstIndexMap);
 
     return cstIndexMap;
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.tools.merger;
+
+import com.android.jack.dx.io.DexBuffer;
+import com.android.jack.dx.io.FieldId;
+import com.android.jack.dx.io.MethodId;
+import com.android.jack.dx.rop.cst.CstFieldRef;
+import com.android.jack.dx.rop.cst.CstIndexMap;
+import com.android.jack.dx.rop.cst.CstMethodRef;
+import com.android.jack.dx.rop.cst.CstString;
+import com.android.jack.dx.rop.cst.CstType;
+import com.android.jack.dx.rop.type.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A dex file to merge, with its constants already decoded. Decoding does not depend on the state
+ * of any {@link JackMerger}, thus several dex files can be decoded concurrently.
+ */
+public class DecodedDex extends MergerTools {
+
+  @Nonnull
+  private final DexBuffer dexBuffer;
+
+  @Nonnull
+  private final CstIndexMap cstIndexMap = new CstIndexMap();
+
+  @Nonnull
+  private final List<CstString> cstStrings;
+
+  @Nonnull
+  private final List<CstFieldRef> cstFieldRefs;
+
+  @Nonnull
+  private final List<CstMethodRef> cstMethodRefs;
+
+  @Nonnull
+  private final List<CstType> cstTypes;
+
+  public DecodedDex(@Nonnull DexBuffer dexBuffer) {
+    this.dexBuffer = dexBuffer;
+
+    List<String> strings = dexBuffer.strings();
+    cstStrings = new ArrayList<CstString>(strings.size());
+    int idx = 0;
+    for (String string : strings) {
+      CstString cstString = new CstString(string);
+      cstStrings.add(cstString);
+      cstIndexMap.addStringMapping(idx++, cstString);
+    }
+
+    List<FieldId> fieldIds = dexBuffer.fieldIds();
+    cstFieldRefs = new ArrayList<CstFieldRef>(fieldIds.size());
+    idx = 0;
+    for (FieldId fieldId : fieldIds) {
+      CstFieldRef cstFieldRef = getCstFieldRef(dexBuffer, fieldId);
+      cstFieldRefs.add(cstFieldRef);
+      cstIndexMap.addFieldMapping(idx++, cstFieldRef);
+    }
+
+    List<MethodId> methodIds = dexBuffer.methodIds();
+    cstMethodRefs = new ArrayList<CstMethodRef>(methodIds.size());
+    idx = 0;
+    for (MethodId methodId : methodIds) {
+      CstMethodRef cstMethodRef = getCstMethodRef(dexBuffer, methodId);
+      cstMethodRefs.add(cstMethodRef);
+      cstIndexMap.addMethodMapping(idx++, cstMethodRef);
+    }
+
+    List<String> typeNames = dexBuffer.typeNames();
+    cstTypes = new ArrayList<CstType>(typeNames.size());
+    idx = 0;
+    for (String typeNameDesc : typeNames) {
+      /*
+       * Note: VOID isn't put in the intern table of type, since it's special and shouldn't be found
+       * by a normal call to intern() from Type.
+       */
+      CstType cstType = null;
+      if (typeNameDesc.equals(Type.VOID.getDescriptor())) {
+        cstType = CstType.intern(Type.VOID);
+      } else {
+        cstType = getCstTypeFromTypeName(typeNameDesc);
+      }
+      cstTypes.add(cstType);
+      cstIndexMap.addTypeMapping(idx++, cstType);
+    }
+  }
+
+  @Nonnull
+  public DexBuffer getDexBuffer() {
+    return dexBuffer;
+  }
+
+  @Nonnull
+  public CstIndexMap getCstIndexMap() {
+    return cstIndexMap;
+  }
+
+  @Nonnull
+  public List<CstString> getCstStrings() {
+    return cstStrings;
+  }
+
+  @Nonnull
+  public List<CstFieldRef> getCstFieldRefs() {
+    return cstFieldRefs;
+  }
+
+  @Nonnull
+  public List<CstMethodRef> getCstMethodRefs() {
+    return cstMethodRefs;
+  }
+
+  @Nonnull
+  public List<CstType> getCstTypes() {
+    return cstTypes;
+  }
+}
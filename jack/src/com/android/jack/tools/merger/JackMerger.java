@@ -15,6 +15,7 @@
  */
 package com.android.jack.tools.merger;
 
+import com.android.jack.dx.dex.DexFormat;
 import com.android.jack.dx.dex.file.ClassDefItem;
 import com.android.jack.dx.dex.file.DexFile;
 import com.android.jack.dx.dex.file.EncodedField;
@@ -35,11 +36,14 @@ import com.android.jack.dx.rop.cst.CstType;
 import com.android.jack.dx.rop.type.StdTypeList;
 import com.android.jack.dx.rop.type.Type;
 import com.android.jack.dx.rop.type.TypeList;
+import com.android.jack.dx.util.DexIndexOverflowException;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -58,17 +62,30 @@ public class JackMerger extends MergerTools {
 
   private boolean finished = false;
 
+  private boolean prepared = false;
+
+  /**
+   * Whether class definitions were added without going through a dex file, their constants are then
+   * not known from {@link #cstManager}.
+   */
+  private boolean hasClassDefItems = false;
+
   public JackMerger(@Nonnull DexFile dexResult) {
     this.dexResult = dexResult;
     dexResult.getDexOptions().forceJumbo = true;
   }
 
   public void addDexFile(@Nonnull DexBuffer dexToMerge) throws MergingOverflowException {
+    addDexFile(new DecodedDex(dexToMerge));
+  }
+
+  public void addDexFile(@Nonnull DecodedDex decodedDex) throws MergingOverflowException {
     if (finished) {
       throw new AssertionError("Merge already finished");
     }
 
-    CstIndexMap cstIndexMap = cstManager.addDexFile(dexToMerge);
+    DexBuffer dexToMerge = decodedDex.getDexBuffer();
+    CstIndexMap cstIndexMap = cstManager.addDexFile(decodedDex);
 
     for (ClassDef classDefToMerge : dexToMerge.classDefs()) {
       List<String> typeNames = dexToMerge.typeNames();
@@ -147,12 +164,71 @@ public class JackMerger extends MergerTools {
     }
   }
 
-  public void finish(@Nonnull OutputStream out) throws IOException {
-    dexResult.prepare(cstManager.getCstIndexMaps());
-    if (!cstManager.validate(dexResult)) {
+  /**
+   * Adds a class definition built by the backend, instead of decoding it from a dex file. Its
+   * constants are counted when the merged dex is prepared.
+   */
+  public void addClassDefItem(@Nonnull ClassDefItem classDefItem) {
+    if (prepared) {
+      throw new AssertionError("Merge already prepared");
+    }
+    dexResult.add(classDefItem);
+    hasClassDefItems = true;
+  }
+
+  /**
+   * Places the constants and items of the merged dex. It must be called before {@link #finish}
+   * when class definitions were added with {@link #addClassDefItem}, since only then can their
+   * constants overflow the merged dex.
+   */
+  public void prepare() throws MergingOverflowException {
+    try {
+      dexResult.prepare(cstManager.getCstIndexMaps());
+    } catch (DexIndexOverflowException e) {
+      checkOverflow();
+      throw e;
+    }
+    checkOverflow();
+    if (!hasClassDefItems && !cstManager.validate(dexResult)) {
       throw new AssertionError();
     }
-    dexResult.writeTo(out, null /* humanOut */, false /* verbose */);
+    prepared = true;
+  }
+
+  private void checkOverflow() throws MergingOverflowException {
+    if (dexResult.getFieldIds().items().size() > DexFormat.MAX_MEMBER_IDX + 1) {
+      throw new FieldIdOverflowException();
+    }
+
+    if (dexResult.getMethodIds().items().size() > DexFormat.MAX_MEMBER_IDX + 1) {
+      throw new MethodIdOverflowException();
+    }
+
+    if (dexResult.getTypeIds().items().size() > DexFormat.MAX_TYPE_IDX + 1) {
+      throw new TypeIdOverflowException();
+    }
+  }
+
+  public void finish(@Nonnull OutputStream out) throws IOException {
+    finish(out, null);
+  }
+
+  /**
+   * Writes the merged dex.
+   * @param executor used to write the parts of the dex concurrently, or null to write them from
+   * the current thread
+   */
+  public void finish(@Nonnull OutputStream out, @CheckForNull ExecutorService executor)
+      throws IOException {
+    if (!prepared) {
+      assert !hasClassDefItems;
+      dexResult.prepare(cstManager.getCstIndexMaps());
+      if (!cstManager.validate(dexResult)) {
+        throw new AssertionError();
+      }
+      prepared = true;
+    }
+    dexResult.writeTo(out, executor);
     finished = true;
   }
 
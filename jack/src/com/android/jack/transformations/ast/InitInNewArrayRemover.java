@@ -17,6 +17,7 @@
 package com.android.jack.transformations.ast;
 
 import com.android.jack.Options;
+import com.android.jack.ir.ast.FusedVisitor;
 import com.android.jack.ir.ast.JArrayRef;
 import com.android.jack.ir.ast.JAsgOperation;
 import com.android.jack.ir.ast.JExpression;
@@ -26,6 +27,7 @@ import com.android.jack.ir.ast.JLocalRef;
 import com.android.jack.ir.ast.JMethod;
 import com.android.jack.ir.ast.JMultiExpression;
 import com.android.jack.ir.ast.JNewArray;
+import com.android.jack.ir.ast.JNode;
 import com.android.jack.ir.ast.JType;
 import com.android.jack.ir.ast.JVisitor;
 import com.android.jack.ir.sourceinfo.SourceInfo;
@@ -37,7 +39,8 @@ import com.android.jack.util.filter.Filter;
 import com.android.sched.item.Description;
 import com.android.sched.item.Name;
 import com.android.sched.schedulable.Constraint;
-import com.android.sched.schedulable.RunnableSchedulable;
+import com.android.sched.schedulable.FusableSchedulable;
+import com.android.sched.schedulable.HookWalker;
 import com.android.sched.schedulable.Transform;
 import com.android.sched.schedulable.Use;
 import com.android.sched.util.config.ThreadConfig;
@@ -45,6 +48,7 @@ import com.android.sched.util.config.ThreadConfig;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -61,7 +65,7 @@ import javax.annotation.Nonnull;
         JNewArray.class,
         JArrayRef.class})
 @Use(LocalVarCreator.class)
-public class InitInNewArrayRemover implements RunnableSchedulable<JMethod> {
+public class InitInNewArrayRemover implements FusableSchedulable<JMethod, JVisitor> {
 
   @Nonnull
   private final Filter<JMethod> filter = ThreadConfig.get(Options.METHOD_FILTER);
@@ -115,15 +119,34 @@ public class InitInNewArrayRemover implements RunnableSchedulable<JMethod> {
 
   @Override
   public void run(@Nonnull JMethod method) throws Exception {
+    JVisitor visitor = getHook(method);
+    if (visitor != null) {
+      visitor.accept(method);
+      endHook(method, visitor);
+    }
+  }
+
+  @Override
+  @CheckForNull
+  public JVisitor getHook(@Nonnull JMethod method) {
     if (method.getEnclosingType().isExternal() || method.isNative() || method.isAbstract()
         || !filter.accept(this.getClass(), method)) {
-      return;
+      return null;
     }
 
     TransformationRequest tr = new TransformationRequest(method);
-    Visitor visitor = new Visitor(tr, new LocalVarCreator(method, "iinar"));
-    visitor.accept(method);
-    tr.commit();
+    return new Visitor(tr, new LocalVarCreator(method, "iinar"));
+  }
+
+  @Override
+  public void endHook(@Nonnull JMethod method, @Nonnull JVisitor hook) {
+    ((Visitor) hook).tr.commit();
+  }
+
+  @Override
+  @Nonnull
+  public HookWalker<JNode, JVisitor> getWalker() {
+    return FusedVisitor.WALKER;
   }
 
 }
@@ -18,6 +18,7 @@ package com.android.jack.transformations.ast;
 
 import com.android.jack.Jack;
 import com.android.jack.Options;
+import com.android.jack.ir.ast.FusedVisitor;
 import com.android.jack.ir.ast.JAbsentArrayDimension;
 import com.android.jack.ir.ast.JArrayType;
 import com.android.jack.ir.ast.JClass;
@@ -30,6 +31,7 @@ import com.android.jack.ir.ast.JMethod;
 import com.android.jack.ir.ast.JMethodCall;
 import com.android.jack.ir.ast.JMethodId;
 import com.android.jack.ir.ast.JNewArray;
+import com.android.jack.ir.ast.JNode;
 import com.android.jack.ir.ast.JPrimitiveType.JPrimitiveTypeEnum;
 import com.android.jack.ir.ast.JSession;
 import com.android.jack.ir.ast.JType;
@@ -43,7 +45,8 @@ import com.android.jack.transformations.threeaddresscode.ThreeAddressCodeForm;
 import com.android.jack.util.filter.Filter;
 import com.android.sched.item.Description;
 import com.android.sched.item.Name;
-import com.android.sched.schedulable.RunnableSchedulable;
+import com.android.sched.schedulable.FusableSchedulable;
+import com.android.sched.schedulable.HookWalker;
 import com.android.sched.schedulable.Transform;
 import com.android.sched.util.config.ThreadConfig;
 
@@ -62,7 +65,7 @@ import javax.annotation.Nonnull;
 @Transform(remove = {MultiDimensionNewArray.class, ThreeAddressCodeForm.class}, add = {
     JNewArray.class, JMethodCall.class, JClassLiteral.class, JDynamicCastOperation.class,
     InitInNewArray.class})
-public class MultiDimensionNewArrayRemover implements RunnableSchedulable<JMethod>
+public class MultiDimensionNewArrayRemover implements FusableSchedulable<JMethod, JVisitor>
 {
 
   @Nonnull
@@ -173,16 +176,35 @@ public class MultiDimensionNewArrayRemover implements RunnableSchedulable<JMetho
 
   @Override
   public void run(@Nonnull JMethod method) throws Exception {
+    JVisitor visitor = getHook(method);
+    if (visitor != null) {
+      visitor.accept(method);
+      endHook(method, visitor);
+    }
+  }
+
+  @Override
+  @CheckForNull
+  public JVisitor getHook(@Nonnull JMethod method) {
     JDefinedClassOrInterface enclosingType = method.getEnclosingType();
     if (enclosingType.isExternal() || method.isNative() || method.isAbstract()
         || !filter.accept(this.getClass(), method)) {
-      return;
+      return null;
     }
 
     TransformationRequest tr = new TransformationRequest(method);
-    Visitor visitor = new Visitor(tr, enclosingType.getSession());
-    visitor.accept(method);
-    tr.commit();
+    return new Visitor(tr, enclosingType.getSession());
+  }
+
+  @Override
+  public void endHook(@Nonnull JMethod method, @Nonnull JVisitor hook) {
+    ((Visitor) hook).tr.commit();
+  }
+
+  @Override
+  @Nonnull
+  public HookWalker<JNode, JVisitor> getWalker() {
+    return FusedVisitor.WALKER;
   }
 
 }
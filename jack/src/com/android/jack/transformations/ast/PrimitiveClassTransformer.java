@@ -19,13 +19,16 @@ package com.android.jack.transformations.ast;
 import com.android.jack.Jack;
 import com.android.jack.Options;
 import com.android.jack.ir.ast.FieldKind;
+import com.android.jack.ir.ast.FusedVisitor;
 import com.android.jack.ir.ast.JClass;
 import com.android.jack.ir.ast.JClassLiteral;
 import com.android.jack.ir.ast.JDefinedClassOrInterface;
 import com.android.jack.ir.ast.JFieldLookupException;
 import com.android.jack.ir.ast.JFieldRef;
 import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JNode;
 import com.android.jack.ir.ast.JPrimitiveType;
+import com.android.jack.ir.ast.JVisitor;
 import com.android.jack.lookup.CommonTypes;
 import com.android.jack.lookup.JPhantomLookup;
 import com.android.jack.transformations.request.Replace;
@@ -36,12 +39,14 @@ import com.android.jack.util.filter.Filter;
 import com.android.sched.item.Description;
 import com.android.sched.item.Name;
 import com.android.sched.schedulable.Constraint;
+import com.android.sched.schedulable.FusableSchedulable;
+import com.android.sched.schedulable.HookWalker;
 import com.android.sched.schedulable.Protect;
-import com.android.sched.schedulable.RunnableSchedulable;
 import com.android.sched.schedulable.Transform;
 import com.android.sched.schedulable.With;
 import com.android.sched.util.config.ThreadConfig;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -54,7 +59,7 @@ import javax.annotation.Nonnull;
 @Transform(
     add = {JFieldRef.class}, remove = {JPrimitiveClassLiteral.class, ThreeAddressCodeForm.class})
 @Protect(add = JClassLiteral.class, unprotect = @With(add = JPrimitiveClassLiteral.class))
-public class PrimitiveClassTransformer implements RunnableSchedulable<JMethod> {
+public class PrimitiveClassTransformer implements FusableSchedulable<JMethod, JVisitor> {
 
   @Nonnull
   private final Filter<JMethod> filter = ThreadConfig.get(Options.METHOD_FILTER);
@@ -120,15 +125,34 @@ public class PrimitiveClassTransformer implements RunnableSchedulable<JMethod> {
 
   @Override
   public void run(@Nonnull JMethod method) throws Exception {
+    JVisitor visitor = getHook(method);
+    if (visitor != null) {
+      visitor.accept(method);
+      endHook(method, visitor);
+    }
+  }
+
+  @Override
+  @CheckForNull
+  public JVisitor getHook(@Nonnull JMethod method) {
     JDefinedClassOrInterface enclosingType = method.getEnclosingType();
     if (enclosingType.isExternal() || method.isNative() || method.isAbstract()
         || !filter.accept(this.getClass(), method)) {
-      return;
+      return null;
     }
 
     TransformationRequest tr = new TransformationRequest(method);
-    Visitor visitor = new Visitor(tr);
-    visitor.accept(method);
-    tr.commit();
+    return new Visitor(tr);
+  }
+
+  @Override
+  public void endHook(@Nonnull JMethod method, @Nonnull JVisitor hook) {
+    ((Visitor) hook).tr.commit();
+  }
+
+  @Override
+  @Nonnull
+  public HookWalker<JNode, JVisitor> getWalker() {
+    return FusedVisitor.WALKER;
   }
 }
\ No newline at end of file
@@ -17,9 +17,11 @@
 package com.android.jack.transformations.ast;
 
 import com.android.jack.Options;
+import com.android.jack.cfg.ControlFlowGraph;
 import com.android.jack.ir.ast.JExpression;
 import com.android.jack.ir.ast.JExpressionStatement;
 import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JStatement;
 import com.android.jack.ir.ast.JVariableRef;
 import com.android.jack.ir.ast.JVisitor;
 import com.android.jack.transformations.request.Remove;
@@ -33,6 +35,9 @@ import com.android.sched.schedulable.RunnableSchedulable;
 import com.android.sched.schedulable.Transform;
 import com.android.sched.util.config.ThreadConfig;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.annotation.Nonnull;
 
 /**
@@ -42,7 +47,7 @@ import javax.annotation.Nonnull;
 @Description("Remove JVariableRef and JArrayRef as JExpressionStatement.")
 @Name("RefAsStatementRemover")
 @Constraint(need = {ThreeAddressCodeForm.class})
-@Transform(remove = RefAsStatement.class)
+@Transform(remove = RefAsStatement.class, modify = ControlFlowGraph.class)
 public class RefAsStatementRemover implements RunnableSchedulable<JMethod> {
 
   @Nonnull
@@ -53,6 +58,9 @@ public class RefAsStatementRemover implements RunnableSchedulable<JMethod> {
     @Nonnull
     private final TransformationRequest tr;
 
+    @Nonnull
+    private final List<JStatement> removedStatements = new ArrayList<JStatement>();
+
     public Visitor(@Nonnull TransformationRequest tr) {
       this.tr = tr;
     }
@@ -63,6 +71,7 @@ public class RefAsStatementRemover implements RunnableSchedulable<JMethod> {
 
       if (expr instanceof JVariableRef) {
         tr.append(new Remove(expressionStatement));
+        removedStatements.add(expressionStatement);
         return false;
       } else {
         return super.visit(expressionStatement);
@@ -81,6 +90,13 @@ public class RefAsStatementRemover implements RunnableSchedulable<JMethod> {
     Visitor visitor = new Visitor(tr);
     visitor.accept(method);
     tr.commit();
+
+    ControlFlowGraph cfg = method.getMarker(ControlFlowGraph.class);
+    if (cfg != null) {
+      for (JStatement removedStatement : visitor.removedStatements) {
+        cfg.removeStatement(removedStatement);
+      }
+    }
   }
 
 }
@@ -17,6 +17,7 @@
 package com.android.jack.transformations.ast;
 
 import com.android.jack.Options;
+import com.android.jack.ir.ast.FusedVisitor;
 import com.android.jack.ir.ast.JAsgOperation;
 import com.android.jack.ir.ast.JBlock;
 import com.android.jack.ir.ast.JCatchBlock;
@@ -31,6 +32,7 @@ import com.android.jack.ir.ast.JLocalRef;
 import com.android.jack.ir.ast.JLock;
 import com.android.jack.ir.ast.JMethod;
 import com.android.jack.ir.ast.JMethodBody;
+import com.android.jack.ir.ast.JNode;
 import com.android.jack.ir.ast.JSession;
 import com.android.jack.ir.ast.JStatement;
 import com.android.jack.ir.ast.JSynchronizedBlock;
@@ -51,7 +53,8 @@ import com.android.jack.util.filter.Filter;
 import com.android.sched.item.Description;
 import com.android.sched.item.Name;
 import com.android.sched.schedulable.Constraint;
-import com.android.sched.schedulable.RunnableSchedulable;
+import com.android.sched.schedulable.FusableSchedulable;
+import com.android.sched.schedulable.HookWalker;
 import com.android.sched.schedulable.Transform;
 import com.android.sched.schedulable.Use;
 import com.android.sched.util.config.HasKeyId;
@@ -60,6 +63,7 @@ import com.android.sched.util.config.id.BooleanPropertyId;
 
 import java.util.Collections;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -80,7 +84,7 @@ import javax.annotation.Nonnull;
     JExpressionStatement.class})
 @Use(LocalVarCreator.class)
 @HasKeyId
-public class SynchronizeTransformer implements RunnableSchedulable<JMethod> {
+public class SynchronizeTransformer implements FusableSchedulable<JMethod, JVisitor> {
 
   @Nonnull
   private final Filter<JMethod> filter = ThreadConfig.get(Options.METHOD_FILTER);
@@ -203,17 +207,36 @@ public class SynchronizeTransformer implements RunnableSchedulable<JMethod> {
 
   @Override
   public void run(@Nonnull JMethod method) throws Exception {
+    JVisitor visitor = getHook(method);
+    if (visitor != null) {
+      visitor.accept(method);
+      endHook(method, visitor);
+    }
+  }
+
+  @Override
+  @CheckForNull
+  public JVisitor getHook(@Nonnull JMethod method) {
     JDefinedClassOrInterface enclosingType = method.getEnclosingType();
     if (enclosingType.isExternal() || method.isNative() || method.isAbstract()
         || !filter.accept(this.getClass(), method)) {
-      return;
+      return null;
     }
 
     TransformationRequest tr = new TransformationRequest(method);
     LocalVarCreator lvCreator = new LocalVarCreator(method, "sync");
-    Visitor visitor = new Visitor(tr, enclosingType.getSession(), lvCreator);
-    visitor.accept(method);
-    tr.commit();
+    return new Visitor(tr, enclosingType.getSession(), lvCreator);
+  }
+
+  @Override
+  public void endHook(@Nonnull JMethod method, @Nonnull JVisitor hook) {
+    ((Visitor) hook).tr.commit();
+  }
+
+  @Override
+  @Nonnull
+  public HookWalker<JNode, JVisitor> getWalker() {
+    return FusedVisitor.WALKER;
   }
 
 }
@@ -19,6 +19,7 @@ package com.android.jack.transformations.ast;
 import com.android.jack.Jack;
 import com.android.jack.Options;
 import com.android.jack.ir.SideEffectOperation;
+import com.android.jack.ir.ast.FusedVisitor;
 import com.android.jack.ir.ast.JAbsentArrayDimension;
 import com.android.jack.ir.ast.JArrayRef;
 import com.android.jack.ir.ast.JBinaryOperation;
@@ -35,6 +36,7 @@ import com.android.jack.ir.ast.JMethod;
 import com.android.jack.ir.ast.JMethodCall;
 import com.android.jack.ir.ast.JMethodId;
 import com.android.jack.ir.ast.JNewArray;
+import com.android.jack.ir.ast.JNode;
 import com.android.jack.ir.ast.JPrimitiveType;
 import com.android.jack.ir.ast.JPrimitiveType.JPrimitiveTypeEnum;
 import com.android.jack.ir.ast.JReturnStatement;
@@ -55,7 +57,8 @@ import com.android.jack.util.filter.Filter;
 import com.android.sched.item.Description;
 import com.android.sched.item.Name;
 import com.android.sched.schedulable.Constraint;
-import com.android.sched.schedulable.RunnableSchedulable;
+import com.android.sched.schedulable.FusableSchedulable;
+import com.android.sched.schedulable.HookWalker;
 import com.android.sched.schedulable.Transform;
 import com.android.sched.util.collect.Lists;
 import com.android.sched.util.config.ThreadConfig;
@@ -63,6 +66,7 @@ import com.android.sched.util.config.ThreadConfig;
 import java.util.Iterator;
 import java.util.List;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -74,7 +78,7 @@ import javax.annotation.Nonnull;
     no = {SideEffectOperation.class, InitInNewArray.class, JSwitchStatement.SwitchWithEnum.class})
 @Transform(add = {JMethodCall.class, JDynamicCastOperation.class},
     remove = {ImplicitCast.class, ImplicitBoxingAndUnboxing.class, ThreeAddressCodeForm.class})
-public class TypeLegalizer implements RunnableSchedulable<JMethod> {
+public class TypeLegalizer implements FusableSchedulable<JMethod, JVisitor> {
 
   @Nonnull
   private final JClass javaLangObject =
@@ -505,16 +509,34 @@ public class TypeLegalizer implements RunnableSchedulable<JMethod> {
 
   @Override
   public void run(@Nonnull JMethod method) throws Exception {
+    JVisitor visitor = getHook(method);
+    if (visitor != null) {
+      visitor.accept(method);
+      endHook(method, visitor);
+    }
+  }
+
+  @Override
+  @CheckForNull
+  public JVisitor getHook(@Nonnull JMethod method) {
     if (method.getEnclosingType().isExternal() || method.isNative() || method.isAbstract()
         || !filter.accept(this.getClass(), method)) {
-      return;
+      return null;
     }
 
     TransformationRequest tr = new TransformationRequest(method);
-    TypeLegalizerVisitor rca =
-        new TypeLegalizerVisitor(tr);
-    rca.accept(method);
-    tr.commit();
+    return new TypeLegalizerVisitor(tr);
+  }
+
+  @Override
+  public void endHook(@Nonnull JMethod method, @Nonnull JVisitor hook) {
+    ((TypeLegalizerVisitor) hook).tr.commit();
+  }
+
+  @Override
+  @Nonnull
+  public HookWalker<JNode, JVisitor> getWalker() {
+    return FusedVisitor.WALKER;
   }
 
 }
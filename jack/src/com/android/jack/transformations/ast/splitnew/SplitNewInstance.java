@@ -17,6 +17,7 @@
 package com.android.jack.transformations.ast.splitnew;
 
 import com.android.jack.Options;
+import com.android.jack.ir.ast.FusedVisitor;
 import com.android.jack.ir.ast.JAlloc;
 import com.android.jack.ir.ast.JAsgOperation;
 import com.android.jack.ir.ast.JClass;
@@ -28,6 +29,7 @@ import com.android.jack.ir.ast.JMethodCall;
 import com.android.jack.ir.ast.JMethodId;
 import com.android.jack.ir.ast.JMultiExpression;
 import com.android.jack.ir.ast.JNewInstance;
+import com.android.jack.ir.ast.JNode;
 import com.android.jack.ir.ast.JPrimitiveType.JPrimitiveTypeEnum;
 import com.android.jack.ir.ast.JVisitor;
 import com.android.jack.ir.sourceinfo.SourceInfo;
@@ -39,7 +41,8 @@ import com.android.jack.transformations.threeaddresscode.ThreeAddressCodeForm;
 import com.android.jack.util.filter.Filter;
 import com.android.sched.item.Description;
 import com.android.sched.item.Name;
-import com.android.sched.schedulable.RunnableSchedulable;
+import com.android.sched.schedulable.FusableSchedulable;
+import com.android.sched.schedulable.HookWalker;
 import com.android.sched.schedulable.Transform;
 import com.android.sched.schedulable.Use;
 import com.android.sched.util.config.ThreadConfig;
@@ -47,6 +50,7 @@ import com.android.sched.util.config.ThreadConfig;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -59,7 +63,7 @@ import javax.annotation.Nonnull;
     JAlloc.class, JAsgOperation.NonReusedAsg.class, JLocalRef.class, JMultiExpression.class,
     NewInstanceRemoved.class}, remove = {JNewInstance.class, ThreeAddressCodeForm.class})
 @Use(LocalVarCreator.class)
-public class SplitNewInstance implements RunnableSchedulable<JMethod> {
+public class SplitNewInstance implements FusableSchedulable<JMethod, JVisitor> {
 
   @Nonnull
   private final Filter<JMethod> filter = ThreadConfig.get(Options.METHOD_FILTER);
@@ -114,15 +118,34 @@ public class SplitNewInstance implements RunnableSchedulable<JMethod> {
 
   @Override
   public void run(@Nonnull JMethod method) throws Exception {
+    JVisitor visitor = getHook(method);
+    if (visitor != null) {
+      visitor.accept(method);
+      endHook(method, visitor);
+    }
+  }
+
+  @Override
+  @CheckForNull
+  public JVisitor getHook(@Nonnull JMethod method) {
     if (method.getEnclosingType().isExternal() || method.isNative() || method.isAbstract()
         || !filter.accept(this.getClass(), method)) {
-      return;
+      return null;
     }
 
     TransformationRequest request = new TransformationRequest(method);
-    Visitor visitor = new Visitor(request, new LocalVarCreator(method, LOCAL_VAR_PREFIX));
-    visitor.accept(method);
-    request.commit();
+    return new Visitor(request, new LocalVarCreator(method, LOCAL_VAR_PREFIX));
+  }
+
+  @Override
+  public void endHook(@Nonnull JMethod method, @Nonnull JVisitor hook) {
+    ((Visitor) hook).request.commit();
+  }
+
+  @Override
+  @Nonnull
+  public HookWalker<JNode, JVisitor> getWalker() {
+    return FusedVisitor.WALKER;
   }
 
 }
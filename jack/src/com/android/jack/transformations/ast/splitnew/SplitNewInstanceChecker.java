@@ -17,8 +17,10 @@
 package com.android.jack.transformations.ast.splitnew;
 
 import com.android.jack.Options;
+import com.android.jack.ir.ast.FusedVisitor;
 import com.android.jack.ir.ast.JMethod;
 import com.android.jack.ir.ast.JNewInstance;
+import com.android.jack.ir.ast.JNode;
 import com.android.jack.ir.ast.JVisitor;
 import com.android.jack.transformations.SanityChecks;
 import com.android.jack.transformations.ast.NewInstanceRemoved;
@@ -26,10 +28,13 @@ import com.android.jack.util.filter.Filter;
 import com.android.sched.item.Description;
 import com.android.sched.item.Name;
 import com.android.sched.schedulable.Constraint;
+import com.android.sched.schedulable.FusableSchedulable;
+import com.android.sched.schedulable.HookWalker;
 import com.android.sched.schedulable.RunnableSchedulable;
 import com.android.sched.schedulable.Support;
 import com.android.sched.util.config.ThreadConfig;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -40,7 +45,7 @@ import javax.annotation.Nonnull;
 @Name("SplitNewInstanceChecker")
 @Constraint(no = {JNewInstance.class}, need = {NewInstanceRemoved.class})
 @Support(SanityChecks.class)
-public class SplitNewInstanceChecker implements RunnableSchedulable<JMethod> {
+public class SplitNewInstanceChecker implements FusableSchedulable<JMethod, JVisitor> {
 
   @Nonnull
   private final Filter<JMethod> filter = ThreadConfig.get(Options.METHOD_FILTER);
@@ -55,11 +60,31 @@ public class SplitNewInstanceChecker implements RunnableSchedulable<JMethod> {
 
   @Override
   public void run(@Nonnull JMethod method) throws Exception {
+    JVisitor visitor = getHook(method);
+    if (visitor != null) {
+      visitor.accept(method);
+      endHook(method, visitor);
+    }
+  }
+
+  @Override
+  @CheckForNull
+  public JVisitor getHook(@Nonnull JMethod method) {
     if (method.getEnclosingType().isExternal() || method.isNative() || method.isAbstract()
         || !filter.accept(this.getClass(), method)) {
-      return;
+      return null;
     }
-    Visitor visitor = new Visitor();
-    visitor.accept(method);
+    return new Visitor();
+  }
+
+  @Override
+  public void endHook(@Nonnull JMethod method, @Nonnull JVisitor hook) {
+    // Nothing to commit, the visitor only checks the method
+  }
+
+  @Override
+  @Nonnull
+  public HookWalker<JNode, JVisitor> getWalker() {
+    return FusedVisitor.WALKER;
   }
 }
@@ -17,8 +17,10 @@
 package com.android.jack.transformations.ast.switches;
 
 import com.android.jack.Options;
+import com.android.jack.ir.ast.FusedVisitor;
 import com.android.jack.ir.ast.JCaseStatement;
 import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JNode;
 import com.android.jack.ir.ast.JStatement;
 import com.android.jack.ir.ast.JStatementList;
 import com.android.jack.ir.ast.JSwitchStatement;
@@ -28,10 +30,12 @@ import com.android.jack.util.ControlFlowHelper;
 import com.android.jack.util.filter.Filter;
 import com.android.sched.item.Description;
 import com.android.sched.schedulable.Constraint;
-import com.android.sched.schedulable.RunnableSchedulable;
+import com.android.sched.schedulable.FusableSchedulable;
+import com.android.sched.schedulable.HookWalker;
 import com.android.sched.schedulable.Support;
 import com.android.sched.util.config.ThreadConfig;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -40,7 +44,7 @@ import javax.annotation.Nonnull;
 @Description("Checks that there is no useless cases into switch statement.")
 @Constraint(need = {JSwitchStatement.class})
 @Support(SanityChecks.class)
-public class UselessCaseChecker implements RunnableSchedulable<JMethod> {
+public class UselessCaseChecker implements FusableSchedulable<JMethod, JVisitor> {
 
   @Nonnull
   private final Filter<JMethod> filter = ThreadConfig.get(Options.METHOD_FILTER);
@@ -70,12 +74,32 @@ public class UselessCaseChecker implements RunnableSchedulable<JMethod> {
 
   @Override
   public void run(@Nonnull JMethod method) throws Exception {
+    JVisitor visitor = getHook(method);
+    if (visitor != null) {
+      visitor.accept(method);
+      endHook(method, visitor);
+    }
+  }
+
+  @Override
+  @CheckForNull
+  public JVisitor getHook(@Nonnull JMethod method) {
     if (method.getEnclosingType().isExternal() || method.isNative() || method.isAbstract()
         || !filter.accept(this.getClass(), method)) {
-      return;
+      return null;
     }
+    return checker;
+  }
 
-    checker.accept(method);
+  @Override
+  public void endHook(@Nonnull JMethod method, @Nonnull JVisitor hook) {
+    // Nothing to commit, the visitor only checks the method
+  }
+
+  @Override
+  @Nonnull
+  public HookWalker<JNode, JVisitor> getWalker() {
+    return FusedVisitor.WALKER;
   }
 
 }
@@ -17,12 +17,14 @@
 package com.android.jack.transformations.booleanoperators;
 
 import com.android.jack.Options;
+import com.android.jack.ir.ast.FusedVisitor;
 import com.android.jack.ir.ast.JBinaryOperation;
 import com.android.jack.ir.ast.JBooleanLiteral;
 import com.android.jack.ir.ast.JConditionalExpression;
 import com.android.jack.ir.ast.JConditionalOperation;
 import com.android.jack.ir.ast.JExpression;
 import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JNode;
 import com.android.jack.ir.ast.JVisitor;
 import com.android.jack.ir.sourceinfo.SourceInfo;
 import com.android.jack.optimizations.NotSimplifier.NotExpressionsSimplified;
@@ -34,10 +36,13 @@ import com.android.jack.util.filter.Filter;
 import com.android.sched.item.Description;
 import com.android.sched.item.Name;
 import com.android.sched.schedulable.Constraint;
+import com.android.sched.schedulable.FusableSchedulable;
+import com.android.sched.schedulable.HookWalker;
 import com.android.sched.schedulable.RunnableSchedulable;
 import com.android.sched.schedulable.Transform;
 import com.android.sched.util.config.ThreadConfig;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 
@@ -51,7 +56,7 @@ import javax.annotation.Nonnull;
 @Constraint(need = {JConditionalOperation.class, NotExpressionsSimplified.class})
 @Transform(add = {JConditionalExpression.class, JBooleanLiteral.class, FallThroughMarker.class},
     remove = {JConditionalOperation.class, ThreeAddressCodeForm.class})
-public class ConditionalAndOrRemover implements RunnableSchedulable<JMethod> {
+public class ConditionalAndOrRemover implements FusableSchedulable<JMethod, JVisitor> {
 
   @Nonnull
   private final Filter<JMethod> filter = ThreadConfig.get(Options.METHOD_FILTER);
@@ -95,15 +100,33 @@ public class ConditionalAndOrRemover implements RunnableSchedulable<JMethod> {
 
   @Override
   public void run(@Nonnull JMethod method) throws Exception {
+    JVisitor visitor = getHook(method);
+    if (visitor != null) {
+      visitor.accept(method);
+      endHook(method, visitor);
+    }
+  }
+
+  @Override
+  @CheckForNull
+  public JVisitor getHook(@Nonnull JMethod method) {
     if (method.getEnclosingType().isExternal() || method.isNative() || method.isAbstract()
         || !filter.accept(this.getClass(), method)) {
-      return;
+      return null;
     }
 
     TransformationRequest request = new TransformationRequest(method);
-    BooleanExpressionSimplifierVisitor besv =
-        new BooleanExpressionSimplifierVisitor(request);
-    besv.accept(method);
-    request.commit();
+    return new BooleanExpressionSimplifierVisitor(request);
+  }
+
+  @Override
+  public void endHook(@Nonnull JMethod method, @Nonnull JVisitor hook) {
+    ((BooleanExpressionSimplifierVisitor) hook).transformationRequest.commit();
+  }
+
+  @Override
+  @Nonnull
+  public HookWalker<JNode, JVisitor> getWalker() {
+    return FusedVisitor.WALKER;
   }
 }
\ No newline at end of file
@@ -17,19 +17,23 @@
 package com.android.jack.transformations.booleanoperators;
 
 import com.android.jack.Options;
+import com.android.jack.ir.ast.FusedVisitor;
 import com.android.jack.ir.ast.JBinaryOperation;
 import com.android.jack.ir.ast.JBinaryOperator;
 import com.android.jack.ir.ast.JConditionalOperation;
 import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JNode;
 import com.android.jack.ir.ast.JVisitor;
 import com.android.jack.transformations.SanityChecks;
 import com.android.jack.util.filter.Filter;
 import com.android.sched.item.Description;
 import com.android.sched.schedulable.Constraint;
-import com.android.sched.schedulable.RunnableSchedulable;
+import com.android.sched.schedulable.FusableSchedulable;
+import com.android.sched.schedulable.HookWalker;
 import com.android.sched.schedulable.Support;
 import com.android.sched.util.config.ThreadConfig;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 /**
@@ -39,7 +43,7 @@ import javax.annotation.Nonnull;
 @Description("Checks that conditional boolean operators && and || have been removed")
 @Constraint(no = {JConditionalOperation.class})
 @Support(SanityChecks.class)
-public class ConditionalAndOrRemoverChecker implements RunnableSchedulable<JMethod> {
+public class ConditionalAndOrRemoverChecker implements FusableSchedulable<JMethod, JVisitor> {
 
   @Nonnull
   private final Filter<JMethod> filter = ThreadConfig.get(Options.METHOD_FILTER);
@@ -58,12 +62,31 @@ public class ConditionalAndOrRemoverChecker implements RunnableSchedulable<JMeth
 
   @Override
   public void run(@Nonnull JMethod method) throws Exception {
+    JVisitor visitor = getHook(method);
+    if (visitor != null) {
+      visitor.accept(method);
+      endHook(method, visitor);
+    }
+  }
+
+  @Override
+  @CheckForNull
+  public JVisitor getHook(@Nonnull JMethod method) {
     if (method.getEnclosingType().isExternal() || method.isNative() || method.isAbstract()
         || !filter.accept(this.getClass(), method)) {
-      return;
+      return null;
     }
+    return new ConditionalAndOrRemoverCheckerVisitor();
+  }
 
-    ConditionalAndOrRemoverCheckerVisitor bescv = new ConditionalAndOrRemoverCheckerVisitor();
-    bescv.accept(method);
+  @Override
+  public void endHook(@Nonnull JMethod method, @Nonnull JVisitor hook) {
+    // Nothing to commit, the visitor only checks the method
+  }
+
+  @Override
+  @Nonnull
+  public HookWalker<JNode, JVisitor> getWalker() {
+    return FusedVisitor.WALKER;
   }
 }
@@ -27,7 +27,7 @@ import javax.annotation.Nonnull;
  * A {@code TransformationStep} allowing to add a {@link JAnnotationLiteral}
  * as an annotation of a {@link Annotable}.
  */
-public class AddAnnotation implements TransformationStep, TransformStep {
+public class AddAnnotation implements BatchableStep, TransformStep {
   @Nonnull
   private final JAnnotationLiteral annotation;
   @Nonnull
@@ -44,6 +44,11 @@ public class AddAnnotation implements TransformationStep, TransformStep {
     annotation.updateParents((JNode) annotable);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    apply();
+  }
+
   @Override
   @Nonnull
   public String toString() {
@@ -26,7 +26,7 @@ import javax.annotation.Nonnull;
  * A {@link TransformationStep} allowing to insert a {@link JLocal} in the given {@link JMethodBody}
  * and set the {@code JMethodBody} as the {@code JLocal}'s parent.
  */
-public class AddJLocalInMethodBody implements TransformationStep, TransformStep {
+public class AddJLocalInMethodBody implements BatchableStep, TransformStep {
 
   @Nonnull
   private final JLocal local;
@@ -44,4 +44,9 @@ public class AddJLocalInMethodBody implements TransformationStep, TransformStep
     local.updateParents(methodBody);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    apply();
+  }
+
 }
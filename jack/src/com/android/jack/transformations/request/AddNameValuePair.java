@@ -26,7 +26,7 @@ import javax.annotation.Nonnull;
  * A {@code TransformationStep} allowing to add a {@link JNameValuePair}
  * in a {@link JAnnotationLiteral}.
  */
-public class AddNameValuePair implements TransformationStep, TransformStep {
+public class AddNameValuePair implements BatchableStep, TransformStep {
   @Nonnull
   private final JAnnotationLiteral annotation;
   @Nonnull
@@ -44,6 +44,11 @@ public class AddNameValuePair implements TransformationStep, TransformStep {
     pair.updateParents(annotation);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    apply();
+  }
+
   @Override
   @Nonnull
   public String toString() {
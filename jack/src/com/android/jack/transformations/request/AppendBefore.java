@@ -25,7 +25,7 @@ import javax.annotation.Nonnull;
  * A {@code TransformationStep} allowing to insert a {@code JNode} just before an existing
  * {@code JNode} in the existing {@code JNode} parent.
  */
-public class AppendBefore implements TransformationStep, TransformStep {
+public class AppendBefore implements BatchableStep, TransformStep {
   @Nonnull
   private final JNode existingNode;
 
@@ -48,6 +48,13 @@ public class AppendBefore implements TransformationStep, TransformStep {
     existingNode.getParent().insertBefore(existingNode, newNode);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    if (!batch.insertBefore(existingNode, newNode)) {
+      apply();
+    }
+  }
+
   @Override
   @Nonnull
   public String toString() {
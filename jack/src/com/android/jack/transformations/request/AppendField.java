@@ -26,7 +26,7 @@ import javax.annotation.Nonnull;
  * A {@code TransformationStep} allowing to add a {@code JField}
  * as the last field of a {@code JDeclaredType}
  */
-public class AppendField implements TransformationStep, TransformStep {
+public class AppendField implements BatchableStep, TransformStep {
 
   @Nonnull
   private final JDefinedClassOrInterface type;
@@ -45,6 +45,11 @@ public class AppendField implements TransformationStep, TransformStep {
     field.updateParents(type);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    apply();
+  }
+
   @Override
   @Nonnull
   public String toString() {
@@ -26,7 +26,7 @@ import javax.annotation.Nonnull;
  * A {@code TransformationStep} allowing to add a {@code JMethod}
  * as the last method of a {@code JDeclaredType}
  */
-public class AppendMethod implements TransformationStep, TransformStep {
+public class AppendMethod implements BatchableStep, TransformStep {
 
   @Nonnull
   private final JDefinedClassOrInterface type;
@@ -45,6 +45,11 @@ public class AppendMethod implements TransformationStep, TransformStep {
     method.updateParents(type);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    apply();
+  }
+
   @Override
   @Nonnull
   public String toString() {
@@ -26,7 +26,7 @@ import javax.annotation.Nonnull;
  * A {@code TransformationStep} allowing to add a {@code JStatement} as the last statement of a
  * {@code JBlock}.
  */
-public class AppendStatement implements TransformationStep, TransformStep {
+public class AppendStatement implements BatchableStep, TransformStep {
   @Nonnull
   private final JStatementList statements;
 
@@ -47,6 +47,11 @@ public class AppendStatement implements TransformationStep, TransformStep {
     statement.updateParents(statements);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    batch.add(statements, statement, /* atEnd = */ true);
+  }
+
   @Override
   @Nonnull
   public String toString() {
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.transformations.request;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link TransformationStep} that can be applied while modifications of statement lists are
+ * pending in a {@link StatementListBatch}.
+ */
+public interface BatchableStep extends TransformationStep {
+
+  /**
+   * Applies the step, recording it in the batch when possible. A step which reads or modifies a
+   * statement list by other means must flush it from the batch before.
+   */
+  void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException;
+
+}
@@ -28,7 +28,7 @@ import javax.annotation.Nonnull;
 /**
  * A {@code TransformationStep} allowing to change the enclosing package of a {@code JPackage}
  */
-public class ChangeEnclosingPackage implements TransformationStep, TransformStep {
+public class ChangeEnclosingPackage implements BatchableStep, TransformStep {
 
   @Nonnull
   private final JPackage newEnclosingPackage;
@@ -58,6 +58,11 @@ public class ChangeEnclosingPackage implements TransformationStep, TransformStep
     ((JNode) existingNode).updateParents(newEnclosingPackage);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    apply();
+  }
+
   @Override
   @Nonnull
   public String toString() {
@@ -25,7 +25,7 @@ import javax.annotation.Nonnull;
  * A {@code TransformationStep} allowing to insert a {@code JNode} just after an existing
  * {@code JNode} in the existing {@code JNode} parent.
  */
-public class PrependAfter implements TransformationStep, TransformStep {
+public class PrependAfter implements BatchableStep, TransformStep {
   @Nonnull
   private final JNode existingNode;
 
@@ -48,6 +48,13 @@ public class PrependAfter implements TransformationStep, TransformStep {
     existingNode.getParent().insertAfter(existingNode, newNode);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    if (!batch.insertAfter(existingNode, newNode)) {
+      apply();
+    }
+  }
+
   @Override
   @Nonnull
   public String toString() {
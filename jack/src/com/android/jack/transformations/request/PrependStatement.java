@@ -26,7 +26,7 @@ import javax.annotation.Nonnull;
  * A {@code TransformationStep} allowing to insert a {@code JStatement} as the first statement of a
  * {@code JStatementList}.
  */
-public class PrependStatement implements TransformationStep, TransformStep {
+public class PrependStatement implements BatchableStep, TransformStep {
   @Nonnull
   private final JStatementList stmtList;
 
@@ -47,6 +47,11 @@ public class PrependStatement implements TransformationStep, TransformStep {
     statement.updateParents(stmtList);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    batch.add(stmtList, statement, /* atEnd = */ false);
+  }
+
   @Override
   @Nonnull
   public String toString() {
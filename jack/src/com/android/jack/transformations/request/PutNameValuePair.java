@@ -25,7 +25,7 @@ import javax.annotation.Nonnull;
  * A {@code TransformationStep} allowing to put a {@link JNameValuePair}
  * in a {@link JAnnotationLiteral} (replaces existing pair with same name).
  */
-public class PutNameValuePair implements TransformationStep {
+public class PutNameValuePair implements BatchableStep {
   @Nonnull
   private final JAnnotationLiteral annotation;
   @Nonnull
@@ -43,6 +43,11 @@ public class PutNameValuePair implements TransformationStep {
     pair.updateParents(annotation);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    apply();
+  }
+
   @Override
   @Nonnull
   public String toString() {
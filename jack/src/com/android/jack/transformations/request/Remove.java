@@ -24,7 +24,7 @@ import javax.annotation.Nonnull;
 /**
  * A {@code TransformationStep} allowing to remove one {@code JNode}.
  */
-public class Remove implements TransformationStep, TransformStep {
+public class Remove implements BatchableStep, TransformStep {
 
   @Nonnull
   private final JNode node;
@@ -42,6 +42,13 @@ public class Remove implements TransformationStep, TransformStep {
     node.getParent().remove(node);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    if (!batch.remove(node)) {
+      apply();
+    }
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder("Remove ");
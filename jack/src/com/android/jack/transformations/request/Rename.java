@@ -24,7 +24,7 @@ import javax.annotation.Nonnull;
 /**
  * A {@code TransformationStep} allowing to rename one {@code JNode}.
  */
-public class Rename implements TransformationStep, TransformStep {
+public class Rename implements BatchableStep, TransformStep {
 
   @Nonnull
   private final CanBeRenamed node;
@@ -42,6 +42,11 @@ public class Rename implements TransformationStep, TransformStep {
     node.setName(newName);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    apply();
+  }
+
   @Override
   @Nonnull
   public String toString() {
@@ -25,7 +25,7 @@ import javax.annotation.Nonnull;
  * A {@code TransformationStep} allowing to replace one existing {@code JNode} with a new
  * {@code JNode}.
  */
-public class Replace implements TransformationStep, TransformStep {
+public class Replace implements BatchableStep, TransformStep {
 
   @Nonnull
   private final JNode existingNode;
@@ -48,6 +48,13 @@ public class Replace implements TransformationStep, TransformStep {
     existingNode.getParent().replace(existingNode, newNode);
   }
 
+  @Override
+  public void apply(@Nonnull StatementListBatch batch) throws UnsupportedOperationException {
+    if (!batch.replace(existingNode, newNode)) {
+      apply();
+    }
+  }
+
   @Override
   @Nonnull
   public String toString() {
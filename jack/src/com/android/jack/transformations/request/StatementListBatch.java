@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.transformations.request;
+
+import com.android.jack.ir.ast.JBlock;
+import com.android.jack.ir.ast.JCatchBlock;
+import com.android.jack.ir.ast.JNode;
+import com.android.jack.ir.ast.JStatement;
+import com.android.jack.ir.ast.JStatementList;
+import com.android.jack.ir.ast.JVisitor;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Pending modifications of the statements of {@link JStatementList}s during the commit of a
+ * {@link TransformationRequest}. Each modified list is indexed once, modifications are recorded in
+ * a linked list of its statements, and the list is rebuilt once when the batch is flushed. The
+ * result is the same as applying each modification on its own, which costs a lookup and a shift
+ * of the list each time.
+ */
+public final class StatementListBatch {
+
+  private static class Cell {
+    @CheckForNull
+    private JStatement statement;
+    @CheckForNull
+    private Cell previous;
+    @CheckForNull
+    private Cell next;
+
+    private Cell(@CheckForNull JStatement statement) {
+      this.statement = statement;
+    }
+  }
+
+  private static class PendingList {
+    @Nonnull
+    private final JStatementList list;
+    @Nonnull
+    private final Map<JStatement, Cell> cells = new IdentityHashMap<JStatement, Cell>();
+    /**
+     * Sentinel, its next cell is the first statement and its previous cell is the last statement.
+     */
+    @Nonnull
+    private final Cell head = new Cell(null);
+
+    private PendingList(@Nonnull JStatementList list) {
+      this.list = list;
+      head.previous = head;
+      head.next = head;
+    }
+
+    /**
+     * @return the pending list, or null if {@code list} contains a statement twice, lookups would
+     * then not give the first occurrence.
+     */
+    @CheckForNull
+    private static PendingList create(@Nonnull JStatementList list) {
+      PendingList pending = new PendingList(list);
+      for (JStatement statement : list.getStatements()) {
+        if (pending.cells.containsKey(statement)) {
+          return null;
+        }
+        pending.linkBefore(pending.head, new Cell(statement));
+      }
+      return pending;
+    }
+
+    private void linkBefore(@Nonnull Cell existing, @Nonnull Cell cell) {
+      assert existing.previous != null;
+      cell.previous = existing.previous;
+      cell.next = existing;
+      existing.previous.next = cell;
+      existing.previous = cell;
+      cells.put(cell.statement, cell);
+    }
+
+    private void unlink(@Nonnull Cell cell) {
+      assert cell.previous != null && cell.next != null;
+      cell.previous.next = cell.next;
+      cell.next.previous = cell.previous;
+      cells.remove(cell.statement);
+    }
+
+    /**
+     * Rewrites the list in place, so that it is structurally modified only if its size changes,
+     * like with modifications applied on their own. Requests may be committed while the list is
+     * iterated.
+     */
+    private void flush() {
+      List<JStatement> statements = list.getStatements();
+      int size = statements.size();
+      int index = 0;
+      for (Cell cell = head.next; cell != head; cell = cell.next) {
+        assert cell != null;
+        if (index < size) {
+          statements.set(index, cell.statement);
+        } else {
+          statements.add(cell.statement);
+        }
+        index++;
+      }
+      if (index < size) {
+        statements.subList(index, size).clear();
+      }
+    }
+  }
+
+  private static enum Kind {
+    INSERT_BEFORE,
+    INSERT_AFTER,
+    REPLACE,
+    REMOVE
+  }
+
+  @Nonnull
+  private final Map<JStatementList, PendingList> pendingLists =
+      new IdentityHashMap<JStatementList, PendingList>();
+
+  StatementListBatch() {
+  }
+
+  /**
+   * Records the insertion of {@code newNode} before {@code existingNode}.
+   *
+   * @return false if {@code existingNode} is not a statement of a {@link JStatementList}, the
+   * modification must then be applied on its own.
+   */
+  public boolean insertBefore(@Nonnull JNode existingNode, @Nonnull JNode newNode) {
+    return transform(existingNode, newNode, Kind.INSERT_BEFORE);
+  }
+
+  /**
+   * Records the insertion of {@code newNode} after {@code existingNode}.
+   *
+   * @return false if {@code existingNode} is not a statement of a {@link JStatementList}, the
+   * modification must then be applied on its own.
+   */
+  public boolean insertAfter(@Nonnull JNode existingNode, @Nonnull JNode newNode) {
+    return transform(existingNode, newNode, Kind.INSERT_AFTER);
+  }
+
+  /**
+   * Records the replacement of {@code existingNode} by {@code newNode}.
+   *
+   * @return false if {@code existingNode} is not a statement of a {@link JStatementList}, the
+   * modification must then be applied on its own.
+   */
+  public boolean replace(@Nonnull JNode existingNode, @Nonnull JNode newNode) {
+    return transform(existingNode, newNode, Kind.REPLACE);
+  }
+
+  /**
+   * Records the removal of {@code existingNode}.
+   *
+   * @return false if {@code existingNode} is not a statement of a {@link JStatementList}, the
+   * modification must then be applied on its own.
+   */
+  public boolean remove(@Nonnull JNode existingNode) {
+    return transform(existingNode, null, Kind.REMOVE);
+  }
+
+  /**
+   * Records the insertion of {@code statement} at the end or at the beginning of {@code list}.
+   */
+  public void add(@Nonnull JStatementList list, @Nonnull JStatement statement, boolean atEnd) {
+    flushIn(statement);
+    PendingList pending = getPendingList(list);
+    if (pending == null || pending.cells.containsKey(statement)) {
+      flush(list);
+      if (atEnd) {
+        list.addStmt(statement);
+      } else {
+        list.addStmt(0, statement);
+      }
+    } else {
+      Cell cell = new Cell(statement);
+      pending.linkBefore(atEnd ? pending.head : pending.head.next, cell);
+    }
+    statement.updateParents(list);
+  }
+
+  /**
+   * Applies the pending modifications of the statements of {@code node}, if any. It must be called
+   * before {@code node} is modified or read by other means.
+   */
+  public void flush(@CheckForNull JNode node) {
+    if (node instanceof JStatementList) {
+      PendingList pending = pendingLists.remove(node);
+      if (pending != null) {
+        pending.flush();
+      }
+    }
+  }
+
+  /**
+   * Applies all pending modifications.
+   */
+  public void flush() {
+    for (PendingList pending : pendingLists.values()) {
+      pending.flush();
+    }
+    pendingLists.clear();
+  }
+
+  /**
+   * Applies the pending modifications of the lists contained in {@code node}, since setting the
+   * parents of {@code node} visits their statements.
+   */
+  private void flushIn(@Nonnull JNode node) {
+    if (!pendingLists.isEmpty()) {
+      new JVisitor(false /* needLoading */) {
+        @Override
+        public boolean visit(@Nonnull JBlock block) {
+          flush(block);
+          return super.visit(block);
+        }
+
+        @Override
+        public boolean visit(@Nonnull JCatchBlock catchBlock) {
+          flush(catchBlock);
+          return super.visit(catchBlock);
+        }
+      }.accept(node);
+    }
+  }
+
+  private boolean transform(@Nonnull JNode existingNode, @CheckForNull JNode newNode,
+      @Nonnull Kind kind) {
+    if (newNode != null) {
+      flushIn(newNode);
+    }
+
+    JNode parent = existingNode.getParent();
+    if (!(parent instanceof JStatementList)
+        || (newNode != null && !(newNode instanceof JStatement))) {
+      flush(parent);
+      return false;
+    }
+
+    PendingList pending = getPendingList((JStatementList) parent);
+    Cell cell = pending == null ? null : pending.cells.get(existingNode);
+    if (cell == null || (newNode != null && pending.cells.containsKey(newNode))) {
+      flush(parent);
+      return false;
+    }
+
+    switch (kind) {
+      case INSERT_BEFORE:
+        assert newNode != null;
+        pending.linkBefore(cell, new Cell((JStatement) newNode));
+        break;
+      case INSERT_AFTER:
+        assert newNode != null && cell.next != null;
+        pending.linkBefore(cell.next, new Cell((JStatement) newNode));
+        break;
+      case REPLACE:
+        assert newNode != null;
+        pending.cells.remove(cell.statement);
+        cell.statement = (JStatement) newNode;
+        pending.cells.put(cell.statement, cell);
+        break;
+      case REMOVE:
+        assert newNode == null;
+        pending.unlink(cell);
+        break;
+      default:
+        throw new AssertionError();
+    }
+
+    if (newNode != null) {
+      newNode.updateParents(parent);
+    }
+    return true;
+  }
+
+  @CheckForNull
+  private PendingList getPendingList(@Nonnull JStatementList list) {
+    PendingList pending = pendingLists.get(list);
+    if (pending == null) {
+      pending = PendingList.create(list);
+      if (pending != null) {
+        pendingLists.put(list, pending);
+      }
+    }
+    return pending;
+  }
+}
@@ -17,6 +17,9 @@
 package com.android.jack.transformations.request;
 
 import com.android.jack.ir.ast.JNode;
+import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.config.id.BooleanPropertyId;
 
 import java.util.Collection;
 import java.util.LinkedList;
@@ -28,8 +31,15 @@ import javax.annotation.Nonnull;
 /**
  * List of transformations that can be applied on the JAST.
  */
+@HasKeyId
 public class TransformationRequest {
 
+  @Nonnull
+  public static final BooleanPropertyId BATCHED_COMMIT = BooleanPropertyId.create(
+      "jack.transformation.request.batched",
+      "Rebuild each modified statement list once when committing a transformation request")
+      .addDefaultValue(Boolean.TRUE);
+
   @CheckForNull
   private List<TransformationStep> requests = new LinkedList<TransformationStep>();
 
@@ -62,12 +72,39 @@ public class TransformationRequest {
     }
 
     assert requests != null;
-    for (TransformationStep step : requests) {
-      step.apply();
+    if (ThreadConfig.get(BATCHED_COMMIT).booleanValue()) {
+      commitBatched(requests);
+    } else {
+      for (TransformationStep step : requests) {
+        step.apply();
+      }
     }
 
     // any further attempt to use this Request must crash.
     requests = null;
   }
 
+  /**
+   * Applies the steps with the same result as applying them one after the other, but modifications
+   * of statement lists are batched so that each list is rebuilt once instead of being searched and
+   * shifted for each modification.
+   */
+  private static void commitBatched(@Nonnull List<TransformationStep> steps)
+      throws UnsupportedOperationException {
+    StatementListBatch batch = new StatementListBatch();
+    try {
+      for (TransformationStep step : steps) {
+        if (step instanceof BatchableStep) {
+          ((BatchableStep) step).apply(batch);
+        } else {
+          // Unknown steps may read any statement list
+          batch.flush();
+          step.apply();
+        }
+      }
+    } finally {
+      batch.flush();
+    }
+  }
+
 }
@@ -17,7 +17,7 @@
 package com.android.jack.util.graph;
 
 import com.android.jack.Jack;
-import com.android.sched.marker.LocalMarkerManager;
+import com.android.sched.marker.CompactMarkerManager;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,7 +30,7 @@ import javax.annotation.Nonnull;
  *
  * @param <N> The type of graph node.
  */
-public class GraphNode<N extends GraphNode<N>> extends LocalMarkerManager {
+public class GraphNode<N extends GraphNode<N>> extends CompactMarkerManager {
 
   // TODO(mikaelpeltier) Think about new implementation of sparse list due to index usage and
   // append usage to fill successors.
@@ -16,14 +16,30 @@
 
 package com.android.jack;
 
+import com.android.jack.analysis.dfa.reachingdefs.ReachingDefsTest;
+import com.android.jack.analysis.hierarchy.ClassHierarchyTest;
+import com.android.jack.backend.dex.DexWritingTest;
+import com.android.jack.backend.dex.rop.ConcurrentOptimizerTest;
+import com.android.jack.backend.dex.rop.InternTableTest;
 import com.android.jack.backend.dex.rop.RopRegisterManagerTest;
+import com.android.jack.ir.ast.CompactMarkerManagerTest;
+import com.android.jack.ir.ast.FusedVisitorTest;
 import com.android.jack.ir.ast.MarkerCollectorTest;
+import com.android.jack.ir.ast.MemberIndexTest;
+import com.android.jack.ir.formatter.CachedNamesTest;
+import com.android.jack.ir.sourceinfo.SourceInfoFactoryTest;
 import com.android.jack.jayce.v0002.io.EscapeStringTest;
+import com.android.jack.jayce.v0003.io.StringTableTest;
+import com.android.jack.jayce.v0003.io.RoundTripTest;
+import com.android.jack.lookup.ConcurrentLookupTest;
 import com.android.jack.optimizations.ExpressionSimplifierTest;
 import com.android.jack.preprocessor.PreProcessorTest;
+import com.android.jack.server.CompilationCacheTest;
+import com.android.jack.server.JackServerTest;
 import com.android.jack.tracer.TracingTest;
 import com.android.jack.transformations.ast.string.StringSplittingTest;
 import com.android.jack.transformations.cast.UselessCastRemoverTest;
+import com.android.jack.transformations.request.TransformationRequestTest;
 
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -42,23 +58,41 @@ import org.junit.runners.Suite.SuiteClasses;
     com.android.jack.gwt.AllTests.class,
     com.android.jack.shrob.AllTests.class,
     com.android.jack.transformations.ast.AllTests.class,
+    CachedNamesTest.class,
+    CfgUpdateTest.class,
+    ClassHierarchyTest.class,
+    CompactMarkerManagerTest.class,
+    CompilationCacheTest.class,
+    ConcurrentLookupTest.class,
+    ConcurrentOptimizerTest.class,
     ConditionalTest.class,
+    DexWritingTest.class,
     EscapeStringTest.class,
     ExpressionSimplifierTest.class,
     FibonacciThreeAddressTest.class,
+    FusedVisitorTest.class,
+    InternTableTest.class,
     FinallyTest.class,
+    JackServerTest.class,
     JarjarTest.class,
     MainTest.class,
     MarkerCollectorTest.class,
+    MemberIndexTest.class,
     /* MultiDexOverflowTests.class, */
     /* MultiDexTests.class, */
     NoClasspathTest.class,
     PreProcessorTest.class,
-//    ReachingDefsTest.class,
+    ReachingDefsTest.class,
     RopRegisterManagerTest.class,
+    ScheduleInstanceTest.class,
+    SourceInfoFactoryTest.class,
     StaticValuesTest.class,
     StringSplittingTest.class,
+    RoundTripTest.class,
+    StringTableTest.class,
+    ThreadConfigTest.class,
     ToolchainTest.class,
+    TransformationRequestTest.class,
     Types.class,
     UnaryTest.class,
     UselessCastRemoverTest.class,
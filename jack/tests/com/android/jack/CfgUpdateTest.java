@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack;
+
+import com.android.jack.backend.dex.IntermediateDexProduct;
+import com.android.jack.cfg.CfgBuilder;
+import com.android.jack.cfg.CfgMarkerRemover;
+import com.android.jack.cfg.CfgUpdateChecker;
+import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JSession;
+import com.android.jack.library.JackLibraryFactory;
+import com.android.jack.library.OutputJackLibrary;
+import com.android.jack.optimizations.ConstantRefinerAndVariableRemover;
+import com.android.jack.optimizations.DefUsesChainsSimplifier;
+import com.android.jack.scheduling.marker.ClassDefItemMarker;
+import com.android.jack.transformations.ast.RefAsStatementRemover;
+import com.android.sched.item.Component;
+import com.android.sched.schedulable.Schedulable;
+import com.android.sched.scheduler.ManagedRunnable;
+import com.android.sched.scheduler.ManagedVisitor;
+import com.android.sched.scheduler.PlanBuilder;
+import com.android.sched.scheduler.Request;
+import com.android.sched.scheduler.SubPlanBuilder;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.file.Directory;
+import com.android.sched.util.file.FileOrDirectory.ChangePermission;
+import com.android.sched.util.file.FileOrDirectory.Existence;
+import com.android.sched.util.file.FileOrDirectory.Permission;
+import com.android.sched.vfs.DirectVFS;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Checks that the {@link com.android.jack.cfg.ControlFlowGraph} kept up to date by the schedulables
+ * removing instructions is the one {@link CfgBuilder} would build. The dex plan is run with the
+ * graph built again after each of them, and compared to the updated one. The last check is done
+ * after {@link com.android.jack.optimizations.UnusedDefinitionRemover} and
+ * {@link RefAsStatementRemover}, on the graph read by
+ * {@link com.android.jack.optimizations.IfWithConstantSimplifier}. This one and
+ * {@link com.android.jack.transformations.uselessif.UselessIfRemover} change the control flow, the
+ * graph is built again after them in the dex plan.
+ */
+public class CfgUpdateTest {
+
+  @Nonnull
+  private static final String[] TESTS = {
+    "optimizations/uselesscopy/test001",
+    "optimizations/exprsimplifier/test001",
+    "ifstatement/advancedTest",
+    "ifstatement/cfgTest",
+    "ifstatement/fastpath",
+    "flow/loop",
+    "conditional/test004",
+    "dx/compiler",
+    "dx/optimizer"};
+
+  @Nonnull
+  private static final List<Class<? extends Schedulable>> UPDATING =
+      Arrays.<Class<? extends Schedulable>>asList(
+          ConstantRefinerAndVariableRemover.class,
+          DefUsesChainsSimplifier.class,
+          // Also checks UnusedDefinitionRemover, which leaves references as statements that are
+          // not supported by CfgBuilder
+          RefAsStatementRemover.class);
+
+  @BeforeClass
+  public static void setUpClass() {
+    CfgUpdateTest.class.getClassLoader().setDefaultAssertionStatus(true);
+  }
+
+  @Test
+  public void updatedCfgIsRebuiltCfg() throws Exception {
+    int compared = 0;
+    int changed = 0;
+    for (String test : TESTS) {
+      CfgUpdateChecker.reset();
+      buildSession(TestTools.buildCommandLineArgs(TestTools.getJackTestsWithJackFolder(test)));
+      Assert.assertTrue(test, CfgUpdateChecker.getComparedCount() > 0);
+      compared += CfgUpdateChecker.getComparedCount();
+      changed += CfgUpdateChecker.getChangedCount();
+    }
+    // Instructions were removed, thus blocks changed, in some of the compared graphs
+    Assert.assertTrue(changed > 0);
+    Assert.assertTrue(compared > changed);
+  }
+
+  private static void buildSession(@Nonnull Options options) throws Exception {
+    RunnableHooks hooks = new RunnableHooks();
+    OutputJackLibrary outputLibrary = null;
+    try {
+      options.checkValidity(hooks);
+      ThreadConfig.setConfig(options.getConfig());
+
+      JSession session = Jack.buildSession(options, hooks);
+
+      Request request = Jack.createInitialRequest();
+      request.addInitialTagsOrMarkers(Jack.getJavaSourceInitialTagSet());
+      request.addProduction(IntermediateDexProduct.class);
+
+      outputLibrary = JackLibraryFactory.getOutputLibrary(new DirectVFS(new Directory(
+          TestTools.createTempDir("unused", "").getPath(), hooks, Existence.MUST_EXIST,
+          Permission.WRITE, ChangePermission.NOCHANGE)), Jack.getEmitterId(),
+          Jack.getVersionString());
+      session.setJackInternalOutputLibrary(outputLibrary);
+
+      PlanBuilder<JSession> planBuilder = new CheckingPlanBuilder(request);
+      Jack.fillDexPlan(options, planBuilder);
+      request.addTargetIncludeTagOrMarker(ClassDefItemMarker.Complete.class);
+
+      planBuilder.getPlan().getScheduleInstance().process(session);
+    } finally {
+      if (outputLibrary != null) {
+        outputLibrary.close();
+      }
+      hooks.runHooks();
+      ThreadConfig.unsetConfig();
+    }
+  }
+
+  /**
+   * Builds the plans of the {@link JMethod}s with checks after the schedulables updating the cfg.
+   */
+  private static class CheckingPlanBuilder extends PlanBuilder<JSession> {
+
+    public CheckingPlanBuilder(@Nonnull Request request) {
+      super(request, JSession.class);
+    }
+
+    @Override
+    @Nonnull
+    public <U extends Component> SubPlanBuilder<U> appendSubPlan(
+        @Nonnull ManagedVisitor visitor) {
+      return new CheckingSubPlanBuilder<U>(super.<U>appendSubPlan(visitor));
+    }
+  }
+
+  private static class CheckingSubPlanBuilder<T extends Component> extends SubPlanBuilder<T> {
+
+    @Nonnull
+    private final SubPlanBuilder<T> delegate;
+
+    private boolean hasCfg = false;
+
+    public CheckingSubPlanBuilder(@Nonnull SubPlanBuilder<T> delegate) {
+      super(delegate.getRunOn());
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void append(@Nonnull ManagedRunnable runner) {
+      delegate.append(runner);
+      if (runner.getSchedulable() == CfgBuilder.class) {
+        hasCfg = true;
+      } else if (runner.getSchedulable() == CfgMarkerRemover.class) {
+        hasCfg = false;
+      } else if (hasCfg && UPDATING.contains(runner.getSchedulable())) {
+        @SuppressWarnings("unchecked")
+        SubPlanBuilder<JMethod> methodPlan = (SubPlanBuilder<JMethod>) delegate;
+        methodPlan.append(CfgUpdateChecker.class);
+        methodPlan.append(CfgMarkerRemover.class);
+        methodPlan.append(CfgBuilder.class);
+        methodPlan.append(CfgUpdateChecker.class);
+      }
+    }
+
+    @Override
+    @Nonnull
+    public <U extends Component> SubPlanBuilder<U> appendSubPlan(
+        @Nonnull ManagedVisitor visitor) {
+      return new CheckingSubPlanBuilder<U>(delegate.<U>appendSubPlan(visitor));
+    }
+  }
+}
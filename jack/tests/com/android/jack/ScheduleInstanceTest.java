@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Checks that running the plan with the work-stealing runner gives the same dex as running it
+ * with the multi-threaded runner. The plans contain adapters to methods and synchronized
+ * schedulables, such as the ones building class definitions and visibility bridges. Sources are
+ * chosen so that the dex does not depend on the order in which workers process methods, which is
+ * not the case of the numbering of inner accessors.
+ */
+public class ScheduleInstanceTest {
+
+  @Nonnull
+  private static final String[] TESTS = {
+    "fibonacci/test001",
+    "bridge/test001",
+    "enums/test002",
+    "inner/test005",
+    "synchronize/test001",
+    "dx/compiler"};
+
+  @BeforeClass
+  public static void setUpClass() {
+    ScheduleInstanceTest.class.getClassLoader().setDefaultAssertionStatus(true);
+  }
+
+  @Test
+  public void workStealingGivesSameDex() throws Exception {
+    for (String test : TESTS) {
+      File sourceFolder = TestTools.getJackTestsWithJackFolder(test);
+      Assert.assertTrue(test, Arrays.equals(compile(sourceFolder, "multi-threaded", true),
+          compile(sourceFolder, "work-stealing", true)));
+    }
+  }
+
+  @Test
+  public void workStealingWithUnmanagedSynchronizedGivesSameDex() throws Exception {
+    for (String test : TESTS) {
+      File sourceFolder = TestTools.getJackTestsWithJackFolder(test);
+      Assert.assertTrue(test, Arrays.equals(compile(sourceFolder, "multi-threaded", false),
+          compile(sourceFolder, "work-stealing", false)));
+    }
+  }
+
+  @Nonnull
+  private static byte[] compile(@Nonnull File sourceFolder, @Nonnull String runner,
+      boolean managedSynchronized) throws Exception {
+    Options options = new Options();
+    options.addProperty("sched.runner", runner);
+    // More workers than cores, so that tasks are stolen even on a single core
+    options.addProperty("sched.runner.thread.kind", "fixed");
+    options.addProperty("sched.runner.thread.fixed.count", "4");
+    options.addProperty("sched.runner.thread.synchronized",
+        Boolean.toString(managedSynchronized));
+    File outFolder = TestTools.createTempDir("schedule-instance", "dex");
+    TestTools.compileSourceToDex(options, sourceFolder,
+        TestTools.getDefaultBootclasspathString(), outFolder, /* zip = */ false);
+    return readFile(new File(outFolder, "classes.dex"));
+  }
+
+  @Nonnull
+  private static byte[] readFile(@Nonnull File file) throws IOException {
+    byte[] content = new byte[(int) file.length()];
+    InputStream in = new FileInputStream(file);
+    try {
+      int offset = 0;
+      while (offset < content.length) {
+        int read = in.read(content, offset, content.length - offset);
+        if (read == -1) {
+          throw new IOException("Unexpected end of " + file.getPath());
+        }
+        offset += read;
+      }
+    } finally {
+      in.close();
+    }
+    return content;
+  }
+}
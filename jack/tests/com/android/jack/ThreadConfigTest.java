@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack;
+
+import com.android.jack.backend.dex.rop.CodeItemBuilder;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ResolvedConfig;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.config.id.ObjectId;
+
+import junit.framework.Assert;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+public class ThreadConfigTest {
+
+  @Nonnull
+  private static final Pattern LOOP = Pattern.compile("\\b(for|while|do)\\b");
+
+  @Nonnull
+  private static final Pattern TLS_READ = Pattern.compile(
+      "ThreadConfig\\s*\\.\\s*get\\s*\\(|TracerFactory\\s*\\.\\s*getTracer\\s*\\(");
+
+  private static RunnableHooks hooks;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    ThreadConfigTest.class.getClassLoader().setDefaultAssertionStatus(true);
+    Options options = new Options();
+    hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    options.getConfigBuilder(hooks).setDebug();
+    ThreadConfig.setConfig(options.getConfig());
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    ThreadConfig.unsetConfig();
+    hooks.runHooks();
+  }
+
+  @Test
+  public void resolvedConfigGivesConfigValues() {
+    ResolvedConfig config = ThreadConfig.getResolvedConfig();
+
+    Assert.assertTrue(CodeItemBuilder.FORCE_JUMBO.getIndex() >= 0);
+    Assert.assertTrue(Options.METHOD_FILTER.getIndex() >= 0);
+    Assert.assertTrue(CodeItemBuilder.FORCE_JUMBO.getIndex() != Options.METHOD_FILTER.getIndex());
+
+    Assert.assertEquals(ThreadConfig.get(CodeItemBuilder.FORCE_JUMBO),
+        config.get(CodeItemBuilder.FORCE_JUMBO));
+    Assert.assertSame(ThreadConfig.get(Options.METHOD_FILTER), config.get(Options.METHOD_FILTER));
+    Assert.assertSame(config.get(Options.METHOD_FILTER), config.get(Options.METHOD_FILTER));
+
+    // Ids not declared in a HasKeyId class go through the configuration itself
+    ObjectId<StringBuilder> objectId =
+        new ObjectId<StringBuilder>("jack.test.object", StringBuilder.class);
+    Assert.assertEquals(-1, objectId.getIndex());
+    Assert.assertSame(ThreadConfig.get(objectId), config.get(objectId));
+  }
+
+  /**
+   * Configuration must not be read through the thread local in the body of a loop: read it once
+   * before the loop, or keep a {@link ResolvedConfig}.
+   */
+  @Test
+  public void noThreadConfigReadInLoops() throws IOException {
+    List<String> errors = new ArrayList<String>();
+    checkLoops(TestTools.getFromAndroidTree("toolchain/jack/jack/src"), errors);
+    checkLoops(TestTools.getFromAndroidTree("toolchain/jack/sched/src"), errors);
+
+    StringBuilder message = new StringBuilder("Configuration read inside a loop:");
+    for (String error : errors) {
+      message.append("\n  ");
+      message.append(error);
+    }
+    Assert.assertTrue(message.toString(), errors.isEmpty());
+  }
+
+  private static void checkLoops(@Nonnull File file, @Nonnull List<String> errors)
+      throws IOException {
+    if (file.isDirectory()) {
+      File[] children = file.listFiles();
+      assert children != null;
+      for (File child : children) {
+        checkLoops(child, errors);
+      }
+    } else if (file.getName().endsWith(".java")) {
+      String code = stripCommentsAndLiterals(read(file));
+      Matcher loop = LOOP.matcher(code);
+      while (loop.find()) {
+        int bodyStart = loop.end();
+        if (!loop.group(1).equals("do")) {
+          bodyStart = skipSpaces(code, bodyStart);
+          if (bodyStart >= code.length() || code.charAt(bodyStart) != '(') {
+            // 'while' of a 'do' loop, or an identifier
+            continue;
+          }
+          bodyStart = findClosing(code, bodyStart, '(', ')') + 1;
+        }
+        bodyStart = skipSpaces(code, bodyStart);
+        int bodyEnd;
+        if (bodyStart < code.length() && code.charAt(bodyStart) == '{') {
+          bodyEnd = findClosing(code, bodyStart, '{', '}');
+        } else {
+          bodyEnd = code.indexOf(';', bodyStart);
+          if (bodyEnd < 0) {
+            bodyEnd = code.length();
+          }
+        }
+
+        Matcher read = TLS_READ.matcher(code).region(bodyStart, bodyEnd);
+        while (read.find()) {
+          errors.add(file.getPath() + ":" + getLine(code, read.start()));
+        }
+      }
+    }
+  }
+
+  @Nonnull
+  private static String read(@Nonnull File file) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+    try {
+      char[] buffer = new char[8192];
+      int length;
+      while ((length = reader.read(buffer)) > 0) {
+        sb.append(buffer, 0, length);
+      }
+    } finally {
+      reader.close();
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Replaces comments, strings and characters by spaces, keeping line breaks.
+   */
+  @Nonnull
+  private static String stripCommentsAndLiterals(@Nonnull String code) {
+    StringBuilder sb = new StringBuilder(code.length());
+    int length = code.length();
+    int idx = 0;
+    while (idx < length) {
+      char c = code.charAt(idx);
+      int end;
+      if (code.startsWith("//", idx)) {
+        end = code.indexOf('\n', idx);
+        if (end < 0) {
+          end = length;
+        }
+      } else if (code.startsWith("/*", idx)) {
+        end = code.indexOf("*/", idx + 2);
+        end = (end < 0) ? length : end + 2;
+      } else if (c == '"' || c == '\'') {
+        end = idx + 1;
+        while (end < length && code.charAt(end) != c) {
+          end += (code.charAt(end) == '\\') ? 2 : 1;
+        }
+        end = Math.min(end + 1, length);
+      } else {
+        sb.append(c);
+        idx++;
+        continue;
+      }
+
+      for (; idx < end; idx++) {
+        sb.append(code.charAt(idx) == '\n' ? '\n' : ' ');
+      }
+    }
+    return sb.toString();
+  }
+
+  @Nonnegative
+  private static int skipSpaces(@Nonnull String code, @Nonnegative int idx) {
+    while (idx < code.length() && Character.isWhitespace(code.charAt(idx))) {
+      idx++;
+    }
+    return idx;
+  }
+
+  @Nonnegative
+  private static int findClosing(@Nonnull String code, @Nonnegative int idx, char open,
+      char close) {
+    int depth = 0;
+    for (; idx < code.length(); idx++) {
+      char c = code.charAt(idx);
+      if (c == open) {
+        depth++;
+      } else if (c == close) {
+        depth--;
+        if (depth == 0) {
+          return idx;
+        }
+      }
+    }
+    return code.length();
+  }
+
+  @Nonnegative
+  private static int getLine(@Nonnull String code, @Nonnegative int idx) {
+    int line = 1;
+    for (int i = 0; i < idx; i++) {
+      if (code.charAt(i) == '\n') {
+        line++;
+      }
+    }
+    return line;
+  }
+}
@@ -17,19 +17,40 @@
 package com.android.jack.analysis.dfa.reachingdefs;
 
 import com.android.jack.Main;
+import com.android.jack.Options;
+import com.android.jack.TestTools;
 import com.android.jack.analysis.DefinitionMarker;
+import com.android.jack.category.SlowTests;
 import com.android.jack.cfg.BasicBlock;
 import com.android.jack.cfg.ControlFlowGraph;
+import com.android.jack.cfg.PeiBasicBlock;
 import com.android.jack.cfg.SwitchBasicBlock;
 import com.android.jack.ir.ast.JAsgOperation;
+import com.android.jack.ir.ast.JDefinedClass;
 import com.android.jack.ir.ast.JIntLiteral;
 import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JParameter;
+import com.android.jack.ir.ast.JStatement;
+import com.android.jack.ir.ast.JThis;
 import com.android.jack.ir.ast.JVariableRef;
+import com.android.jack.util.ThreeAddressCodeFormUtils;
 import com.android.sched.util.codec.ImplementationName;
 
 import junit.framework.Assert;
 
 import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Nonnull;
 
@@ -74,4 +95,149 @@ public class ReachingDefsTest {
       }
     }
   }
+
+  /**
+   * Recompute reaching definitions with a plain round robin iteration over sets, and check that
+   * they are the ones computed by {@link ReachingDefinitions}.
+   */
+  @ImplementationName(iface = ReachingDefinitionsChecker.class, name = "reference-checker")
+  public static class ReferenceReachingDefinitionsChecker implements ReachingDefinitionsChecker {
+
+    @Override
+    public void check(@Nonnull JMethod method) {
+      ControlFlowGraph cfg = method.getMarker(ControlFlowGraph.class);
+      assert cfg != null;
+
+      Map<BasicBlock, Set<DefinitionMarker>> in = new HashMap<BasicBlock, Set<DefinitionMarker>>();
+      Map<BasicBlock, Set<DefinitionMarker>> out =
+          new HashMap<BasicBlock, Set<DefinitionMarker>>();
+      Map<BasicBlock, Set<DefinitionMarker>> outException =
+          new HashMap<BasicBlock, Set<DefinitionMarker>>();
+      for (BasicBlock bb : cfg.getNodes()) {
+        in.put(bb, new HashSet<DefinitionMarker>());
+        out.put(bb, new HashSet<DefinitionMarker>());
+        outException.put(bb, new HashSet<DefinitionMarker>());
+      }
+
+      Set<DefinitionMarker> entryIn = in.get(cfg.getEntryNode());
+      JThis jThis = method.getThis();
+      if (!method.isStatic() && method.getEnclosingType() instanceof JDefinedClass) {
+        assert jThis != null;
+        entryIn.add(jThis.getMarker(DefinitionMarker.class));
+      }
+      for (JParameter param : method.getParams()) {
+        entryIn.add(param.getMarker(DefinitionMarker.class));
+      }
+
+      boolean changed = true;
+      while (changed) {
+        changed = false;
+        for (BasicBlock bb : cfg.getNodes()) {
+          Set<DefinitionMarker> bbIn = in.get(bb);
+          if (!bb.getPredecessors().isEmpty()) {
+            bbIn = new HashSet<DefinitionMarker>();
+            for (BasicBlock pred : bb.getPredecessors()) {
+              if (pred instanceof PeiBasicBlock
+                  && ((PeiBasicBlock) pred).getExceptionBlocks().contains(bb)) {
+                bbIn.addAll(outException.get(pred));
+              } else {
+                bbIn.addAll(out.get(pred));
+              }
+            }
+          }
+
+          Set<DefinitionMarker> bbOut = new HashSet<DefinitionMarker>(bbIn);
+          Set<DefinitionMarker> bbOutException = new HashSet<DefinitionMarker>();
+          List<JStatement> statements = bb.getStatements();
+          for (int i = 0; i < statements.size(); i++) {
+            if (i == statements.size() - 1) {
+              bbOutException.addAll(bbOut);
+            }
+            DefinitionMarker def = ThreeAddressCodeFormUtils.getDefinitionMarker(statements.get(i));
+            if (def != null) {
+              Iterator<DefinitionMarker> iterator = bbOut.iterator();
+              while (iterator.hasNext()) {
+                if (iterator.next().getDefinedVariable() == def.getDefinedVariable()) {
+                  iterator.remove();
+                }
+              }
+              bbOut.add(def);
+            }
+          }
+
+          if (!bbIn.equals(in.get(bb)) || !bbOut.equals(out.get(bb))
+              || !bbOutException.equals(outException.get(bb))) {
+            in.put(bb, bbIn);
+            out.put(bb, bbOut);
+            outException.put(bb, bbOutException);
+            changed = true;
+          }
+        }
+      }
+
+      for (BasicBlock bb : cfg.getNodes()) {
+        ReachingDefsMarker rdm = bb.getMarker(ReachingDefsMarker.class);
+        assert rdm != null;
+        Assert.assertEquals(method.getName() + " " + bb, in.get(bb),
+            new HashSet<DefinitionMarker>(rdm.getReachingDefs()));
+      }
+    }
+  }
+
+  @Test
+  public void checkAgainstReference() throws Exception {
+    String[] tests = {"analysis/dfa/reachingdefs/test001", "flow/loop", "switchstatement/test001",
+        "trycatch/test001", "trycatch/test002", "tryfinally/finally002"};
+    for (String test : tests) {
+      Options options = TestTools.buildCommandLineArgs(TestTools.getJackTestsWithJackFolder(test));
+      options.addProperty(ReachingDefinitions.REACHING_DEFS_CHECKER.getName(),
+          "reference-checker");
+      TestTools.runCompilation(options);
+    }
+  }
+
+  /**
+   * Compile a generated method with more than 10000 definitions, spread over a loop with
+   * thousands of blocks.
+   */
+  @Test
+  @Category(SlowTests.class)
+  public void largeMethod() throws Exception {
+    File sourceDir = TestTools.createTempDir("reachingdefs", "src");
+    File source = new File(sourceDir, "Large.java");
+    PrintWriter writer = new PrintWriter(new FileWriter(source));
+    try {
+      writeLargeMethod(writer, 50, 3500);
+    } finally {
+      writer.close();
+    }
+
+    TestTools.runCompilation(TestTools.buildCommandLineArgs(source));
+  }
+
+  private static void writeLargeMethod(@Nonnull PrintWriter writer, int variableCount,
+      int chunkCount) {
+    writer.println("public class Large {");
+    writer.println("  public static int compute(int p) {");
+    for (int v = 0; v < variableCount; v++) {
+      writer.println("    int v" + v + " = p + " + v + ";");
+    }
+    writer.println("    for (int i = 0; i < p; i++) {");
+    for (int c = 0; c < chunkCount; c++) {
+      int v = c % variableCount;
+      int w = (c * 7 + 1) % variableCount;
+      writer.println("      v" + v + " = v" + w + " * " + c + " + i;");
+      writer.println("      if (v" + v + " > " + c + ") {");
+      writer.println("        v" + w + " = v" + v + " - v" + w + ";");
+      writer.println("      }");
+    }
+    writer.println("    }");
+    StringBuilder sum = new StringBuilder("v0");
+    for (int v = 1; v < variableCount; v++) {
+      sum.append(" + v").append(v);
+    }
+    writer.println("    return " + sum + ";");
+    writer.println("  }");
+    writer.println("}");
+  }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.analysis.hierarchy;
+
+import com.android.jack.Options;
+import com.android.jack.ir.ast.JDefinedClass;
+import com.android.jack.ir.ast.JDefinedClassOrInterface;
+import com.android.jack.ir.ast.JDefinedInterface;
+import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JMethodId;
+import com.android.jack.ir.ast.JModifier;
+import com.android.jack.ir.ast.JPackage;
+import com.android.jack.ir.ast.JPrimitiveType.JPrimitiveTypeEnum;
+import com.android.jack.ir.ast.JSession;
+import com.android.jack.ir.ast.JType;
+import com.android.jack.ir.ast.MethodKind;
+import com.android.jack.ir.sourceinfo.SourceInfo;
+import com.android.jack.load.NopClassOrInterfaceLoader;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ThreadConfig;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+public class ClassHierarchyTest {
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    ClassHierarchyTest.class.getClassLoader().setDefaultAssertionStatus(true);
+    Options options = new Options();
+    RunnableHooks hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    options.getConfigBuilder(hooks).setDebug();
+    ThreadConfig.setConfig(options.getConfig());
+  }
+
+  @Test
+  public void hierarchy() throws Exception {
+    JPackage p = new JPackage("test", new JSession(), null);
+    JDefinedInterface i = createInterface("I", p);
+    JDefinedInterface j = createInterface("J", p);
+    j.addImplements(i);
+    JDefinedClass a = createClass("A", p);
+    a.addImplements(j);
+    JDefinedClass b = createClass("B", p);
+    b.setSuperClass(a);
+    JDefinedClass c = createClass("C", p);
+    c.setSuperClass(b);
+    c.addImplements(i);
+    JDefinedClass d = createClass("D", p);
+
+    JMethodId m = new JMethodId("m", Collections.<JType>emptyList(), MethodKind.INSTANCE_VIRTUAL);
+    JMethod mInA = addMethod(a, m);
+    JMethod mInB = addMethod(b, m);
+
+    ClassHierarchy hierarchy = new ClassHierarchy(Arrays.asList(i, j, a, b, c, d));
+
+    Assert.assertEquals(Arrays.asList(b, a, j, i), hierarchy.getSuperTypes(c));
+    Assert.assertEquals(Arrays.asList(j, a, b, c), hierarchy.getSubTypes(i));
+    Assert.assertEquals(Arrays.asList(b, c), hierarchy.getSubTypes(a));
+    Assert.assertTrue(hierarchy.getSuperTypes(d).isEmpty());
+    Assert.assertTrue(hierarchy.getSubTypes(d).isEmpty());
+
+    JType voidType = JPrimitiveTypeEnum.VOID.getType();
+    Assert.assertSame(mInA, hierarchy.getMethod(m, voidType, a));
+    Assert.assertNull(hierarchy.getMethod(m, voidType, c));
+    Assert.assertNull(hierarchy.getMethod(m, JPrimitiveTypeEnum.INT.getType(), a));
+    Assert.assertSame(mInA, hierarchy.getImplementation(m, voidType, a));
+    Assert.assertSame(mInB, hierarchy.getImplementation(m, voidType, c));
+    Assert.assertNull(hierarchy.getImplementation(m, voidType, d));
+  }
+
+  @Test
+  public void parallelConstruction() throws Exception {
+    JPackage p = new JPackage("test", new JSession(), null);
+    JDefinedInterface i = createInterface("I", p);
+    JDefinedClass root = createClass("Root", p);
+    root.addImplements(i);
+    List<JDefinedClassOrInterface> types = new ArrayList<JDefinedClassOrInterface>();
+    types.add(i);
+    types.add(root);
+    for (int index = 0; index < 5000; index++) {
+      JDefinedClass type = createClass("C" + index, p);
+      type.setSuperClass(root);
+      types.add(type);
+    }
+
+    ClassHierarchy hierarchy = new ClassHierarchy(types);
+
+    Assert.assertEquals(types.subList(1, types.size()), hierarchy.getSubTypes(i));
+    Assert.assertEquals(types.subList(2, types.size()), hierarchy.getSubTypes(root));
+    for (JDefinedClassOrInterface type : types.subList(2, types.size())) {
+      Assert.assertEquals(Arrays.asList(root, i), hierarchy.getSuperTypes(type));
+    }
+  }
+
+  @Nonnull
+  private static JDefinedClass createClass(@Nonnull String name, @Nonnull JPackage p) {
+    return new JDefinedClass(SourceInfo.UNKNOWN, name, JModifier.PUBLIC, p,
+        NopClassOrInterfaceLoader.INSTANCE);
+  }
+
+  @Nonnull
+  private static JDefinedInterface createInterface(@Nonnull String name, @Nonnull JPackage p) {
+    return new JDefinedInterface(SourceInfo.UNKNOWN, name,
+        JModifier.PUBLIC | JModifier.INTERFACE | JModifier.ABSTRACT, p,
+        NopClassOrInterfaceLoader.INSTANCE);
+  }
+
+  @Nonnull
+  private static JMethod addMethod(@Nonnull JDefinedClass type, @Nonnull JMethodId methodId) {
+    JMethod method = new JMethod(SourceInfo.UNKNOWN, methodId, type,
+        JPrimitiveTypeEnum.VOID.getType(), JModifier.PUBLIC);
+    type.addMethod(method);
+    return method;
+  }
+}
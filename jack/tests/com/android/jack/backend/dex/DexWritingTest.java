@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.backend.dex;
+
+import com.android.jack.Options;
+import com.android.jack.TestTools;
+import com.android.jack.category.SlowTests;
+import com.android.jack.dx.dex.DexOptions;
+import com.android.jack.dx.dex.file.DexFile;
+import com.android.jack.dx.io.DexBuffer;
+import com.android.jack.tools.merger.JackMerger;
+import com.android.sched.util.config.id.BooleanPropertyId;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Checks that merging dex files concurrently gives the same files as merging them sequentially,
+ * including when the output is split in several dex files, that writing the parts of a dex file
+ * concurrently gives the same file as writing it in one array, and that merging types directly
+ * gives the same file as merging intermediate dex files.
+ */
+public class DexWritingTest {
+
+  @Nonnull
+  private static final Comparator<byte[]> BYTES_COMPARATOR = new Comparator<byte[]>() {
+    @Override
+    public int compare(byte[] b1, byte[] b2) {
+      for (int i = 0; i < b1.length && i < b2.length; i++) {
+        if (b1[i] != b2[i]) {
+          return b1[i] - b2[i];
+        }
+      }
+      return b1.length - b2.length;
+    }
+  };
+
+  @BeforeClass
+  public static void setUpClass() {
+    DexWritingTest.class.getClassLoader().setDefaultAssertionStatus(true);
+  }
+
+  @Test
+  public void parallelMergeGivesSameDex() throws Exception {
+    File sourceFolder = TestTools.getJackTestsWithJackFolder("fibonacci/test001");
+    Assert.assertTrue(Arrays.equals(compile(sourceFolder, DexWritingTool.PARALLEL_MERGE, false),
+        compile(sourceFolder, DexWritingTool.PARALLEL_MERGE, true)));
+  }
+
+  /**
+   * Compiles types declaring more fields than a dex can reference, plus a type forced in the main
+   * dex, so that the output has a main dex and several secondary dex files. The order of the types
+   * to emit depends on identity hash codes, so it changes from one compilation to another in the
+   * same process. Each secondary type fills its own dex, and dex files are compared whatever their
+   * order.
+   */
+  @Test
+  @Category(SlowTests.class)
+  public void parallelMergeGivesSameMultiDex() throws Exception {
+    File sourceFolder = createMultiDexSources();
+    List<byte[]> sequential = compileMultiDex(sourceFolder, false);
+    List<byte[]> parallel = compileMultiDex(sourceFolder, true);
+    Assert.assertEquals(4, sequential.size());
+    Assert.assertEquals(sequential.size(), parallel.size());
+    Collections.sort(sequential, BYTES_COMPARATOR);
+    Collections.sort(parallel, BYTES_COMPARATOR);
+    for (int i = 0; i < sequential.size(); i++) {
+      Assert.assertTrue(Arrays.equals(sequential.get(i), parallel.get(i)));
+    }
+  }
+
+  @Test
+  public void directMergeGivesSameDex() throws Exception {
+    File sourceFolder = TestTools.getJackTestsWithJackFolder("dx/compiler");
+    Assert.assertTrue(Arrays.equals(compile(sourceFolder, DexWritingTool.DIRECT_MERGE, false),
+        compile(sourceFolder, DexWritingTool.DIRECT_MERGE, true)));
+  }
+
+  @Test
+  public void concurrentPartsGiveSameDex() throws Exception {
+    byte[] input = compile(TestTools.getJackTestsWithJackFolder("dx/compiler"),
+        DexWritingTool.PARALLEL_MERGE, false);
+    DexFile dexFile = new DexFile(new DexOptions());
+    JackMerger merger = new JackMerger(dexFile);
+    merger.addDexFile(new DexBuffer(input));
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      merger.finish(out, executor);
+      Assert.assertTrue(Arrays.equals(dexFile.toDex(null, false), out.toByteArray()));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Nonnull
+  private static byte[] compile(@Nonnull File sourceFolder, @Nonnull BooleanPropertyId property,
+      boolean value) throws Exception {
+    Options options = new Options();
+    options.addProperty(property.getName(), Boolean.toString(value));
+    File outFolder = TestTools.createTempDir("dex-writing", "dex");
+    TestTools.compileSourceToDex(options, sourceFolder,
+        TestTools.getDefaultBootclasspathString(), outFolder, /* zip = */ false);
+    return readFile(new File(outFolder, "classes.dex"));
+  }
+
+  @Nonnull
+  private static List<byte[]> compileMultiDex(@Nonnull File sourceFolder, boolean parallel)
+      throws Exception {
+    Options options = new Options();
+    options.addProperty(DexFileWriter.DEX_WRITING_POLICY.getName(), "minimal-multidex");
+    options.addProperty(MultiDexLegacy.MULTIDEX_LEGACY.getName(), "true");
+    options.addProperty(DexWritingTool.PARALLEL_MERGE.getName(), Boolean.toString(parallel));
+    File outFolder = TestTools.createTempDir("dex-writing", "dex");
+    TestTools.compileSourceToDex(options, sourceFolder,
+        TestTools.getDefaultBootclasspathString(), outFolder, /* zip = */ false);
+
+    List<byte[]> dexes = new ArrayList<byte[]>();
+    File dex = new File(outFolder, "classes.dex");
+    while (dex.exists()) {
+      dexes.add(readFile(dex));
+      dex = new File(outFolder, "classes" + (dexes.size() + 1) + ".dex");
+    }
+    return dexes;
+  }
+
+  @Nonnull
+  private static File createMultiDexSources() throws IOException {
+    File sourceFolder = TestTools.createTempDir("dex-writing", "src");
+    File annotationFolder = new File(sourceFolder, "com/android/jack/annotations");
+    File testFolder = new File(sourceFolder, "test");
+    if (!annotationFolder.mkdirs() || !testFolder.mkdirs()) {
+      throw new IOException("Failed to create folders in " + sourceFolder.getPath());
+    }
+
+    PrintWriter writer = createWriter(new File(annotationFolder, "ForceInMainDex.java"));
+    writer.println("package com.android.jack.annotations;");
+    writer.println("@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.SOURCE)");
+    writer.println("public @interface ForceInMainDex {}");
+    writer.close();
+
+    writer = createWriter(new File(testFolder, "Main.java"));
+    writer.println("package test;");
+    writer.println("@com.android.jack.annotations.ForceInMainDex");
+    writer.println("public class Main {");
+    writer.println("  public static int get() { return Fields0.f0; }");
+    writer.println("}");
+    writer.close();
+
+    // 2 * 35000 fields do not fit in the 65536 field ids of a single dex
+    for (int type = 0; type < 3; type++) {
+      writer = createWriter(new File(testFolder, "Fields" + type + ".java"));
+      writer.println("package test;");
+      writer.println("public class Fields" + type + " {");
+      for (int field = 0; field < 35000; field++) {
+        writer.println("  public static int f" + field + ";");
+      }
+      writer.println("}");
+      writer.close();
+    }
+
+    return sourceFolder;
+  }
+
+  @Nonnull
+  private static PrintWriter createWriter(@Nonnull File file) throws IOException {
+    return new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+  }
+
+  @Nonnull
+  private static byte[] readFile(@Nonnull File file) throws IOException {
+    byte[] content = new byte[(int) file.length()];
+    InputStream in = new FileInputStream(file);
+    try {
+      int offset = 0;
+      while (offset < content.length) {
+        int read = in.read(content, offset, content.length - offset);
+        if (read == -1) {
+          throw new IOException("Unexpected end of " + file.getPath());
+        }
+        offset += read;
+      }
+    } finally {
+      in.close();
+    }
+    return content;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.backend.dex.rop;
+
+import com.android.jack.Options;
+import com.android.jack.TestTools;
+import com.android.jack.category.SlowTests;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Stress test of the dx optimizer run on many methods at the same time, its output must be the
+ * one of a single-threaded run.
+ */
+@Category(SlowTests.class)
+public class ConcurrentOptimizerTest {
+
+  private static final int THREAD_COUNT = 16;
+
+  private static final int RUN_COUNT = 5;
+
+  @BeforeClass
+  public static void setUpClass() {
+    ConcurrentOptimizerTest.class.getClassLoader().setDefaultAssertionStatus(true);
+  }
+
+  @Test
+  public void optimizer() throws Exception {
+    checkConcurrentRuns(TestTools.getJackTestsWithJackFolder("dx/optimizer"));
+  }
+
+  @Test
+  public void compiler() throws Exception {
+    checkConcurrentRuns(TestTools.getJackTestsWithJackFolder("dx/compiler"));
+  }
+
+  @Test
+  public void overlapping() throws Exception {
+    checkConcurrentRuns(TestTools.getJackTestsWithJackFolder("dx/overlapping"));
+  }
+
+  @Test
+  public void fibonacci() throws Exception {
+    checkConcurrentRuns(TestTools.getJackTestsWithJackFolder("fibonacci/test001"));
+  }
+
+  private static void checkConcurrentRuns(@Nonnull File sourceFolder) throws Exception {
+    Options singleThreaded = new Options();
+    singleThreaded.addProperty("sched.runner", "single-threaded");
+    byte[] expected = compile(singleThreaded, sourceFolder);
+
+    for (int i = 0; i < RUN_COUNT; i++) {
+      Options multiThreaded = new Options();
+      multiThreaded.addProperty("sched.runner", "multi-threaded");
+      multiThreaded.addProperty("sched.runner.thread.kind", "fixed");
+      multiThreaded.addProperty("sched.runner.thread.fixed.count", String.valueOf(THREAD_COUNT));
+      Assert.assertTrue(Arrays.equals(expected, compile(multiThreaded, sourceFolder)));
+    }
+  }
+
+  @Nonnull
+  private static byte[] compile(@Nonnull Options options, @Nonnull File sourceFolder)
+      throws Exception {
+    File outFolder = TestTools.createTempDir("concurrent-optimizer", "dex");
+    TestTools.compileSourceToDex(options, sourceFolder,
+        TestTools.getDefaultBootclasspathString(), outFolder, /* zip = */ false);
+    return readFile(new File(outFolder, "classes.dex"));
+  }
+
+  @Nonnull
+  private static byte[] readFile(@Nonnull File file) throws IOException {
+    byte[] content = new byte[(int) file.length()];
+    InputStream in = new FileInputStream(file);
+    try {
+      int offset = 0;
+      while (offset < content.length) {
+        int read = in.read(content, offset, content.length - offset);
+        if (read == -1) {
+          throw new IOException("Unexpected end of " + file.getPath());
+        }
+        offset += read;
+      }
+    } finally {
+      in.close();
+    }
+    return content;
+  }
+}
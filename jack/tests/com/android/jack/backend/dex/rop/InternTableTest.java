@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.backend.dex.rop;
+
+import com.android.jack.dx.rop.code.Exceptions;
+import com.android.jack.dx.rop.cst.CstType;
+import com.android.jack.dx.rop.type.Prototype;
+import com.android.jack.dx.rop.type.Type;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Checks that the intern tables of the rop types keep the instances which are still in use, so
+ * that they can be compared by identity, and release the others.
+ */
+public class InternTableTest {
+
+  @Test
+  public void reinternAfterCollection() {
+    Type held = Type.intern("Ltest/Held;");
+    Type heldArray = Type.intern("[[Ltest/Held;");
+    Prototype heldPrototype = Prototype.intern("(Ltest/Held;)V");
+    CstType heldCst = CstType.intern(held);
+    WeakReference<Type> dropped = new WeakReference<Type>(Type.intern("Ltest/Dropped;"));
+    WeakReference<Type> droppedArray =
+        new WeakReference<Type>(Type.intern("[Ltest/Dropped;"));
+    WeakReference<CstType> droppedCst =
+        new WeakReference<CstType>(CstType.intern(Type.intern("Ltest/Dropped;")));
+
+    for (int i = 0; i < 100 && (dropped.get() != null || droppedArray.get() != null
+        || droppedCst.get() != null); i++) {
+      System.gc();
+      // Interning also removes the collected entries
+      CstType.intern(Type.intern("Ltest/Other" + i + ";"));
+    }
+    Assert.assertNull(dropped.get());
+    Assert.assertNull(droppedArray.get());
+    Assert.assertNull(droppedCst.get());
+
+    Assert.assertSame(held, Type.intern("Ltest/Held;"));
+    Assert.assertSame(heldArray, Type.intern("[[Ltest/Held;"));
+    Assert.assertSame(heldArray, held.getArrayType().getArrayType());
+    Assert.assertSame(held, heldArray.getComponentType().getComponentType());
+    Assert.assertSame(heldPrototype, Prototype.intern("(Ltest/Held;)V"));
+    Assert.assertSame(held, heldPrototype.getParameterTypes().getType(0));
+    Assert.assertSame(heldCst, CstType.intern(held));
+
+    Assert.assertSame(Exceptions.TYPE_Error, Type.intern("Ljava/lang/Error;"));
+    Assert.assertSame(Type.OBJECT_ARRAY, Type.intern("[Ljava/lang/Object;"));
+    Assert.assertSame(Type.OBJECT, Type.OBJECT_ARRAY.getComponentType());
+    Assert.assertSame(CstType.OBJECT, CstType.intern(Type.OBJECT));
+
+    Type reinterned = Type.intern("Ltest/Dropped;");
+    Assert.assertSame(reinterned, Type.intern("Ltest/Dropped;"));
+    Assert.assertSame(reinterned, Type.intern("[Ltest/Dropped;").getComponentType());
+    Assert.assertSame(CstType.intern(reinterned), CstType.intern(Type.intern("Ltest/Dropped;")));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.cfg;
+
+import com.android.jack.Jack;
+import com.android.jack.ir.ast.JMethod;
+import com.android.jack.ir.ast.JStatement;
+import com.android.sched.item.Description;
+import com.android.sched.schedulable.Constraint;
+import com.android.sched.schedulable.RunnableSchedulable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Compares the {@link ControlFlowGraph} kept up to date by a schedulable with the one built again
+ * by {@link CfgBuilder}. It is run once before the graph is built again, to record it, then once
+ * after, to compare.
+ */
+@Description("Compares an updated cfg with a rebuilt one.")
+@Constraint(need = {ControlFlowGraph.class, BasicBlockMarker.class})
+public class CfgUpdateChecker implements RunnableSchedulable<JMethod> {
+
+  @Nonnull
+  private static final Map<JMethod, String> updated = new ConcurrentHashMap<JMethod, String>();
+
+  @Nonnull
+  private static final Map<JMethod, String> rebuilt = new ConcurrentHashMap<JMethod, String>();
+
+  @Nonnull
+  private static final AtomicInteger compared = new AtomicInteger();
+
+  @Nonnull
+  private static final AtomicInteger changed = new AtomicInteger();
+
+  public static void reset() {
+    updated.clear();
+    rebuilt.clear();
+    compared.set(0);
+    changed.set(0);
+  }
+
+  /**
+   * @return the number of graphs compared with a rebuilt one
+   */
+  public static int getComparedCount() {
+    return compared.get();
+  }
+
+  /**
+   * @return the number of compared graphs which were changed since they were last built
+   */
+  public static int getChangedCount() {
+    return changed.get();
+  }
+
+  @Override
+  public void run(@Nonnull JMethod method) throws Exception {
+    if (method.getEnclosingType().isExternal() || method.isNative() || method.isAbstract()) {
+      return;
+    }
+
+    ControlFlowGraph cfg = method.getMarker(ControlFlowGraph.class);
+    assert cfg != null;
+    String shape = describe(cfg);
+
+    String updatedShape = updated.remove(method);
+    if (updatedShape == null) {
+      updated.put(method, shape);
+      return;
+    }
+
+    if (!updatedShape.equals(shape)) {
+      throw new AssertionError("Updated cfg of "
+          + Jack.getUserFriendlyFormatter().getName(method.getEnclosingType()) + "."
+          + Jack.getUserFriendlyFormatter().getName(method) + " differs from the rebuilt one:\n"
+          + updatedShape + "\n" + shape);
+    }
+    compared.incrementAndGet();
+    String previousShape = rebuilt.put(method, shape);
+    if (previousShape != null && !previousShape.equals(shape)) {
+      changed.incrementAndGet();
+    }
+  }
+
+  /**
+   * Describes the blocks of a graph by their position, with the identity of their statements and
+   * the positions of their successors and predecessors.
+   */
+  @Nonnull
+  private static String describe(@Nonnull ControlFlowGraph cfg) {
+    List<BasicBlock> nodes = cfg.getNodes();
+    Map<BasicBlock, Integer> indexes = new IdentityHashMap<BasicBlock, Integer>();
+    for (BasicBlock bb : nodes) {
+      indexes.put(bb, Integer.valueOf(indexes.size()));
+    }
+
+    StringBuilder sb = new StringBuilder();
+    sb.append("entry ").append(indexes.get(cfg.getEntryNode()));
+    sb.append(" exit ").append(indexes.get(cfg.getExitNode()));
+    for (BasicBlock bb : nodes) {
+      sb.append('\n').append(indexes.get(bb)).append(' ').append(bb.getClass().getSimpleName());
+      sb.append(" {");
+      for (JStatement stmt : bb.getStatements()) {
+        sb.append(' ').append(Integer.toHexString(System.identityHashCode(stmt)));
+        BasicBlockMarker bbm = stmt.getMarker(BasicBlockMarker.class);
+        if (bbm == null || bbm.getBasicBlock() != bb) {
+          sb.append("(misplaced)");
+        }
+      }
+      sb.append(" } ->");
+      for (BasicBlock succ : bb.getSuccessors()) {
+        sb.append(' ').append(indexes.get(succ));
+      }
+      sb.append(" <-");
+      List<Integer> predecessors = new ArrayList<Integer>();
+      for (BasicBlock pred : bb.getPredecessors()) {
+        predecessors.add(indexes.get(pred));
+      }
+      Collections.sort(predecessors);
+      for (Integer pred : predecessors) {
+        sb.append(' ').append(pred);
+      }
+    }
+    return sb.toString();
+  }
+}
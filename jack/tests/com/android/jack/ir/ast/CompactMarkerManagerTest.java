@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.ir.ast;
+
+import com.android.jack.Options;
+import com.android.jack.ir.ast.marker.SimpleName;
+import com.android.jack.ir.sourceinfo.SourceInfo;
+import com.android.jack.load.NopClassOrInterfaceLoader;
+import com.android.sched.marker.Marker;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ThreadConfig;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+public class CompactMarkerManagerTest {
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    CompactMarkerManagerTest.class.getClassLoader().setDefaultAssertionStatus(true);
+    Options options = new Options();
+    RunnableHooks hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    options.getConfigBuilder(hooks).setDebug();
+    ThreadConfig.setConfig(options.getConfig());
+  }
+
+  @Test
+  public void addAndGet() {
+    JDefinedClass type = createClass();
+    M1 m1 = new M1();
+    M2 m2 = new M2();
+    SimpleName name = new SimpleName("Test");
+
+    Assert.assertNull(type.getMarker(M1.class));
+    Assert.assertFalse(type.containsMarker(M1.class));
+    Assert.assertTrue(type.getAllMarkers().isEmpty());
+
+    type.addMarker(m2);
+    type.addMarker(name);
+    type.addMarker(m1);
+
+    Assert.assertSame(m1, type.getMarker(M1.class));
+    Assert.assertSame(m2, type.getMarker(M2.class));
+    Assert.assertSame(name, type.getMarker(SimpleName.class));
+    Assert.assertTrue(type.containsMarker(M1.class));
+    Assert.assertTrue(type.containsMarker(SimpleName.class));
+    Assert.assertEquals(3, type.getAllMarkers().size());
+  }
+
+  @Test
+  public void addReplacesExistingMarker() {
+    JDefinedClass type = createClass();
+    SimpleName first = new SimpleName("First");
+    SimpleName second = new SimpleName("Second");
+    type.addMarker(new M1());
+    type.addMarker(first);
+
+    // Adding a marker twice is an error checked by assertions. Without assertions, the second
+    // marker replaces the first one.
+    boolean replaced;
+    try {
+      type.addMarker(second);
+      replaced = true;
+    } catch (AssertionError e) {
+      replaced = false;
+    }
+
+    Assert.assertSame(replaced ? second : first, type.getMarker(SimpleName.class));
+    Assert.assertEquals(2, type.getAllMarkers().size());
+  }
+
+  @Test
+  public void remove() {
+    JDefinedClass type = createClass();
+    M1 m1 = new M1();
+    M2 m2 = new M2();
+    type.addMarker(m1);
+    type.addMarker(m2);
+
+    Assert.assertNull(type.removeMarker(SimpleName.class));
+    Assert.assertSame(m1, type.removeMarker(M1.class));
+    Assert.assertNull(type.removeMarker(M1.class));
+    Assert.assertNull(type.getMarker(M1.class));
+    Assert.assertFalse(type.containsMarker(M1.class));
+    Assert.assertSame(m2, type.getMarker(M2.class));
+
+    Assert.assertSame(m2, type.removeMarker(M2.class));
+    Assert.assertNull(type.getMarker(M2.class));
+    Assert.assertTrue(type.getAllMarkers().isEmpty());
+
+    type.addMarker(m1);
+    Assert.assertSame(m1, type.getMarker(M1.class));
+  }
+
+  @Test
+  public void addAllAndGetAll() {
+    List<Marker> markers = Arrays.<Marker>asList(new M1(), new M2(), new SimpleName("Test"));
+
+    JDefinedClass type = createClass();
+    type.addAllMarker(markers);
+    Collection<Marker> all = type.getAllMarkers();
+    Assert.assertEquals(3, all.size());
+    Assert.assertTrue(all.containsAll(markers));
+
+    // Markers are ordered by ids, whatever the order in which they are added
+    List<Marker> reversed = new ArrayList<Marker>(markers);
+    Collections.reverse(reversed);
+    JDefinedClass other = createClass();
+    other.addAllMarker(reversed);
+    Assert.assertEquals(new ArrayList<Marker>(all), new ArrayList<Marker>(other.getAllMarkers()));
+
+    try {
+      all.clear();
+      Assert.fail();
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    Assert.assertEquals(3, type.getAllMarkers().size());
+  }
+
+  @Nonnull
+  private static JDefinedClass createClass() {
+    JPackage p = new JPackage("test", new JSession(), null);
+    return new JDefinedClass(SourceInfo.UNKNOWN, "Test", JModifier.PUBLIC, p,
+        NopClassOrInterfaceLoader.INSTANCE);
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.ir.ast;
+
+import com.android.jack.Options;
+import com.android.jack.frontend.ParentSetter;
+import com.android.jack.ir.ast.JPrimitiveType.JPrimitiveTypeEnum;
+import com.android.jack.ir.sourceinfo.SourceInfo;
+import com.android.jack.load.NopClassOrInterfaceLoader;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ThreadConfig;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+public class FusedVisitorTest {
+
+  private static class Recorder extends JVisitor {
+
+    @Nonnull
+    final List<String> events = new ArrayList<String>();
+
+    @Override
+    public boolean visit(@Nonnull JNode node) {
+      events.add("visit " + node.getClass().getSimpleName());
+      return true;
+    }
+
+    @Override
+    public void endVisit(@Nonnull JNode node) {
+      events.add("end " + node.getClass().getSimpleName());
+    }
+  }
+
+  /**
+   * Does not visit the operands of additions.
+   */
+  private static class AddSkipper extends Recorder {
+
+    @Override
+    public boolean visit(@Nonnull JBinaryOperation binOp) {
+      super.visit(binOp);
+      return binOp.getOp() != JBinaryOperator.ADD;
+    }
+  }
+
+  @Nonnull
+  private final JParameter param;
+
+  public FusedVisitorTest() {
+    JPackage p = new JPackage("test", new JSession(), null);
+    JDefinedClass classTest = new JDefinedClass(SourceInfo.UNKNOWN, "Test", JModifier.PUBLIC, p,
+        NopClassOrInterfaceLoader.INSTANCE);
+    JMethod method =
+        new JMethod(SourceInfo.UNKNOWN, new JMethodId("test", MethodKind.STATIC), classTest,
+            JPrimitiveTypeEnum.VOID.getType(), JModifier.PUBLIC | JModifier.STATIC);
+    param =
+        new JParameter(SourceInfo.UNKNOWN, "p", JPrimitiveTypeEnum.INT.getType(), 0, method);
+  }
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    FusedVisitorTest.class.getClassLoader().setDefaultAssertionStatus(true);
+    Options options = new Options();
+    RunnableHooks hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    options.getConfigBuilder(hooks).setDebug();
+    ThreadConfig.setConfig(options.getConfig());
+  }
+
+  @Test
+  public void fusedVisitorsSeeTheirOwnTraversal() {
+    JNode tree = createTree();
+
+    Recorder recorder = new Recorder();
+    AddSkipper skipper = new AddSkipper();
+    recorder.accept(tree);
+    skipper.accept(tree);
+
+    Recorder fusedRecorder = new Recorder();
+    AddSkipper fusedSkipper = new AddSkipper();
+    new FusedVisitor(Arrays.asList(fusedSkipper, fusedRecorder)).accept(tree);
+
+    Assert.assertEquals(recorder.events, fusedRecorder.events);
+    Assert.assertEquals(skipper.events, fusedSkipper.events);
+    Assert.assertTrue(skipper.events.size() < recorder.events.size());
+  }
+
+  @Test
+  public void fusedVisitorStopsWhenAllVisitorsAreSuspended() {
+    JNode tree = createTree();
+
+    AddSkipper skipper1 = new AddSkipper();
+    AddSkipper skipper2 = new AddSkipper();
+    FusedVisitor fused = new FusedVisitor(Arrays.asList(skipper1, skipper2));
+    fused.accept(tree);
+
+    Assert.assertEquals(skipper1.events, skipper2.events);
+    Assert.assertFalse(skipper1.events.contains("visit JIntLiteral"));
+  }
+
+  /**
+   * Creates {@code p = p + (p = 1)}.
+   */
+  @Nonnull
+  private JNode createTree() {
+    JBinaryOperation binOp1 = JBinaryOperation
+        .create(SourceInfo.UNKNOWN, JBinaryOperator.ASG, new JParameterRef(
+            SourceInfo.UNKNOWN, param), new JIntLiteral(SourceInfo.UNKNOWN, 1));
+    JBinaryOperation binOp2 = JBinaryOperation.create(SourceInfo.UNKNOWN, JBinaryOperator.ADD,
+        new JParameterRef(SourceInfo.UNKNOWN, param), binOp1);
+    JBinaryOperation binOp =
+        JBinaryOperation.create(SourceInfo.UNKNOWN, JBinaryOperator.ASG, new JParameterRef(
+            SourceInfo.UNKNOWN, param), binOp2);
+
+    ParentSetter ps = new ParentSetter();
+    ps.accept(binOp);
+    return binOp;
+  }
+}
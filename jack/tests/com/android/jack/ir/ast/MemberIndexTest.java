@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.ir.ast;
+
+import com.android.jack.Options;
+import com.android.jack.category.SlowTests;
+import com.android.jack.ir.ast.JPrimitiveType.JPrimitiveTypeEnum;
+import com.android.jack.ir.sourceinfo.SourceInfo;
+import com.android.jack.load.NopClassOrInterfaceLoader;
+import com.android.jack.lookup.JLookupException;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ThreadConfig;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+public class MemberIndexTest {
+
+  @Nonnull
+  private static final List<JType> NO_ARGS = Collections.<JType>emptyList();
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    MemberIndexTest.class.getClassLoader().setDefaultAssertionStatus(true);
+    Options options = new Options();
+    RunnableHooks hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    options.getConfigBuilder(hooks).setDebug();
+    ThreadConfig.setConfig(options.getConfig());
+  }
+
+  @Test
+  public void lookupsFollowChanges() throws Exception {
+    JDefinedClass type = createClass(MemberIndex.THRESHOLD * 2);
+
+    JMethod m3 = type.getMethod("m3", JPrimitiveTypeEnum.VOID.getType(), NO_ARGS);
+    JMethod m3Int = type.getMethod("m3", JPrimitiveTypeEnum.VOID.getType(), getIntArg());
+    Assert.assertNotSame(m3, m3Int);
+    Assert.assertSame(m3.getMethodId(), type.getMethodId("m3", NO_ARGS, MethodKind.STATIC));
+    Assert.assertEquals(1, type.getFields("f5").size());
+    Assert.assertSame(type.getFields("f5").get(0).getId(),
+        type.getFieldId("f5", JPrimitiveTypeEnum.INT.getType(), FieldKind.STATIC));
+    assertNoMethod(type, "added");
+
+    JMethod added = addMethod(type, "added", NO_ARGS);
+    Assert.assertSame(added.getMethodId(), type.getMethodId("added", NO_ARGS, MethodKind.STATIC));
+
+    m3.getMethodId().setName("renamed");
+    Assert.assertSame(m3, type.getMethod("renamed", JPrimitiveTypeEnum.VOID.getType(), NO_ARGS));
+    Assert.assertSame(m3Int, type.getMethod("m3", JPrimitiveTypeEnum.VOID.getType(), getIntArg()));
+    assertNoMethod(type, "m3");
+
+    type.getFields("f5").get(0).getId().setName("g5");
+    Assert.assertEquals(0, type.getFields("f5").size());
+    Assert.assertEquals(1, type.getFields("g5").size());
+
+    type.removeMethod(type.getMethods().indexOf(added));
+    assertNoMethod(type, "added");
+  }
+
+  /**
+   * Looks up every member of a class declaring 20000 methods and 20000 fields. Lookups were linear
+   * in the number of members before they were indexed, this test then took minutes.
+   */
+  @Test
+  @Category(SlowTests.class)
+  public void lookupBenchmark() throws Exception {
+    int memberCount = 20000;
+    JDefinedClass type = createClass(memberCount);
+
+    for (int i = 0; i < memberCount; i++) {
+      JMethodId methodId = type.getMethodId("m" + i, getIntArg(), MethodKind.STATIC);
+      Assert.assertEquals("m" + i, methodId.getName());
+      Assert.assertEquals(1, methodId.getParamTypes().size());
+      JFieldId fieldId =
+          type.getFieldId("f" + i, JPrimitiveTypeEnum.INT.getType(), FieldKind.STATIC);
+      Assert.assertEquals("f" + i, fieldId.getName());
+    }
+  }
+
+  @Nonnull
+  private static JDefinedClass createClass(@Nonnegative int memberCount) {
+    JPackage p = new JPackage("test", new JSession(), null);
+    JDefinedClass type = new JDefinedClass(SourceInfo.UNKNOWN, "Members", JModifier.PUBLIC, p,
+        NopClassOrInterfaceLoader.INSTANCE);
+    type.setExternal(false);
+    for (int i = 0; i < memberCount; i++) {
+      addMethod(type, "m" + i, NO_ARGS);
+      addMethod(type, "m" + i, getIntArg());
+      type.addField(new JField(SourceInfo.UNKNOWN, "f" + i, type,
+          JPrimitiveTypeEnum.INT.getType(), JModifier.PUBLIC | JModifier.STATIC));
+    }
+    return type;
+  }
+
+  @Nonnull
+  private static JMethod addMethod(@Nonnull JDefinedClass type, @Nonnull String name,
+      @Nonnull List<JType> argTypes) {
+    JMethod method = new JMethod(SourceInfo.UNKNOWN,
+        new JMethodId(name, argTypes, MethodKind.STATIC), type,
+        JPrimitiveTypeEnum.VOID.getType(), JModifier.PUBLIC | JModifier.STATIC);
+    type.addMethod(method);
+    return method;
+  }
+
+  @Nonnull
+  private static List<JType> getIntArg() {
+    return Collections.<JType>singletonList(JPrimitiveTypeEnum.INT.getType());
+  }
+
+  private static void assertNoMethod(@Nonnull JDefinedClass type, @Nonnull String name) {
+    try {
+      type.getMethod(name, JPrimitiveTypeEnum.VOID.getType(), NO_ARGS);
+      Assert.fail();
+    } catch (JLookupException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.ir.formatter;
+
+import com.android.jack.Jack;
+import com.android.jack.Options;
+import com.android.jack.ir.ast.JArrayType;
+import com.android.jack.ir.ast.JClass;
+import com.android.jack.ir.ast.JMethodId;
+import com.android.jack.ir.ast.JPackage;
+import com.android.jack.ir.ast.JPrimitiveType.JPrimitiveTypeEnum;
+import com.android.jack.ir.ast.MethodKind;
+import com.android.jack.lookup.JPhantomLookup;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ThreadConfig;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CachedNamesTest {
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    CachedNamesTest.class.getClassLoader().setDefaultAssertionStatus(true);
+    Options options = new Options();
+    RunnableHooks hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    options.getConfigBuilder(hooks).setDebug();
+    ThreadConfig.setConfig(options.getConfig());
+  }
+
+  @Test
+  public void typeNamesFollowPackageRenaming() throws Exception {
+    JPhantomLookup lookup = Jack.getSession().getPhantomLookup();
+    JClass type = lookup.getClass("Lcached/names/Type;");
+    JArrayType array = lookup.getArrayType(type, 2);
+    BinaryQualifiedNameFormatter qualifiedFormatter = BinaryQualifiedNameFormatter.getFormatter();
+    BinarySignatureFormatter signatureFormatter = BinarySignatureFormatter.getFormatter();
+
+    String name = qualifiedFormatter.getName(type);
+    Assert.assertEquals("cached/names/Type", name);
+    Assert.assertSame(name, qualifiedFormatter.getName(type));
+    Assert.assertEquals("cached/names/Type[][]", qualifiedFormatter.getName(array));
+    String signature = signatureFormatter.getName(array);
+    Assert.assertEquals("[[Lcached/names/Type;", signature);
+    Assert.assertSame(signature, signatureFormatter.getName(array));
+
+    JPackage enclosingPackage = type.getEnclosingPackage();
+    Assert.assertNotNull(enclosingPackage);
+    Assert.assertEquals("cached/names", qualifiedFormatter.getName(enclosingPackage));
+    enclosingPackage.setName("renamed");
+
+    Assert.assertEquals("cached/renamed", qualifiedFormatter.getName(enclosingPackage));
+    Assert.assertEquals("cached/renamed",
+        InternalFormatter.getFormatter().getName(enclosingPackage));
+    Assert.assertEquals("cached/renamed/Type", qualifiedFormatter.getName(type));
+    Assert.assertEquals("cached/renamed/Type[][]", qualifiedFormatter.getName(array));
+    Assert.assertEquals("Lcached/renamed/Type;", signatureFormatter.getName(type));
+    Assert.assertEquals("[[Lcached/renamed/Type;", signatureFormatter.getName(array));
+  }
+
+  @Test
+  public void methodIdSignatureFollowsChanges() throws Exception {
+    JPhantomLookup lookup = Jack.getSession().getPhantomLookup();
+    JClass type = lookup.getClass("Lcached/names/Param;");
+    BinarySignatureFormatter formatter = BinarySignatureFormatter.getFormatter();
+    JMethodId methodId = new JMethodId("m", MethodKind.STATIC);
+    methodId.addParam(type);
+
+    String signature = formatter.getNameWithoutReturnType(methodId);
+    Assert.assertEquals("m(Lcached/names/Param;)", signature);
+    Assert.assertSame(signature, formatter.getNameWithoutReturnType(methodId));
+
+    methodId.addParam(JPrimitiveTypeEnum.INT.getType());
+    Assert.assertEquals("m(Lcached/names/Param;I)", formatter.getNameWithoutReturnType(methodId));
+
+    methodId.setName("n");
+    Assert.assertEquals("n(Lcached/names/Param;I)", formatter.getNameWithoutReturnType(methodId));
+
+    JPackage enclosingPackage = type.getEnclosingPackage();
+    Assert.assertNotNull(enclosingPackage);
+    JPackage topLevelPackage = enclosingPackage.getEnclosingPackage();
+    Assert.assertNotNull(topLevelPackage);
+    topLevelPackage.setName("other");
+    Assert.assertEquals("n(Lother/names/Param;I)", formatter.getNameWithoutReturnType(methodId));
+  }
+
+  @Test
+  public void renamingKeepsUnrelatedNames() throws Exception {
+    JPhantomLookup lookup = Jack.getSession().getPhantomLookup();
+    JClass renamed = lookup.getClass("Lcached/renamed/Type;");
+    JClass kept = lookup.getClass("Lcached/kept/Type;");
+    JClass other = lookup.getClass("Lcached/other/Type;");
+    JArrayType keptArray = lookup.getArrayType(kept, 1);
+    BinarySignatureFormatter formatter = BinarySignatureFormatter.getFormatter();
+    JMethodId methodId = new JMethodId("m", MethodKind.STATIC);
+    methodId.addParam(kept);
+
+    String renamedSignature = formatter.getName(renamed);
+    String keptSignature = formatter.getName(kept);
+    String arraySignature = formatter.getName(keptArray);
+    String methodIdSignature = formatter.getNameWithoutReturnType(methodId);
+
+    JPackage renamedPackage = renamed.getEnclosingPackage();
+    Assert.assertNotNull(renamedPackage);
+    renamedPackage.setName("moved");
+    Assert.assertEquals("Lcached/moved/Type;", formatter.getName(renamed));
+    Assert.assertNotSame(renamedSignature, formatter.getName(renamed));
+    Assert.assertSame(keptSignature, formatter.getName(kept));
+    Assert.assertSame(arraySignature, formatter.getName(keptArray));
+    Assert.assertSame(methodIdSignature, formatter.getNameWithoutReturnType(methodId));
+
+    JPackage keptPackage = kept.getEnclosingPackage();
+    Assert.assertNotNull(keptPackage);
+    keptPackage.setEnclosingPackage(other.getEnclosingPackage());
+    Assert.assertEquals("Lcached/other/kept/Type;", formatter.getName(kept));
+    Assert.assertEquals("[Lcached/other/kept/Type;", formatter.getName(keptArray));
+    Assert.assertEquals("m(Lcached/other/kept/Type;)",
+        formatter.getNameWithoutReturnType(methodId));
+  }
+}
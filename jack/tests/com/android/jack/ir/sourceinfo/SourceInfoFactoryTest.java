@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.ir.sourceinfo;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class SourceInfoFactoryTest {
+
+  private static final int THREAD_COUNT = 8;
+
+  private static final int FILE_COUNT = 4;
+
+  private static final int LINE_COUNT = 2000;
+
+  @BeforeClass
+  public static void setUp() {
+    SourceInfoFactoryTest.class.getClassLoader().setDefaultAssertionStatus(true);
+  }
+
+  @Test
+  public void canonicalization() {
+    SourceInfoFactory factory = new SourceInfoFactory();
+    FileSourceInfo file = factory.create("A.java");
+    Assert.assertSame(file, factory.create("A.java"));
+    Assert.assertEquals(1, factory.getFileSourceInfos().size());
+
+    SourceInfo lines = factory.create(3, 5, "A.java");
+    Assert.assertSame(file, lines.getFileSourceInfo());
+    Assert.assertEquals(3, lines.getStartLine());
+    Assert.assertEquals(5, lines.getEndLine());
+    Assert.assertEquals(SourceInfo.UNKNOWN_COLUMN_NUMBER, lines.getStartColumn());
+    Assert.assertSame(lines, factory.create(3, 5, file));
+    Assert.assertSame(lines, factory.create(0, -1, 3, 5, "A.java"));
+
+    SourceInfo columns = factory.create(7, 12, 3, 5, "A.java");
+    Assert.assertNotSame(lines, columns);
+    Assert.assertEquals(7, columns.getStartColumn());
+    Assert.assertEquals(12, columns.getEndColumn());
+    Assert.assertSame(columns, factory.create(7, 12, 3, 5, "A.java"));
+    Assert.assertNotSame(columns, factory.create(7, 12, 3, 5, "B.java"));
+
+    file.setFileName("Renamed.java");
+    Assert.assertEquals("Renamed.java", columns.getFileName());
+    Assert.assertSame(columns, factory.create(7, 12, 3, 5, "A.java"));
+  }
+
+  @Test
+  public void concurrentCanonicalization() throws Exception {
+    final SourceInfoFactory factory = new SourceInfoFactory();
+    final CyclicBarrier barrier = new CyclicBarrier(THREAD_COUNT);
+    ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+    try {
+      List<Future<SourceInfo[]>> futures = new ArrayList<Future<SourceInfo[]>>(THREAD_COUNT);
+      for (int thread = 0; thread < THREAD_COUNT; thread++) {
+        final int offset = thread * (LINE_COUNT / THREAD_COUNT);
+        futures.add(executor.submit(new Callable<SourceInfo[]>() {
+          @Override
+          public SourceInfo[] call() throws Exception {
+            SourceInfo[] infos = new SourceInfo[FILE_COUNT * LINE_COUNT];
+            barrier.await();
+            for (int i = 0; i < LINE_COUNT; i++) {
+              // Each thread starts at a different line so that all of them race on every line
+              int line = (i + offset) % LINE_COUNT;
+              for (int file = 0; file < FILE_COUNT; file++) {
+                infos[file * LINE_COUNT + line] =
+                    factory.create(line % 80, line % 80 + 1, line, line + 1, "F" + file + ".java");
+              }
+            }
+            return infos;
+          }
+        }));
+      }
+
+      SourceInfo[] expected = futures.get(0).get();
+      for (Future<SourceInfo[]> future : futures) {
+        SourceInfo[] infos = future.get();
+        for (int i = 0; i < infos.length; i++) {
+          Assert.assertSame(expected[i], infos[i]);
+        }
+      }
+      for (int file = 0; file < FILE_COUNT; file++) {
+        for (int line = 0; line < LINE_COUNT; line++) {
+          SourceInfo info = expected[file * LINE_COUNT + line];
+          Assert.assertEquals("F" + file + ".java", info.getFileName());
+          Assert.assertEquals(line, info.getStartLine());
+          Assert.assertEquals(line + 1, info.getEndLine());
+          Assert.assertEquals(line % 80 + 1, info.getEndColumn());
+        }
+      }
+      Assert.assertEquals(FILE_COUNT, factory.getFileSourceInfos().size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.jayce.v0003.io;
+
+import com.android.jack.Options;
+import com.android.jack.TestTools;
+import com.android.jack.jayce.DeclaredTypeNode;
+import com.android.jack.jayce.JayceInternalReader;
+import com.android.jack.jayce.JayceProperties;
+import com.android.jack.jayce.JayceReaderFactory;
+import com.android.jack.jayce.JayceWriterFactory;
+import com.android.jack.jayce.NodeLevel;
+import com.android.jack.jayce.v0002.NNode;
+import com.android.jack.jayce.v0002.nodes.NDeclaredType;
+import com.android.jack.jayce.v0002.nodes.NMethod;
+import com.android.jack.library.FileType;
+import com.android.jack.library.InputJackLibrary;
+import com.android.jack.library.JackLibraryFactory;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.file.FileOrDirectory.ChangePermission;
+import com.android.sched.util.file.FileOrDirectory.Existence;
+import com.android.sched.util.file.InputZipFile;
+import com.android.sched.vfs.InputVFS;
+import com.android.sched.vfs.InputVFile;
+import com.android.sched.vfs.InputZipVFS;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Checks that libraries written with version 3 of Jayce are read back through
+ * {@link JayceReaderFactory} into the same nodes as libraries written with version 2, and that
+ * their method bodies can be read alone after a structure level load.
+ */
+public class RoundTripTest {
+
+  @Nonnull
+  private static final String[] TESTS = {
+    "fibonacci/test001",
+    "inner/test005",
+    "enums/test002",
+    "dx/compiler"};
+
+  @BeforeClass
+  public static void setUpClass() {
+    RoundTripTest.class.getClassLoader().setDefaultAssertionStatus(true);
+  }
+
+  @Test
+  public void readV3AsV2() throws Exception {
+    for (String test : TESTS) {
+      File sourceFolder = TestTools.getJackTestsWithJackFolder(test);
+      Map<String, byte[]> v2 = readLibrary(compileToLibrary(sourceFolder, 2), 2,
+          com.android.jack.jayce.v0002.io.JayceInternalReaderImpl.class);
+      Map<String, byte[]> v3 = readLibrary(compileToLibrary(sourceFolder, 3), 3,
+          JayceInternalReaderImpl.class);
+
+      Assert.assertFalse(test, v2.isEmpty());
+      Assert.assertEquals(test, v2.keySet(), v3.keySet());
+      for (Map.Entry<String, byte[]> type : v2.entrySet()) {
+        Assert.assertTrue(type.getKey(),
+            Arrays.equals(type.getValue(), v3.get(type.getKey())));
+      }
+    }
+  }
+
+  @Test
+  public void defaultVersion() throws Exception {
+    Assert.assertEquals(2, JayceWriterFactory.DEFAULT_MAJOR_VERSION);
+    File out = TestTools.createTempFile("round-trip", ".zip");
+    TestTools.compileSourceToJack(new Options(),
+        TestTools.getJackTestsWithJackFolder("fibonacci/test001"),
+        TestTools.getDefaultBootclasspathString(), out, /* zip = */ true);
+    readLibrary(out, JayceWriterFactory.DEFAULT_MAJOR_VERSION,
+        com.android.jack.jayce.v0002.io.JayceInternalReaderImpl.class);
+  }
+
+  @Test
+  public void readBodyAlone() throws Exception {
+    File zip = compileToLibrary(TestTools.getJackTestsWithJackFolder("dx/compiler"), 3);
+    Options options = new Options();
+    RunnableHooks hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    options.getConfigBuilder(hooks).setDebug();
+    ThreadConfig.setConfig(options.getConfig());
+    InputVFS vfs = new InputZipVFS(new InputZipFile(zip.getPath(), /* hooks = */ null,
+        Existence.MUST_EXIST, ChangePermission.NOCHANGE));
+    try {
+      InputJackLibrary library = JackLibraryFactory.getInputLibrary(vfs);
+      int bodies = 0;
+      Iterator<InputVFile> files = library.iterator(FileType.JAYCE);
+      while (files.hasNext()) {
+        InputVFile file = files.next();
+        NDeclaredType full = (NDeclaredType) readType(library, file, NodeLevel.FULL);
+        NDeclaredType structure = (NDeclaredType) readType(library, file, NodeLevel.STRUCTURE);
+        Assert.assertEquals(NodeLevel.STRUCTURE, structure.getLevel());
+        Assert.assertEquals(full.methods.size(), structure.methods.size());
+
+        // No code is decoded at structure level, but every body can be found again
+        for (NMethod method : structure.methods) {
+          Assert.assertNull(method.body);
+          Assert.assertTrue(method.bodyOffset >= 0);
+        }
+
+        for (int i = 0; i < structure.methods.size(); i++) {
+          NMethod method = structure.methods.get(i);
+          InputStream in = file.openRead();
+          try {
+            Assert.assertTrue(JayceReaderFactory.get(library, in).readBody(method));
+          } finally {
+            in.close();
+          }
+          NMethod expected = full.methods.get(i);
+          Assert.assertEquals(expected.body == null, method.body == null);
+          Assert.assertTrue(full.getSignature() + " " + i,
+              Arrays.equals(encode(expected), encode(method)));
+          if (method.body != null) {
+            bodies++;
+          }
+          // Only the requested body was read
+          for (NMethod other : structure.methods.subList(i + 1, structure.methods.size())) {
+            Assert.assertNull(other.body);
+          }
+        }
+        Assert.assertTrue(full.getSignature(), Arrays.equals(encode(full), encode(structure)));
+      }
+      Assert.assertTrue(bodies > 0);
+    } finally {
+      vfs.close();
+      ThreadConfig.unsetConfig();
+      hooks.runHooks();
+    }
+  }
+
+  @Nonnull
+  private static DeclaredTypeNode readType(@Nonnull InputJackLibrary library,
+      @Nonnull InputVFile file, @Nonnull NodeLevel level) throws Exception {
+    InputStream in = file.openRead();
+    try {
+      return JayceReaderFactory.get(library, in).readType(level);
+    } finally {
+      in.close();
+    }
+  }
+
+  @Nonnull
+  private static File compileToLibrary(@Nonnull File sourceFolder, int major) throws Exception {
+    Options options = new Options();
+    options.addProperty(JayceWriterFactory.MAJOR_VERSION.getName(), Integer.toString(major));
+    File out = TestTools.createTempFile("round-trip-v" + major, ".zip");
+    TestTools.compileSourceToJack(options, sourceFolder,
+        TestTools.getDefaultBootclasspathString(), out, /* zip = */ true);
+    return out;
+  }
+
+  /**
+   * Reads all the types of a library at {@link NodeLevel#FULL}, and encodes them again with
+   * version 2, so that the types read from libraries of different versions can be compared.
+   * @return the encoded types by signature
+   */
+  @Nonnull
+  private static Map<String, byte[]> readLibrary(@Nonnull File zip, int expectedMajor,
+      @Nonnull Class<? extends JayceInternalReader> expectedReader) throws Exception {
+    Options options = new Options();
+    RunnableHooks hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    options.getConfigBuilder(hooks).setDebug();
+    ThreadConfig.setConfig(options.getConfig());
+    InputVFS vfs = new InputZipVFS(new InputZipFile(zip.getPath(), /* hooks = */ null,
+        Existence.MUST_EXIST, ChangePermission.NOCHANGE));
+    try {
+      InputJackLibrary library = JackLibraryFactory.getInputLibrary(vfs);
+      Assert.assertEquals(Integer.toString(expectedMajor),
+          library.getProperty(JayceProperties.KEY_JAYCE_MAJOR_VERSION));
+
+      Map<String, byte[]> types = new TreeMap<String, byte[]>();
+      Iterator<InputVFile> files = library.iterator(FileType.JAYCE);
+      while (files.hasNext()) {
+        InputStream in = files.next().openRead();
+        try {
+          JayceInternalReader reader = JayceReaderFactory.get(library, in);
+          Assert.assertEquals(expectedReader, reader.getClass());
+          DeclaredTypeNode type = reader.readType(NodeLevel.FULL);
+          types.put(type.getSignature(), encode((NNode) type));
+        } finally {
+          in.close();
+        }
+      }
+      return types;
+    } finally {
+      vfs.close();
+      ThreadConfig.unsetConfig();
+      hooks.runHooks();
+    }
+  }
+
+  @Nonnull
+  static byte[] encode(@Nonnull NNode node) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    com.android.jack.jayce.v0002.io.JayceInternalWriterImpl writer =
+        new com.android.jack.jayce.v0002.io.JayceInternalWriterImpl(out);
+    writer.writeNode(node);
+    writer.close();
+    return out.toByteArray();
+  }
+}
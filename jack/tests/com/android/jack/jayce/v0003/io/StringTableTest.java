@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.jayce.v0003.io;
+
+import com.android.jack.Options;
+import com.android.jack.jayce.v0002.io.JayceInputStream;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ThreadConfig;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+public class StringTableTest {
+
+  @Before
+  public void setUp() throws Exception {
+    Options options = new Options();
+    RunnableHooks hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    options.getConfigBuilder(hooks).setDebug();
+    ThreadConfig.setConfig(options.getConfig());
+  }
+
+  @After
+  public void tearDown() {
+    ThreadConfig.unsetConfig();
+  }
+
+  @Test
+  public void test001() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JayceInternalWriterImpl jw = new JayceInternalWriterImpl(out);
+    jw.writeString("Ljava/lang/Object;");
+    jw.writeString("toString");
+    jw.writeString("Ljava/lang/Object;");
+    jw.writeString(null);
+    jw.close();
+
+    JayceInputStream in = new JayceInputStream(new ByteArrayInputStream(out.toByteArray()));
+    Assert.assertEquals(2, in.readInt());
+    Assert.assertEquals("Ljava/lang/Object;", in.readUTF());
+    Assert.assertEquals("toString", in.readUTF());
+    Assert.assertEquals(0, in.readInt());
+    Assert.assertEquals(1, in.readInt());
+    Assert.assertEquals(0, in.readInt());
+    Assert.assertEquals(JayceInternalWriterImpl.NULL_STRING_INDEX, in.readInt());
+  }
+
+  @Test
+  public void test002() throws Exception {
+    String string = "\uD9A0\uDE81*abc";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JayceInternalWriterImpl jw = new JayceInternalWriterImpl(out);
+    jw.writeString(string);
+    jw.close();
+
+    JayceInputStream in = new JayceInputStream(new ByteArrayInputStream(out.toByteArray()));
+    Assert.assertEquals(1, in.readInt());
+    Assert.assertEquals(string, in.readUTF());
+    Assert.assertEquals(0, in.readInt());
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.lookup;
+
+import com.android.jack.Options;
+import com.android.jack.ir.ast.JArrayType;
+import com.android.jack.ir.ast.JSession;
+import com.android.jack.ir.ast.JType;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ThreadConfig;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+
+public class ConcurrentLookupTest {
+
+  private static final int THREAD_COUNT = 8;
+
+  private static final int TYPE_COUNT = 1000;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    ConcurrentLookupTest.class.getClassLoader().setDefaultAssertionStatus(true);
+    Options options = new Options();
+    RunnableHooks hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    options.getConfigBuilder(hooks).setDebug();
+    ThreadConfig.setConfig(options.getConfig());
+  }
+
+  @Test
+  public void concurrentPhantomCreation() throws Exception {
+    final JPhantomLookup lookup = new JSession().getPhantomLookup();
+    final CyclicBarrier barrier = new CyclicBarrier(THREAD_COUNT);
+    ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+    try {
+      List<Future<JType[]>> futures = new ArrayList<Future<JType[]>>(THREAD_COUNT);
+      for (int thread = 0; thread < THREAD_COUNT; thread++) {
+        final int offset = thread * (TYPE_COUNT / THREAD_COUNT);
+        futures.add(executor.submit(new Callable<JType[]>() {
+          @Override
+          public JType[] call() throws Exception {
+            JType[] types = new JType[TYPE_COUNT * 3];
+            barrier.await();
+            for (int i = 0; i < TYPE_COUNT; i++) {
+              // Each thread starts at a different type so that all of them race on every type
+              int index = (i + offset) % TYPE_COUNT;
+              types[index * 3] = lookup.getType(getSignature("a/b/C", index));
+              types[index * 3 + 1] = lookup.getType("[" + getSignature("a/b/C", index));
+              types[index * 3 + 2] = lookup.getClass(getSignature("a/c/D", index));
+            }
+            return types;
+          }
+        }));
+      }
+
+      JType[] expected = futures.get(0).get();
+      for (Future<JType[]> future : futures) {
+        JType[] types = future.get();
+        for (int i = 0; i < types.length; i++) {
+          Assert.assertSame(expected[i], types[i]);
+        }
+      }
+      for (int i = 0; i < TYPE_COUNT; i++) {
+        Assert.assertSame(expected[i * 3], lookup.getType(getSignature("a/b/C", i)));
+        Assert.assertSame(expected[i * 3], ((JArrayType) expected[i * 3 + 1]).getElementType());
+        Assert.assertSame(expected[i * 3 + 2], lookup.getClass(getSignature("a/c/D", i)));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Nonnull
+  private static String getSignature(@Nonnull String prefix, int index) {
+    return "L" + prefix + index + ";";
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.server;
+
+import com.android.jack.Jack;
+import com.android.jack.Options;
+import com.android.jack.TestTools;
+import com.android.jack.backend.dex.DexFileProduct;
+import com.android.jack.ir.ast.JSession;
+import com.android.jack.library.InputJackLibrary;
+import com.android.jack.scheduling.feature.Resources;
+import com.android.sched.scheduler.Plan;
+import com.android.sched.scheduler.Request;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.ThreadConfig;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+public class CompilationCacheTest {
+
+  private static final long TIME = 1400000000000L;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    CompilationCacheTest.class.getClassLoader().setDefaultAssertionStatus(true);
+    Options options = new Options();
+    RunnableHooks hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    options.getConfigBuilder(hooks).setDebug();
+    ThreadConfig.setConfig(options.getConfig());
+  }
+
+  @Test
+  public void libraryKeptWhileContentIsUnchanged() throws Exception {
+    File library = TestTools.createTempFile("library", ".jack");
+    copyLibrary(library, null);
+
+    CompilationCache cache = new CompilationCache();
+    try {
+      InputJackLibrary first = cache.getLibrary(library);
+      Assert.assertEquals(0, cache.getHitCount());
+
+      // Same content written again
+      copyLibrary(library, null);
+      Assert.assertSame(first, cache.getLibrary(library));
+      Assert.assertEquals(1, cache.getHitCount());
+
+      copyLibrary(library, "changed.txt");
+      InputJackLibrary changed = cache.getLibrary(library);
+      Assert.assertNotSame(first, changed);
+      Assert.assertEquals(1, cache.getHitCount());
+      Assert.assertSame(changed, cache.getLibrary(library));
+    } finally {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void planKeptForSameRequest() throws Exception {
+    CompilationCache cache = new CompilationCache();
+    try {
+      Request request = createRequest();
+      Assert.assertNull(cache.getPlan(request, false));
+      Plan<JSession> plan = request.getPlanBuilder(JSession.class).getPlan();
+      cache.putPlan(request, false, plan);
+
+      Assert.assertSame(plan, cache.getPlan(createRequest(), false));
+      Assert.assertEquals(1, cache.getHitCount());
+
+      Assert.assertNull(cache.getPlan(createRequest().addFeature(Resources.class), false));
+      Assert.assertNull(
+          cache.getPlan(createRequest().addProduction(DexFileProduct.class), false));
+      Assert.assertNull(cache.getPlan(createRequest(), true));
+      Assert.assertEquals(1, cache.getHitCount());
+
+      // The request is copied in the cache, changing it later does not change the cached key
+      request.addFeature(Resources.class);
+      Assert.assertSame(plan, cache.getPlan(createRequest(), false));
+      Assert.assertEquals(2, cache.getHitCount());
+    } finally {
+      cache.close();
+    }
+  }
+
+  @Nonnull
+  private static Request createRequest() {
+    Request request = Jack.createInitialRequest();
+    request.addInitialTagsOrMarkers(Jack.getJavaSourceInitialTagSet());
+    return request;
+  }
+
+  /**
+   * Copies the default boot classpath library to {@code destination}, with an additional empty
+   * entry if {@code extraEntry} is not null.
+   */
+  private static void copyLibrary(@Nonnull File destination, @CheckForNull String extraEntry)
+      throws IOException {
+    ZipFile source = new ZipFile(TestTools.getDefaultBootclasspath()[0]);
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(destination));
+    try {
+      byte[] buffer = new byte[4096];
+      Enumeration<? extends ZipEntry> entries = source.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        // Entries keep their date, so that copies have the same content
+        ZipEntry copiedEntry = new ZipEntry(entry.getName());
+        copiedEntry.setTime(entry.getTime());
+        out.putNextEntry(copiedEntry);
+        InputStream in = source.getInputStream(entry);
+        try {
+          copy(in, out, buffer);
+        } finally {
+          in.close();
+        }
+        out.closeEntry();
+      }
+      if (extraEntry != null) {
+        ZipEntry extra = new ZipEntry(extraEntry);
+        extra.setTime(TIME);
+        out.putNextEntry(extra);
+        out.closeEntry();
+      }
+    } finally {
+      out.close();
+      source.close();
+    }
+  }
+
+  private static void copy(@Nonnull InputStream in, @Nonnull OutputStream out,
+      @Nonnull byte[] buffer) throws IOException {
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+  }
+}
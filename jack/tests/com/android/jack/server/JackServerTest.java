@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.server;
+
+import com.android.jack.ExitStatus;
+import com.android.jack.Main;
+import com.android.jack.TestTools;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Checks that compilations run one after the other in the same virtual machine, as done by
+ * {@link JackServer}, give the same dex files as a first compilation.
+ */
+public class JackServerTest {
+
+  @Nonnull
+  private static final String TEST = "dx/compiler";
+
+  @BeforeClass
+  public static void setUpClass() {
+    JackServerTest.class.getClassLoader().setDefaultAssertionStatus(true);
+  }
+
+  @Test
+  public void repeatedRunsGiveSameOutput() throws Exception {
+    File first = TestTools.createTempDir("first", "dex");
+    Assert.assertEquals(ExitStatus.SUCCESS, Main.run(getArguments(first), null));
+    byte[] expected = readDex(first);
+
+    CompilationCache cache = new CompilationCache();
+    try {
+      for (int i = 0; i < 3; i++) {
+        File out = TestTools.createTempDir("repeated", "dex");
+        Assert.assertEquals(ExitStatus.SUCCESS, Main.run(getArguments(out), cache));
+        Assert.assertTrue(Arrays.equals(expected, readDex(out)));
+        // Plan and boot classpath library are found in the cache after the first compilation
+        Assert.assertEquals(i * 2, cache.getHitCount());
+      }
+    } finally {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void exitStatusAfterEachRequest() throws Exception {
+    File out = TestTools.createTempDir("server", "dex");
+    StringBuilder requests = new StringBuilder();
+    for (String argument : getArguments(out)) {
+      requests.append(argument).append('\n');
+    }
+    requests.append('\n');
+    requests.append("--unknown-option\n");
+    requests.append('\n');
+    // Arguments not followed by an empty line are not run
+    requests.append("--version\n");
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    CompilationCache cache = new CompilationCache();
+    int status;
+    try {
+      status = JackServer.serve(new BufferedReader(new StringReader(requests.toString())),
+          new PrintStream(output, /* autoFlush = */ true), cache);
+    } finally {
+      cache.close();
+    }
+
+    Assert.assertEquals(ExitStatus.SUCCESS, status);
+    Assert.assertEquals(JackServer.EXIT_STATUS_PREFIX + ExitStatus.SUCCESS + '\n'
+        + JackServer.EXIT_STATUS_PREFIX + ExitStatus.FAILURE_USAGE + '\n', output.toString());
+    Assert.assertTrue(new File(out, "classes.dex").isFile());
+  }
+
+  @Nonnull
+  private static String[] getArguments(@Nonnull File out) {
+    return new String[] {
+        "--classpath", TestTools.getDefaultBootclasspathString(),
+        "--output-dex", out.getPath(),
+        TestTools.getJackTestsWithJackFolder(TEST).getPath()};
+  }
+
+  @Nonnull
+  private static byte[] readDex(@Nonnull File out) throws IOException {
+    File dex = new File(out, "classes.dex");
+    Assert.assertTrue(dex.isFile());
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    InputStream in = new FileInputStream(dex);
+    try {
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        content.write(buffer, 0, read);
+      }
+    } finally {
+      in.close();
+    }
+    return content.toByteArray();
+  }
+}
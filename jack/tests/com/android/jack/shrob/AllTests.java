@@ -17,13 +17,16 @@
 package com.android.jack.shrob;
 
 
+import com.android.jack.shrob.proguard.WildcardPatternTest;
+
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
 @SuiteClasses(value = {
-    TreeTest.class
+    TreeTest.class,
+    WildcardPatternTest.class
     })
 public class AllTests {
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.shrob.proguard;
+
+import com.android.jack.shrob.spec.NameSpecification;
+import com.android.jack.shrob.spec.WildcardPattern;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnull;
+
+public class WildcardPatternTest {
+
+  @Nonnull
+  private static final String[] PATTERNS = {
+    "com.example.Foo", "com.example.*", "com.example.**", "com.*.Foo", "com.**.Foo", "**",
+    "*", "?", "Fo?", "com.example.Foo$*", "com.example.Foo$Bar", "*Activity", "**Activity",
+    "com.example.?oo*", "**.*", "*.**", "com.**$Inner", "a***b", "??*", "com.example.F\u00e9\u00e9",
+    "\uD801\uDC00?", "?\uD801\uDC00"};
+
+  @Nonnull
+  private static final String[] NAMES = {
+    "com/example/Foo", "com/example/Foo$Bar", "com/example/Fooo", "com/example/sub/Foo",
+    "com/Foo", "com/example/Bar", "com/example/Fo", "Foo", "Fo", "F", "", "com/example/",
+    "MainActivity", "com/example/MainActivity", "com/a/b/c/Foo", "com/x$Inner", "com/x/y$Inner",
+    "ab", "a/b", "a/x/b", "abc", "com/example/F\u00e9\u00e9", "\uD801\uDC00x",
+    "x\uD801\uDC00", "\uD801\uDC00\uD801\uDC00", "/", "//"};
+
+  @BeforeClass
+  public static void setUp() {
+    WildcardPatternTest.class.getClassLoader().setDefaultAssertionStatus(true);
+  }
+
+  @Test
+  public void sameMatchesAsRegex() {
+    for (String pattern : PATTERNS) {
+      NameSpecification nameSpec = GrammarActions.name(pattern);
+      WildcardPattern wildcardName = nameSpec.getWildcardName();
+      Assert.assertNotNull(pattern, wildcardName);
+      Pattern regex = Pattern.compile(nameSpec.toString());
+      for (String name : NAMES) {
+        Assert.assertEquals(pattern + " on " + name, regex.matcher(name).find(),
+            wildcardName.matches(name));
+      }
+    }
+  }
+
+  @Test
+  public void literalPrefix() {
+    Assert.assertEquals("com/example/Foo", WildcardPattern.compile("com.example.Foo")
+        .getLiteralPrefix());
+    Assert.assertTrue(WildcardPattern.compile("com.example.Foo").isLiteral());
+    Assert.assertEquals("com/", WildcardPattern.compile("com.*.Foo").getLiteralPrefix());
+    Assert.assertFalse(WildcardPattern.compile("com.*.Foo").isLiteral());
+    Assert.assertEquals("", WildcardPattern.compile("**").getLiteralPrefix());
+  }
+
+  @Test
+  public void regexNotCompiled() {
+    Assert.assertNull(WildcardPattern.compile("\\[I"));
+    Assert.assertNull(WildcardPattern.compile("(Z|B|C|S|I|F|D|L)"));
+    Assert.assertNull(WildcardPattern.compile("Lcom/example/Foo\\$Bar;"));
+    StringBuilder tooLong = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      tooLong.append("a*");
+    }
+    Assert.assertNull(WildcardPattern.compile(tooLong.toString()));
+  }
+}
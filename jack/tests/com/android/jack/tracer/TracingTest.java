@@ -18,8 +18,8 @@ package com.android.jack.tracer;
 
 import com.android.jack.Options;
 import com.android.jack.TestTools;
+import com.android.jack.analysis.hierarchy.ClassHierarchyBuilder;
 import com.android.jack.analysis.tracer.ComposedTracerBrush;
-import com.android.jack.analysis.tracer.ExtendingOrImplementingClassFinder;
 import com.android.jack.analysis.tracer.Tracer;
 import com.android.jack.analysis.tracer.TracerBrush;
 import com.android.jack.ir.ast.JDefinedClassOrInterface;
@@ -64,7 +64,6 @@ public class TracingTest {
     RunnableHooks hooks = new RunnableHooks();
     try {
       JSession session = TestTools.buildSession(options, hooks);
-      ExtendingOrImplementingClassFinder hierachyFinder = new ExtendingOrImplementingClassFinder();
 
       TracerBrush[] brushForComposed = new TracerBrush[NB_TRACE];
       Tracer[] singleTracers = new Tracer[NB_TRACE];
@@ -76,9 +75,7 @@ public class TracingTest {
       TracerBrush brush = new ComposedTracerBrush(brushForComposed);
       Tracer tracer = new Tracer(brush);
 
-      for (JDefinedClassOrInterface jdcoi : session.getTypesToEmit()) {
-        hierachyFinder.run(jdcoi);
-      }
+      new ClassHierarchyBuilder().run(session);
 
       for (JDefinedClassOrInterface jdcoi : session.getTypesToEmit()) {
         tracer.run(jdcoi);
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.jack.transformations.request;
+
+import com.android.jack.Options;
+import com.android.jack.category.SlowTests;
+import com.android.jack.ir.ast.JBlock;
+import com.android.jack.ir.ast.JExpressionStatement;
+import com.android.jack.ir.ast.JIntLiteral;
+import com.android.jack.ir.ast.JNode;
+import com.android.jack.ir.ast.JStatement;
+import com.android.jack.ir.sourceinfo.SourceInfo;
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.config.Config;
+import com.android.sched.util.config.ThreadConfig;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+public class TransformationRequestTest {
+
+  @Nonnull
+  private static Config batchedConfig;
+
+  @Nonnull
+  private static Config sequentialConfig;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    TransformationRequestTest.class.getClassLoader().setDefaultAssertionStatus(true);
+    batchedConfig = createConfig(true);
+    sequentialConfig = createConfig(false);
+  }
+
+  @Nonnull
+  private static Config createConfig(boolean batched) throws Exception {
+    Options options = new Options();
+    options.addProperty(TransformationRequest.BATCHED_COMMIT.getName(), Boolean.toString(batched));
+    RunnableHooks hooks = new RunnableHooks();
+    options.checkValidity(hooks);
+    options.getConfigBuilder(hooks).setDebug();
+    return options.getConfig();
+  }
+
+  /**
+   * Applies the same random steps with a batched and with a sequential commit, including steps
+   * relative to inserted statements and steps on expressions.
+   */
+  @Test
+  public void batchedCommitGivesSameStatements() {
+    for (int seed = 0; seed < 20; seed++) {
+      Assert.assertEquals(getValues(transform(sequentialConfig, 100, seed)),
+          getValues(transform(batchedConfig, 100, seed)));
+    }
+  }
+
+  /**
+   * Inserts a statement before each of the 50000 statements of a block, and replaces one statement
+   * out of ten, like the three address code transformation does on large methods.
+   */
+  @Test
+  @Category(SlowTests.class)
+  public void largeBlockGivesSameStatements() {
+    int statementCount = 50000;
+
+    JBlock sequential = insertBeforeAll(sequentialConfig, statementCount);
+    JBlock batched = insertBeforeAll(batchedConfig, statementCount);
+
+    Assert.assertEquals(statementCount * 2, batched.getStatements().size());
+    Assert.assertEquals(getValues(sequential), getValues(batched));
+  }
+
+  @Nonnull
+  private static JBlock insertBeforeAll(@Nonnull Config config, @Nonnegative int statementCount) {
+    ThreadConfig.setConfig(config);
+    try {
+      JBlock block = createBlock(statementCount);
+      TransformationRequest request = new TransformationRequest(block);
+      for (JStatement statement : block.getStatements()) {
+        int value = getValue(statement);
+        request.append(new AppendBefore(statement, createStatement(-value)));
+        if (value % 10 == 0) {
+          request.append(new Replace(statement, createStatement(value + statementCount)));
+        }
+      }
+      request.commit();
+      return block;
+    } finally {
+      ThreadConfig.unsetConfig();
+    }
+  }
+
+  @Nonnull
+  private static JBlock transform(@Nonnull Config config, @Nonnegative int statementCount,
+      long seed) {
+    ThreadConfig.setConfig(config);
+    try {
+      JBlock block = createBlock(statementCount);
+      List<JStatement> inTree = new ArrayList<JStatement>(block.getStatements());
+      Set<JStatement> withReplacedExpr = new HashSet<JStatement>();
+      Random random = new Random(seed);
+      int nextValue = statementCount;
+      TransformationRequest request = new TransformationRequest(block);
+      for (int i = 0; i < statementCount; i++) {
+        JStatement existing = inTree.get(random.nextInt(inTree.size()));
+        JStatement newStatement = createStatement(nextValue++);
+        switch (random.nextInt(7)) {
+          case 0:
+            request.append(new AppendBefore(existing, newStatement));
+            inTree.add(newStatement);
+            break;
+          case 1:
+            request.append(new PrependAfter(existing, newStatement));
+            inTree.add(newStatement);
+            break;
+          case 2:
+            request.append(new Replace(existing, newStatement));
+            inTree.remove(existing);
+            inTree.add(newStatement);
+            break;
+          case 3:
+            if (inTree.size() > 1) {
+              request.append(new Remove(existing));
+              inTree.remove(existing);
+            }
+            break;
+          case 4:
+            request.append(new AppendStatement(block, newStatement));
+            inTree.add(newStatement);
+            break;
+          case 5:
+            request.append(new PrependStatement(block, newStatement));
+            inTree.add(newStatement);
+            break;
+          case 6:
+            if (withReplacedExpr.add(existing)) {
+              JNode expr = ((JExpressionStatement) existing).getExpr();
+              request.append(new Replace(expr, new JIntLiteral(SourceInfo.UNKNOWN, nextValue++)));
+            }
+            break;
+          default:
+            throw new AssertionError();
+        }
+      }
+      request.commit();
+      return block;
+    } finally {
+      ThreadConfig.unsetConfig();
+    }
+  }
+
+  @Nonnull
+  private static JBlock createBlock(@Nonnegative int statementCount) {
+    JBlock block = new JBlock(SourceInfo.UNKNOWN);
+    for (int i = 0; i < statementCount; i++) {
+      JStatement statement = createStatement(i);
+      block.addStmt(statement);
+      statement.updateParents(block);
+    }
+    return block;
+  }
+
+  @Nonnull
+  private static JStatement createStatement(int value) {
+    return new JExpressionStatement(SourceInfo.UNKNOWN, new JIntLiteral(SourceInfo.UNKNOWN, value));
+  }
+
+  private static int getValue(@Nonnull JStatement statement) {
+    return ((JIntLiteral) ((JExpressionStatement) statement).getExpr()).getIntValue();
+  }
+
+  @Nonnull
+  private static List<Integer> getValues(@Nonnull JBlock block) {
+    List<Integer> values = new ArrayList<Integer>();
+    for (JStatement statement : block.getStatements()) {
+      Assert.assertSame(block, statement.getParent());
+      values.add(Integer.valueOf(getValue(statement)));
+    }
+    return values;
+  }
+}
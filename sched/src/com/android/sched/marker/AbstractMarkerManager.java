@@ -31,20 +31,25 @@ import com.android.sched.util.config.ThreadConfig;
 import com.android.sched.util.log.LoggerFactory;
 
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.EmptyStackException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
  * Provides {@link Marker}-managing abilities to its subclasses.
- * <p>This is a skeletal implementation. Two full implementations are available:
- * {@link StaticMarkerManager} and {@link LocalMarkerManager}.
+ * <p>This is a skeletal implementation. Three full implementations are available:
+ * {@link StaticMarkerManager}, {@link LocalMarkerManager} and {@link CompactMarkerManager}.
  */
 abstract class AbstractMarkerManager implements MarkerManager {
   @Nonnull
@@ -144,6 +149,29 @@ abstract class AbstractMarkerManager implements MarkerManager {
     return true;
   }
 
+  /**
+   * Returns the dense id of a registered {@link Marker}. Ids are given in the order of the marker
+   * names, so that they are stable from one run to another.
+   */
+  @Nonnegative
+  protected static int getMarkerId(@Nonnull Class<? extends Marker> marker) {
+    assert map != null;
+    ManagedMarker managedMarker = map.get(marker);
+    assert managedMarker != null : "Marker '" + marker.getCanonicalName() + "' is not registered";
+
+    return managedMarker.getId();
+  }
+
+  /**
+   * Returns the dense id of a {@link Marker}, or -1 if it is not registered.
+   */
+  protected static int findMarkerId(@Nonnull Class<? extends Marker> marker) {
+    assert map != null;
+    ManagedMarker managedMarker = map.get(marker);
+
+    return managedMarker == null ? -1 : managedMarker.getId();
+  }
+
   @CheckForNull
   private static ManagedRunnable getCurrentSchedulable() {
     ManagedSchedulable schedulable = null;
@@ -205,6 +233,18 @@ abstract class AbstractMarkerManager implements MarkerManager {
           }
         }
       }
+
+      List<ManagedMarker> markers = new ArrayList<ManagedMarker>(map.values());
+      Collections.sort(markers, new Comparator<ManagedMarker>() {
+        @Override
+        public int compare(ManagedMarker m1, ManagedMarker m2) {
+          return m1.getMarker().getName().compareTo(m2.getMarker().getName());
+        }
+      });
+      int id = 0;
+      for (ManagedMarker marker : markers) {
+        marker.setId(id++);
+      }
     }
   }
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.marker;
+
+import com.android.sched.item.Items;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Provides {@link Marker}-managing abilities to its subclasses.
+ * Similar to {@link LocalMarkerManager} but markers are stored in a small array, ordered by marker
+ * ids. The array is never modified once published: reads do not lock, and writes replace the array
+ * with a compare-and-set. Markers are looked up by a binary search on their ids.
+ */
+public class CompactMarkerManager extends AbstractMarkerManager {
+  @Nonnull
+  private static final AtomicReferenceFieldUpdater<CompactMarkerManager, Marker[]> updater =
+      AtomicReferenceFieldUpdater.newUpdater(CompactMarkerManager.class, Marker[].class,
+          "markers");
+
+  @CheckForNull
+  private volatile Marker[] markers;
+
+  @Override
+  public void addMarker(@Nonnull Marker marker) {
+    assert isValidMarker(marker.getClass()) : "Marker '" + Items.getName(marker.getClass())
+        + "' is not supported for class '" + this.getClass().getName() + "'";
+
+    int id = getMarkerId(marker.getClass());
+    Marker[] current;
+    Marker[] updated;
+
+    do {
+      current = markers;
+
+      if (current == null) {
+        updated = new Marker[] {marker};
+      } else {
+        int pos = indexOf(current, id);
+
+        if (pos >= 0) {
+          assert false : "Marker '" + Items.getName(marker.getClass()) + "' already exists";
+
+          updated = current.clone();
+          updated[pos] = marker;
+        } else {
+          pos = -(pos + 1);
+          updated = new Marker[current.length + 1];
+          System.arraycopy(current, 0, updated, 0, pos);
+          updated[pos] = marker;
+          System.arraycopy(current, pos, updated, pos + 1, current.length - pos);
+        }
+      }
+    } while (!updater.compareAndSet(this, current, updated));
+  }
+
+  public void addAllMarker(@Nonnull Collection<Marker> collection) {
+    assert collection != null;
+
+    Iterator<Marker> iter = collection.iterator();
+    while (iter.hasNext()) {
+      addMarker(iter.next());
+    }
+  }
+
+  @Override
+  @Nonnull
+  public Collection<Marker> getAllMarkers() {
+    Marker[] current = markers;
+
+    if (current == null) {
+      return Collections.emptyList();
+    }
+
+    for (Marker marker : current) {
+      assert checkGetAccess(marker.getClass());
+    }
+
+    return Collections.unmodifiableList(Arrays.asList(current));
+  }
+
+  @Override
+  @CheckForNull
+  @SuppressWarnings(value = "unchecked")
+  public <T extends Marker> T getMarker(@Nonnull Class<T> cls) {
+    Marker[] current = markers;
+
+    if (current != null) {
+      int pos = indexOf(current, getId(cls));
+      if (pos >= 0) {
+        return (T) current[pos];
+      }
+    }
+
+    return null;
+  }
+
+  @Override
+  public <T extends Marker> boolean containsMarker(@Nonnull Class<T> cls) {
+    assert isValidMarker(cls) : "Marker '" + Items.getName(cls) + "' is not supported for class '"
+        + this.getClass().getName() + "'";
+
+    Marker[] current = markers;
+
+    return current != null && indexOf(current, getId(cls)) >= 0;
+  }
+
+  @Override
+  @CheckForNull
+  @SuppressWarnings(value = "unchecked")
+  public <T extends Marker> T removeMarker(@Nonnull Class<T> cls) {
+    int id = getId(cls);
+    Marker[] current;
+    Marker[] updated;
+    int pos;
+
+    do {
+      current = markers;
+      if (current == null) {
+        return null;
+      }
+
+      pos = indexOf(current, id);
+      if (pos < 0) {
+        return null;
+      }
+
+      if (current.length == 1) {
+        updated = null;
+      } else {
+        updated = new Marker[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, pos);
+        System.arraycopy(current, pos + 1, updated, pos, current.length - pos - 1);
+      }
+    } while (!updater.compareAndSet(this, current, updated));
+
+    return (T) current[pos];
+  }
+
+  /**
+   * @return the position of the marker with the given id, or (-(insertion point) - 1) if there is
+   * none, as {@link Arrays#binarySearch(int[], int)} does
+   */
+  private static int indexOf(@Nonnull Marker[] markers, int id) {
+    int low = 0;
+    int high = markers.length - 1;
+
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int midId = getId(markers[mid].getClass());
+
+      if (midId < id) {
+        low = mid + 1;
+      } else if (midId > id) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+
+    return -(low + 1);
+  }
+
+  /**
+   * @return the id of the marker class, or -1 if it is not a registered marker
+   */
+  private static int getId(@Nonnull Class<? extends Marker> cls) {
+    return findMarkerId(cls);
+  }
+}
@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -57,6 +58,9 @@ public class ManagedMarker implements HasDescription {
   @Nonnull
   private List<InternalDynamicValidOn> dynamicValidOn;
 
+  // Dense id, see AbstractMarkerManager
+  private int id = -1;
+
   /**
    * Represents an extracted {@link DynamicValidOn} annotation.
    */
@@ -174,6 +178,20 @@ public class ManagedMarker implements HasDescription {
     return marker;
   }
 
+  /**
+   * @return a dense id, from 0 to the number of registered markers excluded
+   */
+  @Nonnegative
+  public int getId() {
+    assert id >= 0 : "Marker '" + name + "' is not registered";
+
+    return id;
+  }
+
+  void setId(@Nonnegative int id) {
+    this.id = id;
+  }
+
   @Nonnull
   @Override
   public String toString() {
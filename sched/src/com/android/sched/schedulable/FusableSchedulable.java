@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.schedulable;
+
+import com.android.sched.item.Component;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link RunnableSchedulable} whose processing is a single walk of the instance applying a hook
+ * on each node. When the runner fusion is enabled, adjacent {@code FusableSchedulable}s sharing the
+ * same {@link HookWalker} are run in one walk, as long as their {@link Constraint} and
+ * {@link Transform} declarations do not depend on each other.
+ * <p>
+ * Hooks must not modify the instance during the walk, modifications are applied by
+ * {@link #endHook(Component, Object)}.
+ *
+ * @param <T> the type of the instance to process
+ * @param <H> the type of the per-node hook
+ */
+public interface FusableSchedulable<T extends Component, H> extends RunnableSchedulable<T> {
+
+  /**
+   * @return the hook to apply on the nodes of the instance, or null if the instance must not be
+   * processed.
+   * @throws Exception if any Exception is thrown during the process
+   */
+  @CheckForNull
+  public H getHook(@Nonnull T t) throws Exception;
+
+  /**
+   * Called once the hook has been applied on all the nodes of the instance.
+   *
+   * @throws Exception if any Exception is thrown during the process
+   */
+  public void endHook(@Nonnull T t, @Nonnull H hook) throws Exception;
+
+  /**
+   * @return the walker applying the hooks on an instance.
+   */
+  @Nonnull
+  public HookWalker<? super T, ? super H> getWalker();
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.schedulable;
+
+import com.android.sched.item.Component;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Walks an instance once, applying several hooks of {@link FusableSchedulable}s on each node.
+ *
+ * @param <T> the type of the instance to walk
+ * @param <H> the type of the per-node hook
+ */
+public interface HookWalker<T extends Component, H> {
+
+  /**
+   * Applies the hooks on all the nodes of the instance. On each node, hooks must be applied in the
+   * order of the list.
+   *
+   * @throws Exception if any Exception is thrown by a hook
+   */
+  public void walk(@Nonnull T t, @Nonnull List<? extends H> hooks) throws Exception;
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.scheduler;
+
+import com.android.sched.item.Component;
+import com.android.sched.schedulable.FusableSchedulable;
+import com.android.sched.schedulable.HookWalker;
+import com.android.sched.scheduler.ScheduleInstance.SchedStep;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Adjacent {@link SchedStep}s of {@link FusableSchedulable}s which are run in a single walk of the
+ * data. A runner can join the fusion only if none of the tags, markers or components it needs or
+ * does not support is transformed by a runner already in the fusion, since it would not see the
+ * result of these transformations.
+ */
+class FusedSteps {
+  @Nonnull
+  private final List<SchedStep> steps = new ArrayList<SchedStep>();
+
+  @Nonnull
+  private final List<ManagedRunnable> runners = new ArrayList<ManagedRunnable>();
+
+  @Nonnull
+  private final List<FusableSchedulable<Component, Object>> schedulables =
+      new ArrayList<FusableSchedulable<Component, Object>>();
+
+  @Nonnull
+  private final HookWalker<Component, Object> walker;
+
+  @Nonnull
+  private final TagOrMarkerOrComponentSet transformedTags;
+
+  @Nonnull
+  private final StringBuilder name = new StringBuilder();
+
+  @SuppressWarnings("unchecked")
+  FusedSteps(@Nonnull SchedStep step, @Nonnull ManagedRunnable runner,
+      @Nonnull FusableSchedulable<?, ?> schedulable) {
+    walker = (HookWalker<Component, Object>) schedulable.getWalker();
+    transformedTags = new TagOrMarkerOrComponentSet(runner.getAddedTags());
+    add(step, runner, schedulable);
+  }
+
+  boolean canFuse(@Nonnull ManagedRunnable runner, @Nonnull FusableSchedulable<?, ?> schedulable) {
+    return walker.equals(schedulable.getWalker())
+        && !transformedTags.containsOne(runner.getAllPossibleNeededTags())
+        && !transformedTags.containsOne(runner.getAllPossibleUnsupportedTags());
+  }
+
+  @SuppressWarnings("unchecked")
+  void add(@Nonnull SchedStep step, @Nonnull ManagedRunnable runner,
+      @Nonnull FusableSchedulable<?, ?> schedulable) {
+    steps.add(step);
+    runners.add(runner);
+    schedulables.add((FusableSchedulable<Component, Object>) schedulable);
+
+    transformedTags.addAll(runner.getAddedTags());
+    transformedTags.addAll(runner.getRemovedTags());
+    transformedTags.addAll(runner.getModifiedTags());
+
+    if (name.length() > 0) {
+      name.append('+');
+    }
+    name.append(runner.getName());
+
+    if (steps.size() == 2) {
+      steps.get(0).setFusion(this);
+    }
+    if (steps.size() >= 2) {
+      step.setFusion(this);
+    }
+  }
+
+  boolean isHead(@Nonnull SchedStep step) {
+    return steps.get(0) == step;
+  }
+
+  @Nonnegative
+  int size() {
+    return steps.size();
+  }
+
+  @Nonnull
+  ManagedRunnable getRunner(@Nonnegative int index) {
+    return runners.get(index);
+  }
+
+  @Nonnull
+  FusableSchedulable<Component, Object> getSchedulable(@Nonnegative int index) {
+    return schedulables.get(index);
+  }
+
+  @Nonnull
+  HookWalker<Component, Object> getWalker() {
+    return walker;
+  }
+
+  @Nonnull
+  String getName() {
+    return name.toString();
+  }
+}
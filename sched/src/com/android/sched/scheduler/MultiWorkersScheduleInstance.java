@@ -31,6 +31,11 @@ import com.android.sched.util.config.id.IntegerPropertyId;
 import com.android.sched.util.config.id.ReflectFactoryPropertyId;
 import com.android.sched.util.findbugs.SuppressFBWarnings;
 import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.util.log.Tracer;
+import com.android.sched.util.log.TracerFactory;
+import com.android.sched.util.log.stats.Counter;
+import com.android.sched.util.log.stats.CounterImpl;
+import com.android.sched.util.log.stats.StatisticId;
 
 import java.lang.management.LockInfo;
 import java.lang.management.ManagementFactory;
@@ -38,13 +43,13 @@ import java.lang.management.MonitorInfo;
 import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -75,15 +80,37 @@ public class MultiWorkersScheduleInstance<T extends Component>
       .withMin(100).requiredIf(ScheduleInstance.DEFAULT_RUNNER.getClazz()
           .isSubClassOf(MultiWorkersScheduleInstance.class)).addDefaultValue("5000");
 
+  @Nonnull
+  private static final StatisticId<Counter> STOLEN_TASKS = new StatisticId<Counter>(
+      "sched.runner.thread.tasks.stolen", "Tasks stolen from the queue of another worker",
+      CounterImpl.class, Counter.class);
+
   @Nonnegative
   private final int checkEvery = ThreadConfig.get(CHECK_FREQUENCY).intValue();
 
   @Nonnull
   private final Synchronized[] syncs;
 
+  private final boolean workStealing;
+
   public MultiWorkersScheduleInstance(@Nonnull Plan<T> plan) throws Exception {
+    this(plan, false);
+  }
+
+  /**
+   * Construct the {@link Plan}.
+   *
+   * @param plan the {@code Plan} to instantiate
+   * @param workStealing true if each worker must have its own queue of tasks and steal tasks from
+   * the other workers when idle, false if all workers share the same queue
+   * @throws Exception if an Exception is thrown when instantiating a {@code Schedulable}
+   */
+  protected MultiWorkersScheduleInstance(@Nonnull Plan<T> plan, boolean workStealing)
+      throws Exception {
     super(plan);
 
+    this.workStealing = workStealing;
+
     boolean isSynchronizedManaged = ThreadConfig.get(MANAGED_SYNC).booleanValue();
     syncs = new Synchronized[plan.size()];
     if (isSynchronizedManaged) {
@@ -99,7 +126,10 @@ public class MultiWorkersScheduleInstance<T extends Component>
 
   private static class Worker extends Thread implements Runnable {
     @Nonnull
-    BlockingDeque<Task> queue;
+    private final TaskQueue queue;
+
+    @Nonnegative
+    private final int index;
 
     @CheckForNull
     private Task currentTask = null;
@@ -107,8 +137,9 @@ public class MultiWorkersScheduleInstance<T extends Component>
     @Nonnegative
     private long currentTaskStartOn;
 
-    public Worker(@Nonnull BlockingDeque<Task> queue) {
+    public Worker(@Nonnull TaskQueue queue, @Nonnegative int index) {
       this.queue = queue;
+      this.index = index;
     }
 
     /*
@@ -126,7 +157,7 @@ public class MultiWorkersScheduleInstance<T extends Component>
             currentTaskStartOn = System.currentTimeMillis();
           }
 
-          Task task = queue.take();
+          Task task = queue.take(index);
 
           synchronized (this) {
             currentTask = task;
@@ -179,6 +210,228 @@ public class MultiWorkersScheduleInstance<T extends Component>
     }
   }
 
+  /**
+   * Queue of {@link Task}s ready to be processed by {@link Worker}s.
+   */
+  private abstract static class TaskQueue {
+    /**
+     * Adds a task ready to be processed.
+     */
+    public abstract void addLast(@Nonnull Task task);
+
+    /**
+     * Adds a task which must be processed before all others, such as a shutdown task.
+     */
+    public abstract void addFirst(@Nonnull Task task);
+
+    /**
+     * Retrieves the next task to process, waiting if necessary until one becomes available.
+     *
+     * @param worker the index of the {@link Worker} which is asking for a task
+     */
+    @Nonnull
+    public abstract Task take(@Nonnegative int worker) throws InterruptedException;
+
+    /**
+     * Retrieves the first task once all workers are terminated.
+     */
+    @Nonnull
+    public abstract Task pop();
+
+    @Nonnegative
+    public abstract int size();
+
+    public boolean isEmpty() {
+      return size() == 0;
+    }
+  }
+
+  /**
+   * {@link TaskQueue} where all {@link Worker}s share the same queue.
+   */
+  private static class SharedTaskQueue extends TaskQueue {
+    @Nonnull
+    private final BlockingDeque<Task> queue = new LinkedBlockingDeque<Task>();
+
+    @Override
+    public void addLast(@Nonnull Task task) {
+      queue.addLast(task);
+    }
+
+    @Override
+    public void addFirst(@Nonnull Task task) {
+      queue.addFirst(task);
+    }
+
+    @Override
+    @Nonnull
+    public Task take(@Nonnegative int worker) throws InterruptedException {
+      return queue.take();
+    }
+
+    @Override
+    @Nonnull
+    public Task pop() {
+      return queue.pop();
+    }
+
+    @Override
+    @Nonnegative
+    public int size() {
+      return queue.size();
+    }
+  }
+
+  /**
+   * {@link TaskQueue} where each {@link Worker} owns a queue. Tasks submitted by a worker are
+   * pushed on its own queue and processed in LIFO order by this worker, so that tasks spawned by an
+   * {@link AdapterSchedulable} stay local to the worker which has created them. An idle worker
+   * steals the oldest task of another worker.
+   */
+  private static class WorkStealingTaskQueue extends TaskQueue {
+    @Nonnull
+    private final List<BlockingDeque<Task>> locals;
+
+    /**
+     * Tasks submitted from a thread which is not a worker.
+     */
+    @Nonnull
+    private final BlockingDeque<Task> submitted = new LinkedBlockingDeque<Task>();
+
+    /**
+     * Tasks which must be processed before all others.
+     */
+    @Nonnull
+    private final BlockingDeque<Task> priorities = new LinkedBlockingDeque<Task>();
+
+    @Nonnull
+    private final AtomicInteger idleWorkers = new AtomicInteger(0);
+
+    @Nonnull
+    private final Object signal = new Object();
+
+    // Written while holding signal
+    private volatile int version = 0;
+
+    @Nonnull
+    private final Tracer tracer = TracerFactory.getTracer();
+
+    public WorkStealingTaskQueue(@Nonnegative int workers) {
+      locals = new ArrayList<BlockingDeque<Task>>(workers);
+      for (int idx = 0; idx < workers; idx++) {
+        locals.add(new LinkedBlockingDeque<Task>());
+      }
+    }
+
+    @Override
+    public void addLast(@Nonnull Task task) {
+      Thread thread = Thread.currentThread();
+
+      if (thread instanceof Worker && ((Worker) thread).queue == this) {
+        locals.get(((Worker) thread).index).addFirst(task);
+      } else {
+        submitted.addLast(task);
+      }
+
+      if (idleWorkers.get() > 0) {
+        wakeUp();
+      }
+    }
+
+    @Override
+    public void addFirst(@Nonnull Task task) {
+      priorities.addFirst(task);
+      wakeUp();
+    }
+
+    @Override
+    @Nonnull
+    public Task take(@Nonnegative int worker) throws InterruptedException {
+      while (true) {
+        int observed = version;
+
+        Task task = poll(worker);
+        if (task != null) {
+          return task;
+        }
+
+        // Declare this worker idle before the last check, so that a concurrent submitter either
+        // sees it idle and signals it, or submits before the check below and is found by it
+        idleWorkers.incrementAndGet();
+        try {
+          task = poll(worker);
+          if (task != null) {
+            return task;
+          }
+
+          synchronized (signal) {
+            while (version == observed) {
+              signal.wait();
+            }
+          }
+        } finally {
+          idleWorkers.decrementAndGet();
+        }
+      }
+    }
+
+    @CheckForNull
+    private Task poll(@Nonnegative int worker) {
+      Task task = priorities.pollFirst();
+      if (task != null) {
+        return task;
+      }
+
+      task = locals.get(worker).pollFirst();
+      if (task != null) {
+        return task;
+      }
+
+      task = submitted.pollFirst();
+      if (task != null) {
+        return task;
+      }
+
+      int size = locals.size();
+      for (int idx = 1; idx < size; idx++) {
+        task = locals.get((worker + idx) % size).pollLast();
+        if (task != null) {
+          if (tracer.isTracing()) {
+            tracer.getStatistic(STOLEN_TASKS).incValue();
+          }
+
+          return task;
+        }
+      }
+
+      return null;
+    }
+
+    private void wakeUp() {
+      synchronized (signal) {
+        version++;
+        signal.notifyAll();
+      }
+    }
+
+    @Override
+    @Nonnull
+    public Task pop() {
+      return priorities.pop();
+    }
+
+    @Override
+    @Nonnegative
+    public int size() {
+      int size = submitted.size() + priorities.size();
+      for (BlockingDeque<Task> local : locals) {
+        size += local.size();
+      }
+
+      return size;
+    }
+  }
+
   private static class Synchronized {
     @Nonnull
     private final List<Task> queue = new LinkedList<Task>();
@@ -208,18 +461,18 @@ public class MultiWorkersScheduleInstance<T extends Component>
     @CheckForNull
     private final Task  blocking;
     @Nonnull
-    protected final Deque<Task> queue;
+    protected final TaskQueue queue;
 
     @Nonnull
     private int blockCounter = 0;
     private boolean commited = false;
 
-    public Task(@Nonnull Deque<Task> queue) {
+    public Task(@Nonnull TaskQueue queue) {
       this.queue = queue;
       blocking = null;
     }
 
-    public Task(@Nonnull Deque<Task> queue, @Nonnull Task blocking) {
+    public Task(@Nonnull TaskQueue queue, @Nonnull Task blocking) {
       this.queue    = queue;
       this.blocking = blocking;
       synchronized (blocking) {
@@ -278,7 +531,7 @@ public class MultiWorkersScheduleInstance<T extends Component>
   }
 
   private static class ShutdownTask extends Task {
-    public ShutdownTask(@Nonnull Deque<Task> queue) {
+    public ShutdownTask(@Nonnull TaskQueue queue) {
       super(queue);
     }
 
@@ -310,7 +563,7 @@ public class MultiWorkersScheduleInstance<T extends Component>
     @Nonnull
     private final Exception exception;
 
-    public ExceptionTask(@Nonnull Deque<Task> queue, @Nonnull Exception exception) {
+    public ExceptionTask(@Nonnull TaskQueue queue, @Nonnull Exception exception) {
       super(queue);
 
       this.exception = exception;
@@ -333,7 +586,7 @@ public class MultiWorkersScheduleInstance<T extends Component>
     @Nonnull
     private final Error error;
 
-    public ErrorTask(@Nonnull Deque<Task> queue, @Nonnull Error error) {
+    public ErrorTask(@Nonnull TaskQueue queue, @Nonnull Error error) {
       super(queue);
 
       this.error = error;
@@ -359,7 +612,7 @@ public class MultiWorkersScheduleInstance<T extends Component>
     @Nonnull
     private final MultiWorkersScheduleInstance<U> instances;
 
-    public SequentialTask(@Nonnull Deque<Task> queue,
+    public SequentialTask(@Nonnull TaskQueue queue,
         @Nonnull MultiWorkersScheduleInstance<U> instances, @Nonnull U data,
         @Nonnull Task blocking) {
       super(queue, blocking);
@@ -400,7 +653,7 @@ public class MultiWorkersScheduleInstance<T extends Component>
 
               // No data, next in SequentialTask.
             } else if (instance instanceof RunnableSchedulable) {
-              instances.runWithLog((RunnableSchedulable) instance, data);
+              instances.runWithLog(step, data);
             } else if (instance instanceof VisitorSchedulable) {
               instances.visitWithLog((VisitorSchedulable) instance, data);
             } else {
@@ -438,7 +691,13 @@ public class MultiWorkersScheduleInstance<T extends Component>
   @Override
   public <X extends VisitorSchedulable<T>, U extends Component> void process(@Nonnull T data)
       throws Exception {
-    BlockingDeque<Task> queue = new LinkedBlockingDeque<Task>();
+    int threadPoolSize = getThreadPoolSize();
+    TaskQueue queue;
+    if (workStealing) {
+      queue = new WorkStealingTaskQueue(threadPoolSize);
+    } else {
+      queue = new SharedTaskQueue();
+    }
 
     // Initialize queue with the initial plan, and block a shutdown Task on it
     Task shutdown = new ShutdownTask(queue);
@@ -446,11 +705,9 @@ public class MultiWorkersScheduleInstance<T extends Component>
     shutdown.commit();
 
     // Create threads
-    int threadPoolSize = getThreadPoolSize();
-
     List<Worker> activeWorkers = new ArrayList<Worker>(threadPoolSize);
     for (int i = 0; i < threadPoolSize; i++) {
-      Worker worker = new Worker(queue);
+      Worker worker = new Worker(queue, i);
 
       worker.setName("sched-worker-" + i);
       worker.setDaemon(true);
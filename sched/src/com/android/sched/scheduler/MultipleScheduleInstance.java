@@ -64,22 +64,25 @@ public abstract class MultipleScheduleInstance<T extends Component> extends Sche
   public MultipleScheduleInstance(@Nonnull Plan<T> plan) throws Exception {
     super(plan);
 
+    threadPoolSize = getConfiguredThreadCount();
+    logger.log(Level.FINE,
+        "Multi-threaded based executor with {0} threads (on a system with {1} cores)",
+        new Object[] {Integer.valueOf(threadPoolSize),
+            Integer.valueOf(Runtime.getRuntime().availableProcessors())});
+  }
+
+  /**
+   * @return the number of threads given by the configuration of the current thread.
+   */
+  @Nonnegative
+  static int getConfiguredThreadCount() {
     switch (ThreadConfig.get(NUM_THREADS_POLICY)) {
       case NUM_CORES:
-        threadPoolSize = Runtime.getRuntime().availableProcessors();
-
-        logger.log(Level.FINE,
-            "Multi-threaded based executor with {0} threads (one by number of cores)",
-            Integer.valueOf(threadPoolSize));
-        break;
+        return Runtime.getRuntime().availableProcessors();
       case FIXED:
-        threadPoolSize = ThreadConfig.get(NUM_FIXED_THREADS).intValue();
-
-        logger.log(Level.FINE,
-            "Multi-threaded based executor with {0} threads (on a system with {1} cores)",
-            new Object[] {Integer.valueOf(threadPoolSize),
-                Integer.valueOf(Runtime.getRuntime().availableProcessors())});
-        break;
+        return ThreadConfig.get(NUM_FIXED_THREADS).intValue();
+      default:
+        throw new AssertionError();
     }
   }
 
@@ -18,13 +18,16 @@ package com.android.sched.scheduler;
 
 import com.android.sched.item.Component;
 import com.android.sched.schedulable.AdapterSchedulable;
+import com.android.sched.schedulable.FusableSchedulable;
 import com.android.sched.schedulable.RunnableSchedulable;
 import com.android.sched.schedulable.Schedulable;
 import com.android.sched.schedulable.SchedulerVisitable;
 import com.android.sched.schedulable.VisitorSchedulable;
 import com.android.sched.transform.TransformRequest;
 import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.ResolvedConfig;
 import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.config.id.BooleanPropertyId;
 import com.android.sched.util.config.id.ReflectFactoryPropertyId;
 import com.android.sched.util.log.Event;
 import com.android.sched.util.log.LoggerFactory;
@@ -32,8 +35,11 @@ import com.android.sched.util.log.SchedEventType;
 import com.android.sched.util.log.Tracer;
 import com.android.sched.util.log.TracerFactory;
 
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.EmptyStackException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Stack;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -55,6 +61,11 @@ public abstract class ScheduleInstance<T extends Component> {
       ReflectFactoryPropertyId<ScheduleInstance> DEFAULT_RUNNER = ReflectFactoryPropertyId.create(
           "sched.runner", "Set kind of runner for runnable", ScheduleInstance.class)
           .addArgType(Plan.class).addDefaultValue("multi-threaded");
+
+  @Nonnull
+  public static final BooleanPropertyId FUSION = BooleanPropertyId.create(
+      "sched.runner.fusion", "Run adjacent fusable runners in a single walk of the data")
+      .addDefaultValue(Boolean.FALSE);
   @Nonnull
   private final Logger logger = LoggerFactory.getLogger();
   @Nonnull
@@ -95,6 +106,7 @@ public abstract class ScheduleInstance<T extends Component> {
 
     Event eventGlobal = tracer.start(SchedEventType.INSTANCIER);
     try {
+      ResolvedConfig config = ThreadConfig.getResolvedConfig();
       steps = new SchedStep[plan.size()];
       int idx = 0;
       for (PlanStep step : plan) {
@@ -103,7 +115,8 @@ public abstract class ScheduleInstance<T extends Component> {
         try {
           Event event = tracer.start(SchedEventType.INSTANCIER);
           try {
-            instance = new SchedStep(step.getManagedSchedulable().getSchedulable().newInstance());
+            instance = new SchedStep(
+                instantiate(step.getManagedSchedulable().getSchedulable(), config));
           } finally {
             event.end();
           }
@@ -120,11 +133,58 @@ public abstract class ScheduleInstance<T extends Component> {
 
         steps[idx++] = instance;
       }
+
+      if (config.get(FUSION).booleanValue()) {
+        fuseSteps(plan);
+      }
     } finally {
       eventGlobal.end();
     }
   }
 
+  /**
+   * Groups adjacent steps of {@link FusableSchedulable}s which can share a single walk of the data.
+   */
+  private void fuseSteps(@Nonnull Plan<T> plan) {
+    FusedSteps fusion = null;
+    int idx = 0;
+    for (PlanStep step : plan) {
+      SchedStep instance = steps[idx++];
+
+      if (step.isRunner() && instance.getInstance() instanceof FusableSchedulable
+          && !step.getManagedSchedulable().isSynchronized(instance.getInstance())) {
+        ManagedRunnable runner = step.getManagedRunner();
+        FusableSchedulable<?, ?> schedulable = (FusableSchedulable<?, ?>) instance.getInstance();
+
+        if (fusion != null && fusion.canFuse(runner, schedulable)) {
+          fusion.add(instance, runner, schedulable);
+        } else {
+          fusion = new FusedSteps(instance, runner, schedulable);
+        }
+      } else {
+        fusion = null;
+      }
+    }
+  }
+
+  /**
+   * Instantiates a {@link Schedulable}. If it declares a constructor taking a
+   * {@link ResolvedConfig}, the configuration is injected through it, so that the schedulable does
+   * not have to read the thread local configuration.
+   */
+  @Nonnull
+  private static Schedulable instantiate(@Nonnull Class<? extends Schedulable> cls,
+      @Nonnull ResolvedConfig config) throws Exception {
+    Constructor<? extends Schedulable> ctor;
+    try {
+      ctor = cls.getDeclaredConstructor(ResolvedConfig.class);
+    } catch (NoSuchMethodException e) {
+      return cls.newInstance();
+    }
+
+    return ctor.newInstance(config);
+  }
+
   /**
    * Runs all the {@link Schedulable}s of the {@link Plan} in the defined order.
    *
@@ -156,6 +216,62 @@ public abstract class ScheduleInstance<T extends Component> {
     visitStack.pop();
   }
 
+  /**
+   * Runs the {@link RunnableSchedulable} of a step, or all the runners of its fusion if the step is
+   * the first one of a fusion. Other steps of a fusion do nothing.
+   */
+  @SuppressWarnings("unchecked")
+  protected <U extends Component> void runWithLog(@Nonnull SchedStep step, @Nonnull U data)
+      throws Exception {
+    FusedSteps fusion = step.getFusion();
+
+    if (fusion == null) {
+      runWithLog((RunnableSchedulable<U>) step.getInstance(), data);
+    } else if (fusion.isHead(step)) {
+      runFusedWithLog(fusion, data);
+    }
+  }
+
+  private void runFusedWithLog(@Nonnull FusedSteps fusion, @Nonnull Component data)
+      throws Exception {
+    Stack<ElementStack> visitStack = tlsVisitStack.get();
+    int size = fusion.size();
+    Object[] hooks = new Object[size];
+    List<Object> activeHooks = new ArrayList<Object>(size);
+
+    logger.log(Level.FINEST, "Run fused runners ''{0}''", fusion.getName());
+    Event event = tracer.start(fusion.getName());
+    try {
+      for (int i = 0; i < size; i++) {
+        visitStack.push(new ElementStack(features, fusion.getRunner(i)));
+        hooks[i] = fusion.getSchedulable(i).getHook(data);
+        visitStack.pop();
+
+        if (hooks[i] != null) {
+          activeHooks.add(hooks[i]);
+        }
+      }
+
+      if (!activeHooks.isEmpty()) {
+        // Hooks of several runners are interleaved, there is no current runner during the walk
+        visitStack.push(new ElementStack(features, null));
+        fusion.getWalker().walk(data, activeHooks);
+        visitStack.pop();
+
+        for (int i = 0; i < size; i++) {
+          Object hook = hooks[i];
+          if (hook != null) {
+            visitStack.push(new ElementStack(features, fusion.getRunner(i)));
+            fusion.getSchedulable(i).endHook(data, hook);
+            visitStack.pop();
+          }
+        }
+      }
+    } finally {
+      event.end();
+    }
+  }
+
   @SuppressWarnings("unchecked")
   protected <X extends VisitorSchedulable<T>, U extends Component> void visitWithLog(
       @Nonnull VisitorSchedulable<U> visitor, @Nonnull U data) throws Exception {
@@ -239,6 +355,8 @@ public abstract class ScheduleInstance<T extends Component> {
     public Schedulable instance;
     @CheckForNull
     public ScheduleInstance<? extends Component> subSchedInstance;
+    @CheckForNull
+    private FusedSteps fusion;
 
     public SchedStep(@Nonnull Schedulable instance) {
       this.instance = instance;
@@ -259,6 +377,15 @@ public abstract class ScheduleInstance<T extends Component> {
         @Nonnull ScheduleInstance<? extends Component> subSchedInstance) {
       this.subSchedInstance = subSchedInstance;
     }
+
+    @CheckForNull
+    FusedSteps getFusion() {
+      return fusion;
+    }
+
+    void setFusion(@Nonnull FusedSteps fusion) {
+      this.fusion = fusion;
+    }
   }
 
   private static class ElementStack {
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.scheduler;
+
+import com.android.sched.util.config.Config;
+import com.android.sched.util.config.ThreadConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Pool of threads shared by the schedulables which run their own tasks concurrently. It has as
+ * many threads as the scheduler runner (see {@link MultipleScheduleInstance}), and tasks run with
+ * the configuration of the thread which submitted them. The pool is never shut down, its threads
+ * are daemons which stop when idle.
+ */
+public class SharedExecutor extends AbstractExecutorService {
+  @Nonnull
+  private static final SharedExecutor INSTANCE = new SharedExecutor();
+
+  @CheckForNull
+  private ThreadPoolExecutor pool;
+
+  private SharedExecutor() {
+  }
+
+  /**
+   * @return the number of threads the scheduler runner uses, 1 if it is not multi-threaded.
+   */
+  @Nonnegative
+  public static int getThreadCount() {
+    if (MultipleScheduleInstance.class.isAssignableFrom(
+        ThreadConfig.get(ScheduleInstance.DEFAULT_RUNNER).getInstanciatedClass())) {
+      return MultipleScheduleInstance.getConfiguredThreadCount();
+    }
+    return 1;
+  }
+
+  /**
+   * @return the shared executor, sized from the configuration of the current thread.
+   */
+  @Nonnull
+  public static ExecutorService get() {
+    INSTANCE.resize(getThreadCount());
+    return INSTANCE;
+  }
+
+  /**
+   * Runs {@code tasks} on the shared executor and waits for all of them. Tasks are run from the
+   * current thread if the scheduler runner is not multi-threaded.
+   *
+   * @return the results of the tasks, in the order of {@code tasks}
+   * @throws E if a task throws an exception of type {@code exceptionType}
+   */
+  @Nonnull
+  public static <T, E extends Exception> List<T> invokeAll(
+      @Nonnull List<? extends Callable<T>> tasks, @Nonnull Class<E> exceptionType)
+      throws E, InterruptedException {
+    if (tasks.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<T> results = new ArrayList<T>(tasks.size());
+    try {
+      if (tasks.size() == 1 || getThreadCount() == 1) {
+        for (Callable<T> task : tasks) {
+          results.add(task.call());
+        }
+      } else {
+        for (Future<T> future : get().invokeAll(tasks)) {
+          results.add(future.get());
+        }
+      }
+    } catch (ExecutionException e) {
+      throw rethrow(e.getCause(), exceptionType);
+    } catch (InterruptedException e) {
+      throw e;
+    } catch (Exception e) {
+      throw rethrow(e, exceptionType);
+    }
+    return results;
+  }
+
+  @Nonnull
+  private static <E extends Exception> E rethrow(@Nonnull Throwable cause,
+      @Nonnull Class<E> exceptionType) {
+    if (exceptionType.isInstance(cause)) {
+      return exceptionType.cast(cause);
+    } else if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    } else if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    throw new AssertionError(cause);
+  }
+
+  private synchronized void resize(@Nonnegative int threadCount) {
+    if (pool == null) {
+      pool = new ThreadPoolExecutor(threadCount, threadCount, 1L, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(@Nonnull Runnable r) {
+              Thread thread = new Thread(r, "sched-shared-executor");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+      pool.allowCoreThreadTimeOut(true);
+    } else if (threadCount > pool.getMaximumPoolSize()) {
+      pool.setMaximumPoolSize(threadCount);
+      pool.setCorePoolSize(threadCount);
+    } else if (threadCount < pool.getMaximumPoolSize()) {
+      pool.setCorePoolSize(threadCount);
+      pool.setMaximumPoolSize(threadCount);
+    }
+  }
+
+  @Override
+  public void execute(@Nonnull final Runnable command) {
+    final Config config = ThreadConfig.getConfig();
+    ThreadPoolExecutor current;
+    synchronized (this) {
+      current = pool;
+    }
+    assert current != null;
+    current.execute(new Runnable() {
+      @Override
+      public void run() {
+        Config old = ThreadConfig.getConfig();
+        ThreadConfig.setConfig(config);
+        try {
+          command.run();
+        } finally {
+          ThreadConfig.setConfig(old);
+        }
+      }
+    });
+  }
+
+  /**
+   * The shared executor can not be shut down.
+   */
+  @Override
+  public void shutdown() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * The shared executor can not be shut down.
+   */
+  @Override
+  @Nonnull
+  public List<Runnable> shutdownNow() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return false;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return false;
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, @Nonnull TimeUnit unit) {
+    return false;
+  }
+}
@@ -187,7 +187,7 @@ public class SimpleMultiScheduleInstance<T extends Component> extends MultipleSc
         Iterator<U> iterData = adaptWithLog((AdapterSchedulable<T, U>) instance, t);
         subSchedInstance.adapt(subSchedInstance, iterData);
       } else if (instance instanceof RunnableSchedulable) {
-        runWithLog((RunnableSchedulable) instance, t);
+        runWithLog(step, t);
       } else if (instance instanceof VisitorSchedulable) {
         visitWithLog((VisitorSchedulable) instance, t);
       }
@@ -64,7 +64,7 @@ public class SingleScheduleInstance<T extends Component> extends ScheduleInstanc
           subSchedInstance.process(iterData.next());
         }
       } else if (instance instanceof RunnableSchedulable) {
-        runWithLog((RunnableSchedulable) instance, t);
+        runWithLog(step, t);
       } else if (instance instanceof VisitorSchedulable) {
         visitWithLog((VisitorSchedulable) instance, t);
       }
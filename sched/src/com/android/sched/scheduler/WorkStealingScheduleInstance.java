@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.scheduler;
+
+import com.android.sched.item.Component;
+import com.android.sched.util.codec.ImplementationName;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Allows to run a {@link Plan} using a pool of worker threads, each worker having its own queue of
+ * tasks. Tasks created by a worker stay on its queue, and idle workers steal tasks from the queues
+ * of the others. This avoids the contention of a single queue shared by all workers.
+ *
+ * @param <T> the root <i>data</i> type
+ */
+@ImplementationName(iface = ScheduleInstance.class, name = "work-stealing")
+public class WorkStealingScheduleInstance<T extends Component>
+    extends MultiWorkersScheduleInstance<T> {
+  public WorkStealingScheduleInstance(@Nonnull Plan<T> plan) throws Exception {
+    super(plan, true);
+  }
+}
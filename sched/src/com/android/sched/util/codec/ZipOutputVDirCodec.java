@@ -19,9 +19,13 @@ package com.android.sched.util.codec;
 import com.android.sched.util.RunnableHooks;
 import com.android.sched.util.file.FileOrDirectory.Existence;
 import com.android.sched.util.file.FileOrDirectory.Permission;
+import com.android.sched.util.file.OutputStreamFile;
 import com.android.sched.util.file.OutputZipFile;
 import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.vfs.OutputVFS;
 import com.android.sched.vfs.OutputZipVFS;
+import com.android.sched.vfs.ParallelOutputVFS;
+import com.android.sched.vfs.ParallelOutputZipVFS;
 import com.android.sched.vfs.SequentialOutputVFS;
 
 import java.io.IOException;
@@ -32,17 +36,30 @@ import javax.annotation.Nonnull;
 
 /**
  * This {@link StringCodec} is used to create an instance of {@link SequentialOutputVFS} backed by
- * a zip archive.
+ * a zip archive, or of {@link ParallelOutputVFS} if {@link #parallel()} was called.
  */
 public class ZipOutputVDirCodec extends OutputVDirCodec {
 
   @Nonnull
   private final Logger logger = LoggerFactory.getLogger();
 
+  private boolean parallel = false;
+
   public ZipOutputVDirCodec(@Nonnull Existence existence) {
     super(existence);
   }
 
+  /**
+   * Creates {@link ParallelOutputVFS}s, which compress files concurrently and write the archive
+   * when closed.
+   */
+  @Nonnull
+  public ZipOutputVDirCodec parallel() {
+    parallel = true;
+
+    return this;
+  }
+
   @Override
   @Nonnull
   public String getUsage() {
@@ -63,12 +80,17 @@ public class ZipOutputVDirCodec extends OutputVDirCodec {
 
   @Override
   @Nonnull
-  public SequentialOutputVFS checkString(@Nonnull CodecContext context,
+  public OutputVFS checkString(@Nonnull CodecContext context,
       @Nonnull final String string) throws ParsingException {
     RunnableHooks hooks = context.getRunnableHooks();
     try {
-      final OutputZipVFS vfs =
-          new OutputZipVFS(new OutputZipFile(string, hooks, existence, change));
+      final OutputVFS vfs;
+      if (parallel) {
+        vfs = new ParallelOutputZipVFS(
+            new OutputStreamFile(string, hooks, existence, change, false /* append */));
+      } else {
+        vfs = new OutputZipVFS(new OutputZipFile(string, hooks, existence, change));
+      }
       assert hooks != null;
       hooks.addHook(new Runnable() {
         @Override
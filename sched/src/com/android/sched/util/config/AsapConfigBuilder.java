@@ -43,6 +43,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +54,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -74,6 +76,11 @@ public class AsapConfigBuilder {
   private static final Map<KeyId<?, ?>, FieldLocation> defaultLocationsByKeyId =
       new HashMap<KeyId<?, ?>, FieldLocation>();
 
+  /**
+   * Number of key ids with a dense index, or -1 before the first {@link #build()}.
+   */
+  private static int indexedKeyIdCount = -1;
+
   @Nonnull
   private final Map<PropertyId<?>, PropertyId<?>.Value> valuesById =
       new HashMap<PropertyId<?>, PropertyId<?>.Value>();
@@ -384,14 +391,37 @@ public class AsapConfigBuilder {
 
     exceptions.throwIfNecessary();
 
+    int keyIdCount = indexKeyIds();
     if (context.isDebug()) {
-      return new ConfigDebug(
-          context, checker.getValues(), checker.getInstances(), checker.getDropCauses());
+      return new ConfigDebug(context, checker.getValues(), checker.getInstances(),
+          checker.getDropCauses(), keyIdCount);
     } else {
-      return new ConfigImpl(context, checker.getValues(), checker.getInstances());
+      return new ConfigImpl(context, checker.getValues(), checker.getInstances(), keyIdCount);
     }
   }
 
+  /**
+   * Gives a dense index to each declared key id, so that a {@link ResolvedConfig} can store its
+   * values in an array. Indexes are sorted by name, so they do not depend on discovery order.
+   *
+   * @return the number of indexed key ids.
+   */
+  @Nonnegative
+  private static synchronized int indexKeyIds() {
+    if (indexedKeyIdCount == -1) {
+      List<String> names = new ArrayList<String>(keyIdsByName.keySet());
+      Collections.sort(names);
+
+      int index = 0;
+      for (String name : names) {
+        keyIdsByName.get(name).setIndex(index++);
+      }
+      indexedKeyIdCount = index;
+    }
+
+    return indexedKeyIdCount;
+  }
+
   @Nonnull
   public Collection<PropertyId<?>> getPropertyIds() {
     return getPropertyIds(Category.class);
@@ -28,6 +28,7 @@ import java.util.Stack;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -52,8 +53,9 @@ class ConfigDebug extends ConfigImpl {
   ConfigDebug(@Nonnull CodecContext context,
       @Nonnull Map<PropertyId<?>, PropertyId<?>.Value> values,
       @Nonnull Map<KeyId<?, ?>, Object> instances,
-      @Nonnull Map<KeyId<?, ?>, String> dropCauses) {
-    super(context, values, instances);
+      @Nonnull Map<KeyId<?, ?>, String> dropCauses,
+      @Nonnegative int keyIdCount) {
+    super(context, values, instances, keyIdCount);
 
     this.dropCauses = new HashMap<KeyId<?, ?>, String>(dropCauses);
   }
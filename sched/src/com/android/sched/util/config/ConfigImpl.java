@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -40,17 +41,21 @@ class ConfigImpl implements Config, InternalConfig {
       new HashMap<PropertyId<?>, PropertyId<?>.Value>();
   @Nonnull
   private final Map<KeyId<?, ?>, Object> instancesById = new HashMap<KeyId<?, ?>, Object>();
+  @Nonnull
+  private final ResolvedConfig resolvedConfig;
 
   /**
    * @param context Context for parsers
    * @param values All the property values as {@code String} objects.
    * @param instances All the property values as objects.
+   * @param keyIdCount Number of key ids with a dense index.
    */
   ConfigImpl(@Nonnull CodecContext context, @Nonnull Map<PropertyId<?>, PropertyId<?>.Value> values,
-      @Nonnull Map<KeyId<?, ?>, Object> instances) {
+      @Nonnull Map<KeyId<?, ?>, Object> instances, @Nonnegative int keyIdCount) {
     this.context = context;
     this.valuesById.putAll(values);
     this.instancesById.putAll(instances);
+    this.resolvedConfig = new ResolvedConfig(this, keyIdCount);
   }
 
   @Override
@@ -83,6 +88,12 @@ class ConfigImpl implements Config, InternalConfig {
     return value.getObjectIfAny();
   }
 
+  @Override
+  @Nonnull
+  public ResolvedConfig getResolvedConfig() {
+    return resolvedConfig;
+  }
+
   @Override
   @Nonnull
   public <T> String getAsString(@Nonnull PropertyId<T> propertyId) {
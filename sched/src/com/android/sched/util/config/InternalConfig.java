@@ -28,4 +28,7 @@ import javax.annotation.Nonnull;
 public interface InternalConfig {
   @CheckForNull
   public <T> T getObjectIfAny(@Nonnull PropertyId<T> propertyId);
+
+  @Nonnull
+  public ResolvedConfig getResolvedConfig();
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.util.config;
+
+import com.android.sched.util.config.id.KeyId;
+import com.android.sched.util.config.id.ObjectId;
+import com.android.sched.util.config.id.PropertyId;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * A frozen view of a {@link Config}, where each value is stored at the dense index of its
+ * {@link KeyId} once resolved. Reading a value costs an array access: there is no thread local
+ * lookup, no statistic update and no lock. Get it once with
+ * {@link ThreadConfig#getResolvedConfig()}, then keep it in a field or pass it around.
+ */
+public final class ResolvedConfig {
+  @Nonnull
+  private final Config config;
+
+  @Nonnull
+  private final AtomicReferenceArray<Object> values;
+
+  ResolvedConfig(@Nonnull Config config, @Nonnegative int keyIdCount) {
+    assert config instanceof InternalConfig;
+
+    this.config = config;
+    this.values = new AtomicReferenceArray<Object>(keyIdCount);
+  }
+
+  @Nonnull
+  public <T> T get(@Nonnull PropertyId<T> propertyId) {
+    int index = propertyId.getIndex();
+    if (index < 0 || index >= values.length()) {
+      return config.get(propertyId);
+    }
+
+    @SuppressWarnings("unchecked")
+    T value = (T) values.get(index);
+    if (value == null) {
+      value = config.get(propertyId);
+      values.set(index, value);
+    }
+
+    return value;
+  }
+
+  @Nonnull
+  public <T> T get(@Nonnull ObjectId<T> objectId) {
+    int index = objectId.getIndex();
+    if (index < 0 || index >= values.length()) {
+      return config.get(objectId);
+    }
+
+    @SuppressWarnings("unchecked")
+    T value = (T) values.get(index);
+    if (value == null) {
+      value = config.get(objectId);
+      values.set(index, value);
+    }
+
+    return value;
+  }
+
+  /**
+   * @return the value of the property if it is already built, null otherwise.
+   */
+  @CheckForNull
+  <T> T getObjectIfAny(@Nonnull PropertyId<T> propertyId) {
+    int index = propertyId.getIndex();
+    if (index < 0 || index >= values.length()) {
+      return ((InternalConfig) config).getObjectIfAny(propertyId);
+    }
+
+    @SuppressWarnings("unchecked")
+    T value = (T) values.get(index);
+    if (value == null) {
+      value = ((InternalConfig) config).getObjectIfAny(propertyId);
+      if (value != null) {
+        values.set(index, value);
+      }
+    }
+
+    return value;
+  }
+
+  @Nonnull
+  public Config getConfig() {
+    return config;
+  }
+}
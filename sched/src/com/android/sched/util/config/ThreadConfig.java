@@ -64,8 +64,22 @@ public class ThreadConfig {
     return config.get(objectId);
   }
 
+  /**
+   * Returns the resolved view of the current configuration. Reading the thread local once, then
+   * going through the {@link ResolvedConfig} avoids the cost of {@link #get(PropertyId)} on hot
+   * paths.
+   */
+  @Nonnull
+  public static ResolvedConfig getResolvedConfig() {
+    Config config = threadLocalConfig.get();
+    updateStatistic(config);
+
+    return ((InternalConfig) config).getResolvedConfig();
+  }
+
   private static void updateStatistic(@Nonnull Config config) {
-    Tracer tracer = ((InternalConfig) config).<Tracer> getObjectIfAny(TracerFactory.TRACER);
+    Tracer tracer = ((InternalConfig) config).getResolvedConfig()
+        .<Tracer> getObjectIfAny(TracerFactory.TRACER);
 
     if (tracer != null && tracer.getCurrentEventType() != TracerEventType.NOEVENT) {
       tracer.getStatistic(TLS_READ).incValue();
@@ -28,6 +28,9 @@ import javax.annotation.Nonnull;
  * This object represents a {@link Config} which has not been created by the builder.
  */
 class UninitializedConfig implements Config, InternalConfig {
+  @Nonnull
+  private final ResolvedConfig resolvedConfig = new ResolvedConfig(this, 0);
+
   @Override
   @Nonnull
   public <T> T get(@Nonnull PropertyId<T> propertyId) {
@@ -57,4 +60,10 @@ class UninitializedConfig implements Config, InternalConfig {
   public <T> T getObjectIfAny(@Nonnull PropertyId<T> propertyId) {
     throw new ConfigurationError("Configuration has not been initialized");
   }
+
+  @Override
+  @Nonnull
+  public ResolvedConfig getResolvedConfig() {
+    return resolvedConfig;
+  }
 }
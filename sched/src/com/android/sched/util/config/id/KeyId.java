@@ -22,6 +22,7 @@ import com.android.sched.util.config.expression.BooleanExpression;
 import com.android.sched.util.config.expression.PropertyNotRequiredException;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 
@@ -46,6 +47,27 @@ public abstract class KeyId<T, S> {
 
   public abstract boolean isPublic();
 
+  /**
+   * Dense index of this id, or -1 if the id is not declared in a {@code HasKeyId} class.
+   */
+  private int index = -1;
+
+  /**
+   * @return the dense index of this id, assigned when the first configuration is built, or -1.
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Must be called only by the configuration builder.
+   */
+  public void setIndex(@Nonnegative int index) {
+    assert this.index == -1 || this.index == index;
+
+    this.index = index;
+  }
+
   @CheckForNull
   private BooleanExpression requiredIf;
 
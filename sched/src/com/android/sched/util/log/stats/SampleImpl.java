@@ -128,7 +128,7 @@ public class SampleImpl extends Sample implements DataRow, DataHeader {
   @Override
   public synchronized Iterator<Object> iterator() {
     return Iterators.forArray(
-        Integer.valueOf(getCount()),
+        Long.valueOf(getCount()),
         Double.valueOf(getTotal()),
         Double.valueOf(getMin()),
         Double.valueOf(getAverage()),
@@ -204,29 +204,49 @@ public abstract class AbstractTracer implements Tracer {
   private final Set<StatisticId<? extends Statistic>> setOfStatisticIds =
       new HashSet<StatisticId<? extends Statistic>>();
 
-  @SuppressWarnings("unchecked")
   private void mergeStatistic(@Nonnull EventType type, @Nonnull StatisticId<? extends Statistic> id,
       @Nonnull Children kind, @Nonnull Statistic local) {
-    Map<StatisticId<? extends Statistic>, Statistic>[] s = globalStatistics.get(type);
+    Statistic global = getOrCreateStatistic(globalStatistics, type, kind, id);
+    setOfStatisticIds.add(id);
+
+    synchronized (global) {
+      global.merge(local);
+    }
+  }
+
+  /**
+   * @return the statistic {@code id} of {@code statistics} for the event {@code type} and the
+   *     {@code kind} of children, created if needed
+   */
+  @Nonnull
+  static Statistic getOrCreateStatistic(
+      @Nonnull Map<EventType, Map<StatisticId<? extends Statistic>, Statistic>[]> statistics,
+      @Nonnull EventType type, @Nonnull Children kind,
+      @Nonnull StatisticId<? extends Statistic> id) {
+    Map<StatisticId<? extends Statistic>, Statistic>[] s = statistics.get(type);
     if (s == null) {
-      s = new Map[Children.values().length];
-      globalStatistics.put(type, s);
+      s = newStatisticMaps(Children.values().length);
+      statistics.put(type, s);
 
       for (int i = 0; i < s.length; i++) {
         s[i] = new HashMap<StatisticId<? extends Statistic>, Statistic>();
       }
     }
 
-    Statistic global = s[kind.ordinal()].get(id);
-    if (global == null) {
-      global = id.newInstance();
-      s[kind.ordinal()].put(id, global);
-      setOfStatisticIds.add(id);
+    Statistic statistic = s[kind.ordinal()].get(id);
+    if (statistic == null) {
+      statistic = id.newInstance();
+      s[kind.ordinal()].put(id, statistic);
     }
 
-    synchronized (global) {
-      global.merge(local);
-    }
+    return statistic;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  @Nonnull
+  static Map<StatisticId<? extends Statistic>, Statistic>[] newStatisticMaps(
+      @Nonnegative int size) {
+    return new Map[size];
   }
 
   @Nonnull
@@ -0,0 +1,653 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.util.log.tracer;
+
+import com.android.sched.util.RunnableHooks;
+import com.android.sched.util.codec.ImplementationName;
+import com.android.sched.util.codec.OutputStreamCodec;
+import com.android.sched.util.config.HasKeyId;
+import com.android.sched.util.config.ThreadConfig;
+import com.android.sched.util.config.id.IntegerPropertyId;
+import com.android.sched.util.config.id.PropertyId;
+import com.android.sched.util.file.Directory;
+import com.android.sched.util.file.FileOrDirectory.Existence;
+import com.android.sched.util.file.OutputStreamFile;
+import com.android.sched.util.log.Event;
+import com.android.sched.util.log.EventType;
+import com.android.sched.util.log.LoggerFactory;
+import com.android.sched.util.log.Tracer;
+import com.android.sched.util.log.TracerFactory;
+import com.android.sched.util.log.stats.Statistic;
+import com.android.sched.util.log.stats.StatisticId;
+import com.android.sched.util.log.tracer.AbstractTracer.Children;
+import com.android.sched.util.log.tracer.probe.Probe;
+import com.android.sched.util.log.tracer.probe.WallClockProbe;
+import com.android.sched.util.log.tracer.watcher.ObjectWatcher;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Tracer recording the start and the end of events into a preallocated ring buffer per thread,
+ * without lock nor allocation. When a buffer is full, the oldest records of the thread are
+ * overwritten. When the {@link RunnableHooks#getShutdownHooks() shutdown hooks} of the
+ * configuration are run, the records are exported in the Chrome trace event format, and the wall
+ * clock time and the statistics of each event type in the same report as {@link StatsTracerFtl}.
+ * <p>
+ * Events must be ended by the thread which started them. Statistics are collected per thread and
+ * merged at the end, and object watchers are not supported.
+ */
+@ImplementationName(iface = Tracer.class, name = "ring",
+    description = "record events in ring buffers and export them in the Chrome trace format")
+@HasKeyId
+public class RingBufferTracer implements Tracer {
+  @Nonnull
+  public static final PropertyId<OutputStreamFile> TRACE_FILE = PropertyId.create(
+      "sched.tracer.ring.file", "Define in which file the tracer exports the Chrome trace",
+      new OutputStreamCodec(Existence.MAY_EXIST))
+      .requiredIf(TracerFactory.TRACER.getClazz().isImplementedBy(RingBufferTracer.class));
+
+  @Nonnull
+  public static final IntegerPropertyId CAPACITY = IntegerPropertyId.create(
+      "sched.tracer.ring.capacity", "Number of records kept for each thread")
+      .addDefaultValue("65536").withMin(2);
+
+  @Nonnull
+  public static final IntegerPropertyId SAMPLING = IntegerPropertyId.create(
+      "sched.tracer.ring.sampling",
+      "Record one top-level event with all its children out of this number")
+      .addDefaultValue("1").withMin(1);
+
+  @Nonnull
+  private final Logger logger = LoggerFactory.getLogger();
+
+  @Nonnegative
+  private final int capacity;
+
+  @Nonnegative
+  private final int sampling;
+
+  private final long origin = System.nanoTime();
+
+  @Nonnull
+  private final Queue<ThreadBuffer> buffers = new ConcurrentLinkedQueue<ThreadBuffer>();
+
+  @Nonnull
+  private final ThreadLocal<ThreadBuffer> threadBuffer = new ThreadLocal<ThreadBuffer>() {
+    @Override
+    protected ThreadBuffer initialValue() {
+      ThreadBuffer buffer = new ThreadBuffer(Thread.currentThread());
+      buffers.add(buffer);
+      return buffer;
+    }
+  };
+
+  @Nonnull
+  private final ConcurrentMap<EventType, Integer> typeIndexes =
+      new ConcurrentHashMap<EventType, Integer>();
+
+  @Nonnull
+  private final List<EventType> types = new ArrayList<EventType>();
+
+  @Nonnull
+  private final ConcurrentMap<String, DynamicEventType> dynamicEventByName =
+      new ConcurrentHashMap<String, DynamicEventType>();
+
+  public RingBufferTracer() {
+    this(ThreadConfig.get(CAPACITY).intValue(), ThreadConfig.get(SAMPLING).intValue());
+
+    final OutputStreamFile file = ThreadConfig.get(TRACE_FILE);
+    final Directory dir = ThreadConfig.get(StatsTracerFtl.TRACER_DIR);
+    RunnableHooks.getShutdownHooks().addHook(new Runnable() {
+      @Override
+      public void run() {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(file.getOutputStream()), 102400);
+        try {
+          exportChromeTrace(writer);
+        } catch (IOException e) {
+          logger.log(Level.SEVERE, "Unable to write trace file '" + file.getPath() + "'", e);
+        } finally {
+          try {
+            writer.close();
+          } catch (IOException e) {
+            logger.log(Level.SEVERE, "Unable to close trace file '" + file.getPath() + "'", e);
+          }
+        }
+
+        ProbeManagerBuilder builder = new ProbeManagerBuilder();
+        builder.add(new WallClockProbe());
+        ProbeManager probeManager = builder.build();
+        Map<EventType, Map<StatisticId<? extends Statistic>, Statistic>[]> statistics =
+            getStatisticsByType();
+        Set<StatisticId<? extends Statistic>> statisticIds =
+            new HashSet<StatisticId<? extends Statistic>>();
+        for (Map<StatisticId<? extends Statistic>, Statistic>[] byKind : statistics.values()) {
+          statisticIds.addAll(byKind[Children.WITH.ordinal()].keySet());
+        }
+        ReportFtl report = new ReportFtl(probeManager, dir, statistics, statisticIds);
+        addWallClockTimes(report);
+        report.generate();
+      }
+    });
+  }
+
+  RingBufferTracer(@Nonnegative int capacity, @Nonnegative int sampling) {
+    // Round up to a power of two to index the ring with a mask
+    this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+    this.sampling = sampling;
+  }
+
+  //
+  // Tracer
+  //
+
+  @Override
+  @Nonnull
+  public Event start(@Nonnull EventType type) {
+    ThreadBuffer buffer = threadBuffer.get();
+    buffer.push(type, getTypeIndex(type));
+    return buffer;
+  }
+
+  @Override
+  @Nonnull
+  public Event start(@Nonnull String name) {
+    return start(getOrCreateDynamicEventType(name));
+  }
+
+  @Override
+  public boolean isTracing() {
+    return true;
+  }
+
+  @Override
+  @Nonnull
+  public EventType getCurrentEventType() {
+    return threadBuffer.get().getCurrentEventType();
+  }
+
+  @Override
+  @Nonnull
+  public <T extends Statistic> T getStatistic(@Nonnull StatisticId<T> id) {
+    ThreadBuffer buffer = threadBuffer.get();
+    if (buffer.depth == 0) {
+      throw new IllegalStateException("Tried to get statistic to an event that never started!");
+    }
+
+    return buffer.getStatistic(id);
+  }
+
+  @Override
+  @Nonnull
+  public EventType getDynamicEventType(@Nonnull String name) {
+    EventType type = dynamicEventByName.get(name);
+
+    if (type != null) {
+      return type;
+    } else {
+      return TracerEventType.NOTYPE;
+    }
+  }
+
+  @Override
+  public <T> void registerWatcher(@Nonnull Class<T> objectClass,
+      @Nonnull Class<? extends ObjectWatcher<? extends T>> watcherClass) {
+  }
+
+  @Override
+  public void registerObject(@Nonnull Object object, @Nonnegative long size, int count) {
+  }
+
+  //
+  // Export
+  //
+
+  /**
+   * Write the records of all threads in the Chrome trace event format. Events whose start has
+   * been overwritten in a ring buffer are skipped.
+   */
+  void exportChromeTrace(@Nonnull Writer writer) throws IOException {
+    List<EventType> snapshot;
+    synchronized (types) {
+      snapshot = new ArrayList<EventType>(types);
+    }
+
+    writer.write("{\"traceEvents\":[");
+    boolean first = true;
+    long dropped = 0;
+    for (ThreadBuffer buffer : buffers) {
+      if (!first) {
+        writer.write(',');
+      }
+      first = false;
+      writer.write("\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":");
+      writer.write(Long.toString(buffer.tid));
+      writer.write(",\"args\":{\"name\":\"");
+      writeEscaped(writer, buffer.threadName);
+      writer.write("\"}}");
+
+      long written = buffer.written;
+      long oldest = Math.max(0, written - capacity);
+      dropped += oldest;
+      int depth = 0;
+      for (long record = oldest; record < written; record++) {
+        int idx = (int) record & (capacity - 1);
+        int code = buffer.codes[idx];
+        boolean isEnd = (code & 1) != 0;
+        if (isEnd) {
+          if (depth == 0) {
+            continue;
+          }
+          depth--;
+        } else {
+          depth++;
+        }
+
+        writer.write(",\n{\"name\":\"");
+        writeEscaped(writer, snapshot.get(code >>> 1).getName());
+        writer.write(isEnd ? "\",\"ph\":\"E\"" : "\",\"cat\":\"sched\",\"ph\":\"B\"");
+        writer.write(",\"pid\":1,\"tid\":");
+        writer.write(Long.toString(buffer.tid));
+        writer.write(",\"ts\":");
+        long nanos = buffer.timestamps[idx] - origin;
+        writer.write(Long.toString(nanos / 1000));
+        writer.write('.');
+        long fraction = nanos % 1000;
+        if (fraction < 100) {
+          writer.write('0');
+          if (fraction < 10) {
+            writer.write('0');
+          }
+        }
+        writer.write(Long.toString(fraction));
+        writer.write('}');
+      }
+    }
+    writer.write("\n],\"displayTimeUnit\":\"ms\",\"otherData\":{\"dropped\":\"");
+    writer.write(Long.toString(dropped));
+    writer.write("\"}}\n");
+  }
+
+  /**
+   * Add the wall clock time of the recorded events to the report, with and without children.
+   * Events whose start has been overwritten in a ring buffer, or which are not ended, are skipped.
+   */
+  void addWallClockTimes(@Nonnull ReportFtl report) {
+    List<EventType> snapshot;
+    synchronized (types) {
+      snapshot = new ArrayList<EventType>(types);
+    }
+
+    for (ThreadBuffer buffer : buffers) {
+      long written = buffer.written;
+      int depth = 0;
+      int[] stackTypes = new int[32];
+      long[] starts = new long[32];
+      // Time spent in the children of each started event
+      long[] childTimes = new long[32];
+      for (long record = Math.max(0, written - capacity); record < written; record++) {
+        int idx = (int) record & (capacity - 1);
+        int code = buffer.codes[idx];
+        long timestamp = buffer.timestamps[idx];
+        if ((code & 1) == 0) {
+          if (depth == stackTypes.length) {
+            stackTypes = Arrays.copyOf(stackTypes, depth * 2);
+            starts = Arrays.copyOf(starts, depth * 2);
+            childTimes = Arrays.copyOf(childTimes, depth * 2);
+          }
+          stackTypes[depth] = code >>> 1;
+          starts[depth] = timestamp;
+          childTimes[depth] = 0;
+          depth++;
+        } else if (depth > 0) {
+          depth--;
+          int typeIndex = stackTypes[depth];
+          long duration = timestamp - starts[depth];
+
+          // Count the time with children only once for recursive events
+          boolean recursive = false;
+          for (int parent = 0; parent < depth; parent++) {
+            if (stackTypes[parent] == typeIndex) {
+              recursive = true;
+              break;
+            }
+          }
+
+          ReportFtl.Total total = report.getTotal(snapshot.get(typeIndex));
+          total.withChildrenValue[0].add(recursive ? 0 : duration, null);
+          total.withoutChildrenValue[0].add(duration - childTimes[depth], null);
+
+          if (depth > 0) {
+            childTimes[depth - 1] += duration;
+            report.getTotal(snapshot.get(stackTypes[depth - 1])).children.add(total.type);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the statistics of all threads by event type, without and with children, indexed by
+   *     {@link Children}
+   */
+  @Nonnull
+  Map<EventType, Map<StatisticId<? extends Statistic>, Statistic>[]> getStatisticsByType() {
+    Map<EventType, Map<StatisticId<? extends Statistic>, Statistic>[]> merged =
+        new HashMap<EventType, Map<StatisticId<? extends Statistic>, Statistic>[]>();
+
+    for (ThreadBuffer buffer : buffers) {
+      synchronized (buffer.statisticsByType) {
+        for (Map.Entry<EventType, Map<StatisticId<? extends Statistic>, Statistic>[]> entry :
+            buffer.statisticsByType.entrySet()) {
+          for (Children kind : Children.values()) {
+            for (Statistic statistic : entry.getValue()[kind.ordinal()].values()) {
+              mergeStatistic(merged, entry.getKey(), kind, statistic);
+            }
+          }
+        }
+      }
+    }
+
+    return merged;
+  }
+
+  private static void mergeStatistic(
+      @Nonnull Map<EventType, Map<StatisticId<? extends Statistic>, Statistic>[]> statistics,
+      @Nonnull EventType type, @Nonnull Children kind, @Nonnull Statistic local) {
+    AbstractTracer.getOrCreateStatistic(statistics, type, kind, local.getId()).merge(local);
+  }
+
+  private static void writeEscaped(@Nonnull Writer writer, @Nonnull String value)
+      throws IOException {
+    for (int i = 0, length = value.length(); i < length; i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        writer.write('\\');
+        writer.write(c);
+      } else if (c < ' ') {
+        writer.write(' ');
+      } else {
+        writer.write(c);
+      }
+    }
+  }
+
+  //
+  // Private
+  //
+
+  @Nonnegative
+  private int getTypeIndex(@Nonnull EventType type) {
+    Integer index = typeIndexes.get(type);
+
+    if (index == null) {
+      synchronized (types) {
+        index = typeIndexes.get(type);
+        if (index == null) {
+          index = Integer.valueOf(types.size());
+          types.add(type);
+          typeIndexes.put(type, index);
+        }
+      }
+    }
+
+    return index.intValue();
+  }
+
+  @Nonnull
+  private DynamicEventType getOrCreateDynamicEventType(@Nonnull String name) {
+    DynamicEventType type = dynamicEventByName.get(name);
+
+    if (type == null) {
+      type = new DynamicEventType(name);
+      DynamicEventType previous = dynamicEventByName.putIfAbsent(name, type);
+      if (previous != null) {
+        type = previous;
+      }
+    }
+
+    return type;
+  }
+
+  /**
+   * Records of a thread, also standing for the current event of the thread.
+   */
+  private class ThreadBuffer implements Event {
+    @Nonnull
+    final long[] timestamps = new long[capacity];
+    // Index of the event type shifted left, the lowest bit is set for an end record
+    @Nonnull
+    final int[] codes = new int[capacity];
+    // Number of records written by the thread, only updated by the thread
+    volatile long written = 0;
+
+    final long tid;
+    @Nonnull
+    final String threadName;
+
+    @Nonnull
+    private EventType[] typeStack = new EventType[32];
+    @Nonnull
+    private int[] typeIndexStack = new int[32];
+    // Wall clock time at which the started events began
+    @Nonnull
+    private long[] startStack = new long[32];
+    @Nonnegative
+    int depth = 0;
+
+    @Nonnegative
+    private int rootCount = 0;
+    private boolean recording;
+
+    // Statistics of the started events, allocated when one is first asked for at this depth
+    @Nonnull
+    private Map<StatisticId<? extends Statistic>, Statistic>[] statisticStack =
+        AbstractTracer.newStatisticMaps(32);
+    // Statistics of the ended events, without and with children, indexed by Children
+    @Nonnull
+    final Map<EventType, Map<StatisticId<? extends Statistic>, Statistic>[]> statisticsByType =
+        new HashMap<EventType, Map<StatisticId<? extends Statistic>, Statistic>[]>();
+
+    ThreadBuffer(@Nonnull Thread thread) {
+      tid = thread.getId();
+      threadName = thread.getName();
+    }
+
+    void push(@Nonnull EventType type, @Nonnegative int typeIndex) {
+      if (depth == 0) {
+        recording = (rootCount++ % sampling) == 0;
+      }
+      if (depth == typeStack.length) {
+        EventType[] newStack = new EventType[depth * 2];
+        System.arraycopy(typeStack, 0, newStack, 0, depth);
+        typeStack = newStack;
+        int[] newIndexStack = new int[depth * 2];
+        System.arraycopy(typeIndexStack, 0, newIndexStack, 0, depth);
+        typeIndexStack = newIndexStack;
+        long[] newStartStack = new long[depth * 2];
+        System.arraycopy(startStack, 0, newStartStack, 0, depth);
+        startStack = newStartStack;
+        Map<StatisticId<? extends Statistic>, Statistic>[] newStatisticStack =
+            AbstractTracer.newStatisticMaps(depth * 2);
+        System.arraycopy(statisticStack, 0, newStatisticStack, 0, depth);
+        statisticStack = newStatisticStack;
+      }
+      long now = System.nanoTime();
+      typeStack[depth] = type;
+      typeIndexStack[depth] = typeIndex;
+      startStack[depth] = now;
+      depth++;
+
+      if (recording) {
+        record(typeIndex << 1, now);
+      }
+    }
+
+    private void record(int code, long timestamp) {
+      long position = written;
+      int idx = (int) position & (capacity - 1);
+      timestamps[idx] = timestamp;
+      codes[idx] = code;
+      written = position + 1;
+    }
+
+    @Nonnull
+    EventType getCurrentEventType() {
+      if (depth == 0) {
+        return TracerEventType.NOEVENT;
+      } else {
+        EventType type = typeStack[depth - 1];
+        assert type != null;
+        return type;
+      }
+    }
+
+    @Override
+    public void end() {
+      if (depth == 0) {
+        throw new IllegalStateException("No event to end on thread '" + threadName + "'");
+      }
+      assert threadBuffer.get() == this : "Event ended by another thread";
+
+      depth--;
+      if (recording) {
+        record((typeIndexStack[depth] << 1) | 1, System.nanoTime());
+      }
+
+      Map<StatisticId<? extends Statistic>, Statistic> statistics = statisticStack[depth];
+      if (statistics != null && !statistics.isEmpty()) {
+        EventType type = typeStack[depth];
+        assert type != null;
+        synchronized (statisticsByType) {
+          for (Statistic statistic : statistics.values()) {
+            mergeStatistic(statisticsByType, type, Children.WITHOUT, statistic);
+            mergeStatistic(statisticsByType, type, Children.WITH, statistic);
+
+            for (int parent = 0; parent < depth; parent++) {
+              EventType parentType = typeStack[parent];
+              assert parentType != null;
+              if (parentType != type) {
+                mergeStatistic(statisticsByType, parentType, Children.WITH, statistic);
+              }
+            }
+          }
+        }
+        statistics.clear();
+      }
+      typeStack[depth] = null;
+    }
+
+    @Override
+    @Nonnull
+    public EventType getType() {
+      return getCurrentEventType();
+    }
+
+    @Override
+    @Nonnull
+    public Collection<Event> getChildren() {
+      return Collections.emptyList();
+    }
+
+    /**
+     * Only the wall clock is measured, the value of any other probe is 0.
+     */
+    @Override
+    @Nonnegative
+    public long getElapsedValue(@Nonnull Probe probe) {
+      if (depth == 0 || !(probe instanceof WallClockProbe)) {
+        return 0;
+      }
+      return System.nanoTime() - startStack[depth - 1];
+    }
+
+    /**
+     * Only the wall clock is measured, the value of any other probe is 0.
+     */
+    @Override
+    @Nonnegative
+    public long getStartValue(@Nonnull Probe probe) {
+      if (depth == 0 || !(probe instanceof WallClockProbe)) {
+        return 0;
+      }
+      return startStack[depth - 1];
+    }
+
+    @Override
+    public void adjustElapsedValue(@Nonnull Probe probe, long elapsedValue) {
+    }
+
+    @Override
+    @Nonnull
+    public Collection<Statistic> getStatistics() {
+      Map<StatisticId<? extends Statistic>, Statistic> statistics =
+          (depth == 0) ? null : statisticStack[depth - 1];
+
+      if (statistics == null) {
+        return Collections.emptyList();
+      } else {
+        return new ArrayList<Statistic>(statistics.values());
+      }
+    }
+
+    @Override
+    @Nonnull
+    public <T extends Statistic> T getStatistic(@Nonnull StatisticId<T> id) {
+      Map<StatisticId<? extends Statistic>, Statistic> statistics = statisticStack[depth - 1];
+      if (statistics == null) {
+        statistics = new HashMap<StatisticId<? extends Statistic>, Statistic>();
+        statisticStack[depth - 1] = statistics;
+      }
+
+      @SuppressWarnings("unchecked")
+      T statistic = (T) statistics.get(id);
+
+      if (statistic == null) {
+        statistic = id.newInstance();
+        statistics.put(id, statistic);
+      }
+
+      return statistic;
+    }
+
+    @Override
+    @Nonnull
+    public String toString() {
+      return getCurrentEventType().getName();
+    }
+  }
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.vfs;
+
+import com.android.sched.util.file.OutputStreamFile;
+import com.android.sched.util.location.Location;
+import com.android.sched.util.stream.ByteStreamSucker;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * A root {@link OutputVDir} backed by a zip archive, which files can be written to concurrently.
+ * Each file is compressed by the thread writing it, in memory or in a temporary file when it is
+ * large. The archive is written when this {@link OutputVFS} is closed, with its entries sorted by
+ * name and a fixed modification time so that its content does not depend on the order in which
+ * files were written.
+ */
+public class ParallelOutputZipVFS extends AbstractOutputVFS implements ParallelOutputVFS {
+
+  /**
+   * Size of the compressed data from which an entry is moved from memory to a temporary file.
+   */
+  @Nonnegative
+  private static final int SPILL_THRESHOLD = 1024 * 1024;
+
+  @Nonnull
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int VERSION = 20;
+  private static final int UTF_8_FLAG = 0x0800;
+  // 1980-01-01 00:00:00, the first date a zip archive can hold
+  private static final int DOS_TIME = 0;
+  private static final int DOS_DATE = (1 << 5) | 1;
+  private static final long MAX_SIZE = 0xFFFFFFFFL;
+  private static final int MAX_ENTRY_COUNT = 0xFFFF;
+
+  @Nonnull
+  private final OutputStreamFile file;
+  @Nonnull
+  private final OutputStream os;
+  @Nonnull
+  private final Map<String, DeflatedEntry> entries = new ConcurrentHashMap<String, DeflatedEntry>();
+  @Nonnull
+  private final Map<String, Boolean> openedEntryNames = new ConcurrentHashMap<String, Boolean>();
+
+  public ParallelOutputZipVFS(@Nonnull OutputStreamFile file) {
+    setRootDir(new ParallelOutputZipVDir(this, new ZipEntry(ZipUtils.ROOT_ENTRY_NAME)));
+    this.file = file;
+    // the stream cannot be opened in close() since close() is called by a shutdown hook and
+    // OutputStreamFile.getOutputStream() modifies those hooks
+    os = file.getOutputStream();
+  }
+
+  @Nonnull
+  OutputStream openEntry(@Nonnull ZipEntry entry) throws IOException {
+    String name = entry.getName();
+    if (openedEntryNames.put(name, Boolean.TRUE) != null) {
+      throw new ZipException("duplicate entry: " + name);
+    }
+    return new EntryOutputStream(name);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    List<DeflatedEntry> sortedEntries = new ArrayList<DeflatedEntry>(entries.values());
+    entries.clear();
+    Collections.sort(sortedEntries);
+
+    try {
+      // An archive without entries is left empty, as OutputZipFile does
+      if (!sortedEntries.isEmpty()) {
+        writeArchive(sortedEntries);
+      }
+    } finally {
+      try {
+        os.close();
+      } finally {
+        for (DeflatedEntry entry : sortedEntries) {
+          entry.data.delete();
+        }
+      }
+    }
+  }
+
+  @Override
+  @Nonnull
+  public Location getLocation() {
+    return file.getLocation();
+  }
+
+  private void writeArchive(@Nonnull List<DeflatedEntry> sortedEntries) throws IOException {
+    if (sortedEntries.size() > MAX_ENTRY_COUNT) {
+      throw new ZipException("too many entries: " + sortedEntries.size());
+    }
+
+    CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(os));
+    long[] localHeaderOffsets = new long[sortedEntries.size()];
+    int index = 0;
+    for (DeflatedEntry entry : sortedEntries) {
+      localHeaderOffsets[index++] = checkSize(out.getCount());
+      writeInt(out, LOCAL_HEADER_SIGNATURE);
+      writeShort(out, VERSION);
+      writeEntryDescription(out, entry);
+      writeShort(out, 0); // extra field length
+      out.write(entry.encodedName);
+      entry.data.writeTo(out);
+    }
+
+    long centralDirectoryOffset = checkSize(out.getCount());
+    index = 0;
+    for (DeflatedEntry entry : sortedEntries) {
+      writeInt(out, CENTRAL_HEADER_SIGNATURE);
+      writeShort(out, VERSION); // version made by
+      writeShort(out, VERSION); // version needed to extract
+      writeEntryDescription(out, entry);
+      writeShort(out, 0); // extra field length
+      writeShort(out, 0); // comment length
+      writeShort(out, 0); // disk number start
+      writeShort(out, 0); // internal attributes
+      writeInt(out, 0); // external attributes
+      writeInt(out, localHeaderOffsets[index++]);
+      out.write(entry.encodedName);
+    }
+    long centralDirectorySize = checkSize(out.getCount() - centralDirectoryOffset);
+
+    writeInt(out, END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+    writeShort(out, 0); // number of this disk
+    writeShort(out, 0); // disk where central directory starts
+    writeShort(out, sortedEntries.size());
+    writeShort(out, sortedEntries.size());
+    writeInt(out, centralDirectorySize);
+    writeInt(out, centralDirectoryOffset);
+    writeShort(out, 0); // comment length
+    out.flush();
+  }
+
+  /**
+   * Writes the part of the description of an entry shared by its local and central headers, from
+   * the general purpose flags to the file name length.
+   */
+  private static void writeEntryDescription(@Nonnull OutputStream out,
+      @Nonnull DeflatedEntry entry) throws IOException {
+    writeShort(out, UTF_8_FLAG);
+    writeShort(out, ZipEntry.DEFLATED);
+    writeShort(out, DOS_TIME);
+    writeShort(out, DOS_DATE);
+    writeInt(out, entry.crc);
+    writeInt(out, checkSize(entry.compressedSize));
+    writeInt(out, checkSize(entry.size));
+    writeShort(out, entry.encodedName.length);
+  }
+
+  private static long checkSize(long size) throws ZipException {
+    if (size > MAX_SIZE) {
+      throw new ZipException("archive too large, zip64 is not supported");
+    }
+    return size;
+  }
+
+  private static void writeShort(@Nonnull OutputStream out, int value) throws IOException {
+    out.write(value & 0xFF);
+    out.write((value >>> 8) & 0xFF);
+  }
+
+  private static void writeInt(@Nonnull OutputStream out, long value) throws IOException {
+    writeShort(out, (int) (value & 0xFFFF));
+    writeShort(out, (int) ((value >>> 16) & 0xFFFF));
+  }
+
+  private static class DeflatedEntry implements Comparable<DeflatedEntry> {
+    @Nonnull
+    private final String name;
+    @Nonnull
+    private final byte[] encodedName;
+    private final long crc;
+    private final long size;
+    private final long compressedSize;
+    @Nonnull
+    private final EntryData data;
+
+    public DeflatedEntry(@Nonnull String name, long crc, long size, long compressedSize,
+        @Nonnull EntryData data) {
+      this.name = name;
+      this.encodedName = name.getBytes(UTF_8);
+      this.crc = crc;
+      this.size = size;
+      this.compressedSize = compressedSize;
+      this.data = data;
+    }
+
+    @Override
+    public int compareTo(@Nonnull DeflatedEntry other) {
+      return name.compareTo(other.name);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof DeflatedEntry && name.equals(((DeflatedEntry) obj).name);
+    }
+
+    @Override
+    public int hashCode() {
+      return name.hashCode();
+    }
+  }
+
+  /**
+   * Compresses the content of an entry, the entry is added to the archive once closed.
+   */
+  private class EntryOutputStream extends DeflaterOutputStream {
+    @Nonnull
+    private final String name;
+    @Nonnull
+    private final CRC32 crc = new CRC32();
+    private boolean closed = false;
+
+    public EntryOutputStream(@Nonnull String name) {
+      super(new EntryData(), new Deflater(Deflater.DEFAULT_COMPRESSION, true /* nowrap */));
+      this.name = name;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      super.write(b, off, len);
+      crc.update(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+
+      EntryData data = (EntryData) out;
+      try {
+        finish();
+        entries.put(name, new DeflatedEntry(
+            name, crc.getValue(), def.getBytesRead(), def.getBytesWritten(), data));
+      } catch (IOException e) {
+        data.delete();
+        throw e;
+      } finally {
+        def.end();
+        data.close();
+      }
+    }
+  }
+
+  /**
+   * Compressed data of an entry, kept in memory until it reaches {@link #SPILL_THRESHOLD}.
+   */
+  private static class EntryData extends OutputStream {
+    @CheckForNull
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    @CheckForNull
+    private File spillFile;
+    @CheckForNull
+    private OutputStream spillStream;
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (buffer != null && buffer.size() + len > SPILL_THRESHOLD) {
+        spillFile = File.createTempFile("zip-entry", null);
+        spillStream = new BufferedOutputStream(new FileOutputStream(spillFile));
+        buffer.writeTo(spillStream);
+        buffer = null;
+      }
+
+      if (buffer != null) {
+        buffer.write(b, off, len);
+      } else {
+        assert spillStream != null;
+        spillStream.write(b, off, len);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (spillStream != null) {
+        spillStream.close();
+        spillStream = null;
+      }
+    }
+
+    void writeTo(@Nonnull OutputStream out) throws IOException {
+      if (buffer != null) {
+        buffer.writeTo(out);
+      } else {
+        assert spillFile != null;
+        InputStream is = new FileInputStream(spillFile);
+        try {
+          new ByteStreamSucker(is, out).suck();
+        } finally {
+          is.close();
+        }
+      }
+    }
+
+    void delete() {
+      buffer = null;
+      if (spillFile != null) {
+        if (!spillFile.delete()) {
+          spillFile.deleteOnExit();
+        }
+        spillFile = null;
+      }
+    }
+  }
+
+  private static class CountingOutputStream extends OutputStream {
+    @Nonnull
+    private final OutputStream out;
+    private long count = 0;
+
+    public CountingOutputStream(@Nonnull OutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    long getCount() {
+      return count;
+    }
+  }
+}
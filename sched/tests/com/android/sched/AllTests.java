@@ -24,6 +24,7 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses(value = {
     com.android.sched.item.AllTests.class, com.android.sched.marker.AllTests.class,
     com.android.sched.scheduler.AllTests.class, com.android.sched.config.AllTests.class,
-    com.android.sched.util.config.cli.AllTests.class, com.android.sched.util.file.AllTests.class})
+    com.android.sched.util.config.cli.AllTests.class, com.android.sched.util.file.AllTests.class,
+    com.android.sched.util.log.tracer.AllTests.class, com.android.sched.vfs.AllTests.class})
 public class AllTests {
 }
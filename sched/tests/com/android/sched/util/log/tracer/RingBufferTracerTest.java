@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2015 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.util.log.tracer;
+
+import com.android.sched.util.file.Directory;
+import com.android.sched.util.file.FileOrDirectory.ChangePermission;
+import com.android.sched.util.file.FileOrDirectory.Existence;
+import com.android.sched.util.file.FileOrDirectory.Permission;
+import com.android.sched.util.log.Event;
+import com.android.sched.util.log.EventType;
+import com.android.sched.util.log.stats.Counter;
+import com.android.sched.util.log.stats.CounterImpl;
+import com.android.sched.util.log.stats.Statistic;
+import com.android.sched.util.log.stats.StatisticId;
+import com.android.sched.util.log.tracer.AbstractTracer.Children;
+import com.android.sched.util.log.tracer.probe.EventCountProbe;
+import com.android.sched.util.log.tracer.probe.WallClockProbe;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+public class RingBufferTracerTest {
+
+  @Nonnull
+  private static final StatisticId<Counter> COUNTER = new StatisticId<Counter>(
+      "sched.test.ring.counter", "Counter of the ring buffer tracer test",
+      CounterImpl.class, Counter.class);
+
+  @Test
+  public void testNestedEvents() throws IOException {
+    RingBufferTracer tracer = new RingBufferTracer(16, 1);
+    Event outer = tracer.start("outer");
+    Event inner = tracer.start("inner");
+    Assert.assertEquals("inner", tracer.getCurrentEventType().getName());
+    inner.end();
+    Assert.assertEquals("outer", tracer.getCurrentEventType().getName());
+    outer.end();
+
+    String trace = export(tracer);
+    Assert.assertEquals(2, count(trace, "\"ph\":\"B\""));
+    Assert.assertEquals(2, count(trace, "\"ph\":\"E\""));
+    Assert.assertTrue(trace.indexOf("\"name\":\"outer\"") < trace.indexOf("\"name\":\"inner\""));
+    Assert.assertTrue(trace.contains("\"dropped\":\"0\""));
+  }
+
+  @Test
+  public void testWrapAround() throws IOException {
+    RingBufferTracer tracer = new RingBufferTracer(4, 1);
+    Event root = tracer.start("root");
+    for (int i = 0; i < 3; i++) {
+      tracer.start("child").end();
+    }
+    root.end();
+
+    // Only the last four records are kept: the end of the first child and the end of the root
+    // can not be matched anymore
+    String trace = export(tracer);
+    Assert.assertEquals(1, count(trace, "\"ph\":\"B\""));
+    Assert.assertEquals(1, count(trace, "\"ph\":\"E\""));
+    Assert.assertFalse(trace.contains("\"name\":\"root\""));
+    Assert.assertTrue(trace.contains("\"dropped\":\"4\""));
+  }
+
+  @Test
+  public void testSampling() throws IOException {
+    RingBufferTracer tracer = new RingBufferTracer(64, 3);
+    for (int i = 0; i < 6; i++) {
+      Event root = tracer.start("root");
+      tracer.start("child").end();
+      root.end();
+    }
+
+    String trace = export(tracer);
+    Assert.assertEquals(4, count(trace, "\"ph\":\"B\""));
+    Assert.assertEquals(4, count(trace, "\"ph\":\"E\""));
+  }
+
+  @Test
+  public void testWallClockTimes() throws Exception {
+    RingBufferTracer tracer = new RingBufferTracer(64, 1);
+    Event root = tracer.start("root");
+    for (int i = 0; i < 2; i++) {
+      Event child = tracer.start("child");
+      tracer.start("child").end();
+      child.end();
+    }
+    root.end();
+
+    ReportFtl report = newReport(tracer);
+    tracer.addWallClockTimes(report);
+    EventType rootType = tracer.getDynamicEventType("root");
+    EventType childType = tracer.getDynamicEventType("child");
+
+    ReportFtl.Total rootTotal = report.getTotal(rootType);
+    Assert.assertEquals(Collections.singleton(childType), rootTotal.children);
+    Assert.assertEquals(1, rootTotal.withChildrenValue[0].getCount());
+    ReportFtl.Total childTotal = report.getTotal(childType);
+    Assert.assertEquals(Collections.singleton(childType), childTotal.children);
+    Assert.assertEquals(4, childTotal.withoutChildrenValue[0].getCount());
+
+    // The time of the nested children is only counted once with children
+    Assert.assertEquals(rootTotal.withChildrenValue[0].getTotal(),
+        rootTotal.withoutChildrenValue[0].getTotal() + childTotal.withChildrenValue[0].getTotal(),
+        0);
+    Assert.assertEquals(childTotal.withChildrenValue[0].getTotal(),
+        childTotal.withoutChildrenValue[0].getTotal(), 0);
+  }
+
+  @Test
+  public void testStatisticsByType() {
+    RingBufferTracer tracer = new RingBufferTracer(16, 1);
+    Event root = tracer.start("root");
+    tracer.getStatistic(COUNTER).incValue();
+    Event child = tracer.start("child");
+    tracer.getStatistic(COUNTER).incValue(2);
+    child.end();
+    root.end();
+
+    Map<EventType, Map<StatisticId<? extends Statistic>, Statistic>[]> statistics =
+        tracer.getStatisticsByType();
+    Map<StatisticId<? extends Statistic>, Statistic>[] rootStatistics =
+        statistics.get(tracer.getDynamicEventType("root"));
+    Assert.assertEquals(1, getValue(rootStatistics, Children.WITHOUT));
+    Assert.assertEquals(3, getValue(rootStatistics, Children.WITH));
+    Map<StatisticId<? extends Statistic>, Statistic>[] childStatistics =
+        statistics.get(tracer.getDynamicEventType("child"));
+    Assert.assertEquals(2, getValue(childStatistics, Children.WITHOUT));
+    Assert.assertEquals(2, getValue(childStatistics, Children.WITH));
+  }
+
+  @Test
+  public void testEventValues() {
+    RingBufferTracer tracer = new RingBufferTracer(16, 1);
+    WallClockProbe wallClock = new WallClockProbe();
+    long before = System.nanoTime();
+    Event root = tracer.start("root");
+    long start = root.getStartValue(wallClock);
+    Assert.assertTrue(start >= before);
+    Assert.assertTrue(root.getElapsedValue(wallClock) <= System.nanoTime() - start);
+    Assert.assertEquals(0, root.getElapsedValue(new EventCountProbe()));
+    root.end();
+    Assert.assertEquals(0, root.getStartValue(wallClock));
+  }
+
+  private static long getValue(@Nonnull Map<StatisticId<? extends Statistic>, Statistic>[] byKind,
+      @Nonnull Children kind) {
+    return ((Counter) byKind[kind.ordinal()].get(COUNTER)).getValue();
+  }
+
+  @Nonnull
+  private static ReportFtl newReport(@Nonnull RingBufferTracer tracer) throws Exception {
+    File dir = File.createTempFile("ring", "");
+    Assert.assertTrue(dir.delete());
+    Assert.assertTrue(dir.mkdir());
+    dir.deleteOnExit();
+
+    ProbeManagerBuilder builder = new ProbeManagerBuilder();
+    builder.add(new WallClockProbe());
+    return new ReportFtl(builder.build(),
+        new Directory(dir.getPath(), null, Existence.MUST_EXIST,
+            Permission.READ | Permission.WRITE, ChangePermission.NOCHANGE),
+        tracer.getStatisticsByType(), Collections.<StatisticId<? extends Statistic>>emptySet());
+  }
+
+  @Nonnull
+  private static String export(@Nonnull RingBufferTracer tracer) throws IOException {
+    StringWriter writer = new StringWriter();
+    tracer.exportChromeTrace(writer);
+    return writer.toString();
+  }
+
+  private static int count(@Nonnull String string, @Nonnull String pattern) {
+    int count = 0;
+    int index = string.indexOf(pattern);
+    while (index >= 0) {
+      count++;
+      index = string.indexOf(pattern, index + pattern.length());
+    }
+    return count;
+  }
+}
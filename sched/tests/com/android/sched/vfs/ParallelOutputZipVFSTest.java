@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2012 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sched.vfs;
+
+import com.android.sched.util.file.FileOrDirectory.ChangePermission;
+import com.android.sched.util.file.FileOrDirectory.Existence;
+import com.android.sched.util.file.OutputStreamFile;
+import com.android.sched.util.stream.ByteStreamSucker;
+
+import junit.framework.Assert;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import javax.annotation.Nonnull;
+
+/**
+ * JUnit tests for class {@link ParallelOutputZipVFS}.
+ */
+public class ParallelOutputZipVFSTest {
+
+  private static final int ENTRY_COUNT = 64;
+
+  private static final int THREAD_COUNT = 4;
+
+  @BeforeClass
+  public static void setUpClass() {
+    // Enable assertions
+    ParallelOutputZipVFSTest.class.getClassLoader().setDefaultAssertionStatus(true);
+  }
+
+  @Test
+  public void testConcurrentWrites() throws Exception {
+    File zip1 = createTempZip();
+    File zip2 = createTempZip();
+    try {
+      writeZip(zip1, false);
+      writeZip(zip2, true);
+
+      ZipFile zipFile = new ZipFile(zip1);
+      try {
+        List<String> names = new ArrayList<String>();
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+          ZipEntry entry = entries.nextElement();
+          String name = entry.getName();
+          names.add(name);
+          int index = Integer.parseInt(name.substring(name.lastIndexOf("file") + 4));
+          InputStream is = zipFile.getInputStream(entry);
+          try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            new ByteStreamSucker(is, content).suck();
+            Assert.assertTrue(Arrays.equals(getContent(index), content.toByteArray()));
+          } finally {
+            is.close();
+          }
+        }
+
+        Assert.assertEquals(ENTRY_COUNT, names.size());
+        List<String> sortedNames = new ArrayList<String>(names);
+        Collections.sort(sortedNames);
+        Assert.assertEquals(sortedNames, names);
+      } finally {
+        zipFile.close();
+      }
+
+      // Entries written in another order give the same archive
+      Assert.assertTrue(Arrays.equals(readFile(zip1), readFile(zip2)));
+    } finally {
+      zip1.delete();
+      zip2.delete();
+    }
+  }
+
+  @Test
+  public void testDuplicateEntry() throws Exception {
+    File zip = createTempZip();
+    try {
+      ParallelOutputZipVFS vfs = new ParallelOutputZipVFS(new OutputStreamFile(
+          zip.getPath(), null, Existence.MAY_EXIST, ChangePermission.NOCHANGE, false));
+      VPath path = new VPath("dir/file", '/');
+      vfs.getRootOutputVDir().createOutputVFile(path).openWrite().close();
+      try {
+        vfs.getRootOutputVDir().createOutputVFile(path).openWrite();
+        Assert.fail();
+      } catch (ZipException e) {
+        // expected
+      } finally {
+        vfs.close();
+      }
+    } finally {
+      zip.delete();
+    }
+  }
+
+  private static void writeZip(@Nonnull File zip, boolean reverse) throws Exception {
+    final ParallelOutputZipVFS vfs = new ParallelOutputZipVFS(new OutputStreamFile(
+        zip.getPath(), null, Existence.MAY_EXIST, ChangePermission.NOCHANGE, false));
+    ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+    try {
+      List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+      for (int i = 0; i < ENTRY_COUNT; i++) {
+        final int index = reverse ? ENTRY_COUNT - 1 - i : i;
+        tasks.add(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            VPath path = new VPath("dir" + (index % 3) + "/file" + index, '/');
+            OutputStream os = vfs.getRootOutputVDir().createOutputVFile(path).openWrite();
+            try {
+              byte[] content = getContent(index);
+              // Write in several chunks to interleave writes of concurrent entries
+              int chunk = content.length / 4 + 1;
+              for (int offset = 0; offset < content.length; offset += chunk) {
+                os.write(content, offset, Math.min(chunk, content.length - offset));
+              }
+            } finally {
+              os.close();
+            }
+            return null;
+          }
+        });
+      }
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+      vfs.close();
+    }
+  }
+
+  /**
+   * @return the content of an entry, some entries are random data too large to be kept in memory
+   */
+  @Nonnull
+  private static byte[] getContent(int index) {
+    byte[] content;
+    if (index % 16 == 0) {
+      content = new byte[2 * 1024 * 1024 + index];
+      new Random(index).nextBytes(content);
+    } else {
+      content = new byte[index * 100];
+      for (int i = 0; i < content.length; i++) {
+        content[i] = (byte) (i % (index + 1));
+      }
+    }
+    return content;
+  }
+
+  @Nonnull
+  private static File createTempZip() throws IOException {
+    File zip = File.createTempFile("parallel", ".zip");
+    zip.deleteOnExit();
+    return zip;
+  }
+
+  @Nonnull
+  private static byte[] readFile(@Nonnull File file) throws IOException {
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    InputStream is = new FileInputStream(file);
+    try {
+      new ByteStreamSucker(is, content).suck();
+    } finally {
+      is.close();
+    }
+    return content.toByteArray();
+  }
+}